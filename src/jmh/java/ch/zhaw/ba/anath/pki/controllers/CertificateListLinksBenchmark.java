@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.controllers;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
+import ch.zhaw.ba.anath.pki.dto.CertificateListItemDto;
+import ch.zhaw.ba.anath.pki.dto.RevocationReasonDto;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
+
+/**
+ * Compare adding links to a listing of 10'000 certificates by {@code linkTo(methodOn(...))} per item with adding
+ * links from templates built once per listing.
+ *
+ * @author Rafael Ostertag
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CertificateListLinksBenchmark {
+    private static final int LISTING_SIZE = 10_000;
+
+    private List<CertificateSerial> serials;
+
+    @Setup
+    public void setUp() {
+        // Console logging would dominate the measurements
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest("GET",
+                "/certificates")));
+
+        serials = new ArrayList<>(LISTING_SIZE);
+        for (int i = 1; i <= LISTING_SIZE; i++) {
+            serials.add(CertificateSerial.valueOf(i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public List<CertificateListItemDto> linkToPerItem() {
+        final List<CertificateListItemDto> certificateListItemDtos = new ArrayList<>(LISTING_SIZE);
+        for (CertificateSerial serial : serials) {
+            final CertificateListItemDto certificateListItemDto = makeCertificateListItemDto(serial);
+            certificateListItemDto.add(linkTo(methodOn(CertificatesController.class).getCertificate
+                    (certificateListItemDto.getSerial())).withSelfRel());
+            certificateListItemDto.add(linkTo(methodOn(CertificatesController.class).getPlainPemCertificate
+                    (certificateListItemDto.getSerial())).withRel("pem"));
+            certificateListItemDto.add(linkTo(methodOn(RevocationController.class).revoke
+                    (certificateListItemDto.getSerial(), new RevocationReasonDto())).withRel("revoke"));
+            certificateListItemDtos.add(certificateListItemDto);
+        }
+        return certificateListItemDtos;
+    }
+
+    @Benchmark
+    public List<CertificateListItemDto> linkTemplates() {
+        final CertificateListItemLinks certificateListItemLinks = CertificateListItemLinks.forCurrentRequest();
+        final List<CertificateListItemDto> certificateListItemDtos = new ArrayList<>(LISTING_SIZE);
+        for (CertificateSerial serial : serials) {
+            certificateListItemDtos.add(certificateListItemLinks.addLinks(makeCertificateListItemDto(serial)));
+        }
+        return certificateListItemDtos;
+    }
+
+    private static CertificateListItemDto makeCertificateListItemDto(CertificateSerial serial) {
+        final CertificateListItemDto certificateListItemDto = new CertificateListItemDto();
+        certificateListItemDto.setSerial(serial);
+        certificateListItemDto.setSubject("subject");
+        certificateListItemDto.setUse("plain");
+        certificateListItemDto.setValid(true);
+        return certificateListItemDto;
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.core;
+
+import org.bouncycastle.asn1.pkcs.PKCSObjectIdentifiers;
+import org.bouncycastle.asn1.x509.AlgorithmIdentifier;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure creating signed certificate revocation lists of various sizes.
+ * <p>
+ * The revoked certificates are built from the test CA certificate with distinct serial numbers. They carry an empty
+ * signature, since only their serial numbers end up in the list.
+ *
+ * @author Rafael Ostertag
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CertificateRevocationListCreatorBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int entries;
+
+    private CertificateRevocationListCreator certificateRevocationListCreator;
+    private List<RevokedCertificate> revokedCertificates;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStreamReader caKey = new InputStreamReader(new FileInputStream(TestConstants.CA_KEY_FILE_NAME));
+             InputStreamReader caCert = new InputStreamReader(new FileInputStream(TestConstants.CA_CERT_FILE_NAME))) {
+            final CertificateAuthority certificateAuthority = new PEMCertificateAuthorityReader(caKey, caCert)
+                    .certificateAuthority();
+            certificateRevocationListCreator = new CertificateRevocationListCreator(new Sha512WithRsa(),
+                    certificateAuthority, new ConfigurablePeriodCRLValidity(1));
+            revokedCertificates = makeRevokedCertificates(certificateAuthority.getCertificate()
+                    .getCertificateHolder());
+        }
+    }
+
+    @Benchmark
+    public CertificateRevocationList create() {
+        return certificateRevocationListCreator.create(revokedCertificates);
+    }
+
+    private List<RevokedCertificate> makeRevokedCertificates(X509CertificateHolder template) {
+        final ContentSigner emptySignatureSigner = new EmptySignatureContentSigner();
+        final Date revocationTime = new Date();
+        final List<RevokedCertificate> result = new ArrayList<>(entries);
+        for (int i = 1; i <= entries; i++) {
+            final X509CertificateHolder certificateHolder = new X509v3CertificateBuilder(
+                    template.getIssuer(),
+                    BigInteger.valueOf(i),
+                    template.getNotBefore(),
+                    template.getNotAfter(),
+                    template.getSubject(),
+                    template.getSubjectPublicKeyInfo()
+            ).build(emptySignatureSigner);
+            result.add(new RevokedCertificate(new Certificate(certificateHolder), revocationTime));
+        }
+        return result;
+    }
+
+    private static final class EmptySignatureContentSigner implements ContentSigner {
+        private static final AlgorithmIdentifier ALGORITHM_IDENTIFIER = new AlgorithmIdentifier
+                (PKCSObjectIdentifiers.sha512WithRSAEncryption);
+        private static final byte[] EMPTY_SIGNATURE = new byte[0];
+        private final OutputStream discardingOutputStream = new OutputStream() {
+            @Override
+            public void write(int b) {
+                // intentionally empty
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                // intentionally empty
+            }
+        };
+
+        @Override
+        public AlgorithmIdentifier getAlgorithmIdentifier() {
+            return ALGORITHM_IDENTIFIER;
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return discardingOutputStream;
+        }
+
+        @Override
+        public byte[] getSignature() {
+            return EMPTY_SIGNATURE;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.core;
+
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure signing a CSR with the test CA, and verifying the signature of a CSR.
+ *
+ * @author Rafael Ostertag
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CertificateSignerBenchmark {
+    private CertificateSigner certificateSigner;
+    private CertificateSigningRequest certificateSigningRequest;
+    private PKCS10CertificationRequest pkcs10CertificationRequest;
+
+    @Setup
+    public void setUp() throws IOException {
+        try (InputStreamReader caKey = new InputStreamReader(new FileInputStream(TestConstants.CA_KEY_FILE_NAME));
+             InputStreamReader caCert = new InputStreamReader(new FileInputStream(TestConstants.CA_CERT_FILE_NAME));
+             InputStreamReader csr = new InputStreamReader(new FileInputStream(TestConstants.CLIENT_CSR_FILE_NAME))) {
+            final CertificateAuthority certificateAuthority = new PEMCertificateAuthorityReader(caKey, caCert)
+                    .certificateAuthority();
+            certificateSigner = new CertificateSigner(new Sha512WithRsa(), certificateAuthority);
+            certificateSigningRequest = new PEMCertificateSigningRequestReader(csr).certificationRequest();
+            pkcs10CertificationRequest = certificateSigningRequest.getPkcs10CertificationRequest();
+        }
+    }
+
+    @Benchmark
+    public Certificate signCertificate() {
+        return certificateSigner.signCertificate(certificateSigningRequest);
+    }
+
+    @Benchmark
+    public CertificateSigningRequest verifyCertificateSigningRequest() {
+        return new CertificateSigningRequest(pkcs10CertificationRequest);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure reading and writing PEM encoded certificates, and reading PEM encoded CSRs including the verification of
+ * their signature.
+ *
+ * @author Rafael Ostertag
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PEMCertificateBenchmark {
+    private String pemEncodedCertificate;
+    private String pemEncodedCertificateSigningRequest;
+    private Certificate certificate;
+
+    @Setup
+    public void setUp() throws IOException {
+        pemEncodedCertificate = readFile(TestConstants.CA_CERT_FILE_NAME);
+        pemEncodedCertificateSigningRequest = readFile(TestConstants.CLIENT_CSR_FILE_NAME);
+        certificate = new PEMCertificateReader(new StringReader(pemEncodedCertificate)).certificate();
+    }
+
+    @Benchmark
+    public Certificate readCertificate() {
+        return new PEMCertificateReader(new StringReader(pemEncodedCertificate)).certificate();
+    }
+
+    @Benchmark
+    public String writeCertificate() {
+        final StringWriter writer = new StringWriter();
+        new PEMCertificateWriter(writer).writeCertificate(certificate);
+        return writer.toString();
+    }
+
+    @Benchmark
+    public CertificateSigningRequest readCertificateSigningRequest() {
+        return new PEMCertificateSigningRequestReader(new StringReader(pemEncodedCertificateSigningRequest))
+                .certificationRequest();
+    }
+
+    private static String readFile(String fileName) throws IOException {
+        return new String(Files.readAllBytes(Paths.get(fileName)), StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package ch.zhaw.ba.anath.pki.services;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.io.StringWriter;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Compare processing configuration templates by evaluating the template source on each invocation with processing
+ * cached, pre-parsed templates.
+ *
+ * @author Rafael Ostertag
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConfigurationTemplateBenchmark {
+    private static final String USE = "openvpn";
+    private static final String CERTIFICATE = "-----BEGIN CERTIFICATE-----\n" +
+            "MIIDXTCCAkWgAwIBAgIJAJC1HiIAZAiIMA0GCSqGSIb3DQEBCwUAMEUxCzAJBgNV\n" +
+            "BAYTAkFVMRMwEQYDVQQIDApTb21lLVN0YXRlMSEwHwYDVQQKDBhJbnRlcm5ldCBX\n" +
+            "aWRnaXRzIFB0eSBMdGQwHhcNMTgwNTA1MTIwMDAwWhcNMTkwNTA1MTIwMDAwWjBF\n" +
+            "-----END CERTIFICATE-----\n";
+    private static final String TEMPLATE = "client\n" +
+            "dev tun\n" +
+            "proto udp\n" +
+            "remote vpn.example.com 1194\n" +
+            "resolv-retry infinite\n" +
+            "nobind\n" +
+            "persist-key\n" +
+            "persist-tun\n" +
+            "remote-cert-tls server\n" +
+            "cipher AES-256-CBC\n" +
+            "verb 3\n" +
+            "<ca>\n" +
+            "${caCertificate}\n" +
+            "</ca>\n" +
+            "<cert>\n" +
+            "${userCertificate}\n" +
+            "</cert>\n";
+
+    private VelocityEngine velocityEngine;
+    private ConfigurationTemplateService configurationTemplateService;
+    private byte[] templateBytes;
+
+    @Setup
+    public void setUp() {
+        // Console logging would dominate the measurements
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        velocityEngine = new VelocityEngine();
+        velocityEngine.init();
+
+        final SecureStoreService secureStoreService = mock(SecureStoreService.class);
+        given(secureStoreService.read(eq(CertificateAuthorityService.SECURE_STORE_CA_CERTIFICATE), any()))
+                .willReturn(Optional.of(CERTIFICATE));
+        configurationTemplateService = new ConfigurationTemplateService(secureStoreService);
+        templateBytes = TEMPLATE.getBytes();
+    }
+
+    @Benchmark
+    public String evaluateUncached() {
+        final VelocityContext velocityContext = new VelocityContext();
+        velocityContext.put("caCertificate", CERTIFICATE);
+        velocityContext.put("userCertificate", CERTIFICATE);
+
+        final StringWriter writer = new StringWriter();
+        velocityEngine.evaluate(velocityContext, writer, USE, TEMPLATE);
+        return writer.toString();
+    }
+
+    @Benchmark
+    public String processCached() {
+        final StringWriter writer = new StringWriter();
+        configurationTemplateService.process(USE, templateBytes, CERTIFICATE, writer);
+        return writer.toString();
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.services;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.zhaw.ba.anath.config.properties.AnathProperties;
+import ch.zhaw.ba.anath.pki.core.TestConstants;
+import ch.zhaw.ba.anath.pki.entities.SecureEntity;
+import ch.zhaw.ba.anath.pki.repositories.SecureRepository;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Measure encrypting and decrypting the test CA private key with the secure store. The {@link SecureRepository} is
+ * backed by a map, so that only the encryption and decryption are measured.
+ *
+ * @author Rafael Ostertag
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SecureStoreServiceBenchmark {
+    private static final String ENCRYPT_KEY = "benchmark.encrypt";
+    private static final String DECRYPT_KEY = "benchmark.decrypt";
+    private SecureStoreService secureStoreService;
+    private byte[] data;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Console logging would dominate the measurements
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        final Map<String, SecureEntity> secureEntities = new ConcurrentHashMap<>();
+        final SecureRepository secureRepository = mock(SecureRepository.class);
+        given(secureRepository.findOneByKey(anyString())).willAnswer(invocation -> Optional.ofNullable(
+                secureEntities.get(invocation.getArgumentAt(0, String.class))));
+        willAnswer(invocation -> {
+            final SecureEntity secureEntity = invocation.getArgumentAt(0, SecureEntity.class);
+            secureEntities.put(secureEntity.getKey(), secureEntity);
+            return null;
+        }).given(secureRepository).save(any(SecureEntity.class));
+
+        final AnathProperties anathProperties = new AnathProperties();
+        anathProperties.setSecretKey("abcdefghijklmnopqrst1234");
+        secureStoreService = new SecureStoreService(secureRepository, anathProperties);
+
+        data = Files.readAllBytes(Paths.get(TestConstants.CA_KEY_FILE_NAME));
+        secureStoreService.put(DECRYPT_KEY, data);
+    }
+
+    @Benchmark
+    public void encrypt() {
+        secureStoreService.put(ENCRYPT_KEY, data);
+    }
+
+    @Benchmark
+    public Optional<Integer> decrypt() {
+        return secureStoreService.read(DECRYPT_KEY, buffer -> buffer.remaining());
+    }
+}
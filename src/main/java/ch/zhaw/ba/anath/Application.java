@@ -29,10 +29,13 @@
 
 package ch.zhaw.ba.anath;
 
+import ch.zhaw.ba.anath.authentication.Argon2Calibrator;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
+import java.util.Arrays;
+
 /**
  * @author Rafael Ostertag
  */
@@ -40,6 +43,11 @@ import org.springframework.scheduling.annotation.EnableScheduling;
 @EnableScheduling
 public class Application {
     public static void main(String[] args) {
+        if (Arrays.asList(args).contains(Argon2Calibrator.CALIBRATION_ARGUMENT)) {
+            Argon2Calibrator.main(args);
+            return;
+        }
+
         SpringApplication.run(Application.class, args);
     }
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.authentication;
+
+import ch.zhaw.ba.anath.config.properties.AnathProperties;
+import de.mkammerer.argon2.Argon2;
+import de.mkammerer.argon2.Argon2Helper;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Benchmarks Argon2 on the host and suggests {@link AnathProperties.Authentication.Argon2} parameters. The memory
+ * budget is split evenly between the requested number of concurrent hashes. Then the number of iterations is raised
+ * until a hash takes longer than the target latency.
+ * <p>
+ * Run with {@code java -jar anath-server.jar --calibrate-argon2 [--target-latency=<ms>] [--memory-budget=<KiB>]
+ * [--concurrency=<n>] [--parallelism=<n>]}. The application is not started in this mode.
+ *
+ * @author Rafael Ostertag
+ */
+@Slf4j
+public final class Argon2Calibrator {
+    public static final String CALIBRATION_ARGUMENT = "--calibrate-argon2";
+    static final String TARGET_LATENCY_ARGUMENT = "--target-latency=";
+    static final String MEMORY_BUDGET_ARGUMENT = "--memory-budget=";
+    static final String CONCURRENCY_ARGUMENT = "--concurrency=";
+    static final String PARALLELISM_ARGUMENT = "--parallelism=";
+    private static final String USAGE = "Usage: java -jar anath-server.jar " + CALIBRATION_ARGUMENT + " [" +
+            TARGET_LATENCY_ARGUMENT + "<ms>] [" + MEMORY_BUDGET_ARGUMENT + "<KiB>] [" + CONCURRENCY_ARGUMENT +
+            "<n>] [" + PARALLELISM_ARGUMENT + "<n>]";
+    private static final int EXIT_INVALID_ARGUMENTS = 1;
+    private static final long DEFAULT_TARGET_LATENCY = 1000L;
+    /**
+     * Argon2 requires at least 8 KiB per lane.
+     */
+    private static final int MINIMUM_MEMORY_PER_LANE = 8;
+    private final Argon2 argon2;
+
+    Argon2Calibrator(Argon2 argon2) {
+        this.argon2 = argon2;
+    }
+
+    public static void main(String[] args) {
+        final AnathProperties.Authentication.Argon2 defaults = new AnathProperties().getAuthentication().getArgon2();
+        final long targetLatency;
+        final int memoryBudget;
+        final int concurrency;
+        final int parallelism;
+        final Suggestion suggestion;
+        try {
+            targetLatency = getArgument(args, TARGET_LATENCY_ARGUMENT, DEFAULT_TARGET_LATENCY);
+            memoryBudget = (int) getArgument(args, MEMORY_BUDGET_ARGUMENT, defaults.getMemoryBudget());
+            concurrency = (int) getArgument(args, CONCURRENCY_ARGUMENT, defaults.getMemoryBudget() /
+                    defaults.getMemory());
+            parallelism = (int) getArgument(args, PARALLELISM_ARGUMENT, defaults.getParallelism());
+
+            suggestion = new Argon2Calibrator(Argon2PasswordEncoder.createInstance())
+                    .calibrate(targetLatency, memoryBudget, concurrency, parallelism);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(EXIT_INVALID_ARGUMENTS);
+            return;
+        }
+
+        System.out.println("# Suggested parameters for a target latency of " + targetLatency + " ms and "
+                + concurrency + " concurrent hashes");
+        System.out.println(suggestion.toProperties());
+    }
+
+    /**
+     * Find the Argon2 parameters.
+     *
+     * @param targetLatency maximum time in milliseconds a hash may take.
+     * @param memoryBudget  memory in KiB available to all concurrent hashes.
+     * @param concurrency   number of passwords to be hashed concurrently.
+     * @param parallelism   number of lanes of one hash.
+     *
+     * @return {@link Suggestion}.
+     */
+    Suggestion calibrate(long targetLatency, int memoryBudget, int concurrency, int parallelism) {
+        if (concurrency < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("Concurrency and parallelism must be positive");
+        }
+
+        final int memory = memoryBudget / concurrency;
+        if (memory < MINIMUM_MEMORY_PER_LANE * parallelism) {
+            throw new IllegalArgumentException("Memory budget too small for " + concurrency + " concurrent hashes " +
+                    "with parallelism " + parallelism);
+        }
+
+        log.info("Calibrate Argon2 for {} ms using {} KiB memory and parallelism {}", targetLatency, memory,
+                parallelism);
+        final int iterations = Argon2Helper.findIterations(argon2, targetLatency, memory, parallelism,
+                (currentIterations, milliseconds) -> log.info("{} iterations took {} ms", currentIterations,
+                        milliseconds));
+        return new Suggestion(Math.max(1, iterations), memory, parallelism, memoryBudget);
+    }
+
+    static long getArgument(String[] args, String name, long defaultValue) {
+        for (String arg : args) {
+            if (arg.startsWith(name)) {
+                try {
+                    return Long.parseLong(arg.substring(name.length()));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid number in argument '" + arg + "'", e);
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    @Value
+    static class Suggestion {
+        private final int iterations;
+        private final int memory;
+        private final int parallelism;
+        private final int memoryBudget;
+
+        String toProperties() {
+            return "anath.authentication.argon2.iterations=" + iterations + System.lineSeparator() +
+                    "anath.authentication.argon2.memory=" + memory + System.lineSeparator() +
+                    "anath.authentication.argon2.parallelism=" + parallelism + System.lineSeparator() +
+                    "anath.authentication.argon2.memory-budget=" + memoryBudget;
+        }
+    }
+}
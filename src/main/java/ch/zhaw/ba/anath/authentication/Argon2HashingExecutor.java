@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.authentication;
+
+import ch.zhaw.ba.anath.AnathException;
+import ch.zhaw.ba.anath.config.properties.AnathProperties;
+import ch.zhaw.ba.anath.exceptions.PasswordHashingCapacityExceededException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs Argon2 hashes on a dedicated pool. Each hash allocates {@link AnathProperties.Authentication.Argon2#getMemory()}
+ * KiB of native memory, so the pool size is derived from the memory budget, not from the number of CPUs. Callers
+ * wait for the hash. Once the bounded queue is full, hashes are rejected with
+ * {@link PasswordHashingCapacityExceededException} instead of piling up. Queue wait and hash time are exposed as public
+ * metrics.
+ *
+ * @author Rafael Ostertag
+ */
+@Slf4j
+@Component
+public class Argon2HashingExecutor implements PublicMetrics, DisposableBean {
+    static final String METRIC_PREFIX = "argon2.";
+    private static final double NANOS_PER_MILLISECOND = 1_000_000.0;
+    private final ThreadPoolExecutor executor;
+    private final LongAdder hashes = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+
+    public Argon2HashingExecutor(AnathProperties anathProperties) {
+        final AnathProperties.Authentication.Argon2 argon2Properties = anathProperties.getAuthentication().getArgon2();
+        final int concurrentHashes = Math.max(1, argon2Properties.getMemoryBudget() / argon2Properties.getMemory());
+        log.info("Hash up to {} passwords concurrently, {} waiting", concurrentHashes, argon2Properties
+                .getQueueSize());
+
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(concurrentHashes, concurrentHashes, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, argon2Properties.getQueueSize())),
+                runnable -> {
+                    final Thread thread = new Thread(runnable, "argon2-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Run a hash operation on the hashing pool and wait for its result.
+     *
+     * @param hashOperation the hash operation.
+     * @param <T>           result type.
+     *
+     * @return result of the hash operation.
+     *
+     * @throws PasswordHashingCapacityExceededException if the queue is full.
+     */
+    public <T> T execute(Supplier<T> hashOperation) {
+        final long submittedAt = System.nanoTime();
+        final Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                final long startedAt = System.nanoTime();
+                waitNanos.add(startedAt - submittedAt);
+                try {
+                    return hashOperation.get();
+                } finally {
+                    hashNanos.add(System.nanoTime() - startedAt);
+                    hashes.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejections.increment();
+            log.warn("Password hashing queue full. Reject password hashing request");
+            throw new PasswordHashingCapacityExceededException("Too many concurrent password hashing requests");
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AnathException("Interrupted while waiting for password hash", e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new AnathException("Error hashing password", cause);
+        }
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final long hashCount = hashes.sum();
+        final List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>(METRIC_PREFIX + "hashes", hashCount));
+        metrics.add(new Metric<>(METRIC_PREFIX + "rejections", rejections.sum()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "active", executor.getActiveCount()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "queue.size", executor.getQueue().size()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "queue.wait.mean", mean(waitNanos.sum(), hashCount)));
+        metrics.add(new Metric<>(METRIC_PREFIX + "hash.time.mean", mean(hashNanos.sum(), hashCount)));
+        return metrics;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return mean in milliseconds.
+     */
+    private static double mean(long totalNanos, long count) {
+        return count == 0 ? 0.0 : totalNanos / NANOS_PER_MILLISECOND / count;
+    }
+}
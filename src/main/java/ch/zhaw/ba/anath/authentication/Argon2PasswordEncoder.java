@@ -45,6 +45,7 @@ import java.nio.charset.Charset;
  */
 @Component
 public class Argon2PasswordEncoder {
+    private static final String ARGON2_TYPE_NAME = "argon2i";
     private final AnathProperties.Authentication.Argon2 argon2Properies;
 
     public Argon2PasswordEncoder(AnathProperties anathProperties) {
@@ -107,12 +108,52 @@ public class Argon2PasswordEncoder {
         return isMatching;
     }
 
+    /**
+     * Tell whether a hash has been computed with other parameters than the ones currently configured.
+     *
+     * @param hash Hash to check
+     *
+     * @return True if the password should be hashed again, false otherwise.
+     */
+    public boolean needsRehash(String hash) {
+        // $argon2i$v=19$m=128000,t=40,p=4$<salt>$<hash>
+        final String[] fields = hash.split("\\$");
+        if (fields.length != 6) {
+            return true;
+        }
+
+        if (!ARGON2_TYPE_NAME.equals(fields[1])) {
+            return true;
+        }
+
+        final String[] parameters = fields[3].split(",");
+        if (parameters.length != 3) {
+            return true;
+        }
+
+        try {
+            return getParameter(parameters[0], "m=") != argon2Properies.getMemory() ||
+                    getParameter(parameters[1], "t=") != argon2Properies.getIterations() ||
+                    getParameter(parameters[2], "p=") != argon2Properies.getParallelism();
+        } catch (IllegalArgumentException e) {
+            // Includes NumberFormatException. A hash we cannot read is replaced by one we can.
+            return true;
+        }
+    }
+
+    private static long getParameter(String parameter, String name) {
+        if (!parameter.startsWith(name)) {
+            throw new IllegalArgumentException("Expected Argon2 parameter " + name);
+        }
+        return Long.parseLong(parameter.substring(name.length()));
+    }
+
     /**
      * Create and configure an Argon2 instance
      *
      * @return The Argon2 instance
      */
-    private Argon2 createInstance() {
+    static Argon2 createInstance() {
         // Create and return the instance
         return Argon2Factory.create(Argon2Factory.Argon2Types.ARGON2i);
     }
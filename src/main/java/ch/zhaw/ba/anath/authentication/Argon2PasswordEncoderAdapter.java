@@ -35,27 +35,43 @@ import org.springframework.stereotype.Component;
 import java.nio.charset.Charset;
 
 /**
- * Adapter for {@link Argon2PasswordEncoder}.
+ * Adapter for {@link Argon2PasswordEncoder}. Hashes are computed by {@link Argon2HashingExecutor}.
  *
  * @author Rafael Ostertag
  */
 @Component("passwordEncoder")
 public class Argon2PasswordEncoderAdapter implements PasswordEncoder {
     private final Argon2PasswordEncoder argon2PasswordEncoder;
+    private final Argon2HashingExecutor argon2HashingExecutor;
     private final Charset utf8Charset;
 
-    public Argon2PasswordEncoderAdapter(Argon2PasswordEncoder argon2PasswordEncoder) {
+    public Argon2PasswordEncoderAdapter(Argon2PasswordEncoder argon2PasswordEncoder, Argon2HashingExecutor
+            argon2HashingExecutor) {
         this.argon2PasswordEncoder = argon2PasswordEncoder;
+        this.argon2HashingExecutor = argon2HashingExecutor;
         this.utf8Charset = Charset.forName("UTF-8");
     }
 
     @Override
     public String encode(CharSequence rawPassword) {
-        return argon2PasswordEncoder.hash(rawPassword.toString().toCharArray(), utf8Charset);
+        return argon2HashingExecutor.execute(() -> argon2PasswordEncoder.hash(rawPassword.toString().toCharArray(),
+                utf8Charset));
     }
 
     @Override
     public boolean matches(CharSequence rawPassword, String encodedPassword) {
-        return argon2PasswordEncoder.verify(encodedPassword, rawPassword.toString().toCharArray(), utf8Charset);
+        return argon2HashingExecutor.execute(() -> argon2PasswordEncoder.verify(encodedPassword, rawPassword.toString()
+                .toCharArray(), utf8Charset));
+    }
+
+    /**
+     * Tell whether the password has been encoded with outdated parameters.
+     *
+     * @param encodedPassword the encoded password.
+     *
+     * @return {@code true} if the password should be encoded again, {@code false} otherwise.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        return argon2PasswordEncoder.needsRehash(encodedPassword);
     }
 }
@@ -30,26 +30,26 @@
 package ch.zhaw.ba.anath.authentication.pki;
 
 import ch.zhaw.ba.anath.authentication.AnathSecurityHelper;
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
 import ch.zhaw.ba.anath.pki.dto.CertificateListItemDto;
-import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
-import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
+import ch.zhaw.ba.anath.pki.services.CertificateRequestContext;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.access.PermissionEvaluator;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.io.Serializable;
-import java.math.BigInteger;
 import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
 
 /**
+ * Evaluate permissions on certificates. {@link PermissionEvaluator}s are AOP infrastructure beans and are never
+ * proxied, thus the certificates are looked up in the read-only transaction of {@link CertificateRequestContext}.
+ *
  * @author Rafael Ostertag
  */
 @Component
-@Transactional(transactionManager = "pkiTransactionManager")
 @Slf4j
 public class CertificatePermissionEvaluator implements PermissionEvaluator {
     public static final String TARGET_TYPE = "certificate";
@@ -58,11 +58,11 @@ public class CertificatePermissionEvaluator implements PermissionEvaluator {
 
     public static final String CERTIFICATE_PERMISSION_UNKNOWN_MESSAGE = "Certificate permission '{}' unknown. Denying";
 
-    private final CertificateRepository certificateRepository;
+    private final CertificateRequestContext certificateRequestContext;
     private final Set<String> certificatePermissions;
 
-    public CertificatePermissionEvaluator(CertificateRepository certificateRepository) {
-        this.certificateRepository = certificateRepository;
+    public CertificatePermissionEvaluator(CertificateRequestContext certificateRequestContext) {
+        this.certificateRequestContext = certificateRequestContext;
 
         certificatePermissions = new HashSet<>();
         certificatePermissions.add("get");
@@ -110,9 +110,9 @@ public class CertificatePermissionEvaluator implements PermissionEvaluator {
     }
 
     private boolean handleCertificateObject(Authentication authentication, Serializable targetId, Object permission) {
-        if (!(targetId instanceof BigInteger)) {
-            log.error("Cannot evaluate permission for certificate object, target id is not of type BigInteger. " +
-                    "Denying");
+        if (!(targetId instanceof CertificateSerial)) {
+            log.error("Cannot evaluate permission for certificate object, target id is not of type " +
+                    "CertificateSerial. Denying");
             return false;
         }
         if (!(permission instanceof String)) {
@@ -120,7 +120,7 @@ public class CertificatePermissionEvaluator implements PermissionEvaluator {
             return false;
         }
 
-        BigInteger realId = (BigInteger) targetId;
+        CertificateSerial realId = (CertificateSerial) targetId;
         String realPermission = (String) permission;
 
         if (!certificatePermissions.contains(realPermission)) {
@@ -128,19 +128,18 @@ public class CertificatePermissionEvaluator implements PermissionEvaluator {
             return false;
         }
 
-        final Optional<CertificateEntity> optionalCertificateEntity = certificateRepository.findOneBySerial(realId);
-        if (!optionalCertificateEntity.isPresent()) {
+        final Optional<String> optionalUserId = certificateRequestContext.findUserIdBySerial(realId);
+        if (!optionalUserId.isPresent()) {
             log.info("Cannot evaluate permission for non-existing certificate with id {}. Denying", realId.toString());
             return false;
         }
 
-        final CertificateEntity certificateEntity = optionalCertificateEntity.get();
+        final String userId = optionalUserId.get();
         final String username = AnathSecurityHelper.getUsername(authentication);
 
-        boolean result = certificateEntity.getUserId().equals(username);
+        boolean result = userId.equals(username);
         log.info("User '{}' has {} to certificate object '{}'. {}", username, result ? "access" : "no access",
-                certificateEntity
-                        .getUserId(), result ? "Allowing" : "Denying");
+                userId, result ? "Allowing" : "Denying");
         return result;
     }
 }
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.authentication.pki;
+
+import ch.zhaw.ba.anath.config.properties.AnathProperties;
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
+import ch.zhaw.ba.anath.pki.exceptions.CertificateAuthorityNotInitializedException;
+import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
+import ch.zhaw.ba.anath.pki.services.CertificateAuthorityInitializedEvent;
+import ch.zhaw.ba.anath.pki.services.CertificateAuthorityService;
+import ch.zhaw.ba.anath.pki.services.CertificateRevocationState;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.cert.CertificateException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Authenticate client certificates issued by this Certificate Authority. A client certificate authenticates the user
+ * it has been issued to, provided it is currently valid, is signed by the Certificate Authority, and is not revoked.
+ * Certificates having an extended key usage must have the {@link KeyPurposeId#id_kp_clientAuth} key purpose.
+ * Certificates issued by previous versions have no extended key usage.
+ * <p>
+ * The CA public key and the user of a certificate are cached. The CA public key is read again when the Certificate
+ * Authority is initialized on this node. As long as the Certificate Authority is not initialized, it is read at most
+ * every {@value #CA_LOAD_RETRY_INTERVAL} milliseconds, so that a Certificate Authority initialized on another node is
+ * picked up. Revocation is checked against {@link CertificateRevocationState}.
+ * Authenticating a certificate does not hit the database, once the user of the certificate is cached.
+ *
+ * @author Rafael Ostertag
+ */
+@Component
+@Slf4j
+public class ClientCertificateAuthenticator {
+    static final long CA_LOAD_RETRY_INTERVAL = 60000;
+    private final CertificateAuthorityService certificateAuthorityService;
+    private final CertificateRepository certificateRepository;
+    private final CertificateRevocationState certificateRevocationState;
+    private final Cache<CertificateSerial, String> userIdCache;
+    private volatile PublicKey caPublicKey;
+    private long nextCaLoadAttempt = 0;
+
+    public ClientCertificateAuthenticator(CertificateAuthorityService certificateAuthorityService,
+                                          CertificateRepository certificateRepository,
+                                          CertificateRevocationState certificateRevocationState,
+                                          AnathProperties anathProperties) {
+        this.certificateAuthorityService = certificateAuthorityService;
+        this.certificateRepository = certificateRepository;
+        this.certificateRevocationState = certificateRevocationState;
+        this.userIdCache = Caffeine.newBuilder()
+                .maximumSize(anathProperties.getAuthentication().getClientCertificate().getUserCacheSize())
+                .build();
+    }
+
+    /**
+     * Authenticate a client certificate.
+     *
+     * @param certificate the client certificate.
+     *
+     * @return the user id the certificate has been issued to, or empty if the certificate does not authenticate a
+     * user.
+     */
+    public Optional<String> authenticate(X509Certificate certificate) {
+        final CertificateSerial serial;
+        try {
+            serial = CertificateSerial.of(certificate.getSerialNumber());
+        } catch (IllegalArgumentException e) {
+            log.info("Client certificate has invalid serial number: {}", e.getMessage());
+            return Optional.empty();
+        }
+
+        if (!isIssuedByCertificateAuthority(certificate, serial)) {
+            return Optional.empty();
+        }
+
+        if (certificateRevocationState.isRevoked(serial)) {
+            log.info("Client certificate with serial {} has been revoked", serial);
+            return Optional.empty();
+        }
+
+        final String userId = userIdCache.get(serial, s -> certificateRepository.findUserIdBySerial(s).orElse(null));
+        if (userId == null) {
+            log.info("Client certificate with serial {} not found", serial);
+            return Optional.empty();
+        }
+
+        return Optional.of(userId);
+    }
+
+    private boolean isIssuedByCertificateAuthority(X509Certificate certificate, CertificateSerial serial) {
+        try {
+            certificate.checkValidity();
+            if (!hasClientAuthKeyPurpose(certificate)) {
+                log.info("Client certificate with serial {} rejected: not intended for client authentication",
+                        serial);
+                return false;
+            }
+        } catch (GeneralSecurityException e) {
+            log.info("Client certificate with serial {} rejected: {}", serial, e.getMessage());
+            return false;
+        }
+
+        final PublicKey cachedPublicKey = caPublicKey;
+        final PublicKey publicKey = cachedPublicKey != null ? cachedPublicKey : loadCaPublicKey();
+        // A certificate not verifying does not cause the CA public key to be read again. Otherwise, any client
+        // could force the secure store to be read on each request.
+        return publicKey != null && verify(certificate, serial, publicKey);
+    }
+
+    /**
+     * Read the CA public key again, once the Certificate Authority has been initialized on this node.
+     *
+     * @param event the {@link CertificateAuthorityInitializedEvent}.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void processCertificateAuthorityInitializedEvent(CertificateAuthorityInitializedEvent event) {
+        synchronized (this) {
+            caPublicKey = null;
+            nextCaLoadAttempt = 0;
+        }
+        userIdCache.invalidateAll();
+    }
+
+    private static boolean hasClientAuthKeyPurpose(X509Certificate certificate) throws CertificateException {
+        final List<String> extendedKeyUsage = certificate.getExtendedKeyUsage();
+        return extendedKeyUsage == null || extendedKeyUsage.contains(KeyPurposeId.id_kp_clientAuth.getId());
+    }
+
+    private static boolean verify(X509Certificate certificate, CertificateSerial serial, PublicKey publicKey) {
+        try {
+            certificate.verify(publicKey);
+            return true;
+        } catch (GeneralSecurityException e) {
+            log.info("Client certificate with serial {} rejected: {}", serial, e.getMessage());
+            return false;
+        }
+    }
+
+    private synchronized PublicKey loadCaPublicKey() {
+        if (caPublicKey != null) {
+            return caPublicKey;
+        }
+        final long now = System.currentTimeMillis();
+        if (now < nextCaLoadAttempt) {
+            return null;
+        }
+        nextCaLoadAttempt = now + CA_LOAD_RETRY_INTERVAL;
+
+        try {
+            final CertificateFactory certificateFactory = CertificateFactory.getInstance("X.509");
+            final byte[] pemCertificate = certificateAuthorityService.getCertificate()
+                    .getBytes(StandardCharsets.US_ASCII);
+            final PublicKey publicKey = certificateFactory
+                    .generateCertificate(new ByteArrayInputStream(pemCertificate))
+                    .getPublicKey();
+            caPublicKey = publicKey;
+            return publicKey;
+        } catch (CertificateAuthorityNotInitializedException e) {
+            log.info("Cannot authenticate client certificate: Certificate Authority not initialized");
+            return null;
+        } catch (CertificateException e) {
+            log.error("Cannot read Certificate Authority certificate: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -33,7 +33,6 @@ import ch.zhaw.ba.anath.users.entities.UserEntity;
 import ch.zhaw.ba.anath.users.repositories.UserRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -69,6 +68,20 @@ public class AnathUserDetailService implements UserDetailsService {
         return userEntityToUser(userEntity);
     }
 
+    /**
+     * Replace the encoded password of a user, unless it has been changed in the meantime.
+     *
+     * @param username         name of the user.
+     * @param previousPassword the encoded password expected to be stored.
+     * @param password         the new encoded password.
+     */
+    public void updatePassword(String username, String previousPassword, String password) {
+        // The comparison is part of the update statement, so that a concurrent password change is not overwritten.
+        if (userRepository.updatePassword(username, previousPassword, password) == 0) {
+            log.info("Password of user '{}' changed in the meantime, not replacing it", username);
+        }
+    }
+
     private UserDetails userEntityToUser(UserEntity userEntity) {
         Set<SimpleGrantedAuthority> grantedAuthorities = new HashSet<>();
 
@@ -78,8 +91,10 @@ public class AnathUserDetailService implements UserDetailsService {
             grantedAuthorities.add(new SimpleGrantedAuthority("ROLE_USER"));
         }
 
-        return new User(userEntity.getEmail(),
+        return new VersionedUser(userEntity.getEmail(),
                 userEntity.getPassword(),
-                Collections.unmodifiableSet(grantedAuthorities));
+                Collections.unmodifiableSet(grantedAuthorities),
+                userEntity.getId(),
+                userEntity.getVersion());
     }
 }
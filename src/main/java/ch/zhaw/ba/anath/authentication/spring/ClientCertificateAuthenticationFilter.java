@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.authentication.spring;
+
+import ch.zhaw.ba.anath.authentication.pki.ClientCertificateAuthenticator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Spring security filter authenticating requests by the TLS client certificate, as verified by
+ * {@link ClientCertificateAuthenticator}. Requests already authenticated, e.g. by a JWT, are left untouched.
+ * <p>
+ * Client certificates authenticate the user they have been issued to with role {@code ROLE_USER}, regardless of the
+ * user's admin flag.
+ *
+ * @author Rafael Ostertag
+ */
+@Slf4j
+public class ClientCertificateAuthenticationFilter extends OncePerRequestFilter {
+    static final String X509_CERTIFICATE_ATTRIBUTE = "javax.servlet.request.X509Certificate";
+    private static final List<GrantedAuthority> AUTHORITIES = Collections.singletonList(new
+            SimpleGrantedAuthority("ROLE_USER"));
+
+    private final ClientCertificateAuthenticator clientCertificateAuthenticator;
+
+    public ClientCertificateAuthenticationFilter(ClientCertificateAuthenticator clientCertificateAuthenticator) {
+        this.clientCertificateAuthenticator = clientCertificateAuthenticator;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        final Object certificates = request.getAttribute(X509_CERTIFICATE_ATTRIBUTE);
+        if (certificates instanceof X509Certificate[] && ((X509Certificate[]) certificates).length > 0 &&
+                SecurityContextHolder.getContext().getAuthentication() == null) {
+            final X509Certificate clientCertificate = ((X509Certificate[]) certificates)[0];
+            final Optional<String> userId = clientCertificateAuthenticator.authenticate(clientCertificate);
+            userId.ifPresent(user -> {
+                log.debug("Authenticated user '{}' by client certificate", user);
+                SecurityContextHolder.getContext().setAuthentication(new PreAuthenticatedAuthenticationToken(new
+                        User(user, "", AUTHORITIES), clientCertificate, AUTHORITIES));
+            });
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
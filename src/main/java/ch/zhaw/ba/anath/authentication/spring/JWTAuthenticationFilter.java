@@ -33,13 +33,15 @@ import ch.zhaw.ba.anath.authentication.AnathSecurityHelper;
 import ch.zhaw.ba.anath.authentication.LoginDto;
 import ch.zhaw.ba.anath.config.properties.AnathProperties;
 import ch.zhaw.ba.anath.exceptions.AnathAuthenticationException;
+import ch.zhaw.ba.anath.exceptions.PasswordHashingCapacityExceededException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
@@ -49,9 +51,12 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
 
 /**
- * Spring security authentication filter. Takes care of issuing JWT.
+ * Spring security authentication filter. Takes care of issuing JWT. The JWT carries the roles, the id, and the version
+ * of the user, so that {@link JWTAuthorizationFilter} does not have to look up the user.
  *
  * @author Rafael Ostertag
  */
@@ -83,6 +88,10 @@ public class JWTAuthenticationFilter extends UsernamePasswordAuthenticationFilte
             );
         } catch (IOException e) {
             throw new AnathAuthenticationException("Cannot read document", e);
+        } catch (PasswordHashingCapacityExceededException e) {
+            // Not an authentication failure. Returning null ends the request with the status set.
+            res.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            return null;
         }
     }
 
@@ -95,9 +104,18 @@ public class JWTAuthenticationFilter extends UsernamePasswordAuthenticationFilte
         final long expirationTime = convertMinutesToMillis(jwtProperties.getExpirationTime());
 
         final byte[] secret = AnathSecurityHelper.getJwtSecretAsByteArrayOrThrow(jwtProperties);
+        final VersionedUser user = (VersionedUser) auth.getPrincipal();
+        final List<String> roles = user.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList());
+        final long now = System.currentTimeMillis();
         String token = Jwts.builder()
-                .setSubject(((User) auth.getPrincipal()).getUsername())
-                .setExpiration(new Date(System.currentTimeMillis() + expirationTime))
+                .setSubject(user.getUsername())
+                .claim(JWTConstants.ROLES_CLAIM, roles)
+                .claim(JWTConstants.USER_ID_CLAIM, user.getUserId())
+                .claim(JWTConstants.VERSION_CLAIM, user.getVersion())
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + expirationTime))
                 .signWith(SignatureAlgorithm.HS512, secret)
                 .compact();
         res.addHeader(JWTConstants.JWT_HEADER, JWTConstants.TOKEN_PREFIX + token);
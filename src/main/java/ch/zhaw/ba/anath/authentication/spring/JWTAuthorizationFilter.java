@@ -29,17 +29,18 @@
 
 package ch.zhaw.ba.anath.authentication.spring;
 
-import ch.zhaw.ba.anath.authentication.AnathSecurityHelper;
-import ch.zhaw.ba.anath.config.properties.AnathProperties;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
-import io.jsonwebtoken.Jwts;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 import javax.servlet.FilterChain;
@@ -47,21 +48,29 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
+ * Spring security authorization filter. Authenticates requests using the roles embedded in the JWT, as verified by
+ * {@link JWTVerifier}. The user database is only consulted if {@link UserVersionCache} cannot tell whether the JWT is
+ * current.
+ *
  * @author Rafael Ostertag
  */
 @Slf4j
 public class JWTAuthorizationFilter extends BasicAuthenticationFilter {
     private final UserDetailsService userDetailsService;
-    private final AnathProperties.Authentication.JWT jwtProperties;
+    private final UserVersionCache userVersionCache;
+    private final JWTVerifier jwtVerifier;
 
     public JWTAuthorizationFilter(AuthenticationManager authManager, UserDetailsService userDetailsService,
-                                  AnathProperties anathProperties) {
+                                  UserVersionCache userVersionCache, JWTVerifier jwtVerifier) {
         super(authManager);
         this.userDetailsService = userDetailsService;
-        this.jwtProperties = anathProperties.getAuthentication().getJwt();
+        this.userVersionCache = userVersionCache;
+        this.jwtVerifier = jwtVerifier;
     }
 
     @Override
@@ -75,35 +84,81 @@ public class JWTAuthorizationFilter extends BasicAuthenticationFilter {
             return;
         }
 
-        Optional<UsernamePasswordAuthenticationToken> authentication = getAuthentication(req);
+        Optional<UsernamePasswordAuthenticationToken> authentication = getAuthentication(header.substring
+                (JWTConstants.TOKEN_PREFIX.length()));
         authentication.ifPresent(x -> SecurityContextHolder.getContext().setAuthentication(x));
 
         chain.doFilter(req, res);
     }
 
-    private Optional<UsernamePasswordAuthenticationToken> getAuthentication(HttpServletRequest request) {
-        String token = request.getHeader(JWTConstants.JWT_HEADER);
-        if (token != null) {
-            final byte[] secret = AnathSecurityHelper.getJwtSecretAsByteArrayOrThrow(jwtProperties);
-            try {
-                String user = Jwts.parser()
-                        .setSigningKey(secret)
-                        .parseClaimsJws(token.replace(JWTConstants.TOKEN_PREFIX, ""))
-                        .getBody()
-                        .getSubject();
-
-                if (user != null) {
-                    final UserDetails userDetails = userDetailsService.loadUserByUsername(user);
-                    return Optional.of(new UsernamePasswordAuthenticationToken(userDetails, "",
-                            userDetails.getAuthorities()));
-                }
-            } catch (ExpiredJwtException e) {
-                log.error("The JWT presented is expired", e);
-            } catch (JwtException e) {
-                log.error("JWT exception: {}", e.getMessage());
+    private Optional<UsernamePasswordAuthenticationToken> getAuthentication(String token) {
+        try {
+            final Claims claims = jwtVerifier.verify(token);
+            String user = claims.getSubject();
+
+            if (user != null) {
+                return getAuthentication(user, claims);
             }
-            return Optional.empty();
+        } catch (ExpiredJwtException e) {
+            log.error("The JWT presented is expired", e);
+        } catch (JwtException e) {
+            log.error("JWT exception: {}", e.getMessage());
         }
         return Optional.empty();
     }
+
+    private Optional<UsernamePasswordAuthenticationToken> getAuthentication(String user, Claims claims) {
+        final Object roles = claims.get(JWTConstants.ROLES_CLAIM);
+        final Object userId = claims.get(JWTConstants.USER_ID_CLAIM);
+        final Object version = claims.get(JWTConstants.VERSION_CLAIM);
+        if (!(roles instanceof List) || !(userId instanceof Number) || !(version instanceof Number)) {
+            log.info("JWT of user '{}' carries no roles, user id, or version. Load user from user database", user);
+            return loadUser(user).map(JWTAuthorizationFilter::makeAuthenticationToken);
+        }
+
+        final long tokenUserId = ((Number) userId).longValue();
+        final long tokenVersion = ((Number) version).longValue();
+        switch (userVersionCache.check(user, tokenUserId, tokenVersion, claims.getIssuedAt())) {
+            case CURRENT:
+                final List<SimpleGrantedAuthority> authorities = ((List<?>) roles).stream()
+                        .map(x -> new SimpleGrantedAuthority(x.toString()))
+                        .collect(Collectors.toList());
+                return Optional.of(new UsernamePasswordAuthenticationToken(new User(user, "", authorities), "",
+                        authorities));
+            case REVALIDATE:
+                return revalidate(user, tokenUserId, tokenVersion);
+            default:
+                log.info("JWT of user '{}' is stale", user);
+                return Optional.empty();
+        }
+    }
+
+    private Optional<UsernamePasswordAuthenticationToken> revalidate(String user, long tokenUserId, long
+            tokenVersion) {
+        log.info("Revalidate version of JWT of user '{}'", user);
+        final Optional<UserDetails> userDetails = loadUser(user);
+        if (!userDetails.isPresent()) {
+            return Optional.empty();
+        }
+
+        final VersionedUser currentUser = (VersionedUser) userDetails.get();
+        userVersionCache.versionConfirmed(user, currentUser.getUserId(), currentUser.getVersion());
+        if (currentUser.getUserId() != tokenUserId || currentUser.getVersion() != tokenVersion) {
+            log.info("JWT of user '{}' is stale", user);
+            return Optional.empty();
+        }
+        return userDetails.map(JWTAuthorizationFilter::makeAuthenticationToken);
+    }
+
+    private Optional<UserDetails> loadUser(String user) {
+        try {
+            return Optional.of(userDetailsService.loadUserByUsername(user));
+        } catch (UsernameNotFoundException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static UsernamePasswordAuthenticationToken makeAuthenticationToken(UserDetails userDetails) {
+        return new UsernamePasswordAuthenticationToken(userDetails, "", userDetails.getAuthorities());
+    }
 }
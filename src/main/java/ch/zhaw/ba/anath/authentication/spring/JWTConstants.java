@@ -35,6 +35,9 @@ package ch.zhaw.ba.anath.authentication.spring;
 public final class JWTConstants {
     public static final String JWT_HEADER = "Authorization";
     public static final String TOKEN_PREFIX = "Bearer ";
+    public static final String ROLES_CLAIM = "roles";
+    public static final String VERSION_CLAIM = "ver";
+    public static final String USER_ID_CLAIM = "uid";
 
     private JWTConstants() {
         // intentionally empty
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.authentication.spring;
+
+import ch.zhaw.ba.anath.authentication.AnathSecurityHelper;
+import ch.zhaw.ba.anath.config.properties.AnathProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Verify JWT and remember the claims of verified JWT until they expire, so that a JWT presented repeatedly is
+ * verified only once. Claims are keyed by the SHA-256 digest of the JWT, so that the cache does not retain bearer
+ * tokens. Cache statistics are exposed as public metrics.
+ *
+ * @author Rafael Ostertag
+ */
+@Slf4j
+@Component
+public class JWTVerifier implements PublicMetrics {
+    static final String METRIC_PREFIX = "cache.jwt.";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private final AnathProperties.Authentication.JWT jwtProperties;
+    private final JwtParser jwtParser;
+    private final Cache<ByteBuffer, Claims> cache;
+
+    public JWTVerifier(AnathProperties anathProperties) {
+        this.jwtProperties = anathProperties.getAuthentication().getJwt();
+        // A missing secret is reported when the first JWT is verified.
+        this.jwtParser = jwtProperties.getSecret() == null ? null : Jwts.parser()
+                .setSigningKey(AnathSecurityHelper.getJwtSecretAsByteArrayOrThrow(jwtProperties));
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(jwtProperties.getVerifiedTokenCacheSize())
+                // No JWT issued outlives the expiration time. Claims are nevertheless checked for expiry on each hit.
+                .expireAfterWrite(jwtProperties.getExpirationTime(), TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Verify the signature and expiry of a JWT.
+     *
+     * @param token the compact JWT, without {@link JWTConstants#TOKEN_PREFIX}.
+     *
+     * @return the {@link Claims} of the JWT.
+     *
+     * @throws io.jsonwebtoken.JwtException if the JWT is invalid or expired.
+     */
+    public Claims verify(String token) {
+        // Compact JWT are base64url encoded. Other characters would be replaced when encoding the token for the
+        // digest, and let distinct tokens share a cache entry.
+        if (!isAscii(token)) {
+            throw new MalformedJwtException("JWT contains non-ASCII characters");
+        }
+
+        final ByteBuffer key = digest(token);
+        final Claims cachedClaims = cache.getIfPresent(key);
+        if (cachedClaims != null) {
+            if (!isExpired(cachedClaims)) {
+                return cachedClaims;
+            }
+
+            cache.invalidate(key);
+            throw new ExpiredJwtException(null, cachedClaims, "JWT expired at " + cachedClaims.getExpiration());
+        }
+
+        final Claims claims = getJwtParser().parseClaimsJws(token).getBody();
+        cache.put(key, claims);
+        return claims;
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final CacheStats stats = cache.stats();
+        final List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>(METRIC_PREFIX + "size", cache.estimatedSize()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "hits", stats.hitCount()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "misses", stats.missCount()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "evictions", stats.evictionCount()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "hit.ratio", stats.hitRate()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "miss.ratio", stats.missRate()));
+        return metrics;
+    }
+
+    private JwtParser getJwtParser() {
+        if (jwtParser == null) {
+            AnathSecurityHelper.getJwtSecretAsByteArrayOrThrow(jwtProperties);
+        }
+        return jwtParser;
+    }
+
+    private static boolean isAscii(String token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (token.charAt(i) > 0x7f) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isExpired(Claims claims) {
+        final Date expiration = claims.getExpiration();
+        return expiration != null && expiration.getTime() <= System.currentTimeMillis();
+    }
+
+    private static ByteBuffer digest(String token) {
+        try {
+            final MessageDigest messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            return ByteBuffer.wrap(messageDigest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            log.error("Message digest {} not available: {}", DIGEST_ALGORITHM, e.getMessage());
+            throw new IllegalStateException("Message digest " + DIGEST_ALGORITHM + " not available", e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.authentication.spring;
+
+import ch.zhaw.ba.anath.authentication.Argon2PasswordEncoderAdapter;
+import ch.zhaw.ba.anath.exceptions.PasswordHashingCapacityExceededException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+/**
+ * Authenticates users against the user database. After a successful login, passwords hashed with outdated Argon2
+ * parameters are hashed again using the current parameters, so that the parameters can be changed without resetting
+ * passwords.
+ *
+ * @author Rafael Ostertag
+ */
+@Slf4j
+@Component
+public class RehashingAuthenticationProvider extends DaoAuthenticationProvider {
+    private final AnathUserDetailService anathUserDetailService;
+    private final Argon2PasswordEncoderAdapter argon2PasswordEncoderAdapter;
+
+    public RehashingAuthenticationProvider(AnathUserDetailService anathUserDetailService,
+                                           Argon2PasswordEncoderAdapter argon2PasswordEncoderAdapter) {
+        this.anathUserDetailService = anathUserDetailService;
+        this.argon2PasswordEncoderAdapter = argon2PasswordEncoderAdapter;
+        setUserDetailsService(anathUserDetailService);
+        setPasswordEncoder(argon2PasswordEncoderAdapter);
+    }
+
+    @Override
+    protected void additionalAuthenticationChecks(UserDetails userDetails,
+                                                  UsernamePasswordAuthenticationToken authentication) {
+        super.additionalAuthenticationChecks(userDetails, authentication);
+
+        if (!argon2PasswordEncoderAdapter.needsRehash(userDetails.getPassword())) {
+            return;
+        }
+
+        log.info("Rehash password of user '{}' using current parameters", userDetails.getUsername());
+        try {
+            final String password = argon2PasswordEncoderAdapter.encode(authentication.getCredentials().toString());
+            anathUserDetailService.updatePassword(userDetails.getUsername(), userDetails.getPassword(), password);
+        } catch (PasswordHashingCapacityExceededException e) {
+            log.info("Postpone rehashing password of user '{}': {}", userDetails.getUsername(), e.getMessage());
+        }
+    }
+}
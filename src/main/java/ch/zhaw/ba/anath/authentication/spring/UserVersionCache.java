@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.authentication.spring;
+
+import ch.zhaw.ba.anath.config.properties.AnathProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded, in-memory record of user versions. It allows {@link JWTAuthorizationFilter} to trust the roles embedded in
+ * a JWT without consulting the user database.
+ * <p>
+ * A version is recorded along the user id when a user changes. A JWT carrying a different user id or version than the
+ * recorded one is stale. The user id tells apart a user re-created under the same name, whose version starts over.
+ * When no version is recorded for a user, the JWT is trusted if it was issued after any change that might have been
+ * forgotten, i.e. after this instance was created and after the change of every evicted user. Otherwise, the version
+ * has to be revalidated against the user database.
+ *
+ * @author Rafael Ostertag
+ */
+@Component
+@Slf4j
+public class UserVersionCache {
+    private final Map<String, RecordedVersion> versions;
+    private long revalidateIssuedUntil;
+
+    public UserVersionCache(AnathProperties anathProperties) {
+        final int maximumSize = anathProperties.getAuthentication().getJwt().getUserVersionCacheSize();
+        this.revalidateIssuedUntil = System.currentTimeMillis();
+        this.versions = new LinkedHashMap<String, RecordedVersion>() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RecordedVersion> eldest) {
+                if (size() <= maximumSize) {
+                    return false;
+                }
+
+                final long changedAt = eldest.getValue().changedAt;
+                if (changedAt > UserVersionCache.this.revalidateIssuedUntil) {
+                    log.info("Evict version of user '{}'. JWT issued until {} will be revalidated",
+                            eldest.getKey(), new Date(changedAt));
+                    UserVersionCache.this.revalidateIssuedUntil = changedAt;
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Record the new version of a changed user.
+     *
+     * @param username name of the user.
+     * @param userId   id of the user.
+     * @param version  current version of the user.
+     */
+    public synchronized void versionChanged(String username, long userId, long version) {
+        versions.remove(username);
+        versions.put(username, new RecordedVersion(userId, version, System.currentTimeMillis()));
+    }
+
+    /**
+     * Record the version of a user as read from the user database, after {@link #check(String, long, Date)}
+     * returned {@link Result#REVALIDATE}.
+     *
+     * @param username name of the user.
+     * @param userId   id of the user.
+     * @param version  current version of the user.
+     */
+    public synchronized void versionConfirmed(String username, long userId, long version) {
+        versions.putIfAbsent(username, new RecordedVersion(userId, version, 0L));
+    }
+
+    /**
+     * Check the version embedded in a JWT.
+     *
+     * @param username the subject of the JWT.
+     * @param userId   the user id embedded in the JWT.
+     * @param version  the version embedded in the JWT.
+     * @param issuedAt the time the JWT has been issued at. May be {@code null}.
+     *
+     * @return {@link Result}.
+     */
+    public synchronized Result check(String username, long userId, long version, Date issuedAt) {
+        final RecordedVersion recordedVersion = versions.get(username);
+        if (recordedVersion != null) {
+            return recordedVersion.userId == userId && recordedVersion.version == version ? Result.CURRENT :
+                    Result.STALE;
+        }
+
+        if (issuedAt == null || issuedAt.getTime() <= revalidateIssuedUntil) {
+            return Result.REVALIDATE;
+        }
+        return Result.CURRENT;
+    }
+
+    public enum Result {
+        /**
+         * The version embedded in the JWT is current.
+         */
+        CURRENT,
+        /**
+         * The user changed since the JWT has been issued.
+         */
+        STALE,
+        /**
+         * The user id and version embedded in the JWT have to be compared to the user database.
+         */
+        REVALIDATE
+    }
+
+    private static final class RecordedVersion {
+        private final long userId;
+        private final long version;
+        private final long changedAt;
+
+        private RecordedVersion(long userId, long version, long changedAt) {
+            this.userId = userId;
+            this.version = version;
+            this.changedAt = changedAt;
+        }
+    }
+}
@@ -33,6 +33,9 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author Rafael Ostertag
  */
@@ -46,6 +49,11 @@ public class AnathProperties {
      * The secret key used to encrypt data in the {@link ch.zhaw.ba.anath.pki.services.SecureStoreService}.
      */
     private String secretKey;
+    /**
+     * Secret keys used previously to encrypt data in the {@link ch.zhaw.ba.anath.pki.services.SecureStoreService}.
+     * Data encrypted with those keys can still be read, and is re-encrypted using {@link #secretKey} in the background.
+     */
+    private List<String> previousSecretKeys = new ArrayList<>();
     /**
      * Validity of certificates in days.
      */
@@ -56,11 +64,30 @@ public class AnathProperties {
     private int crlValidity = 30;
     private Authentication authentication = new Authentication();
     private Confirmation confirmation = new Confirmation();
+    private SecureStore secureStore = new SecureStore();
+    private CertificateCache certificateCache = new CertificateCache();
+    private Pki pki = new Pki();
+    private CertificateArchive certificateArchive = new CertificateArchive();
+    private Startup startup = new Startup();
 
     @Data
     public static class Authentication {
         private JWT jwt = new JWT();
         private Argon2 argon2 = new Argon2();
+        private ClientCertificate clientCertificate = new ClientCertificate();
+
+        @Data
+        public static class ClientCertificate {
+            /**
+             * Maximum number of client certificates whose user is kept in memory.
+             */
+            private int userCacheSize = 10000;
+            /**
+             * Delay between two reloads of revoked certificates in milliseconds. Picks up revocations made by other
+             * nodes.
+             */
+            private long revocationRefreshInterval = 60000;
+        }
 
         @Data
         public static class JWT {
@@ -72,6 +99,14 @@ public class AnathProperties {
              * Expiration time in minutes.
              */
             private int expirationTime = 60;
+            /**
+             * Maximum number of users whose version is kept in memory to detect stale JWT.
+             */
+            private int userVersionCacheSize = 10000;
+            /**
+             * Maximum number of verified JWT whose claims are kept in memory.
+             */
+            private int verifiedTokenCacheSize = 10000;
         }
 
         /**
@@ -123,6 +158,16 @@ public class AnathProperties {
              * </pre>
              */
             private int parallelism = 4;
+            /**
+             * Memory in KiB available to hash passwords concurrently. The number of passwords hashed concurrently is
+             * the memory budget divided by {@link #memory}, but at least one.
+             */
+            private int memoryBudget = 512000;
+            /**
+             * Maximum number of passwords waiting to be hashed. Further requests are rejected with {@code 429 Too
+             * Many Requests}.
+             */
+            private int queueSize = 16;
         }
     }
 
@@ -136,4 +181,72 @@ public class AnathProperties {
         private int mailPort = 25;
         private String sender = "anath@localhost.localdomain";
     }
+
+    @Data
+    public static class SecureStore {
+        /**
+         * Maximum number of secure store entries re-encrypted in one run.
+         */
+        private int reEncryptionBatchSize = 10;
+        /**
+         * Delay between two re-encryption runs in milliseconds.
+         */
+        private long reEncryptionDelay = 60000;
+    }
+
+    @Data
+    public static class CertificateCache {
+        /**
+         * Maximum size of all PEM encoded certificates held in the cache in bytes.
+         */
+        private long maximumSize = 8L * 1024L * 1024L;
+    }
+
+    @Data
+    public static class Pki {
+        /**
+         * Time in milliseconds read-only transactions are routed to the primary after a write on this node, when a
+         * read replica is configured by {@code anath.pki.replica-datasource.*}. Should exceed the replication lag.
+         */
+        private long replicaMaxLag = 5000;
+        /**
+         * Uses of certificates issued to TLS servers. Certificates of these uses have the extended key usage
+         * {@code serverAuth}, certificates of other uses have {@code clientAuth}.
+         */
+        private List<String> serverCertificateUses = new ArrayList<>();
+    }
+
+    @Data
+    public static class CertificateArchive {
+        /**
+         * Days after expiry certificates are moved to the certificate archive.
+         */
+        private int retention = 365;
+        /**
+         * Maximum number of certificates archived in one run.
+         */
+        private int batchSize = 100;
+        /**
+         * Delay between two archival runs in milliseconds.
+         */
+        private long delay = 60000;
+    }
+
+    @Data
+    public static class Startup {
+        /**
+         * Migrate the schemas and bootstrap the entity manager factories concurrently, load the certificate authority
+         * in the background, and scan the API documentation once the application is ready.
+         */
+        private boolean parallel = false;
+        /**
+         * Warm up the CA, the signer, and the CRL creator once the application is ready. The health of the
+         * application is reported as out of service until the warm-up has completed.
+         */
+        private boolean warmUp = true;
+        /**
+         * Number of synthetic signing and CRL creation iterations run by the warm-up.
+         */
+        private int warmUpIterations = 20;
+    }
 }
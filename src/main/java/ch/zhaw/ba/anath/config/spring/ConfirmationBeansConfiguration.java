@@ -31,12 +31,16 @@ package ch.zhaw.ba.anath.config.spring;
 
 import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
 import ch.zhaw.ba.anath.pki.services.ConfirmationKey;
+import ch.zhaw.ba.anath.pki.services.RedisUseChangeNotificationServiceImpl;
 import ch.zhaw.ba.anath.pki.utilities.TokenCreator;
+import ch.zhaw.ba.anath.users.services.RedisUserChangeNotificationServiceImpl;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
 /**
  * @author Rafael Ostertag
@@ -52,6 +56,21 @@ public class ConfirmationBeansConfiguration {
         return template;
     }
 
+    @Bean
+    public RedisMessageListenerContainer changeListenerContainer(JedisConnectionFactory jedisConnectionFactory,
+                                                                 RedisUseChangeNotificationServiceImpl
+                                                                         redisUseChangeNotificationService,
+                                                                 RedisUserChangeNotificationServiceImpl
+                                                                         redisUserChangeNotificationService) {
+        final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(jedisConnectionFactory);
+        container.addMessageListener(redisUseChangeNotificationService, new ChannelTopic
+                (RedisUseChangeNotificationServiceImpl.USE_CHANGE_CHANNEL));
+        container.addMessageListener(redisUserChangeNotificationService, new ChannelTopic
+                (RedisUserChangeNotificationServiceImpl.USER_CHANGE_CHANNEL));
+        return container;
+    }
+
     @Bean
     public TokenCreator tokenCreator() {
         return new TokenCreator();
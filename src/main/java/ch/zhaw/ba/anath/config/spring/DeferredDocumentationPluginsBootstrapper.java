@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.config.spring;
+
+import com.fasterxml.classmate.TypeResolver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import springfox.documentation.spi.service.RequestHandlerProvider;
+import springfox.documentation.spi.service.contexts.Defaults;
+import springfox.documentation.spring.web.DocumentationCache;
+import springfox.documentation.spring.web.plugins.DocumentationPluginsBootstrapper;
+import springfox.documentation.spring.web.plugins.DocumentationPluginsManager;
+import springfox.documentation.spring.web.scanners.ApiDocumentationScanner;
+
+import javax.servlet.ServletContext;
+import java.util.List;
+
+/**
+ * Scan the API documentation in the background once the application is ready, instead of while the application
+ * context is refreshed. The API documentation is not available until the scan has completed.
+ *
+ * @author Rafael Ostertag
+ */
+@Slf4j
+public class DeferredDocumentationPluginsBootstrapper extends DocumentationPluginsBootstrapper implements
+        ApplicationListener<ApplicationReadyEvent> {
+    private final StartupTimeline startupTimeline;
+
+    public DeferredDocumentationPluginsBootstrapper(DocumentationPluginsManager documentationPluginsManager,
+                                                    List<RequestHandlerProvider> handlerProviders,
+                                                    DocumentationCache scanned,
+                                                    ApiDocumentationScanner resourceListing,
+                                                    TypeResolver typeResolver,
+                                                    Defaults defaults,
+                                                    ServletContext servletContext,
+                                                    StartupTimeline startupTimeline) {
+        super(documentationPluginsManager, handlerProviders, scanned, resourceListing, typeResolver, defaults,
+                servletContext);
+        this.startupTimeline = startupTimeline;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return false;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        new SimpleAsyncTaskExecutor("anath-documentation-").execute(() -> {
+            try (StartupTimeline.Phase ignored = startupTimeline.start("API documentation scan")) {
+                start();
+            } catch (Exception e) {
+                log.error("Error scanning API documentation: {}", e.getMessage());
+            }
+        });
+    }
+}
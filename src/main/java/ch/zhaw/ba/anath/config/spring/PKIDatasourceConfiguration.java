@@ -32,24 +32,33 @@ package ch.zhaw.ba.anath.config.spring;
 import ch.zhaw.ba.anath.config.properties.AnathProperties;
 import ch.zhaw.ba.anath.pki.entities.PKIEntitiesMarkerInterface;
 import ch.zhaw.ba.anath.pki.repositories.PKIRepositoriesMarkerInterface;
+import ch.zhaw.ba.anath.pki.services.SecureStoreService;
 import lombok.extern.slf4j.Slf4j;
 import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.orm.jpa.EntityManagerFactoryBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.transaction.PlatformTransactionManager;
 
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.util.Collections;
+import java.util.Optional;
 
 /**
- * Spring Datasource configuration for the PKI datasource.
+ * Spring Datasource configuration for the PKI datasource. If a read replica is configured by
+ * {@code anath.pki.replica-datasource.*}, read-only transactions are routed to the replica by
+ * {@link PKIReplicaRoutingDataSource}.
  *
  * @author Rafael Ostertag
  */
@@ -63,7 +72,21 @@ public class PKIDatasourceConfiguration {
 
     private static final String PKI_DATASOURCE_CONFIGURATION_PROPERTIES_PREFIX = AnathProperties.CONFIGURATION_PREFIX
             + ".pki.datasource";
+    private static final String PKI_REPLICA_DATASOURCE_CONFIGURATION_PROPERTIES_PREFIX = AnathProperties
+            .CONFIGURATION_PREFIX + ".pki.replica-datasource";
+    private static final String PKI_JAVA_MIGRATIONS_LOCATION = "classpath:ch/zhaw/ba/anath/pki/migrations";
+    private static final String PKI_SCHEMA = "PKI";
+    /**
+     * Flyway placeholder holding the key id of {@code anath.secret-key}.
+     */
+    public static final String SECURE_STORE_KEY_ID_PLACEHOLDER = "secure_store_key_id";
+    private final SchemaMigrations schemaMigrations;
+    private final AnathProperties anathProperties;
 
+    public PKIDatasourceConfiguration(SchemaMigrations schemaMigrations, AnathProperties anathProperties) {
+        this.schemaMigrations = schemaMigrations;
+        this.anathProperties = anathProperties;
+    }
 
     @Bean
     @Primary
@@ -81,24 +104,66 @@ public class PKIDatasourceConfiguration {
         log.info("Initialize Flyway for PKI");
         final Flyway pkiFlyway = new Flyway();
         pkiFlyway.setDataSource(pkiDS);
-        pkiFlyway.setLocations("/flyway/pki");
+        pkiFlyway.setLocations("/flyway/pki", PKI_JAVA_MIGRATIONS_LOCATION);
+        pkiFlyway.setPlaceholders(Collections.singletonMap(SECURE_STORE_KEY_ID_PLACEHOLDER, secureStoreKeyId()));
 
-        log.info("Start Flyway migration for PKI");
-        pkiFlyway.migrate();
-        log.info("End Flyway migration for PKI");
+        schemaMigrations.migrate(PKI_SCHEMA, pkiFlyway);
 
         return pkiDS;
     }
 
+    private String secureStoreKeyId() {
+        final String secretKey = anathProperties.getSecretKey();
+        return secretKey == null ? "" : SecureStoreService.keyIdOf(secretKey);
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = PKI_REPLICA_DATASOURCE_CONFIGURATION_PROPERTIES_PREFIX, name = "url")
+    @ConfigurationProperties(prefix = PKI_REPLICA_DATASOURCE_CONFIGURATION_PROPERTIES_PREFIX)
+    public DataSourceProperties pkiReplicaDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = PKI_REPLICA_DATASOURCE_CONFIGURATION_PROPERTIES_PREFIX, name = "url")
+    @ConfigurationProperties(prefix = PKI_REPLICA_DATASOURCE_CONFIGURATION_PROPERTIES_PREFIX)
+    public DataSource pkiReplicaDataSource() {
+        log.info("Route read-only PKI transactions to read replica");
+        return pkiReplicaDataSourceProperties().initializeDataSourceBuilder().build();
+    }
+
+    /**
+     * The user entity manager factory is created first, so that both are bootstrapped concurrently when {@code
+     * anath.startup.parallel} is set. The PKI repositories block on the PKI entity manager factory once created.
+     */
     @Primary
     @Bean
+    @DependsOn("userEntityManagerFactory")
     public LocalContainerEntityManagerFactoryBean pkiEntityManagerFactory(
-            EntityManagerFactoryBuilder builder) {
-        return builder
-                .dataSource(pkiDataSource())
-                .packages(PKIEntitiesMarkerInterface.class)
-                .persistenceUnit("pki")
-                .build();
+            EntityManagerFactoryBuilder builder,
+            @Qualifier("pkiReplicaDataSource") Optional<DataSource> pkiReplicaDataSource,
+            AnathProperties anathProperties) {
+        final LocalContainerEntityManagerFactoryBean pkiEntityManagerFactory;
+        if (!pkiReplicaDataSource.isPresent()) {
+            pkiEntityManagerFactory = builder
+                    .dataSource(pkiDataSource())
+                    .packages(PKIEntitiesMarkerInterface.class)
+                    .persistenceUnit("pki")
+                    .build();
+        } else {
+            final PKIReplicaRoutingDataSource pkiRoutingDataSource = new PKIReplicaRoutingDataSource(pkiDataSource(),
+                    pkiReplicaDataSource.get(), anathProperties.getPki().getReplicaMaxLag());
+            pkiRoutingDataSource.afterPropertiesSet();
+
+            pkiEntityManagerFactory = builder
+                    .dataSource(new LazyConnectionDataSourceProxy(pkiRoutingDataSource))
+                    .packages(PKIEntitiesMarkerInterface.class)
+                    .persistenceUnit("pki")
+                    .build();
+        }
+
+        pkiEntityManagerFactory.setBootstrapExecutor(schemaMigrations.bootstrapExecutor(PKI_SCHEMA));
+        return pkiEntityManagerFactory;
     }
 
     @Primary
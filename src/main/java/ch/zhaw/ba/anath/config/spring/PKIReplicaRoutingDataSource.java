@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.config.spring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Route read-only transactions to the PKI read replica, and everything else to the primary.
+ * <p>
+ * Read-only transactions are routed to the primary as well for {@code maxLag} milliseconds after a transaction
+ * which is not read-only has been committed on this node, so that reads following a write observe the write. Any
+ * transaction which is not read-only counts as a write, since bulk statements and native queries may write without
+ * Hibernate knowing which entities are affected.
+ * <p>
+ * The routing decision is made when the connection is acquired. It must be wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, since the transaction manager acquires
+ * the connection before the transaction is marked read-only.
+ *
+ * @author Rafael Ostertag
+ */
+@Slf4j
+public class PKIReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private final long maxLag;
+    private final LongSupplier clock;
+    private final Object writeMarker = new Object();
+    private volatile long primaryUntil = 0L;
+
+    public PKIReplicaRoutingDataSource(DataSource primary, DataSource replica, long maxLag) {
+        this(primary, replica, maxLag, System::currentTimeMillis);
+    }
+
+    PKIReplicaRoutingDataSource(DataSource primary, DataSource replica, long maxLag, LongSupplier clock) {
+        this.maxLag = maxLag;
+        this.clock = clock;
+
+        final Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(Target.PRIMARY, primary);
+        targetDataSources.put(Target.REPLICA, replica);
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return clock.getAsLong() >= primaryUntil ? Target.REPLICA : Target.PRIMARY;
+        }
+
+        written();
+        return Target.PRIMARY;
+    }
+
+    /**
+     * Record a write. If a transaction is active, reads are routed to the primary after the transaction has been
+     * committed.
+     */
+    private void written() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            routeToPrimary();
+            return;
+        }
+
+        if (TransactionSynchronizationManager.hasResource(writeMarker)) {
+            return;
+        }
+
+        TransactionSynchronizationManager.bindResource(writeMarker, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(writeMarker);
+                if (status == STATUS_COMMITTED) {
+                    routeToPrimary();
+                }
+            }
+        });
+    }
+
+    private void routeToPrimary() {
+        primaryUntil = clock.getAsLong() + maxLag;
+        log.debug("Route read-only transactions to primary for {} ms", maxLag);
+    }
+
+    private enum Target {
+        PRIMARY,
+        REPLICA
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.config.spring;
+
+import ch.zhaw.ba.anath.config.properties.AnathProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+/**
+ * Run the Flyway migrations of the PKI and user schemas. By default, a schema is migrated when its datasource is
+ * created.
+ * <p>
+ * If {@code anath.startup.parallel} is set, the migration is deferred and run by the bootstrap executor of the
+ * entity manager factory of the schema, followed by the bootstrap of the entity manager factory. Both schemas are
+ * thus migrated and validated concurrently, while the remaining beans are created. The entity manager factories
+ * block callers until they are bootstrapped.
+ *
+ * @author Rafael Ostertag
+ */
+@Component
+@Slf4j
+public class SchemaMigrations {
+    private final boolean parallel;
+    private final StartupTimeline startupTimeline;
+    private final Map<String, Flyway> deferredMigrations = new ConcurrentHashMap<>();
+
+    public SchemaMigrations(AnathProperties anathProperties, StartupTimeline startupTimeline) {
+        this.parallel = anathProperties.getStartup().isParallel();
+        this.startupTimeline = startupTimeline;
+    }
+
+    /**
+     * Migrate the schema, or defer the migration to the bootstrap of the entity manager factory of the schema.
+     *
+     * @param schema name of the schema.
+     * @param flyway {@link Flyway} instance configured for the schema.
+     */
+    public void migrate(String schema, Flyway flyway) {
+        if (parallel) {
+            log.info("Defer Flyway migration for {}", schema);
+            deferredMigrations.put(schema, flyway);
+            return;
+        }
+
+        runMigration(schema, flyway);
+    }
+
+    /**
+     * Get the bootstrap executor for the entity manager factory of the schema.
+     *
+     * @param schema name of the schema.
+     *
+     * @return {@link AsyncTaskExecutor} running the deferred migration before the bootstrap, or {@code null} if the
+     * entity manager factory is to be bootstrapped synchronously.
+     */
+    public AsyncTaskExecutor bootstrapExecutor(String schema) {
+        if (!parallel) {
+            return null;
+        }
+
+        return new MigratingBootstrapExecutor(schema);
+    }
+
+    private void runMigration(String schema, Flyway flyway) {
+        log.info("Start Flyway migration for {}", schema);
+        try (StartupTimeline.Phase ignored = startupTimeline.start("Flyway migration " + schema)) {
+            flyway.migrate();
+        }
+        log.info("End Flyway migration for {}", schema);
+    }
+
+    private final class MigratingBootstrapExecutor extends SimpleAsyncTaskExecutor {
+        private static final long serialVersionUID = 1L;
+        private final String schema;
+
+        private MigratingBootstrapExecutor(String schema) {
+            super("anath-startup-" + schema.toLowerCase() + "-");
+            this.schema = schema;
+        }
+
+        @Override
+        public <T> Future<T> submit(Callable<T> task) {
+            return super.submit(() -> {
+                final Flyway flyway = deferredMigrations.remove(schema);
+                if (flyway != null) {
+                    runMigration(schema, flyway);
+                }
+
+                try (StartupTimeline.Phase ignored = startupTimeline.start("Entity manager factory " + schema)) {
+                    return task.call();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.config.spring;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Record the duration of startup phases. Phases may run concurrently. The timeline is logged once the application is
+ * ready. Phases ending after the application is ready are logged when they end.
+ * <p>
+ * Points in time are reported relative to the start of the JVM.
+ *
+ * @author Rafael Ostertag
+ */
+@Component
+@Slf4j
+public class StartupTimeline {
+    private final long jvmStartTime;
+    private final List<PhaseRecord> phaseRecords = new CopyOnWriteArrayList<>();
+    private volatile Long timeToReady;
+
+    public StartupTimeline() {
+        this(ManagementFactory.getRuntimeMXBean().getStartTime());
+    }
+
+    StartupTimeline(long jvmStartTime) {
+        this.jvmStartTime = jvmStartTime;
+    }
+
+    /**
+     * Start a phase. The phase ends when the returned {@link Phase} is closed.
+     *
+     * @param name name of the phase.
+     *
+     * @return {@link Phase} instance.
+     */
+    public Phase start(String name) {
+        return new Phase(name, System.currentTimeMillis());
+    }
+
+    @EventListener
+    public void onApplicationReady(ApplicationReadyEvent event) {
+        timeToReady = System.currentTimeMillis() - jvmStartTime;
+
+        final StringBuilder report = new StringBuilder("Startup timeline, ready after ")
+                .append(timeToReady)
+                .append(" ms");
+        for (PhaseRecord phaseRecord : getPhaseRecords()) {
+            report.append(String.format("%n  +%7d ms %7d ms  %s", phaseRecord.getStart(), phaseRecord.getDuration(),
+                    phaseRecord.getName()));
+        }
+        log.info(report.toString());
+    }
+
+    /**
+     * Get the phases ended so far, ordered by their start.
+     *
+     * @return list of {@link PhaseRecord}s.
+     */
+    public List<PhaseRecord> getPhaseRecords() {
+        final List<PhaseRecord> sortedPhaseRecords = new ArrayList<>(phaseRecords);
+        sortedPhaseRecords.sort(Comparator.comparingLong(PhaseRecord::getStart));
+        return sortedPhaseRecords;
+    }
+
+    /**
+     * Get the time from the start of the JVM until the application was ready.
+     *
+     * @return time to ready in milliseconds, or empty if the application is not ready yet.
+     */
+    public Optional<Long> getTimeToReady() {
+        return Optional.ofNullable(timeToReady);
+    }
+
+    public final class Phase implements AutoCloseable {
+        private final String name;
+        private final long start;
+
+        private Phase(String name, long start) {
+            this.name = name;
+            this.start = start;
+        }
+
+        @Override
+        public void close() {
+            final PhaseRecord phaseRecord = new PhaseRecord(name, start - jvmStartTime, System.currentTimeMillis() -
+                    start);
+            phaseRecords.add(phaseRecord);
+            log.info("Startup phase '{}' took {} ms", name, phaseRecord.getDuration());
+        }
+    }
+
+    @Value
+    public static class PhaseRecord {
+        private final String name;
+        /**
+         * Start of the phase in milliseconds after the start of the JVM.
+         */
+        private final long start;
+        /**
+         * Duration of the phase in milliseconds.
+         */
+        private final long duration;
+    }
+}
@@ -29,6 +29,9 @@
 
 package ch.zhaw.ba.anath.config.spring;
 
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
+import com.fasterxml.classmate.TypeResolver;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -39,10 +42,18 @@ import springfox.documentation.builders.PathSelectors;
 import springfox.documentation.builders.RequestHandlerSelectors;
 import springfox.documentation.service.*;
 import springfox.documentation.spi.DocumentationType;
+import springfox.documentation.spi.service.RequestHandlerProvider;
+import springfox.documentation.spi.service.contexts.Defaults;
 import springfox.documentation.spi.service.contexts.SecurityContext;
+import springfox.documentation.spring.web.DocumentationCache;
+import springfox.documentation.spring.web.plugins.DocumentationPluginsBootstrapper;
+import springfox.documentation.spring.web.plugins.DocumentationPluginsManager;
 import springfox.documentation.spring.web.plugins.Docket;
+import springfox.documentation.spring.web.scanners.ApiDocumentationScanner;
 import springfox.documentation.swagger2.annotations.EnableSwagger2;
 
+import javax.servlet.ServletContext;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -74,9 +85,29 @@ public class SwaggerConfiguration {
                         new Tag("User Management", "User Management API"),
                         new Tag("Misc", "Miscellaneous")
                 )
+                .directModelSubstitute(CertificateSerial.class, BigInteger.class)
                 .useDefaultResponseMessages(false);
     }
 
+    /**
+     * Replaces the bootstrapper of Springfox, which scans the API documentation while the application context is
+     * refreshed.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "anath.startup", name = "parallel", havingValue = "true")
+    public DocumentationPluginsBootstrapper documentationPluginsBootstrapper(
+            DocumentationPluginsManager documentationPluginsManager,
+            List<RequestHandlerProvider> handlerProviders,
+            DocumentationCache scanned,
+            ApiDocumentationScanner resourceListing,
+            TypeResolver typeResolver,
+            Defaults defaults,
+            ServletContext servletContext,
+            StartupTimeline startupTimeline) {
+        return new DeferredDocumentationPluginsBootstrapper(documentationPluginsManager, handlerProviders, scanned,
+                resourceListing, typeResolver, defaults, servletContext, startupTimeline);
+    }
+
     private List<SecurityScheme> securitySchemes() {
         final List<SecurityScheme> schemes = new ArrayList<>();
         schemes.add(new ApiKey("jwt", "Authorization", "header"));
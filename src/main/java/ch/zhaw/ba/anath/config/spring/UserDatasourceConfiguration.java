@@ -63,6 +63,13 @@ public class UserDatasourceConfiguration {
 
     private static final String USER_DATASOURCE_CONFIGURATION_PROPERTIES_PREFIX = AnathProperties
             .CONFIGURATION_PREFIX + ".users.datasource";
+    private static final String USER_JAVA_MIGRATIONS_LOCATION = "classpath:ch/zhaw/ba/anath/users/migrations";
+    private static final String USER_SCHEMA = "Users";
+    private final SchemaMigrations schemaMigrations;
+
+    public UserDatasourceConfiguration(SchemaMigrations schemaMigrations) {
+        this.schemaMigrations = schemaMigrations;
+    }
 
     @Bean
     @ConfigurationProperties(prefix = USER_DATASOURCE_CONFIGURATION_PROPERTIES_PREFIX)
@@ -78,11 +85,9 @@ public class UserDatasourceConfiguration {
         log.info("Initialize Flyway for Users");
         final Flyway usersFlyway = new Flyway();
         usersFlyway.setDataSource(userDS);
-        usersFlyway.setLocations("/flyway/users");
+        usersFlyway.setLocations("/flyway/users", USER_JAVA_MIGRATIONS_LOCATION);
 
-        log.info("Start Flyway migration for Users");
-        usersFlyway.migrate();
-        log.info("End Flyway migration for Users");
+        schemaMigrations.migrate(USER_SCHEMA, usersFlyway);
 
         return userDS;
     }
@@ -90,11 +95,13 @@ public class UserDatasourceConfiguration {
     @Bean()
     public LocalContainerEntityManagerFactoryBean userEntityManagerFactory(
             EntityManagerFactoryBuilder builder) {
-        return builder
+        final LocalContainerEntityManagerFactoryBean userEntityManagerFactory = builder
                 .dataSource(userDataSource())
                 .packages(UserEntitiesMarkerInterface.class)
                 .persistenceUnit("users")
                 .build();
+        userEntityManagerFactory.setBootstrapExecutor(schemaMigrations.bootstrapExecutor(USER_SCHEMA));
+        return userEntityManagerFactory;
     }
 
     @Bean
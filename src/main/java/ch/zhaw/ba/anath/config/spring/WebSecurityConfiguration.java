@@ -29,8 +29,13 @@
 
 package ch.zhaw.ba.anath.config.spring;
 
+import ch.zhaw.ba.anath.authentication.pki.ClientCertificateAuthenticator;
+import ch.zhaw.ba.anath.authentication.spring.ClientCertificateAuthenticationFilter;
 import ch.zhaw.ba.anath.authentication.spring.JWTAuthenticationFilter;
 import ch.zhaw.ba.anath.authentication.spring.JWTAuthorizationFilter;
+import ch.zhaw.ba.anath.authentication.spring.JWTVerifier;
+import ch.zhaw.ba.anath.authentication.spring.RehashingAuthenticationProvider;
+import ch.zhaw.ba.anath.authentication.spring.UserVersionCache;
 import ch.zhaw.ba.anath.config.properties.AnathProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -42,8 +47,8 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -57,19 +62,28 @@ import java.util.Arrays;
 @EnableWebSecurity
 public class WebSecurityConfiguration extends WebSecurityConfigurerAdapter {
     private final UserDetailsService userDetailsService;
-    private final PasswordEncoder passwordEncoder;
+    private final RehashingAuthenticationProvider rehashingAuthenticationProvider;
     private final AnathProperties anathProperties;
+    private final UserVersionCache userVersionCache;
+    private final JWTVerifier jwtVerifier;
+    private final ClientCertificateAuthenticator clientCertificateAuthenticator;
 
-    public WebSecurityConfiguration(UserDetailsService userDetailsService, PasswordEncoder
-            passwordEncoder, AnathProperties anathProperties) {
+    public WebSecurityConfiguration(UserDetailsService userDetailsService,
+                                    RehashingAuthenticationProvider rehashingAuthenticationProvider,
+                                    AnathProperties anathProperties, UserVersionCache userVersionCache,
+                                    JWTVerifier jwtVerifier,
+                                    ClientCertificateAuthenticator clientCertificateAuthenticator) {
         this.userDetailsService = userDetailsService;
-        this.passwordEncoder = passwordEncoder;
+        this.rehashingAuthenticationProvider = rehashingAuthenticationProvider;
         this.anathProperties = anathProperties;
+        this.userVersionCache = userVersionCache;
+        this.jwtVerifier = jwtVerifier;
+        this.clientCertificateAuthenticator = clientCertificateAuthenticator;
     }
 
     @Override
-    public void configure(AuthenticationManagerBuilder auth) throws Exception {
-        auth.userDetailsService(userDetailsService).passwordEncoder(passwordEncoder);
+    public void configure(AuthenticationManagerBuilder auth) {
+        auth.authenticationProvider(rehashingAuthenticationProvider);
     }
 
     /**
@@ -92,8 +106,10 @@ public class WebSecurityConfiguration extends WebSecurityConfigurerAdapter {
                 // Allow retrieval of plain certificates. But for the love of god, make sure that only pem
                 // certificates can be retrieved by unauthenticated users.
                 .antMatchers(HttpMethod.GET, "/certificates/*").permitAll()
+                .antMatchers(HttpMethod.GET, "/certificates/*/der").permitAll()
                 // Allow retrieval of CRL
                 .antMatchers(HttpMethod.GET, "/crl.pem").permitAll()
+                .antMatchers(HttpMethod.GET, "/crl.der").permitAll()
                 // Allow retrieval of CA certificate
                 .antMatchers(HttpMethod.GET, "/ca.pem").permitAll()
                 // Allow preflight checks
@@ -105,6 +121,10 @@ public class WebSecurityConfiguration extends WebSecurityConfigurerAdapter {
                 .antMatchers(HttpMethod.GET, "/webjars/springfox-swagger-ui/**").permitAll()
                 // Allow access to public, used when building a combined server client docker image
                 .antMatchers(HttpMethod.GET, "/public/**").permitAll()
+                // Actuator endpoints. The health status is probed by load balancers, details are hidden from
+                // anyone but admin users by the health endpoint.
+                .antMatchers(HttpMethod.GET, "/management/health").permitAll()
+                .antMatchers("/management/**").hasRole("ADMIN")
                 .anyRequest().authenticated();
         return httpSecurity;
     }
@@ -113,7 +133,10 @@ public class WebSecurityConfiguration extends WebSecurityConfigurerAdapter {
     protected void configure(HttpSecurity http) throws Exception {
         setupSecurity(http)
                 .addFilter(new JWTAuthenticationFilter(authenticationManager(), anathProperties))
-                .addFilter(new JWTAuthorizationFilter(authenticationManager(), userDetailsService, anathProperties))
+                .addFilter(new JWTAuthorizationFilter(authenticationManager(), userDetailsService, userVersionCache,
+                        jwtVerifier))
+                .addFilterAfter(new ClientCertificateAuthenticationFilter(clientCertificateAuthenticator),
+                        BasicAuthenticationFilter.class)
                 // this disables session creation on Spring Security
                 .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 .and()
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki;
+
+import ch.zhaw.ba.anath.config.properties.AnathProperties;
+import ch.zhaw.ba.anath.config.spring.StartupTimeline;
+import ch.zhaw.ba.anath.pki.exceptions.CertificateAuthorityNotInitializedException;
+import ch.zhaw.ba.anath.pki.services.ConfigurationTemplateService;
+import ch.zhaw.ba.anath.pki.services.RevocationService;
+import ch.zhaw.ba.anath.pki.services.SigningService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Warm up the CA, the signer, the CRL creator and the CA certificate used by configuration templates, so that the
+ * first requests after startup do not pay for loading the CA and a cold JIT.
+ * <p>
+ * If {@code anath.startup.parallel} is {@code true}, the CA is loaded concurrently once the context is refreshed. If
+ * {@code anath.startup.warm-up} is {@code true}, synthetic signing and CRL creation iterations are run once the
+ * application is ready. The health is reported as out of service until the warm-up has completed.
+ *
+ * @author Rafael Ostertag
+ */
+@Component
+@Profile("!tests")
+@Slf4j
+public class CertificateAuthorityWarmUp extends AbstractHealthIndicator {
+    private static final String STATE_DETAIL = "state";
+    private final SigningService signingService;
+    private final RevocationService revocationService;
+    private final ConfigurationTemplateService configurationTemplateService;
+    private final StartupTimeline startupTimeline;
+    private final ApplicationContext applicationContext;
+    private final AnathProperties.Startup startupProperties;
+    private final SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("anath-warm-up-");
+    private volatile State state;
+
+    public CertificateAuthorityWarmUp(SigningService signingService, RevocationService revocationService,
+                                      ConfigurationTemplateService configurationTemplateService,
+                                      StartupTimeline startupTimeline, ApplicationContext applicationContext,
+                                      AnathProperties anathProperties) {
+        this.signingService = signingService;
+        this.revocationService = revocationService;
+        this.configurationTemplateService = configurationTemplateService;
+        this.startupTimeline = startupTimeline;
+        this.applicationContext = applicationContext;
+        this.startupProperties = anathProperties.getStartup();
+        this.state = startupProperties.isWarmUp() ? State.PENDING : State.DISABLED;
+    }
+
+    @EventListener
+    public void processContextRefreshedEvent(ContextRefreshedEvent event) {
+        if (!startupProperties.isParallel() ||
+                !event.getApplicationContext().getId().equals(applicationContext.getId())) {
+            return;
+        }
+
+        executor.execute(() -> prime("Certificate signer warm-up", signingService::warmUp));
+        executor.execute(() -> prime("Certificate revocation list creator warm-up", revocationService::warmUp));
+        executor.execute(() -> prime("CA certificate warm-up", configurationTemplateService::warmUp));
+    }
+
+    @EventListener
+    public void processApplicationReadyEvent(ApplicationReadyEvent event) {
+        if (state != State.PENDING || !event.getApplicationContext().getId().equals(applicationContext.getId())) {
+            return;
+        }
+
+        final int iterations = startupProperties.getWarmUpIterations();
+        try (StartupTimeline.Phase ignored = startupTimeline.start("Warm-up")) {
+            signingService.warmUp(iterations);
+            revocationService.warmUp(iterations);
+            configurationTemplateService.warmUp();
+            state = State.COMPLETED;
+        } catch (CertificateAuthorityNotInitializedException e) {
+            log.info("Skip warm-up: CA not initialized");
+            state = State.SKIPPED;
+        } catch (Exception e) {
+            log.error("Error during warm-up: {}", e.getMessage());
+            state = State.FAILED;
+        }
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        if (state == State.PENDING) {
+            builder.outOfService();
+        } else {
+            builder.up();
+        }
+        builder.withDetail(STATE_DETAIL, state);
+    }
+
+    private void prime(String phaseName, Runnable warmUp) {
+        try (StartupTimeline.Phase ignored = startupTimeline.start(phaseName)) {
+            warmUp.run();
+        } catch (CertificateAuthorityNotInitializedException e) {
+            log.info("Skip {}: CA not initialized", phaseName);
+        } catch (Exception e) {
+            log.error("Error during {}: {}", phaseName, e.getMessage());
+        }
+    }
+
+    enum State {
+        DISABLED,
+        PENDING,
+        COMPLETED,
+        SKIPPED,
+        FAILED
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki;
+
+import ch.zhaw.ba.anath.config.properties.AnathProperties;
+import ch.zhaw.ba.anath.pki.services.SecureStoreService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Re-encrypt secure store entries not encrypted using the active key. Entries are re-encrypted in small batches with a
+ * delay between batches, so the secure store remains available during key rotation. The re-encryption transaction is
+ * only started if entries are to be re-encrypted, since reads are routed to the PKI primary after any transaction
+ * which is not read-only.
+ *
+ * @author Rafael Ostertag
+ */
+@Component
+@Profile("!tests")
+@Slf4j
+public class SecureStoreReEncryptionTask {
+    private final SecureStoreService secureStoreService;
+    private final AnathProperties anathProperties;
+
+    public SecureStoreReEncryptionTask(SecureStoreService secureStoreService, AnathProperties anathProperties) {
+        this.secureStoreService = secureStoreService;
+        this.anathProperties = anathProperties;
+    }
+
+    @Scheduled(fixedDelayString = "${anath.secure-store.re-encryption-delay:60000}")
+    public void reEncrypt() {
+        try {
+            if (!secureStoreService.needsReEncryption()) {
+                return;
+            }
+
+            final int reEncrypted = secureStoreService.reEncrypt(anathProperties.getSecureStore()
+                    .getReEncryptionBatchSize());
+            if (reEncrypted > 0) {
+                log.info("Re-encrypted {} secure store entries", reEncrypted);
+            }
+        } catch (Exception e) {
+            log.error("Error during secure store re-encryption task: {}", e.getMessage());
+        }
+    }
+}
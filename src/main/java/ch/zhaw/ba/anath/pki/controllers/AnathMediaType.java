@@ -38,6 +38,8 @@ public final class AnathMediaType {
     public static final String APPLICATION_VND_ANATH_V1_JSON_VALUE = "application/vnd.anath.v1+json";
     public static final MediaType APPLICATION_VND_ANATH_V1_JSON = MediaType.valueOf
             (APPLICATION_VND_ANATH_V1_JSON_VALUE);
+    public static final String APPLICATION_X_NDJSON_VALUE = "application/x-ndjson";
+    public static final MediaType APPLICATION_X_NDJSON = MediaType.valueOf(APPLICATION_X_NDJSON_VALUE);
 
     private AnathMediaType() {
         // intentionally empty
@@ -94,4 +94,21 @@ public class CertificateAuthorityController {
                 .body(revocationService.getCrlPemEncoded());
     }
 
+    @GetMapping(
+            path = "/crl.der",
+            consumes = MediaType.ALL_VALUE,
+            produces = PkixMediaType.APPLICATION_PKIX_CRL_VALUE
+    )
+    @ResponseStatus(HttpStatus.OK)
+    @ApiOperation(value = "Get the DER Encoded X.509 Certificate Revocation List",
+            authorizations = {}
+    )
+    public HttpEntity<byte[]> getDerCrl() {
+        final String filename = "crl" + PkixMediaType.X509_CERTIFICATE_REVOCATION_LIST_FILE_EXTENSION;
+        return ResponseEntity
+                .ok()
+                .header(HttpHeaders.CONTENT_TYPE, PkixMediaType.APPLICATION_PKIX_CRL_VALUE)
+                .header(HttpHeaders.CONTENT_DISPOSITION, String.format("attachment; filename=\"%s\"", filename))
+                .body(revocationService.getCrlDerEncoded());
+    }
 }
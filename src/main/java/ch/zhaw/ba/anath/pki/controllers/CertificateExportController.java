@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.controllers;
+
+import ch.zhaw.ba.anath.pki.entities.CertificateStatus;
+import ch.zhaw.ba.anath.pki.services.CertificateExportService;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Date;
+
+/**
+ * Export the certificate inventory.
+ *
+ * @author Rafael Ostertag
+ */
+@RestController
+@RequestMapping(value = "/export/certificates",
+        consumes = MediaType.ALL_VALUE,
+        produces = AnathMediaType.APPLICATION_X_NDJSON_VALUE)
+@Api(tags = {"Certificate Authority"})
+@Slf4j
+public class CertificateExportController {
+    private static final String EXPORT_FILENAME = "certificates.ndjson";
+    private final CertificateExportService certificateExportService;
+
+    public CertificateExportController(CertificateExportService certificateExportService) {
+        this.certificateExportService = certificateExportService;
+    }
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    @ApiOperation(value = "Export Certificates", notes = "Stream certificates as newline delimited JSON, one " +
+            "certificate per line, ordered by serial number. The export can be limited to certificates having a " +
+            "given status, belonging to a given user, or being valid within the given time window. Archived " +
+            "certificates are only exported if 'includeArchived' is true, and follow the other certificates. Time " +
+            "stamps are formatted like '2018-01-01T00:00:00.000+0000'.")
+    public void exportCertificates(
+            @RequestParam(name = "status", required = false) CertificateStatus status,
+            @RequestParam(name = "userId", required = false) String userId,
+            @RequestParam(name = "validFrom", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO
+                    .DATE_TIME) Date validFrom,
+            @RequestParam(name = "validTo", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO
+                    .DATE_TIME) Date validTo,
+            @RequestParam(name = "includeArchived", required = false, defaultValue = "false") boolean
+                    includeArchived,
+            HttpServletResponse httpServletResponse) throws IOException {
+        httpServletResponse.setContentType(AnathMediaType.APPLICATION_X_NDJSON_VALUE);
+        httpServletResponse.setHeader(HttpHeaders.CONTENT_DISPOSITION, String.format("attachment; filename=\"%s\"",
+                EXPORT_FILENAME));
+
+        certificateExportService.exportAsNdjson(status, userId, validFrom, validTo, includeArchived,
+                httpServletResponse.getOutputStream());
+    }
+}
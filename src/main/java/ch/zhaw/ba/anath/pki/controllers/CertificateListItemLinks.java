@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.controllers;
+
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
+import ch.zhaw.ba.anath.pki.dto.CertificateListItemDto;
+import org.springframework.hateoas.Link;
+
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+
+/**
+ * Add links to {@link CertificateListItemDto}s. The URIs are built from templates derived from the current request
+ * once, the serial number of each certificate is appended by string concatenation. Building the links by
+ * {@code linkTo(methodOn(...))} for each item of large listings is expensive.
+ * <p>
+ * The links must match the mappings of {@link CertificatesController#getCertificate(CertificateSerial)},
+ * {@link CertificatesController#getPlainPemCertificate(CertificateSerial)}, and
+ * {@link RevocationController#revoke(CertificateSerial, ch.zhaw.ba.anath.pki.dto.RevocationReasonDto)}.
+ *
+ * @author Rafael Ostertag
+ */
+final class CertificateListItemLinks {
+    private static final String REVOKE_PATH = "/revoke";
+    private final String certificateUriPrefix;
+    private final String revokeUriPrefix;
+
+    CertificateListItemLinks(String certificatesUri, String revocationUri) {
+        this.certificateUriPrefix = certificatesUri + "/";
+        this.revokeUriPrefix = revocationUri + "/";
+    }
+
+    /**
+     * Create the link templates for the current request.
+     *
+     * @return {@link CertificateListItemLinks} instance.
+     */
+    static CertificateListItemLinks forCurrentRequest() {
+        return new CertificateListItemLinks(linkTo(CertificatesController.class).toUri().toString(),
+                linkTo(RevocationController.class).toUri().toString());
+    }
+
+    CertificateListItemDto addLinks(CertificateListItemDto certificateListItemDto) {
+        final String serial = certificateListItemDto.getSerial().toString();
+        final String certificateUri = certificateUriPrefix + serial;
+        certificateListItemDto.add(new Link(certificateUri));
+        certificateListItemDto.add(new Link(certificateUri, "pem"));
+        certificateListItemDto.add(new Link(revokeUriPrefix + serial + REVOKE_PATH, "revoke"));
+        return certificateListItemDto;
+    }
+}
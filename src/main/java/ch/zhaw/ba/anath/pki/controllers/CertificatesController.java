@@ -29,20 +29,27 @@
 
 package ch.zhaw.ba.anath.pki.controllers;
 
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
 import ch.zhaw.ba.anath.pki.dto.CertificateListItemDto;
 import ch.zhaw.ba.anath.pki.dto.CertificateResponseDto;
+import ch.zhaw.ba.anath.pki.dto.PemCertificateDto;
 import ch.zhaw.ba.anath.pki.dto.RevocationReasonDto;
+import ch.zhaw.ba.anath.pki.services.CertificatePemCache;
 import ch.zhaw.ba.anath.pki.services.CertificateService;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Slice;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.Resources;
 import org.springframework.http.*;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletRequest;
-import java.math.BigInteger;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -59,10 +66,14 @@ import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
 @Api(tags = {"Certificate Authority"})
 @Slf4j
 public class CertificatesController {
+    private static final String DEFAULT_SLICE_SIZE = "100";
+    private static final String CONFIGURATION_FILE_EXTENSION = ".conf";
     private final CertificateService certificateService;
+    private final CertificatePemCache certificatePemCache;
 
-    public CertificatesController(CertificateService certificateService) {
+    public CertificatesController(CertificateService certificateService, CertificatePemCache certificatePemCache) {
         this.certificateService = certificateService;
+        this.certificatePemCache = certificatePemCache;
     }
 
     @GetMapping(
@@ -82,11 +93,16 @@ public class CertificatesController {
             response =
                     CertificateResponseDto
                             .class)
-    public CertificateResponseDto getCertificate(@PathVariable BigInteger serial) {
+    public CertificateResponseDto getCertificate(@PathVariable CertificateSerial serial) {
         final CertificateResponseDto certificate = certificateService.getCertificate(serial);
         certificate.add(linkTo(methodOn(RevocationController.class).revoke(serial, new RevocationReasonDto())).withRel
                 ("revoke"));
         certificate.add(linkTo(methodOn(CertificatesController.class).getPlainPemCertificate(serial)).withRel("pem"));
+        certificate.add(linkTo(methodOn(CertificatesController.class).getDerCertificate(serial)).withRel("der"));
+        if (certificate.isConfigurationAvailable()) {
+            certificate.add(linkTo(CertificatesController.class).slash(serial).slash("configuration").withRel
+                    ("configuration"));
+        }
         return certificate;
     }
 
@@ -95,14 +111,56 @@ public class CertificatesController {
             produces = {PkixMediaType.APPLICATION_PKIX_CERT_VALUE, MediaType.ALL_VALUE}
     )
     @ResponseStatus(HttpStatus.OK)
-    public HttpEntity<String> getPlainPemCertificate(@PathVariable BigInteger serial) {
+    @ApiOperation(value = "Retrieve a PEM encoded User Certificate by Serial Number", notes = "The response " +
+            "carries an 'ETag' header. Clients sending a matching 'If-None-Match' header receive '304 Not Modified'.")
+    public HttpEntity<byte[]> getPlainPemCertificate(@PathVariable CertificateSerial serial) {
+        final PemCertificateDto pemCertificate = certificatePemCache.getPemCertificate(serial);
         final String filename = serial.toString() + PkixMediaType.X509_CERTIFICATE_FILE_EXTENSION;
         return ResponseEntity
                 .ok()
                 .header(HttpHeaders.CONTENT_TYPE, PkixMediaType.APPLICATION_PKIX_CERT_VALUE)
                 .header(HttpHeaders.CONTENT_DISPOSITION, String.format("attachment; filename=\"%s\"", filename))
-                .body(certificateService.getPlainPEMEncodedCertificate(serial));
+                .eTag(pemCertificate.getETag())
+                .body(pemCertificate.getPem());
+    }
 
+    @GetMapping(path = "/{serial}/der",
+            consumes = MediaType.ALL_VALUE,
+            produces = {PkixMediaType.APPLICATION_PKIX_CERT_VALUE, MediaType.ALL_VALUE}
+    )
+    @ResponseStatus(HttpStatus.OK)
+    @ApiOperation(value = "Retrieve a DER encoded User Certificate by Serial Number", notes = "No authentication is " +
+            "required.")
+    public HttpEntity<byte[]> getDerCertificate(@PathVariable CertificateSerial serial) {
+        final String filename = serial.toString() + PkixMediaType.X509_DER_CERTIFICATE_FILE_EXTENSION;
+        return ResponseEntity
+                .ok()
+                .header(HttpHeaders.CONTENT_TYPE, PkixMediaType.APPLICATION_PKIX_CERT_VALUE)
+                .header(HttpHeaders.CONTENT_DISPOSITION, String.format("attachment; filename=\"%s\"", filename))
+                .body(certificateService.getDEREncodedCertificate(serial));
+    }
+
+    @GetMapping(path = "/{serial}/configuration",
+            consumes = MediaType.ALL_VALUE,
+            produces = {MediaType.TEXT_PLAIN_VALUE, MediaType.ALL_VALUE}
+    )
+    @PreAuthorize("hasRole('ADMIN') or (hasRole('USER') and hasPermission(#serial, 'certificate', 'get'))")
+    @ApiOperation(value = "Retrieve the Configuration of a User Certificate by Serial Number", notes = "Render the " +
+            "configuration template of the certificate's use. Admin users may retrieve the configuration of any " +
+            "certificate. Regular users are limited to their own certificates. Responds with '404 Not Found' if " +
+            "the use has no configuration template.")
+    public void getConfiguration(@PathVariable CertificateSerial serial, HttpServletResponse httpServletResponse) throws
+            IOException {
+        certificateService.writeConfiguration(serial, use -> {
+            final String filename = serial.toString() + "-" + use.replaceAll("[^A-Za-z0-9._-]", "_") +
+                    CONFIGURATION_FILE_EXTENSION;
+
+            httpServletResponse.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            httpServletResponse.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            httpServletResponse.setHeader(HttpHeaders.CONTENT_DISPOSITION, String.format("attachment; " +
+                    "filename=\"%s\"", filename));
+            return httpServletResponse.getWriter();
+        });
     }
 
     @GetMapping(
@@ -110,28 +168,34 @@ public class CertificatesController {
     )
     @ResponseStatus(HttpStatus.OK)
     @PreAuthorize("hasRole('ADMIN') or hasRole('USER')")
-    @ApiOperation(value = "Get all User Certificates")
-    public Resources<CertificateListItemDto> getAll(HttpServletRequest httpServletRequest) {
-        List<CertificateListItemDto> all = certificateService.getAll();
+    @ApiOperation(value = "Get all User Certificates", notes = "Admin users retrieve all certificates, regular users " +
+            "are limited to their own certificates. Certificates are returned in slices ordered by serial number. " +
+            "If more certificates are available, the response holds a 'next' link pointing to the next slice.")
+    public Resources<CertificateListItemDto> getAll(
+            @RequestParam(name = "after", required = false) CertificateSerial after,
+            @RequestParam(name = "size", defaultValue = DEFAULT_SLICE_SIZE) int size,
+            HttpServletRequest httpServletRequest) {
+        final boolean isAdmin = httpServletRequest.isUserInRole("ADMIN");
+        final String username = httpServletRequest.getUserPrincipal().getName();
 
-        boolean isAdmin = httpServletRequest.isUserInRole("ADMIN");
-        String username = httpServletRequest.getUserPrincipal().getName();
+        final Slice<CertificateListItemDto> certificates = isAdmin ?
+                certificateService.getAll(after, size) :
+                certificateService.getAllByUserId(username, after, size);
 
-        all = all.stream()
-                .filter(x -> isAdmin || (x.getUserId() != null && x.getUserId().equals(username)))
-                .map(this::addLinksToCertificateListItemDto)
+        final CertificateListItemLinks certificateListItemLinks = CertificateListItemLinks.forCurrentRequest();
+        final List<CertificateListItemDto> certificateListItemDtos = certificates.getContent()
+                .stream()
+                .map(certificateListItemLinks::addLinks)
                 .collect(Collectors.toList());
 
-        return new Resources<>(all, linkTo(CertificatesController.class).withRel("sign"));
-    }
-
-    private CertificateListItemDto addLinksToCertificateListItemDto(CertificateListItemDto certificateListItemDto) {
-        certificateListItemDto.add(linkTo(methodOn(CertificatesController.class).getCertificate
-                (certificateListItemDto.getSerial())).withSelfRel());
-        certificateListItemDto.add(linkTo(methodOn(CertificatesController.class).getPlainPemCertificate
-                (certificateListItemDto.getSerial())).withRel("pem"));
-        certificateListItemDto.add(linkTo(methodOn(RevocationController.class).revoke
-                (certificateListItemDto.getSerial(), new RevocationReasonDto())).withRel("revoke"));
-        return certificateListItemDto;
+        final Resources<CertificateListItemDto> resources = new Resources<>(certificateListItemDtos, linkTo
+                (CertificatesController.class).withRel("sign"));
+        if (certificates.hasNext()) {
+            final CertificateSerial lastSerial = certificateListItemDtos.get(certificateListItemDtos.size() - 1)
+                    .getSerial();
+            resources.add(linkTo(methodOn(CertificatesController.class).getAll(lastSerial, size, null)).withRel
+                    (Link.REL_NEXT));
+        }
+        return resources;
     }
 }
@@ -29,6 +29,7 @@
 
 package ch.zhaw.ba.anath.pki.controllers;
 
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
 import ch.zhaw.ba.anath.pki.dto.RevocationReasonDto;
 import ch.zhaw.ba.anath.pki.services.RevocationService;
 import io.swagger.annotations.Api;
@@ -39,8 +40,6 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
-import java.math.BigInteger;
-
 import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
 import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
 
@@ -64,7 +63,7 @@ public class RevocationController {
     @PreAuthorize("hasRole('ADMIN') or (hasRole('USER') and hasPermission(#serial, 'certificate', 'revoke'))")
     @ApiOperation(value = "Revoke a User Certificate by Serial Number", notes = "Admin users may revoke any user " +
             "certificate. Regular users may only revoke their certificates.")
-    public ResourceSupport revoke(@PathVariable BigInteger serial, @RequestBody @Validated RevocationReasonDto
+    public ResourceSupport revoke(@PathVariable CertificateSerial serial, @RequestBody @Validated RevocationReasonDto
             revocationReasonDto) {
         revocationService.revokeCertificate(serial, revocationReasonDto.getReason());
 
@@ -35,7 +35,6 @@ import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.cert.X509CertificateHolder;
 
 import java.io.IOException;
-import java.math.BigInteger;
 import java.util.Date;
 
 /**
@@ -60,8 +59,8 @@ public class Certificate {
         return certificateHolder.getNotAfter();
     }
 
-    public BigInteger getSerial() {
-        return certificateHolder.getSerialNumber();
+    public CertificateSerial getSerial() {
+        return CertificateSerial.of(certificateHolder.getSerialNumber());
     }
 
     /**
@@ -88,7 +88,8 @@ public class CertificateRevocationListCreator {
         x509v2CRLBuilder.setNextUpdate(nextUpdate);
 
         for (RevokedCertificate revokedCertificate : revokedCertificates) {
-            final BigInteger certificateSerial = revokedCertificate.getCertificate().getSerial();
+            final BigInteger certificateSerial = revokedCertificate.getCertificate().getCertificateHolder()
+                    .getSerialNumber();
             x509v2CRLBuilder.addCRLEntry(certificateSerial, revokedCertificate.getRevocationTime(), CRLReason
                     .unspecified);
         }
@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package ch.zhaw.ba.anath.pki.core;
+
+import lombok.EqualsAndHashCode;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+
+/**
+ * Fixed-width certificate serial number. RFC 5280 limits serial numbers to 20 octets, hence the serial is held as
+ * an unsigned 160 bit integer in primitive fields. Comparing, hashing, and parsing serial numbers does not allocate.
+ * <p>
+ * The binary form is 20 octets big endian, left padded with zeros. Comparing the binary forms byte by byte, unsigned,
+ * yields the numerical order. The textual form is decimal.
+ *
+ * @author Rafael Ostertag
+ */
+@EqualsAndHashCode
+public final class CertificateSerial implements Comparable<CertificateSerial>, Serializable {
+    /**
+     * Length of the binary form in octets.
+     */
+    public static final int LENGTH = 20;
+    public static final CertificateSerial ZERO = new CertificateSerial(0, 0L, 0L);
+
+    private static final long serialVersionUID = 1L;
+    private static final int BITS = LENGTH * 8;
+    private static final long LIMB_MASK = 0xffffffffL;
+    private static final long DECIMAL_CHUNK = 1_000_000_000L;
+    private static final int DECIMAL_CHUNK_DIGITS = 9;
+    private static final int MAX_DECIMAL_DIGITS = 49;
+
+    /**
+     * Bits 159 to 128.
+     */
+    private final int high;
+    /**
+     * Bits 127 to 64.
+     */
+    private final long middle;
+    /**
+     * Bits 63 to 0.
+     */
+    private final long low;
+
+    private CertificateSerial(int high, long middle, long low) {
+        this.high = high;
+        this.middle = middle;
+        this.low = low;
+    }
+
+    /**
+     * Create a serial number from a {@link BigInteger}.
+     *
+     * @param serial the serial number. It must not be negative and must fit into 20 octets.
+     *
+     * @return {@link CertificateSerial} instance.
+     *
+     * @throws IllegalArgumentException if the serial number is negative or does not fit into 20 octets.
+     */
+    public static CertificateSerial of(BigInteger serial) {
+        if (serial.signum() < 0 || serial.bitLength() > BITS) {
+            throw new IllegalArgumentException(String.format("Serial number %s is negative or exceeds %d octets",
+                    serial.toString(), LENGTH));
+        }
+        return new CertificateSerial(serial.shiftRight(128).intValue(), serial.shiftRight(64).longValue(), serial
+                .longValue());
+    }
+
+    /**
+     * Create a serial number from a {@code long}.
+     *
+     * @param serial the serial number. It must not be negative.
+     *
+     * @return {@link CertificateSerial} instance.
+     *
+     * @throws IllegalArgumentException if the serial number is negative.
+     */
+    public static CertificateSerial valueOf(long serial) {
+        if (serial < 0) {
+            throw new IllegalArgumentException(String.format("Serial number %d is negative", serial));
+        }
+        return new CertificateSerial(0, 0L, serial);
+    }
+
+    /**
+     * Create a serial number from its binary form.
+     *
+     * @param bytes 20 octets, big endian.
+     *
+     * @return {@link CertificateSerial} instance.
+     *
+     * @throws IllegalArgumentException if {@code bytes} is not 20 octets long.
+     */
+    public static CertificateSerial fromBytes(byte[] bytes) {
+        if (bytes.length != LENGTH) {
+            throw new IllegalArgumentException(String.format("Serial number must be %d octets, got %d", LENGTH,
+                    bytes.length));
+        }
+        return new CertificateSerial((int) readBigEndian(bytes, 0, 4), readBigEndian(bytes, 4, 8), readBigEndian
+                (bytes, 12, 8));
+    }
+
+    /**
+     * Parse the decimal form of a serial number. The name allows Spring to convert request parameters and path
+     * variables.
+     *
+     * @param decimal decimal serial number.
+     *
+     * @return {@link CertificateSerial} instance.
+     *
+     * @throws NumberFormatException if {@code decimal} is not a non-negative decimal number fitting into 20 octets.
+     */
+    public static CertificateSerial valueOf(String decimal) {
+        if (decimal.isEmpty() || decimal.length() > MAX_DECIMAL_DIGITS) {
+            throw new NumberFormatException(String.format("'%s' is not a valid serial number", decimal));
+        }
+
+        // 32 bit limbs, limb0 being the most significant
+        long limb0 = 0;
+        long limb1 = 0;
+        long limb2 = 0;
+        long limb3 = 0;
+        long limb4 = 0;
+        for (int i = 0; i < decimal.length(); i++) {
+            final int digit = Character.digit(decimal.charAt(i), 10);
+            if (digit < 0) {
+                throw new NumberFormatException(String.format("'%s' is not a valid serial number", decimal));
+            }
+
+            limb4 = limb4 * 10 + digit;
+            limb3 = limb3 * 10 + (limb4 >>> 32);
+            limb2 = limb2 * 10 + (limb3 >>> 32);
+            limb1 = limb1 * 10 + (limb2 >>> 32);
+            limb0 = limb0 * 10 + (limb1 >>> 32);
+            if ((limb0 >>> 32) != 0) {
+                throw new NumberFormatException(String.format("'%s' exceeds %d octets", decimal, LENGTH));
+            }
+            limb4 &= LIMB_MASK;
+            limb3 &= LIMB_MASK;
+            limb2 &= LIMB_MASK;
+            limb1 &= LIMB_MASK;
+        }
+
+        return new CertificateSerial((int) limb0, (limb1 << 32) | limb2, (limb3 << 32) | limb4);
+    }
+
+    private static long readBigEndian(byte[] bytes, int offset, int length) {
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            value = (value << 8) | (bytes[i] & 0xff);
+        }
+        return value;
+    }
+
+    private static void writeBigEndian(byte[] bytes, int offset, int length, long value) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            bytes[i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    /**
+     * @return the binary form, 20 octets big endian.
+     */
+    public byte[] toBytes() {
+        final byte[] bytes = new byte[LENGTH];
+        writeBigEndian(bytes, 0, 4, high);
+        writeBigEndian(bytes, 4, 8, middle);
+        writeBigEndian(bytes, 12, 8, low);
+        return bytes;
+    }
+
+    public BigInteger toBigInteger() {
+        return new BigInteger(1, toBytes());
+    }
+
+    @Override
+    public int compareTo(CertificateSerial other) {
+        int result = Integer.compareUnsigned(high, other.high);
+        if (result != 0) {
+            return result;
+        }
+        result = Long.compareUnsigned(middle, other.middle);
+        if (result != 0) {
+            return result;
+        }
+        return Long.compareUnsigned(low, other.low);
+    }
+
+    /**
+     * @return the decimal form.
+     */
+    @Override
+    public String toString() {
+        long limb0 = high & LIMB_MASK;
+        long limb1 = middle >>> 32;
+        long limb2 = middle & LIMB_MASK;
+        long limb3 = low >>> 32;
+        long limb4 = low & LIMB_MASK;
+
+        final char[] digits = new char[MAX_DECIMAL_DIGITS];
+        int position = digits.length;
+        boolean remaining;
+        do {
+            // Divide by 10^9. The remainder is less than 2^30, so shifting it by 32 bits does not overflow.
+            long current = limb0;
+            limb0 = current / DECIMAL_CHUNK;
+            current = ((current % DECIMAL_CHUNK) << 32) | limb1;
+            limb1 = current / DECIMAL_CHUNK;
+            current = ((current % DECIMAL_CHUNK) << 32) | limb2;
+            limb2 = current / DECIMAL_CHUNK;
+            current = ((current % DECIMAL_CHUNK) << 32) | limb3;
+            limb3 = current / DECIMAL_CHUNK;
+            current = ((current % DECIMAL_CHUNK) << 32) | limb4;
+            limb4 = current / DECIMAL_CHUNK;
+            long chunk = current % DECIMAL_CHUNK;
+
+            remaining = (limb0 | limb1 | limb2 | limb3 | limb4) != 0;
+            for (int i = 0; i < DECIMAL_CHUNK_DIGITS && (remaining || chunk != 0 || i == 0); i++) {
+                digits[--position] = (char) ('0' + chunk % 10);
+                chunk /= 10;
+            }
+        } while (remaining);
+
+        return new String(digits, position, digits.length - position);
+    }
+}
@@ -35,7 +35,9 @@ import ch.zhaw.ba.anath.pki.core.interfaces.*;
 import lombok.Setter;
 import org.bouncycastle.asn1.x500.X500Name;
 import org.bouncycastle.asn1.x509.BasicConstraints;
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
 import org.bouncycastle.asn1.x509.Extension;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
 import org.bouncycastle.asn1.x509.SubjectPublicKeyInfo;
 import org.bouncycastle.cert.X509CertificateHolder;
 import org.bouncycastle.cert.X509v3CertificateBuilder;
@@ -103,7 +105,8 @@ public class CertificateSigner {
     }
 
     /**
-     * Sign the certification request with the Certificate Authority's private key.
+     * Sign the certification request with the Certificate Authority's private key. The certificate is issued for
+     * TLS client authentication.
      *
      * @param certificateSigningRequest {@link CertificateSigningRequestReader} instance to be signed.
      *
@@ -112,6 +115,22 @@ public class CertificateSigner {
      * @throws CertificateConstraintException when certificate constraints are not met.
      */
     public Certificate signCertificate(CertificateSigningRequest certificateSigningRequest) {
+        return signCertificate(certificateSigningRequest, KeyPurposeId.id_kp_clientAuth);
+    }
+
+    /**
+     * Sign the certification request with the Certificate Authority's private key.
+     *
+     * @param certificateSigningRequest {@link CertificateSigningRequestReader} instance to be signed.
+     * @param keyPurpose                the key purpose put in the extended key usage of the certificate, e.g.
+     *                                  {@link KeyPurposeId#id_kp_clientAuth} or
+     *                                  {@link KeyPurposeId#id_kp_serverAuth}.
+     *
+     * @return {@link Certificate} instance.
+     *
+     * @throws CertificateConstraintException when certificate constraints are not met.
+     */
+    public Certificate signCertificate(CertificateSigningRequest certificateSigningRequest, KeyPurposeId keyPurpose) {
         final X500Name issuerName = certificateAuthority.getCASubjectName();
 
         certificateConstraintProvider.validateSubject(certificateSigningRequest.getSubject(), issuerName);
@@ -130,6 +149,7 @@ public class CertificateSigner {
                 getSubjectPublicKeyInfoFromCertificateSigningRequest(certificateSigningRequest)
         );
         setBasicConstraints(x509v3CertificateBuilder);
+        setExtendedKeyUsage(x509v3CertificateBuilder, keyPurpose);
         final X509CertificateHolder certificateHolder = x509v3CertificateBuilder.build(contentSigner);
 
         return new Certificate(certificateHolder);
@@ -145,6 +165,20 @@ public class CertificateSigner {
         }
     }
 
+    /**
+     * Restrict the certificate to a single key purpose, so that client certificates cannot be used by TLS servers,
+     * and vice versa.
+     */
+    private void setExtendedKeyUsage(X509v3CertificateBuilder x509v3CertificateBuilder, KeyPurposeId keyPurpose) {
+        try {
+            x509v3CertificateBuilder.addExtension(
+                    new Extension(Extension.extendedKeyUsage, false,
+                            new ExtendedKeyUsage(keyPurpose).getEncoded()));
+        } catch (IOException e) {
+            throw new CertificateSignerException("Error building certificate: " + e.getMessage(), e);
+        }
+    }
+
     private SubjectPublicKeyInfo getSubjectPublicKeyInfoFromCertificateSigningRequest(CertificateSigningRequest
                                                                                               certificateSigningRequest) {
         return certificateSigningRequest.getPkcs10CertificationRequest().getSubjectPublicKeyInfo();
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.core;
+
+import ch.zhaw.ba.anath.pki.core.exceptions.CertificateReaderException;
+import ch.zhaw.ba.anath.pki.core.interfaces.CertificateReader;
+import org.bouncycastle.cert.X509CertificateHolder;
+
+/**
+ * Read a DER encoded X.509 certificate.
+ *
+ * @author Rafael Ostertag
+ */
+public final class DERCertificateReader implements CertificateReader {
+
+    private final Certificate cert;
+
+    public DERCertificateReader(byte[] certificate) {
+        this.cert = new Certificate(readDERCertificate(certificate));
+    }
+
+    @Override
+    public Certificate certificate() {
+        return cert;
+    }
+
+    private X509CertificateHolder readDERCertificate(byte[] certificate) {
+        try {
+            return new X509CertificateHolder(certificate);
+        } catch (Exception e) {
+            throw new CertificateReaderException("Error reading DER encoded certificate: " + e.getMessage(), e);
+        }
+    }
+}
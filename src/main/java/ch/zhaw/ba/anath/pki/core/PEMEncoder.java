@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.core;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encode DER encoded objects as PEM. The output is identical to the one produced by Bouncy Castle's
+ * {@link org.bouncycastle.util.io.pem.PemWriter} on systems using {@code \n} as line separator. The PEM encoded object
+ * is written to a single buffer of exactly the required size, without intermediate copies.
+ *
+ * @author Rafael Ostertag
+ */
+public final class PEMEncoder {
+    public static final String CERTIFICATE = "CERTIFICATE";
+    public static final String X509_CRL = "X509 CRL";
+    private static final int LINE_LENGTH = 64;
+    private static final byte LINE_SEPARATOR = '\n';
+    private static final byte PADDING = '=';
+    private static final byte[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".getBytes
+            (StandardCharsets.US_ASCII);
+
+    private PEMEncoder() {
+        // intentionally empty
+    }
+
+    /**
+     * PEM encode a DER encoded certificate.
+     *
+     * @param der DER encoded certificate.
+     *
+     * @return PEM encoded certificate as US-ASCII bytes.
+     */
+    public static byte[] encodeCertificate(byte[] der) {
+        return encode(CERTIFICATE, der);
+    }
+
+    /**
+     * PEM encode a DER encoded certificate revocation list.
+     *
+     * @param der DER encoded certificate revocation list.
+     *
+     * @return PEM encoded certificate revocation list as US-ASCII bytes.
+     */
+    public static byte[] encodeCrl(byte[] der) {
+        return encode(X509_CRL, der);
+    }
+
+    /**
+     * PEM encode a DER encoded object.
+     *
+     * @param type the PEM type, e.g. {@value #CERTIFICATE}.
+     * @param der  DER encoded object.
+     *
+     * @return PEM encoded object as US-ASCII bytes.
+     */
+    public static byte[] encode(String type, byte[] der) {
+        final byte[] header = ("-----BEGIN " + type + "-----\n").getBytes(StandardCharsets.US_ASCII);
+        final byte[] footer = ("-----END " + type + "-----\n").getBytes(StandardCharsets.US_ASCII);
+        final int base64Length = 4 * ((der.length + 2) / 3);
+        final int lines = (base64Length + LINE_LENGTH - 1) / LINE_LENGTH;
+
+        final byte[] pem = new byte[header.length + base64Length + lines + footer.length];
+        System.arraycopy(header, 0, pem, 0, header.length);
+        int position = encodeBase64Lines(der, pem, header.length);
+        System.arraycopy(footer, 0, pem, position, footer.length);
+        return pem;
+    }
+
+    private static int encodeBase64Lines(byte[] source, byte[] destination, int offset) {
+        int position = offset;
+        int lineLength = 0;
+        for (int i = 0; i < source.length; i += 3) {
+            final int remaining = source.length - i;
+            final int b0 = source[i] & 0xff;
+            final int b1 = remaining > 1 ? source[i + 1] & 0xff : 0;
+            final int b2 = remaining > 2 ? source[i + 2] & 0xff : 0;
+
+            destination[position++] = ALPHABET[b0 >>> 2];
+            destination[position++] = ALPHABET[((b0 << 4) | (b1 >>> 4)) & 0x3f];
+            destination[position++] = remaining > 1 ? ALPHABET[((b1 << 2) | (b2 >>> 6)) & 0x3f] : PADDING;
+            destination[position++] = remaining > 2 ? ALPHABET[b2 & 0x3f] : PADDING;
+
+            lineLength += 4;
+            if (lineLength == LINE_LENGTH) {
+                destination[position++] = LINE_SEPARATOR;
+                lineLength = 0;
+            }
+        }
+
+        if (lineLength > 0) {
+            destination[position++] = LINE_SEPARATOR;
+        }
+        return position;
+    }
+}
@@ -29,13 +29,13 @@
 
 package ch.zhaw.ba.anath.pki.dto;
 
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import org.springframework.hateoas.ResourceSupport;
 
-import java.math.BigInteger;
-
 /**
  * @author Rafael Ostertag
  */
@@ -43,7 +43,8 @@ import java.math.BigInteger;
 @EqualsAndHashCode(callSuper = false)
 public class CertificateListItemDto extends ResourceSupport {
     private String subject;
-    private BigInteger serial;
+    @JsonSerialize(using = CertificateSerialJsonSerializer.class)
+    private CertificateSerial serial;
     private String use;
     private boolean valid;
     // This is used internally to filter lists by users.
@@ -31,6 +31,7 @@ package ch.zhaw.ba.anath.pki.dto;
 
 import ch.zhaw.ba.anath.pki.dto.bits.CertificateValidityBit;
 import ch.zhaw.ba.anath.pki.dto.bits.PemBit;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import org.springframework.hateoas.ResourceSupport;
@@ -42,7 +43,8 @@ import org.springframework.hateoas.ResourceSupport;
 @EqualsAndHashCode(callSuper = false)
 public class CertificateResponseDto extends ResourceSupport {
     private String use;
-    private String config;
+    @JsonIgnore
+    private boolean configurationAvailable;
     private PemBit cert;
     private CertificateValidityBit validity;
 }
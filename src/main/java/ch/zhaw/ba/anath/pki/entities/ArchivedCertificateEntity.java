@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.entities;
+
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import javax.persistence.*;
+import java.sql.Timestamp;
+
+/**
+ * Archived X.509 Certificate Entity. Certificates expired longer than the retention period are moved from
+ * {@link CertificateEntity} to this entity.
+ *
+ * @author Rafael Ostertag
+ */
+@Entity
+@Table(name = "certificates_archive")
+@Data
+@EqualsAndHashCode(of = "id")
+public class ArchivedCertificateEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "certificates_archive_seq")
+    @SequenceGenerator(name = "certificates_archive_seq", sequenceName = "certificates_archive_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "serial_number", unique = true, nullable = false, length = CertificateSerial.LENGTH)
+    @Convert(converter = CertificateSerialConverter.class)
+    private CertificateSerial serial;
+
+    @Column(name = "not_valid_before", nullable = false)
+    private Timestamp notValidBefore;
+
+    @Column(name = "not_valid_after", nullable = false)
+    private Timestamp notValidAfter;
+
+    @Column(name = "subject", nullable = false)
+    private String subject;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private CertificateStatus status;
+
+    @Column(name = "revocation_reason")
+    private String revocationReason;
+
+    @Column(name = "revocation_time")
+    private Timestamp revocationTime;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    @Column(name = "x509_cert_der", nullable = false)
+    private byte[] x509DERCertificate;
+
+    @Column(name = "certificate_use", nullable = false)
+    private String useName;
+
+    /**
+     * Create the archived copy of a certificate.
+     *
+     * @param certificateEntity the certificate to be archived.
+     *
+     * @return {@link ArchivedCertificateEntity} instance.
+     */
+    public static ArchivedCertificateEntity of(CertificateEntity certificateEntity) {
+        final ArchivedCertificateEntity archivedCertificateEntity = new ArchivedCertificateEntity();
+        archivedCertificateEntity.setSerial(certificateEntity.getSerial());
+        archivedCertificateEntity.setNotValidBefore(certificateEntity.getNotValidBefore());
+        archivedCertificateEntity.setNotValidAfter(certificateEntity.getNotValidAfter());
+        archivedCertificateEntity.setSubject(certificateEntity.getSubject());
+        archivedCertificateEntity.setStatus(certificateEntity.getStatus());
+        archivedCertificateEntity.setRevocationReason(certificateEntity.getRevocationReason());
+        archivedCertificateEntity.setRevocationTime(certificateEntity.getRevocationTime());
+        archivedCertificateEntity.setUserId(certificateEntity.getUserId());
+        archivedCertificateEntity.setX509DERCertificate(certificateEntity.getX509DERCertificate());
+        archivedCertificateEntity.setUseName(certificateEntity.getUseName());
+        return archivedCertificateEntity;
+    }
+
+    /**
+     * Create a transient {@link CertificateEntity} from the archived certificate for reading. It must not be
+     * persisted.
+     *
+     * @return {@link CertificateEntity} instance.
+     */
+    public CertificateEntity toCertificateEntity() {
+        final CertificateEntity certificateEntity = new CertificateEntity();
+        certificateEntity.setSerial(serial);
+        certificateEntity.setNotValidBefore(notValidBefore);
+        certificateEntity.setNotValidAfter(notValidAfter);
+        certificateEntity.setSubject(subject);
+        certificateEntity.setStatus(status);
+        certificateEntity.setRevocationReason(revocationReason);
+        certificateEntity.setRevocationTime(revocationTime);
+        certificateEntity.setUserId(userId);
+        certificateEntity.setX509DERCertificate(x509DERCertificate);
+        certificateEntity.setUseName(useName);
+        return certificateEntity;
+    }
+}
@@ -29,12 +29,13 @@
 
 package ch.zhaw.ba.anath.pki.entities;
 
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
+import lombok.ToString;
 
 import javax.persistence.*;
 import java.io.Serializable;
-import java.math.BigInteger;
 import java.sql.Timestamp;
 
 /**
@@ -46,15 +47,18 @@ import java.sql.Timestamp;
 @Table(name = "certificates")
 @Data
 @EqualsAndHashCode(of = "id")
+@ToString(exclude = "use")
 public class CertificateEntity implements Serializable {
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 3L;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "certificates_seq")
+    @SequenceGenerator(name = "certificates_seq", sequenceName = "certificates_seq", allocationSize = 50)
     private Long id;
 
-    @Column(name = "serial_number", unique = true, nullable = false, precision = 48, scale = 0)
-    private BigInteger serial;
+    @Column(name = "serial_number", unique = true, nullable = false, length = CertificateSerial.LENGTH)
+    @Convert(converter = CertificateSerialConverter.class)
+    private CertificateSerial serial;
 
     @Column(name = "not_valid_before", nullable = false)
     private Timestamp notValidBefore;
@@ -80,10 +84,20 @@ public class CertificateEntity implements Serializable {
     @Column(name = "user_id", nullable = false)
     private String userId;
 
-    @Column(name = "x509_cert_pem", nullable = false)
-    private byte[] x509PEMCertificate;
+    @Column(name = "x509_cert_der", nullable = false)
+    private byte[] x509DERCertificate;
 
-    @OneToOne
+    /**
+     * The use is loaded lazily. Use {@link #useName} to get the name of the use without loading it.
+     */
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "certificate_use", nullable = false)
     private UseEntity use;
+
+    /**
+     * Name of the use, read-only. It is populated when the entity is loaded from the database. To change the use,
+     * set {@link #use}, and keep this field in sync for entities that are not reloaded.
+     */
+    @Column(name = "certificate_use", insertable = false, updatable = false)
+    private String useName;
 }
@@ -46,13 +46,14 @@ import java.sql.Timestamp;
 @EqualsAndHashCode(of = "id")
 public class CrlEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "crl_seq")
+    @SequenceGenerator(name = "crl_seq", sequenceName = "crl_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "this_update", nullable = false)
     private Timestamp thisUpdate;
     @Column(name = "next_update", nullable = false)
     private Timestamp nextUpdate;
-    @Column(name = "x509_crl_pem", nullable = false)
-    private byte[] x509PEMCrl;
+    @Column(name = "x509_crl_der", nullable = false)
+    private byte[] x509DERCrl;
 }
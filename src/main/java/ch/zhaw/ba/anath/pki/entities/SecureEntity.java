@@ -46,7 +46,8 @@ import javax.persistence.*;
 @EqualsAndHashCode(of = {"id"})
 public class SecureEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "secure_seq")
+    @SequenceGenerator(name = "secure_seq", sequenceName = "secure_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "key", nullable = false, unique = true)
@@ -57,4 +58,9 @@ public class SecureEntity {
     private byte[] iV;
     @Column(name = "algo", nullable = false)
     private String algorithm;
+    /**
+     * Id of the key used to encrypt the data. May be {@code null} for data stored before key ids were introduced.
+     */
+    @Column(name = "key_id")
+    private String keyId;
 }
@@ -47,11 +47,11 @@ import java.io.Serializable;
 @Data
 @EqualsAndHashCode(of = {"use"})
 public class UseEntity implements Serializable {
-    private static final long serialVersionUID = 1L;
+    private static final long serialVersionUID = 2L;
     public static final String DEFAULT_USE = "plain";
     @Id
     @Column(name = "certificate_use")
     private String use;
     @Column(name = "config", nullable = true)
-    private Byte[] config;
+    private byte[] config;
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.migrations;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.util.io.pem.PemObject;
+import org.bouncycastle.util.io.pem.PemReader;
+import org.flywaydb.core.api.migration.jdbc.JdbcMigration;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Store certificates and certificate revocation lists DER encoded instead of PEM encoded. Existing rows are converted
+ * in batches, reading them with a forward-only cursor.
+ * <p>
+ * This is a Java migration, since PEM cannot be decoded portably in SQL.
+ *
+ * @author Rafael Ostertag
+ */
+@Slf4j
+public class V1_2__Store_Certificates_As_DER implements JdbcMigration {
+    private static final int BATCH_SIZE = 100;
+
+    @Override
+    public void migrate(Connection connection) throws Exception {
+        migrateTable(connection, "certificates", "x509_cert_pem", "x509_cert_der");
+        migrateTable(connection, "crl", "x509_crl_pem", "x509_crl_der");
+    }
+
+    private void migrateTable(Connection connection, String table, String pemColumn, String derColumn) throws
+            Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(String.format("ALTER TABLE %s ADD COLUMN %s BYTEA", table, derColumn));
+        }
+
+        final int converted = convertRows(connection, table, pemColumn, derColumn);
+        log.info("Converted {} rows of table {} from PEM to DER", converted, table);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(String.format("ALTER TABLE %s ALTER COLUMN %s SET NOT NULL", table, derColumn));
+            statement.execute(String.format("ALTER TABLE %s DROP COLUMN %s", table, pemColumn));
+        }
+    }
+
+    private int convertRows(Connection connection, String table, String pemColumn, String derColumn) throws
+            Exception {
+        int converted = 0;
+        try (Statement select = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+             PreparedStatement update = connection.prepareStatement(String.format("UPDATE %s SET %s = ? WHERE id = ?",
+                     table, derColumn))) {
+            select.setFetchSize(BATCH_SIZE);
+            try (ResultSet resultSet = select.executeQuery(String.format("SELECT id, %s FROM %s", pemColumn,
+                    table))) {
+                while (resultSet.next()) {
+                    update.setBytes(1, pemToDer(resultSet.getBytes(2)));
+                    update.setLong(2, resultSet.getLong(1));
+                    update.addBatch();
+
+                    converted++;
+                    if (converted % BATCH_SIZE == 0) {
+                        update.executeBatch();
+                    }
+                }
+            }
+            update.executeBatch();
+        }
+        return converted;
+    }
+
+    static byte[] pemToDer(byte[] pem) throws IOException {
+        try (PemReader pemReader = new PemReader(new InputStreamReader(new ByteArrayInputStream(pem),
+                StandardCharsets.US_ASCII))) {
+            final PemObject pemObject = pemReader.readPemObject();
+            if (pemObject == null) {
+                throw new IOException("No PEM encoded object found");
+            }
+            return pemObject.getContent();
+        }
+    }
+}
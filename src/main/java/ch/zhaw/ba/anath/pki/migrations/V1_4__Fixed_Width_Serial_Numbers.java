@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package ch.zhaw.ba.anath.pki.migrations;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.jdbc.JdbcMigration;
+
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Store certificate serial numbers as 20 octets big endian instead of {@code NUMERIC(48)}. Fixed-width binary keys
+ * compare byte by byte in the unique index, and their order is the numerical order of the serial numbers. Existing
+ * rows are converted in batches, reading them with a forward-only cursor.
+ * <p>
+ * The encoding is implemented here instead of using {@link ch.zhaw.ba.anath.pki.core.CertificateSerial}, so that
+ * the migration does not change with the application.
+ *
+ * @author Rafael Ostertag
+ */
+@Slf4j
+public class V1_4__Fixed_Width_Serial_Numbers implements JdbcMigration {
+    static final int SERIAL_LENGTH = 20;
+    private static final int BATCH_SIZE = 100;
+
+    @Override
+    public void migrate(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE certificates ADD COLUMN serial_number_fixed BYTEA");
+        }
+
+        final int converted = convertRows(connection);
+        log.info("Converted {} serial numbers to fixed-width binary", converted);
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP INDEX certificates_user_id_serial_number_idx");
+            statement.execute("ALTER TABLE certificates DROP COLUMN serial_number");
+            statement.execute("ALTER TABLE certificates RENAME COLUMN serial_number_fixed TO serial_number");
+            statement.execute("ALTER TABLE certificates ALTER COLUMN serial_number SET NOT NULL");
+            statement.execute("ALTER TABLE certificates ADD CONSTRAINT certificates_serial_number_key UNIQUE " +
+                    "(serial_number)");
+            statement.execute("CREATE INDEX certificates_user_id_serial_number_idx ON certificates (user_id, " +
+                    "serial_number)");
+        }
+    }
+
+    private int convertRows(Connection connection) throws Exception {
+        int converted = 0;
+        try (Statement select = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+             PreparedStatement update = connection.prepareStatement("UPDATE certificates SET serial_number_fixed = " +
+                     "? WHERE id = ?")) {
+            select.setFetchSize(BATCH_SIZE);
+            try (ResultSet resultSet = select.executeQuery("SELECT id, serial_number FROM certificates")) {
+                while (resultSet.next()) {
+                    update.setBytes(1, toFixedWidth(resultSet.getBigDecimal(2).toBigIntegerExact()));
+                    update.setLong(2, resultSet.getLong(1));
+                    update.addBatch();
+
+                    converted++;
+                    if (converted % BATCH_SIZE == 0) {
+                        update.executeBatch();
+                    }
+                }
+            }
+            update.executeBatch();
+        }
+        return converted;
+    }
+
+    static byte[] toFixedWidth(BigInteger serial) {
+        if (serial.signum() < 0 || serial.bitLength() > SERIAL_LENGTH * 8) {
+            throw new IllegalArgumentException(String.format("Serial number %s is negative or exceeds %d octets",
+                    serial.toString(), SERIAL_LENGTH));
+        }
+
+        final byte[] magnitude = serial.toByteArray();
+        final byte[] fixedWidth = new byte[SERIAL_LENGTH];
+        // toByteArray() may prepend a zero sign byte, which is dropped.
+        final int length = Math.min(magnitude.length, SERIAL_LENGTH);
+        System.arraycopy(magnitude, magnitude.length - length, fixedWidth, SERIAL_LENGTH - length, length);
+        return fixedWidth;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.migrations;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.jdbc.JdbcMigration;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Create the sequences the PKI entity ids are allocated from. Hibernate allocates ids in blocks of
+ * {@value #ALLOCATION_SIZE} using the pooled optimizer, which lets it batch inserts. Identity columns prevent insert
+ * batching, since the id of each row has to be read back after its insert.
+ * <p>
+ * The pooled optimizer treats the sequence value as the upper end of the block, hence the sequences start
+ * {@value #ALLOCATION_SIZE} above the greatest existing id. The column defaults are kept for rows inserted outside of
+ * Hibernate.
+ *
+ * @author Rafael Ostertag
+ */
+@Slf4j
+public class V1_6__Pooled_Sequence_Ids implements JdbcMigration {
+    static final int ALLOCATION_SIZE = 50;
+    private static final String[] TABLES = {"secure", "certificates", "certificates_archive", "crl"};
+
+    @Override
+    public void migrate(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            for (String table : TABLES) {
+                final long start = maxId(statement, table) + ALLOCATION_SIZE;
+                statement.execute(String.format("CREATE SEQUENCE %s_seq START WITH %d INCREMENT BY %d", table,
+                        start, ALLOCATION_SIZE));
+                log.info("Created sequence {}_seq starting with {}", table, start);
+            }
+        }
+    }
+
+    private static long maxId(Statement statement, String table) throws Exception {
+        try (ResultSet resultSet = statement.executeQuery(String.format("SELECT COALESCE(MAX(id), 0) FROM %s",
+                table))) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}
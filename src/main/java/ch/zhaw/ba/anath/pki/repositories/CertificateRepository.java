@@ -29,27 +29,53 @@
 
 package ch.zhaw.ba.anath.pki.repositories;
 
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
 import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
 import ch.zhaw.ba.anath.pki.entities.CertificateStatus;
+import ch.zhaw.ba.anath.pki.repositories.projections.CertificateListItemProjection;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
 
-import java.math.BigInteger;
+import javax.persistence.LockModeType;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
 /**
  * @author Rafael Ostertag
  */
-public interface CertificateRepository extends Repository<CertificateEntity, Long> {
+public interface CertificateRepository extends Repository<CertificateEntity, Long>, CertificateRepositoryCustom {
     Optional<CertificateEntity> findOne(Long id);
 
-    Optional<CertificateEntity> findOneBySerial(BigInteger serial);
+    Optional<CertificateEntity> findOneBySerial(CertificateSerial serial);
 
     List<CertificateEntity> findAllBySubject(String subject);
 
+    /**
+     * Test whether a non-expired, non-revoked certificate with the given subject exists. Unlike
+     * {@link #findAllBySubject(String)}, no certificate is loaded.
+     *
+     * @param subject the certificate subject.
+     *
+     * @return {@code true} if a valid certificate with the subject exists, {@code false} otherwise.
+     */
+    @Query("select case when count(ce) > 0 then true else false end from CertificateEntity ce where ce.subject = " +
+            ":subject and ce.status = 'VALID' and ce.notValidAfter >= current_timestamp and ce.notValidBefore < " +
+            "current_timestamp")
+    boolean existsValidBySubject(@Param("subject") String subject);
+
     List<CertificateEntity> findAll();
 
+    @Query("select ce.userId from CertificateEntity ce where ce.serial = :serial")
+    Optional<String> findUserIdBySerial(@Param("serial") CertificateSerial serial);
+
+    @Query("select ce.serial from CertificateEntity ce where ce.status = 'REVOKED'")
+    List<CertificateSerial> findAllRevokedSerials();
+
     List<CertificateEntity> findAllByUserId(String userId);
 
     List<CertificateEntity> findAllByUserIdAndStatus(String userId, CertificateStatus status);
@@ -59,5 +85,59 @@ public interface CertificateRepository extends Repository<CertificateEntity, Lon
             ".revocationTime asc")
     List<CertificateEntity> findAllRevoked();
 
+    /**
+     * Get a slice of all certificates ordered by serial number. Use the serial number of the last certificate of a
+     * slice as {@code after} to retrieve the next slice.
+     *
+     * @param after    only certificates with a serial number greater than {@code after} are returned.
+     * @param pageable the size of the slice. The page number must be 0.
+     *
+     * @return {@link Slice} of {@link CertificateListItemProjection}s.
+     */
+    @Query("select new ch.zhaw.ba.anath.pki.repositories.projections.CertificateListItemProjection(ce.serial, ce" +
+            ".subject, ce.useName, ce.status, ce.notValidBefore, ce.notValidAfter, ce.userId) from CertificateEntity" +
+            " ce where ce.serial > :after order by ce.serial asc")
+    Slice<CertificateListItemProjection> findListItemsBySerialGreaterThan(@Param("after") CertificateSerial after,
+                                                                          Pageable pageable);
+
+    /**
+     * Get a slice of the certificates of a user ordered by serial number. Use the serial number of the last
+     * certificate of a slice as {@code after} to retrieve the next slice.
+     *
+     * @param userId   the user id.
+     * @param after    only certificates with a serial number greater than {@code after} are returned.
+     * @param pageable the size of the slice. The page number must be 0.
+     *
+     * @return {@link Slice} of {@link CertificateListItemProjection}s.
+     */
+    @Query("select new ch.zhaw.ba.anath.pki.repositories.projections.CertificateListItemProjection(ce.serial, ce" +
+            ".subject, ce.useName, ce.status, ce.notValidBefore, ce.notValidAfter, ce.userId) from CertificateEntity" +
+            " ce where ce.userId = :userId and ce.serial > :after order by ce.serial asc")
+    Slice<CertificateListItemProjection> findListItemsByUserIdAndSerialGreaterThan(
+            @Param("userId") String userId, @Param("after") CertificateSerial after, Pageable pageable);
+
+    /**
+     * Get certificates expired before the given point in time, in order to archive them. The rows are locked for
+     * update, so that nodes archiving concurrently do not archive the same certificates. A node waits for the
+     * archival transaction of another node, and no longer gets the certificates archived by it.
+     *
+     * @param expiredBefore only certificates having a {@code notValidAfter} before this point in time.
+     * @param pageable      the maximum number of certificates.
+     *
+     * @return list of {@link CertificateEntity}s.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<CertificateEntity> findAllByNotValidAfterBefore(Date expiredBefore, Pageable pageable);
+
+    boolean existsByNotValidAfterBefore(Date expiredBefore);
+
     void save(CertificateEntity certificateEntity);
+
+    /**
+     * Delete certificates using a single statement. The persistence context is not updated, so the entities must not
+     * be used afterwards.
+     *
+     * @param certificateEntities the certificates to delete.
+     */
+    void deleteInBatch(Iterable<CertificateEntity> certificateEntities);
 }
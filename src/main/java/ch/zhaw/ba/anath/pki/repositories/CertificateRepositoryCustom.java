@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.repositories;
+
+import ch.zhaw.ba.anath.pki.entities.CertificateStatus;
+import ch.zhaw.ba.anath.pki.repositories.projections.CertificateExportProjection;
+
+import java.util.Date;
+import java.util.stream.Stream;
+
+/**
+ * Custom queries of {@link CertificateRepository}, implemented by {@link CertificateRepositoryImpl}.
+ *
+ * @author Rafael Ostertag
+ */
+public interface CertificateRepositoryCustom {
+    /**
+     * Stream certificates for export ordered by serial number. Archived certificates, if included, follow ordered
+     * by serial number. The rows are read using a forward-only cursor. The stream must be consumed within a
+     * transaction and closed afterwards. Filters being {@code null} are ignored.
+     *
+     * @param status          only certificates having this status.
+     * @param userId          only certificates of this user.
+     * @param validFrom       only certificates valid at or after this point in time.
+     * @param validTo         only certificates valid at or before this point in time.
+     * @param includeArchived whether to include certificates of the certificate archive.
+     *
+     * @return {@link Stream} of {@link CertificateExportProjection}s.
+     */
+    Stream<CertificateExportProjection> streamForExport(CertificateStatus status, String userId, Date validFrom,
+                                                        Date validTo, boolean includeArchived);
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.repositories;
+
+import ch.zhaw.ba.anath.pki.entities.ArchivedCertificateEntity;
+import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
+import ch.zhaw.ba.anath.pki.entities.CertificateStatus;
+import ch.zhaw.ba.anath.pki.repositories.projections.CertificateExportProjection;
+import org.hibernate.Query;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.springframework.data.jpa.repository.JpaContext;
+
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Implementation of {@link CertificateRepositoryCustom}. Predicates are only added for filters given, since
+ * comparing {@code null} parameters in the query cannot be typed by all databases.
+ *
+ * @author Rafael Ostertag
+ */
+public class CertificateRepositoryImpl implements CertificateRepositoryCustom {
+    private static final int EXPORT_FETCH_SIZE = 100;
+
+    private final EntityManager entityManager;
+
+    public CertificateRepositoryImpl(JpaContext jpaContext) {
+        this.entityManager = jpaContext.getEntityManagerByManagedType(CertificateEntity.class);
+    }
+
+    @Override
+    public Stream<CertificateExportProjection> streamForExport(CertificateStatus status, String userId, Date
+            validFrom, Date validTo, boolean includeArchived) {
+        final Supplier<Stream<CertificateExportProjection>> certificates = () -> streamForExport(CertificateEntity
+                .class, status, userId, validFrom, validTo);
+        if (!includeArchived) {
+            return certificates.get();
+        }
+
+        // The archive is queried once the certificates have been read, and each cursor is closed when it is
+        // exhausted.
+        final Supplier<Stream<CertificateExportProjection>> archivedCertificates = () -> streamForExport
+                (ArchivedCertificateEntity.class, status, userId, validFrom, validTo);
+        return Stream.of(certificates, archivedCertificates).flatMap(Supplier::get);
+    }
+
+    private Stream<CertificateExportProjection> streamForExport(Class<?> entityClass, CertificateStatus status,
+                                                                String userId, Date validFrom, Date validTo) {
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<CertificateExportProjection> criteriaQuery = criteriaBuilder.createQuery
+                (CertificateExportProjection.class);
+        final Root<?> certificate = criteriaQuery.from(entityClass);
+
+        final List<Predicate> predicates = new ArrayList<>();
+        if (status != null) {
+            predicates.add(criteriaBuilder.equal(certificate.get("status"), status));
+        }
+        if (userId != null) {
+            predicates.add(criteriaBuilder.equal(certificate.get("userId"), userId));
+        }
+        if (validFrom != null) {
+            predicates.add(criteriaBuilder.greaterThanOrEqualTo(certificate.<Date>get("notValidAfter"), validFrom));
+        }
+        if (validTo != null) {
+            predicates.add(criteriaBuilder.lessThanOrEqualTo(certificate.<Date>get("notValidBefore"), validTo));
+        }
+
+        criteriaQuery
+                .select(criteriaBuilder.construct(CertificateExportProjection.class,
+                        certificate.get("serial"),
+                        certificate.get("subject"),
+                        certificate.get("useName"),
+                        certificate.get("status"),
+                        certificate.get("notValidBefore"),
+                        certificate.get("notValidAfter"),
+                        certificate.get("revocationReason"),
+                        certificate.get("revocationTime"),
+                        certificate.get("userId"),
+                        certificate.get("x509DERCertificate")))
+                .where(predicates.toArray(new Predicate[predicates.size()]))
+                .orderBy(criteriaBuilder.asc(certificate.get("serial")));
+
+        final ScrollableResults scrollableResults = entityManager.createQuery(criteriaQuery)
+                .unwrap(Query.class)
+                .setFetchSize(EXPORT_FETCH_SIZE)
+                .setReadOnly(true)
+                .scroll(ScrollMode.FORWARD_ONLY);
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new ScrollableResultsIterator
+                (scrollableResults), Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(scrollableResults::close);
+    }
+
+    private static final class ScrollableResultsIterator implements Iterator<CertificateExportProjection> {
+        private final ScrollableResults scrollableResults;
+        private Boolean hasNext;
+
+        ScrollableResultsIterator(ScrollableResults scrollableResults) {
+            this.scrollableResults = scrollableResults;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (hasNext == null) {
+                hasNext = scrollableResults.next();
+            }
+            return hasNext;
+        }
+
+        @Override
+        public CertificateExportProjection next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            hasNext = null;
+            return (CertificateExportProjection) scrollableResults.get(0);
+        }
+    }
+}
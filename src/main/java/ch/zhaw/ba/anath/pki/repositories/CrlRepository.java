@@ -30,6 +30,7 @@
 package ch.zhaw.ba.anath.pki.repositories;
 
 import ch.zhaw.ba.anath.pki.entities.CrlEntity;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
 
@@ -48,4 +49,13 @@ public interface CrlRepository extends Repository<CrlEntity, Long> {
     void save(CrlEntity crlEntity);
 
     void deleteById(Long id);
+
+    /**
+     * Delete all Certificate Revocation Lists using a single statement. CRL entities already loaded are not detached.
+     *
+     * @return number of deleted Certificate Revocation Lists.
+     */
+    @Modifying
+    @Query("delete from CrlEntity ce")
+    int deleteAllInBulk();
 }
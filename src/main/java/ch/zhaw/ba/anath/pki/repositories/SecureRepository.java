@@ -30,8 +30,11 @@
 package ch.zhaw.ba.anath.pki.repositories;
 
 import ch.zhaw.ba.anath.pki.entities.SecureEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -42,6 +45,10 @@ public interface SecureRepository extends Repository<SecureEntity, Long> {
 
     Optional<SecureEntity> findOneByKey(String key);
 
+    List<SecureEntity> findAllByKeyIdIn(Collection<String> keyIds, Pageable pageable);
+
+    boolean existsByKeyIdIn(Collection<String> keyIds);
+
     void save(SecureEntity entity);
 
     void deleteByKey(String key);
@@ -43,6 +43,15 @@ import java.util.Optional;
 public interface UseRepository extends Repository<UseEntity, String> {
     Optional<UseEntity> findOne(String use);
 
+    /**
+     * Get a reference to the use without loading it.
+     *
+     * @param use name of the use.
+     *
+     * @return reference to the use.
+     */
+    UseEntity getOne(String use);
+
     List<UseEntity> findAll();
 
     void save(UseEntity useEntity);
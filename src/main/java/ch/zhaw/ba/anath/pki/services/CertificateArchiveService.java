@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.services;
+
+import ch.zhaw.ba.anath.config.properties.AnathProperties;
+import ch.zhaw.ba.anath.pki.entities.ArchivedCertificateEntity;
+import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
+import ch.zhaw.ba.anath.pki.repositories.ArchivedCertificateRepository;
+import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Move certificates expired longer than {@code anath.certificate-archive.retention} days from the certificates table
+ * to the certificate archive. Archived certificates can still be retrieved by serial number using {@link
+ * CertificateRequestContext#findOneBySerialIncludingArchived(ch.zhaw.ba.anath.pki.core.CertificateSerial)}, but are
+ * no longer listed.
+ *
+ * @author Rafael Ostertag
+ */
+@Slf4j
+@Service
+@Transactional(transactionManager = "pkiTransactionManager")
+public class CertificateArchiveService {
+    private final CertificateRepository certificateRepository;
+    private final ArchivedCertificateRepository archivedCertificateRepository;
+    private final AnathProperties anathProperties;
+
+    public CertificateArchiveService(CertificateRepository certificateRepository, ArchivedCertificateRepository
+            archivedCertificateRepository, AnathProperties anathProperties) {
+        this.certificateRepository = certificateRepository;
+        this.archivedCertificateRepository = archivedCertificateRepository;
+        this.anathProperties = anathProperties;
+    }
+
+    /**
+     * Test whether certificates expired longer than the retention period exist. It does not lock the certificates,
+     * and may be served by the PKI read replica.
+     *
+     * @return {@code true} if certificates are to be archived, {@code false} otherwise.
+     */
+    @Transactional(transactionManager = "pkiTransactionManager", readOnly = true)
+    public boolean hasExpired() {
+        return certificateRepository.existsByNotValidAfterBefore(expiredBefore());
+    }
+
+    /**
+     * Archive certificates expired longer than the retention period.
+     *
+     * @param batchSize maximum number of certificates to archive.
+     *
+     * @return number of certificates archived.
+     */
+    public int archiveExpired(int batchSize) {
+        final PageRequest pageRequest = new PageRequest(0, batchSize, Sort.Direction.ASC, "notValidAfter");
+        final List<CertificateEntity> certificateEntities = certificateRepository.findAllByNotValidAfterBefore
+                (expiredBefore(), pageRequest);
+
+        if (certificateEntities.isEmpty()) {
+            return 0;
+        }
+
+        archivedCertificateRepository.save(certificateEntities.stream()
+                .map(ArchivedCertificateEntity::of)
+                .collect(Collectors.toList()));
+        certificateRepository.deleteInBatch(certificateEntities);
+        certificateEntities.forEach(x -> log.info("Archived certificate with serial {}", x.getSerial().toString()));
+
+        return certificateEntities.size();
+    }
+
+    private Date expiredBefore() {
+        return Date.from(Instant.now().minus(anathProperties.getCertificateArchive().getRetention(), ChronoUnit.DAYS));
+    }
+}
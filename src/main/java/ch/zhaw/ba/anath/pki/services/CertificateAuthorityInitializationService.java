@@ -41,12 +41,14 @@ import ch.zhaw.ba.anath.pki.exceptions.CertificateAuthorityAlreadyInitializedExc
 import ch.zhaw.ba.anath.pki.exceptions.CertificateAuthorityImportException;
 import ch.zhaw.ba.anath.pki.exceptions.CertificateAuthorityInitializationException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.OutputStreamWriter;
+import java.util.Arrays;
 import java.util.Base64;
 import java.util.Optional;
 
@@ -69,6 +71,7 @@ public class CertificateAuthorityInitializationService {
     private final SignatureNameProvider signatureNameProvider;
     private final CertificateExtensionsActionsFactoryInterface certificateExtensionsActionsFactory;
     private final RevocationService revocationService;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     public CertificateAuthorityInitializationService(SecureStoreService secureStoreService,
                                                      CertificateSerialProvider certificateSerialProvider,
@@ -76,13 +79,15 @@ public class CertificateAuthorityInitializationService {
                                                      SignatureNameProvider signatureNameProvider,
                                                      CertificateExtensionsActionsFactoryInterface
                                                              certificateExtensionsActionsFactory, RevocationService
-                                                             revocationService) {
+                                                             revocationService,
+                                                     ApplicationEventPublisher applicationEventPublisher) {
         this.secureStoreService = secureStoreService;
         this.certificateSerialProvider = certificateSerialProvider;
         this.secureRandomProvider = secureRandomProvider;
         this.signatureNameProvider = signatureNameProvider;
         this.certificateExtensionsActionsFactory = certificateExtensionsActionsFactory;
         this.revocationService = revocationService;
+        this.applicationEventPublisher = applicationEventPublisher;
     }
 
     /**
@@ -211,8 +216,14 @@ public class CertificateAuthorityInitializationService {
                     "store", e);
         }
 
-        secureStoreService.put(SECURE_STORE_CA_PRIVATE_KEY, caKeyByteArrayOutputStream.toByteArray());
+        final byte[] caKey = caKeyByteArrayOutputStream.toByteArray();
+        try {
+            secureStoreService.put(SECURE_STORE_CA_PRIVATE_KEY, caKey);
+        } finally {
+            Arrays.fill(caKey, (byte) 0);
+        }
         secureStoreService.put(SECURE_STORE_CA_CERTIFICATE, caCertificateArrayOutputStream.toByteArray());
+        applicationEventPublisher.publishEvent(new CertificateAuthorityInitializedEvent(this));
     }
 
     private CertificateAuthority extractCertificateAuthorityFromPkcs12Structure(byte[] decodedPkcs12Ca, String
@@ -231,15 +242,13 @@ public class CertificateAuthorityInitializationService {
     }
 
     private void testEmptyCertificateAuthorityOrThrow() {
-        final Optional<Byte[]> privateKey = secureStoreService.get(SECURE_STORE_CA_PRIVATE_KEY);
-        if (privateKey.isPresent()) {
+        if (secureStoreService.contains(SECURE_STORE_CA_PRIVATE_KEY)) {
             log.error("Certificate Authority private key already existing");
             throw new CertificateAuthorityAlreadyInitializedException
                     (CERTIFICATE_AUTHORITY_ALREADY_INITIALIZED_MESSAGE);
         }
 
-        final Optional<Byte[]> certificate = secureStoreService.get(SECURE_STORE_CA_CERTIFICATE);
-        if (certificate.isPresent()) {
+        if (secureStoreService.contains(SECURE_STORE_CA_CERTIFICATE)) {
             log.error("Certificate Authority certificate already existing");
             throw new CertificateAuthorityAlreadyInitializedException
                     (CERTIFICATE_AUTHORITY_ALREADY_INITIALIZED_MESSAGE);
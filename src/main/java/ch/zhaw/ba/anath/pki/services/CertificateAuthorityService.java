@@ -32,13 +32,14 @@ package ch.zhaw.ba.anath.pki.services;
 import ch.zhaw.ba.anath.pki.core.CertificateAuthority;
 import ch.zhaw.ba.anath.pki.core.PEMCertificateAuthorityReader;
 import ch.zhaw.ba.anath.pki.exceptions.CertificateAuthorityNotInitializedException;
+import ch.zhaw.ba.anath.pki.utilities.ByteBufferInputStream;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.ArrayUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayInputStream;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 
 /**
@@ -64,55 +65,47 @@ public class CertificateAuthorityService {
      * @return return the PEM encoded certificate as string.
      */
     public String getCertificate() {
-        final Optional<Byte[]> optionalCaCertificate = secureStoreService.get(SECURE_STORE_CA_CERTIFICATE);
+        final Optional<String> optionalCaCertificate = secureStoreService.read(SECURE_STORE_CA_CERTIFICATE,
+                buffer -> StandardCharsets.US_ASCII.decode(buffer).toString());
 
-        final Byte[] caCertificate = optionalCaCertificate.orElseThrow(() -> {
+        return optionalCaCertificate.orElseThrow(() -> {
             log.error("Unable to get Certificate Authority certificate, Certificate Authority not initialized");
             return new
                     CertificateAuthorityNotInitializedException("Not initialized");
         });
-
-        return new String(ArrayUtils.toPrimitive(caCertificate));
     }
 
     public CertificateAuthority getCertificateAuthority() {
         log.info("Load certificate authority");
-        Byte[] pemCaCertificateObject = retrieveCaCertificateFromSecureStoreOrThrow();
-        Byte[] pemCaPrivateKeyObject = retrieveCaPrivateKeyFromSecureStoreOrThrow();
-
-        final ByteArrayInputStream pemCaCertificateInputStream = pemByteArrayObjectToByteArrayInputStream
-                (pemCaCertificateObject);
-        final ByteArrayInputStream pemCaPrivateKeyInputStream = pemByteArrayObjectToByteArrayInputStream
-                (pemCaPrivateKeyObject);
-
-        final PEMCertificateAuthorityReader pemCertificateAuthorityReader = new PEMCertificateAuthorityReader(
-                new InputStreamReader(pemCaPrivateKeyInputStream),
-                new InputStreamReader(pemCaCertificateInputStream)
-        );
-
-        log.info("Initialized certificate authority");
-        return pemCertificateAuthorityReader.certificateAuthority();
-    }
-
-    private ByteArrayInputStream pemByteArrayObjectToByteArrayInputStream(Byte[] pemObject) {
-        return new ByteArrayInputStream(ArrayUtils.toPrimitive(pemObject));
-    }
+        final Optional<CertificateAuthority> certificateAuthorityOptional = secureStoreService.read
+                (SECURE_STORE_CA_PRIVATE_KEY, this::readCertificateAuthorityWithPrivateKey);
 
-    private Byte[] retrieveCaPrivateKeyFromSecureStoreOrThrow() {
-        final Optional<Byte[]> caPrivateKeyOptional = secureStoreService.get(CertificateAuthorityService
-                .SECURE_STORE_CA_PRIVATE_KEY);
-        return caPrivateKeyOptional.orElseThrow(() -> {
+        final CertificateAuthority certificateAuthority = certificateAuthorityOptional.orElseThrow(() -> {
             log.error("Unable to retrieve certificate authority private key from secure storage");
             return new CertificateAuthorityNotInitializedException("No CA private key found");
         });
+
+        log.info("Initialized certificate authority");
+        return certificateAuthority;
     }
 
-    private Byte[] retrieveCaCertificateFromSecureStoreOrThrow() {
-        final Optional<Byte[]> caCertificateOptional = secureStoreService.get(CertificateAuthorityService
-                .SECURE_STORE_CA_CERTIFICATE);
-        return caCertificateOptional.orElseThrow(() -> {
+    private CertificateAuthority readCertificateAuthorityWithPrivateKey(ByteBuffer pemCaPrivateKey) {
+        final Optional<CertificateAuthority> certificateAuthorityOptional = secureStoreService.read
+                (SECURE_STORE_CA_CERTIFICATE, pemCaCertificate -> readCertificateAuthority(pemCaPrivateKey,
+                        pemCaCertificate));
+
+        return certificateAuthorityOptional.orElseThrow(() -> {
             log.error("Unable to retrieve certificate authority certificate from secure storage");
             return new CertificateAuthorityNotInitializedException("No CA certificate found");
         });
     }
+
+    private CertificateAuthority readCertificateAuthority(ByteBuffer pemCaPrivateKey, ByteBuffer pemCaCertificate) {
+        final PEMCertificateAuthorityReader pemCertificateAuthorityReader = new PEMCertificateAuthorityReader(
+                new InputStreamReader(new ByteBufferInputStream(pemCaPrivateKey), StandardCharsets.US_ASCII),
+                new InputStreamReader(new ByteBufferInputStream(pemCaCertificate), StandardCharsets.US_ASCII)
+        );
+
+        return pemCertificateAuthorityReader.certificateAuthority();
+    }
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.services;
+
+import ch.zhaw.ba.anath.pki.core.PEMEncoder;
+import ch.zhaw.ba.anath.pki.dto.CertificateExportItemDto;
+import ch.zhaw.ba.anath.pki.entities.CertificateStatus;
+import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
+import ch.zhaw.ba.anath.pki.repositories.projections.CertificateExportProjection;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Export certificates as newline delimited JSON. Certificates are read from a forward-only cursor and written to the
+ * output stream one by one, so that memory consumption does not depend on the number of certificates.
+ *
+ * @author Rafael Ostertag
+ */
+@Slf4j
+@Service
+@Transactional(transactionManager = "pkiTransactionManager", readOnly = true)
+public class CertificateExportService {
+    private static final char LINE_SEPARATOR = '\n';
+    private final CertificateRepository certificateRepository;
+    private final ObjectWriter objectWriter;
+
+    public CertificateExportService(CertificateRepository certificateRepository, ObjectMapper objectMapper) {
+        this.certificateRepository = certificateRepository;
+        this.objectWriter = objectMapper
+                .writerFor(CertificateExportItemDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Write certificates matching the filters as newline delimited JSON to {@code outputStream}. Filters being {@code
+     * null} are ignored. The output stream is flushed, but not closed.
+     *
+     * @param status          only export certificates having this status.
+     * @param userId          only export certificates of this user.
+     * @param validFrom       only export certificates valid at or after this point in time.
+     * @param validTo         only export certificates valid at or before this point in time.
+     * @param includeArchived whether to export certificates of the certificate archive too.
+     * @param outputStream    the {@link OutputStream} to write to.
+     *
+     * @return the number of certificates exported.
+     *
+     * @throws IOException when writing to {@code outputStream} fails.
+     */
+    public long exportAsNdjson(CertificateStatus status, String userId, Date validFrom, Date validTo, boolean
+            includeArchived, OutputStream outputStream) throws IOException {
+        log.info("Start export of certificates: status={}, userId={}, validFrom={}, validTo={}, includeArchived={}",
+                status, userId, validFrom, validTo, includeArchived);
+        final long start = System.nanoTime();
+        long count = 0;
+        try (Stream<CertificateExportProjection> certificates = certificateRepository.streamForExport(status,
+                userId, validFrom, validTo, includeArchived);
+             JsonGenerator jsonGenerator = makeJsonGenerator(outputStream)) {
+            final Iterator<CertificateExportProjection> iterator = certificates.iterator();
+            while (iterator.hasNext()) {
+                objectWriter.writeValue(jsonGenerator, certificateExportProjectionToDto(iterator.next()));
+                jsonGenerator.writeRaw(LINE_SEPARATOR);
+                count++;
+            }
+        }
+
+        final long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        log.info("Exported {} certificates in {} ms ({} certificates/s)", count, elapsedMillis, count * 1000 /
+                elapsedMillis);
+        return count;
+    }
+
+    private JsonGenerator makeJsonGenerator(OutputStream outputStream) throws IOException {
+        final JsonGenerator jsonGenerator = objectWriter.getFactory().createGenerator(outputStream);
+        // The output stream belongs to the caller. Closing the generator flushes it.
+        jsonGenerator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        jsonGenerator.setRootValueSeparator(null);
+        return jsonGenerator;
+    }
+
+    private CertificateExportItemDto certificateExportProjectionToDto(CertificateExportProjection
+                                                                              certificateExportProjection) {
+        final CertificateExportItemDto certificateExportItemDto = new CertificateExportItemDto();
+        certificateExportItemDto.setSerial(certificateExportProjection.getSerial());
+        certificateExportItemDto.setSubject(certificateExportProjection.getSubject());
+        certificateExportItemDto.setUse(certificateExportProjection.getUse());
+        certificateExportItemDto.setStatus(certificateExportProjection.getStatus().toString());
+        certificateExportItemDto.setNotBefore(certificateExportProjection.getNotValidBefore());
+        certificateExportItemDto.setNotAfter(certificateExportProjection.getNotValidAfter());
+        certificateExportItemDto.setRevocationReason(certificateExportProjection.getRevocationReason());
+        certificateExportItemDto.setRevocationTime(certificateExportProjection.getRevocationTime());
+        certificateExportItemDto.setUserId(certificateExportProjection.getUserId());
+        certificateExportItemDto.setPem(new String(PEMEncoder.encodeCertificate(certificateExportProjection
+                .getX509DERCertificate()), StandardCharsets.US_ASCII));
+        return certificateExportItemDto;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.services;
+
+import ch.zhaw.ba.anath.config.properties.AnathProperties;
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
+import ch.zhaw.ba.anath.pki.core.PEMEncoder;
+import ch.zhaw.ba.anath.pki.dto.PemCertificateDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.util.encoders.Hex;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Read-through cache of PEM encoded certificates keyed by serial number. The cache is bounded by the size of the
+ * PEM encoded certificates held. Cache statistics are exposed as public metrics.
+ * <p>
+ * This service is deliberately not transactional, so that cache hits do not require a database connection.
+ *
+ * @author Rafael Ostertag
+ */
+@Slf4j
+@Service
+public class CertificatePemCache implements PublicMetrics {
+    static final String METRIC_PREFIX = "cache.certificate-pem.";
+    private static final String ETAG_DIGEST_ALGORITHM = "SHA-256";
+    private final CertificateService certificateService;
+    private final Cache<CertificateSerial, PemCertificateDto> cache;
+
+    public CertificatePemCache(CertificateService certificateService, AnathProperties anathProperties) {
+        this.certificateService = certificateService;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(anathProperties.getCertificateCache().getMaximumSize())
+                .weigher((CertificateSerial serial, PemCertificateDto pemCertificateDto) -> pemCertificateDto.getPem()
+                        .length)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get the PEM encoded certificate. It is loaded from the database if not cached.
+     *
+     * @param serial serial number of the certificate.
+     *
+     * @return {@link PemCertificateDto}.
+     *
+     * @throws ch.zhaw.ba.anath.pki.exceptions.CertificateNotFoundException if no certificate with the given serial
+     *                                                                      exists.
+     */
+    public PemCertificateDto getPemCertificate(CertificateSerial serial) {
+        return cache.get(serial, this::loadPemCertificate);
+    }
+
+    /**
+     * Remove the certificate from the cache. Must be called whenever the certificate changes.
+     *
+     * @param serial serial number of the certificate.
+     */
+    public void invalidate(CertificateSerial serial) {
+        log.debug("Invalidate cached certificate with serial {}", serial);
+        cache.invalidate(serial);
+    }
+
+    @Override
+    public Collection<Metric<?>> metrics() {
+        final CacheStats stats = cache.stats();
+        final List<Metric<?>> metrics = new ArrayList<>();
+        metrics.add(new Metric<>(METRIC_PREFIX + "size", cache.estimatedSize()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "hits", stats.hitCount()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "misses", stats.missCount()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "evictions", stats.evictionCount()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "hit.ratio", stats.hitRate()));
+        metrics.add(new Metric<>(METRIC_PREFIX + "miss.ratio", stats.missRate()));
+        return metrics;
+    }
+
+    private PemCertificateDto loadPemCertificate(CertificateSerial serial) {
+        log.debug("Load certificate with serial {} into cache", serial);
+        final byte[] pem = PEMEncoder.encodeCertificate(certificateService.getDEREncodedCertificate(serial));
+        return new PemCertificateDto(pem, makeETag(pem));
+    }
+
+    private static String makeETag(byte[] pem) {
+        try {
+            final MessageDigest messageDigest = MessageDigest.getInstance(ETAG_DIGEST_ALGORITHM);
+            return "\"" + Hex.toHexString(messageDigest.digest(pem)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            log.error("Message digest {} not available: {}", ETAG_DIGEST_ALGORITHM, e.getMessage());
+            throw new IllegalStateException("Message digest " + ETAG_DIGEST_ALGORITHM + " not available", e);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.services;
+
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
+import ch.zhaw.ba.anath.pki.entities.ArchivedCertificateEntity;
+import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
+import ch.zhaw.ba.anath.pki.repositories.ArchivedCertificateRepository;
+import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Look up certificates by serial number, including archived certificates.
+ * <p>
+ * The owner of a certificate is looked up at most once per web request, so repeated permission checks share a single
+ * projection query. Outside of web requests, the owner is looked up on every call. Certificate entities are never
+ * kept across calls, they are loaded in the transaction of the caller, and thus stay managed for request handlers.
+ * <p>
+ * Lookups are read-only, and may be served by the PKI read replica unless they take part in a read-write
+ * transaction.
+ *
+ * @author Rafael Ostertag
+ */
+@Component
+@Transactional(transactionManager = "pkiTransactionManager", readOnly = true)
+public class CertificateRequestContext {
+    static final String OWNERS_ATTRIBUTE = CertificateRequestContext.class.getName() + ".owners";
+
+    private final CertificateRepository certificateRepository;
+    private final ArchivedCertificateRepository archivedCertificateRepository;
+
+    public CertificateRequestContext(CertificateRepository certificateRepository, ArchivedCertificateRepository
+            archivedCertificateRepository) {
+        this.certificateRepository = certificateRepository;
+        this.archivedCertificateRepository = archivedCertificateRepository;
+    }
+
+    /**
+     * Find the id of the user owning a certificate. If no such certificate exists, the certificate archive is
+     * searched.
+     *
+     * @param serial serial number.
+     *
+     * @return the user id, or empty if no certificate with the given serial number exists or has been archived.
+     */
+    public Optional<String> findUserIdBySerial(CertificateSerial serial) {
+        final RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null) {
+            return findUserIdBySerialIncludingArchived(serial);
+        }
+
+        return getOwners(requestAttributes).computeIfAbsent(serial, this::findUserIdBySerialIncludingArchived);
+    }
+
+    /**
+     * Find a certificate by serial number. If no such certificate exists, the certificate archive is searched. Archived
+     * certificates are returned as transient copies, and must not be modified.
+     *
+     * @param serial serial number.
+     *
+     * @return the certificate entity, or empty if no certificate with the given serial number exists or has been
+     * archived.
+     */
+    public Optional<CertificateEntity> findOneBySerialIncludingArchived(CertificateSerial serial) {
+        final Optional<CertificateEntity> certificateEntity = certificateRepository.findOneBySerial(serial);
+        if (certificateEntity.isPresent()) {
+            return certificateEntity;
+        }
+
+        return archivedCertificateRepository.findOneBySerial(serial)
+                .map(ArchivedCertificateEntity::toCertificateEntity);
+    }
+
+    private Optional<String> findUserIdBySerialIncludingArchived(CertificateSerial serial) {
+        final Optional<String> userId = certificateRepository.findUserIdBySerial(serial);
+        if (userId.isPresent()) {
+            return userId;
+        }
+
+        return archivedCertificateRepository.findUserIdBySerial(serial);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<CertificateSerial, Optional<String>> getOwners(RequestAttributes requestAttributes) {
+        Map<CertificateSerial, Optional<String>> owners = (Map<CertificateSerial, Optional<String>>)
+                requestAttributes.getAttribute(OWNERS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (owners == null) {
+            owners = new HashMap<>();
+            requestAttributes.setAttribute(OWNERS_ATTRIBUTE, owners, RequestAttributes.SCOPE_REQUEST);
+        }
+        return owners;
+    }
+}
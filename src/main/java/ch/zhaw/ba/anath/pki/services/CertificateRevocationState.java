@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.services;
+
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
+import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * In-memory set of the serial numbers of revoked certificates. It is loaded from the database upon first use,
+ * extended by {@link RevocationService} whenever a certificate is revoked, and reloaded periodically to pick up
+ * revocations made by other nodes.
+ * <p>
+ * Revocations recorded on this node are kept until a reload finds them in the database, so that a reload reading
+ * the database before the revocation has been committed does not drop them.
+ *
+ * @author Rafael Ostertag
+ */
+@Slf4j
+@Component
+public class CertificateRevocationState {
+    private final CertificateRepository certificateRepository;
+    // Guarded by this.
+    private final Set<CertificateSerial> unconfirmedRevokedSerials = new HashSet<>();
+    // Guarded by this.
+    private long reloadSequence = 0;
+    // Guarded by this.
+    private long appliedReloadSequence = 0;
+    private volatile Set<CertificateSerial> revokedSerials = null;
+
+    public CertificateRevocationState(CertificateRepository certificateRepository) {
+        this.certificateRepository = certificateRepository;
+    }
+
+    /**
+     * Tell whether the certificate with the given serial number has been revoked.
+     *
+     * @param serial serial number of the certificate.
+     *
+     * @return {@code true} if revoked, {@code false} otherwise.
+     */
+    public boolean isRevoked(CertificateSerial serial) {
+        Set<CertificateSerial> currentRevokedSerials = revokedSerials;
+        if (currentRevokedSerials == null) {
+            currentRevokedSerials = reload();
+        }
+        return currentRevokedSerials.contains(serial);
+    }
+
+    /**
+     * Record the revocation of a certificate.
+     *
+     * @param serial serial number of the revoked certificate.
+     */
+    public synchronized void revoked(CertificateSerial serial) {
+        unconfirmedRevokedSerials.add(serial);
+        if (revokedSerials == null) {
+            // Loaded from the database upon first use.
+            return;
+        }
+
+        final Set<CertificateSerial> newRevokedSerials = new HashSet<>(revokedSerials);
+        newRevokedSerials.add(serial);
+        revokedSerials = Collections.unmodifiableSet(newRevokedSerials);
+    }
+
+    /**
+     * Reload the serial numbers of revoked certificates from the database. Revocations recorded on this node, but
+     * not yet found in the database, are retained.
+     *
+     * @return the serial numbers of revoked certificates.
+     */
+    public Set<CertificateSerial> reload() {
+        final long sequence;
+        synchronized (this) {
+            sequence = ++reloadSequence;
+        }
+
+        final Set<CertificateSerial> newRevokedSerials = new HashSet<>(certificateRepository.findAllRevokedSerials());
+        log.debug("Loaded {} serial numbers of revoked certificates", newRevokedSerials.size());
+        synchronized (this) {
+            if (sequence < appliedReloadSequence) {
+                // A reload started later has already been applied.
+                return revokedSerials;
+            }
+
+            appliedReloadSequence = sequence;
+            unconfirmedRevokedSerials.removeAll(newRevokedSerials);
+            newRevokedSerials.addAll(unconfirmedRevokedSerials);
+            revokedSerials = Collections.unmodifiableSet(newRevokedSerials);
+            return revokedSerials;
+        }
+    }
+}
@@ -29,6 +29,8 @@
 
 package ch.zhaw.ba.anath.pki.services;
 
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
+import ch.zhaw.ba.anath.pki.core.PEMEncoder;
 import ch.zhaw.ba.anath.pki.dto.CertificateListItemDto;
 import ch.zhaw.ba.anath.pki.dto.CertificateResponseDto;
 import ch.zhaw.ba.anath.pki.dto.bits.CertificateValidityBit;
@@ -37,17 +39,21 @@ import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
 import ch.zhaw.ba.anath.pki.entities.CertificateStatus;
 import ch.zhaw.ba.anath.pki.entities.UseEntity;
 import ch.zhaw.ba.anath.pki.exceptions.CertificateNotFoundException;
+import ch.zhaw.ba.anath.pki.exceptions.ConfigurationNotFoundException;
 import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
+import ch.zhaw.ba.anath.pki.repositories.projections.CertificateListItemProjection;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.ArrayUtils;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigInteger;
-import java.util.Base64;
-import java.util.List;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * Retrieve user certificates as PEM, or in Anath JSON format.
@@ -55,15 +61,24 @@ import java.util.stream.Collectors;
  */
 @Slf4j
 @Service
-@Transactional(transactionManager = "pkiTransactionManager")
+@Transactional(transactionManager = "pkiTransactionManager", readOnly = true)
 public class CertificateService {
+    public static final int MAXIMUM_SLICE_SIZE = 1000;
+    // Serial numbers are positive, thus every serial number is greater than this one.
+    private static final CertificateSerial BEFORE_FIRST_SERIAL = CertificateSerial.ZERO;
+
     private final CertificateRepository certificateRepository;
     private final ConfigurationTemplateService configurationTemplateService;
+    private final UseCatalogue useCatalogue;
+    private final CertificateRequestContext certificateRequestContext;
 
     public CertificateService(CertificateRepository certificateRepository, ConfigurationTemplateService
-            configurationTemplateService) {
+            configurationTemplateService, UseCatalogue useCatalogue, CertificateRequestContext
+                                      certificateRequestContext) {
         this.certificateRepository = certificateRepository;
         this.configurationTemplateService = configurationTemplateService;
+        this.useCatalogue = useCatalogue;
+        this.certificateRequestContext = certificateRequestContext;
     }
 
     /**
@@ -73,15 +88,16 @@ public class CertificateService {
      *
      * @return {@link CertificateResponseDto} instance.
      */
-    public CertificateResponseDto getCertificate(BigInteger serial) {
+    public CertificateResponseDto getCertificate(CertificateSerial serial) {
         final CertificateEntity certificateEntity = getCertificateEntityOrThrow(serial);
 
         return certificateEntityToCertificateResponseDto
                 (certificateEntity);
     }
 
-    private CertificateEntity getCertificateEntityOrThrow(BigInteger serial) {
-        final Optional<CertificateEntity> optionalCertificateEntity = certificateRepository.findOneBySerial(serial);
+    private CertificateEntity getCertificateEntityOrThrow(CertificateSerial serial) {
+        final Optional<CertificateEntity> optionalCertificateEntity = certificateRequestContext
+                .findOneBySerialIncludingArchived(serial);
         return optionalCertificateEntity.orElseThrow(() -> {
             log.error("Certificate with serial {} not found", serial.toString());
             return new CertificateNotFoundException("Certificate not found");
@@ -95,40 +111,118 @@ public class CertificateService {
      *
      * @return string representation of PEM encoded certificate.
      */
-    public String getPlainPEMEncodedCertificate(BigInteger serial) {
+    public String getPlainPEMEncodedCertificate(CertificateSerial serial) {
         final CertificateEntity certificateEntity = getCertificateEntityOrThrow(serial);
-        return new String(certificateEntity.getX509PEMCertificate());
+        return pemEncode(certificateEntity);
+    }
+
+    /**
+     * Get DER encoded certificate as stored.
+     *
+     * @param serial certificate serial number.
+     *
+     * @return DER encoded certificate.
+     */
+    public byte[] getDEREncodedCertificate(CertificateSerial serial) {
+        final CertificateEntity certificateEntity = getCertificateEntityOrThrow(serial);
+        return certificateEntity.getX509DERCertificate();
+    }
+
+    /**
+     * Render the configuration template of the certificate's use into the {@link Writer} provided for the use.
+     * <p>
+     * It does not run in a transaction of its own: the certificate and its use are looked up in short read-only
+     * transactions, and the configuration is written after they completed. Thus, no database connection is held while
+     * streaming to the writer.
+     *
+     * @param serial         certificate serial number.
+     * @param writerProvider provides the {@link Writer} receiving the configuration, given the name of the use. The
+     *                       writer is neither flushed nor closed.
+     *
+     * @throws ConfigurationNotFoundException when the use of the certificate has no configuration template. The
+     *                                        {@code writerProvider} is not called in this case.
+     * @throws IOException                    when the {@code writerProvider} fails.
+     */
+    @Transactional(transactionManager = "pkiTransactionManager", propagation = Propagation.SUPPORTS)
+    public void writeConfiguration(CertificateSerial serial, ConfigurationWriterProvider writerProvider) throws
+            IOException {
+        final CertificateEntity certificateEntity = getCertificateEntityOrThrow(serial);
+        final UseEntity use = getUseWithConfigurationTemplateOrThrow(certificateEntity);
+        final Writer writer = writerProvider.getWriter(use.getUse());
+
+        log.info("Process configuration template for '{}'", certificateEntity.getSubject());
+        configurationTemplateService.process(use.getUse(), use.getConfig(), pemEncode
+                (certificateEntity), writer);
+    }
+
+    private UseEntity getUseWithConfigurationTemplateOrThrow(CertificateEntity certificateEntity) {
+        final Optional<UseEntity> use = useCatalogue.findUse(certificateEntity.getUseName());
+        return use.filter(this::hasConfigurationTemplate).orElseThrow(() -> {
+            log.error("Use '{}' of certificate with serial {} has no configuration template", certificateEntity
+                    .getUseName(), certificateEntity.getSerial().toString());
+            return new ConfigurationNotFoundException("No configuration available");
+        });
     }
 
     /**
-     * Get all certificates.
+     * Get a slice of all certificates, ordered by serial number.
      *
-     * @return {@link List} of {@link CertificateListItemDto}s.
+     * @param after return only certificates with a serial number greater than {@code after}. Pass {@code null} to
+     *              retrieve the first slice.
+     * @param size  maximum number of certificates in the slice. It is limited to {@value #MAXIMUM_SLICE_SIZE}.
+     *
+     * @return {@link Slice} of {@link CertificateListItemDto}s.
      */
-    public List<CertificateListItemDto> getAll() {
-        final List<CertificateEntity> all = certificateRepository.findAll();
-        return all
-                .stream()
-                .map(this::certificateEntityToListItemDto)
-                .collect(Collectors.toList());
+    public Slice<CertificateListItemDto> getAll(CertificateSerial after, int size) {
+        final Slice<CertificateListItemProjection> certificates = certificateRepository
+                .findListItemsBySerialGreaterThan(afterOrFirstSlice(after), firstPageOfSize(size));
+        return certificates.map(this::certificateListItemProjectionToListItemDto);
+    }
+
+    /**
+     * Get a slice of the certificates of a user, ordered by serial number.
+     *
+     * @param userId the user id.
+     * @param after  return only certificates with a serial number greater than {@code after}. Pass {@code null} to
+     *               retrieve the first slice.
+     * @param size   maximum number of certificates in the slice. It is limited to {@value #MAXIMUM_SLICE_SIZE}.
+     *
+     * @return {@link Slice} of {@link CertificateListItemDto}s.
+     */
+    public Slice<CertificateListItemDto> getAllByUserId(String userId, CertificateSerial after, int size) {
+        final Slice<CertificateListItemProjection> certificates = certificateRepository
+                .findListItemsByUserIdAndSerialGreaterThan(userId, afterOrFirstSlice(after), firstPageOfSize(size));
+        return certificates.map(this::certificateListItemProjectionToListItemDto);
+    }
+
+    private CertificateSerial afterOrFirstSlice(CertificateSerial after) {
+        return after == null ? BEFORE_FIRST_SERIAL : after;
+    }
+
+    private Pageable firstPageOfSize(int size) {
+        return new PageRequest(0, Math.max(1, Math.min(size, MAXIMUM_SLICE_SIZE)));
     }
 
-    private CertificateListItemDto certificateEntityToListItemDto(CertificateEntity certificateEntity) {
+    private CertificateListItemDto certificateListItemProjectionToListItemDto(CertificateListItemProjection
+                                                                                      certificateListItemProjection) {
         final CertificateListItemDto certificateListItemDto = new CertificateListItemDto();
-        certificateListItemDto.setSerial(certificateEntity.getSerial());
-        certificateListItemDto.setSubject(certificateEntity.getSubject());
-        certificateListItemDto.setUse(certificateEntity.getUse().getUse());
-        certificateListItemDto.setValid(CertificateValidityUtils.isValid(certificateEntity));
-        certificateListItemDto.setUserId(certificateEntity.getUserId());
+        certificateListItemDto.setSerial(certificateListItemProjection.getSerial());
+        certificateListItemDto.setSubject(certificateListItemProjection.getSubject());
+        certificateListItemDto.setUse(certificateListItemProjection.getUse());
+        certificateListItemDto.setValid(CertificateValidityUtils.isValid(certificateListItemProjection.getStatus(),
+                certificateListItemProjection.getNotValidBefore(), certificateListItemProjection.getNotValidAfter()));
+        certificateListItemDto.setUserId(certificateListItemProjection.getUserId());
         return certificateListItemDto;
     }
 
     private CertificateResponseDto certificateEntityToCertificateResponseDto(CertificateEntity certificateEntity) {
         final CertificateResponseDto certificateResponseDto = new CertificateResponseDto();
-        certificateResponseDto.setUse(certificateEntity.getUse().getUse());
-        final String configuration = processConfigurationTemplateAndEncodeBase64(certificateEntity);
-        certificateResponseDto.setConfig(configuration);
-        final PemBit certificatePemBit = createCertificatePemBit(certificateEntity);
+        certificateResponseDto.setUse(certificateEntity.getUseName());
+        certificateResponseDto.setConfigurationAvailable(useCatalogue.findUse(certificateEntity.getUseName())
+                .map(this::hasConfigurationTemplate)
+                .orElse(false));
+        final String pemEncodedUserCertificate = pemEncode(certificateEntity);
+        final PemBit certificatePemBit = createCertificatePemBit(pemEncodedUserCertificate);
         certificateResponseDto.setCert(certificatePemBit);
 
         final CertificateValidityBit certificateValidityBit = createCertificateValidityBit(certificateEntity);
@@ -136,21 +230,8 @@ public class CertificateService {
         return certificateResponseDto;
     }
 
-    private String processConfigurationTemplateAndEncodeBase64(CertificateEntity certificateEntity) {
-        final UseEntity use = certificateEntity.getUse();
-        if (use.getConfig() == null || use.getConfig().length == 0) {
-            return null;
-        }
-
-        final String pemEncodedUserCertificate = new String(certificateEntity.getX509PEMCertificate());
-        final String configurationTemplate = new String(ArrayUtils.toPrimitive(use.getConfig()));
-
-        log.info("Process configuration template for '{}'", certificateEntity.getSubject());
-        final String configuration = configurationTemplateService.process(pemEncodedUserCertificate,
-                configurationTemplate);
-
-        log.info("Base64 encode configuration");
-        return Base64.getEncoder().encodeToString(configuration.getBytes());
+    private boolean hasConfigurationTemplate(UseEntity use) {
+        return use.getConfig() != null && use.getConfig().length != 0;
     }
 
     private CertificateValidityBit createCertificateValidityBit(CertificateEntity certificateEntity) {
@@ -164,9 +245,29 @@ public class CertificateService {
         return certificateValidityBit;
     }
 
-    private PemBit createCertificatePemBit(CertificateEntity certificateEntity) {
+    private PemBit createCertificatePemBit(String pemEncodedCertificate) {
         final PemBit pemBit = new PemBit();
-        pemBit.setPem(new String(certificateEntity.getX509PEMCertificate()));
+        pemBit.setPem(pemEncodedCertificate);
         return pemBit;
     }
+
+    private String pemEncode(CertificateEntity certificateEntity) {
+        return new String(PEMEncoder.encodeCertificate(certificateEntity.getX509DERCertificate()), StandardCharsets
+                .US_ASCII);
+    }
+
+    /**
+     * Provides the {@link Writer} a configuration is rendered into.
+     */
+    @FunctionalInterface
+    public interface ConfigurationWriterProvider {
+        /**
+         * @param use name of the use of the certificate.
+         *
+         * @return the {@link Writer} receiving the configuration.
+         *
+         * @throws IOException when the writer cannot be provided.
+         */
+        Writer getWriter(String use) throws IOException;
+    }
 }
@@ -36,8 +36,6 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
-
 /**
  * Service testing a given {@link CertificateEntity} for uniqueness in the database.
  *
@@ -63,12 +61,7 @@ public class CertificateUniquenessService {
      *                                           subject has been found
      */
     public void testCertificateUniquenessInCertificateRepositoryOrThrow(String certificateSubject) {
-        final List<CertificateEntity> allBySubject = certificateRepository.findAllBySubject(certificateSubject);
-        if (allBySubject.isEmpty()) {
-            return;
-        }
-
-        final boolean hasValidCertificate = allBySubject.stream().anyMatch(CertificateValidityUtils::isValid);
+        final boolean hasValidCertificate = certificateRepository.existsValidBySubject(certificateSubject);
         if (hasValidCertificate) {
             // Since we found a certificate with the given subject which is valid, this certificate is not considered
             // to be unique.
@@ -33,6 +33,7 @@ import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
 import ch.zhaw.ba.anath.pki.entities.CertificateStatus;
 
 import java.sql.Timestamp;
+import java.util.Date;
 
 /**
  * Utilities to determine the certificateValidity of a certificate represented by a {@link CertificateEntity}
@@ -55,13 +56,31 @@ public final class CertificateValidityUtils {
      * false} otherwise.
      */
     public static boolean isExpired(CertificateEntity certificateEntity) {
+        return isExpired(certificateEntity.getNotValidBefore(), certificateEntity.getNotValidAfter());
+    }
+
+    /**
+     * Determines whether or not a certificate with the given validity period has been expired.
+     *
+     * @param notValidBefore not-valid-before of the certificate.
+     * @param notValidAfter  not-valid-after of the certificate.
+     *
+     * @return {@code true} if the current time is past {@code notValidAfter} or before {@code notValidBefore},
+     * {@code false} otherwise.
+     */
+    public static boolean isExpired(Date notValidBefore, Date notValidAfter) {
         final Timestamp timestampNow = getNowAsTimestamp();
-        return certificateEntity.getNotValidBefore().compareTo(timestampNow) >= 0 ||
-                certificateEntity.getNotValidAfter().compareTo(timestampNow) < 0;
+        return notValidBefore.compareTo(timestampNow) >= 0 ||
+                notValidAfter.compareTo(timestampNow) < 0;
     }
 
     public static boolean isValid(CertificateEntity certificateEntity) {
-        return !isExpired(certificateEntity) && certificateEntity.getStatus() == CertificateStatus.VALID;
+        return isValid(certificateEntity.getStatus(), certificateEntity.getNotValidBefore(), certificateEntity
+                .getNotValidAfter());
+    }
+
+    public static boolean isValid(CertificateStatus status, Date notValidBefore, Date notValidAfter) {
+        return !isExpired(notValidBefore, notValidAfter) && status == CertificateStatus.VALID;
     }
 
     private static Timestamp getNowAsTimestamp() {
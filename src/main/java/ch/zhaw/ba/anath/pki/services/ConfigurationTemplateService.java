@@ -32,16 +32,22 @@ package ch.zhaw.ba.anath.pki.services;
 import ch.zhaw.ba.anath.pki.exceptions.CertificateAuthorityNotInitializedException;
 import ch.zhaw.ba.anath.pki.exceptions.TemplateProcessingError;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.ArrayUtils;
+import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.runtime.RuntimeInstance;
+import org.apache.velocity.runtime.parser.ParseException;
+import org.apache.velocity.runtime.parser.node.SimpleNode;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service processing configuration templates.
@@ -49,58 +55,90 @@ import java.util.Optional;
  * It replaces only {@code ${userCertificate}} and {@code ${caCertificate}} and expects the value of those variables
  * to be a PEM encoded certificate.
  * <p>
- * The CA certificate is read upon first use and kept in memory.
+ * The CA certificate is read upon first use and kept in memory. Apart from that, templates are processed without
+ * accessing the database, thus no transaction is held while the configuration is written.
  * <p>
  * It provides {@code ${caCertificate}} be default from the secure store.
+ * <p>
+ * Parsed templates are cached by use. A cached template is only used if the template content is unchanged, and
+ * cached templates are invalidated when uses are updated or deleted.
  *
  * @author Rafael Ostertag
  */
 @Slf4j
 @Service
-@Transactional(transactionManager = "pkiTransactionManager")
 public class ConfigurationTemplateService {
     private final SecureStoreService secureStoreService;
-    private final VelocityEngine velocity;
+    private final RuntimeInstance velocity;
+    private final Map<String, CachedTemplate> templateCache = new ConcurrentHashMap<>();
     private String pemEncodedCaCertificate = null;
 
     public ConfigurationTemplateService(SecureStoreService secureStoreService) {
         this.secureStoreService = secureStoreService;
-        velocity = new VelocityEngine();
+        velocity = new RuntimeInstance();
         velocity.init();
     }
 
     /**
-     * Expand the variables in template.
+     * Expand the variables in the template of a use and write the result to {@code writer}. The writer is not
+     * flushed nor closed.
      *
+     * @param use             name of the use the template belongs to. It is used as cache key.
+     * @param template        the template.
      * @param userCertificate PEM encoded user certificate
-     * @param template        the template
-     *
-     * @return expanded configuration
+     * @param writer          {@link Writer} receiving the expanded configuration.
      */
-    public String process(String userCertificate, String template) {
+    public void process(String use, byte[] template, String userCertificate, Writer writer) {
         readCACertificate();
 
+        final Template parsedTemplate = getParsedTemplate(use, template);
         final VelocityContext velocityContext = createContext(userCertificate);
 
-        try (
-                ByteArrayOutputStream expandedTemplate = new ByteArrayOutputStream();
-                OutputStreamWriter writer = new OutputStreamWriter(expandedTemplate)) {
+        try {
+            parsedTemplate.merge(velocityContext, writer);
+            log.info("Template successfully processed");
+        } catch (RuntimeException e) {
+            log.error("Error processing template: {}", e.getMessage());
+            throw new TemplateProcessingError("Error processing template", e);
+        }
+    }
+
+    /**
+     * Remove the parsed template of a use from the cache.
+     *
+     * @param use name of the use.
+     */
+    public void invalidate(String use) {
+        log.info("Invalidate cached template of use '{}'", use);
+        templateCache.remove(use);
+    }
 
-            final boolean success = velocity.evaluate(velocityContext, writer, "configuration", template);
-            if (success) {
-                log.info("Template successfully processed");
-            } else {
-                log.error("Error processing velocity template");
-            }
+    private Template getParsedTemplate(String use, byte[] template) {
+        final CachedTemplate cachedTemplate = templateCache.get(use);
+        if (cachedTemplate != null && cachedTemplate.matches(template)) {
+            return cachedTemplate.getTemplate();
+        }
 
-            writer.flush();
+        log.info("Parse template of use '{}'", use);
+        final CachedTemplate parsedTemplate = new CachedTemplate(template.clone(), parse(use, template));
+        templateCache.put(use, parsedTemplate);
+        return parsedTemplate.getTemplate();
+    }
 
-            return new String(expandedTemplate.toByteArray());
-        } catch (TemplateProcessingError e) {
-            log.error("Error processing template: {}", e.getMessage());
-            throw new TemplateProcessingError("Error processing template", e);
+    private Template parse(String use, byte[] template) {
+        try (InputStreamReader reader = new InputStreamReader(new ByteArrayInputStream(template), StandardCharsets
+                .UTF_8)) {
+            final SimpleNode rootNode = velocity.parse(reader, use);
+            final Template parsedTemplate = new Template();
+            parsedTemplate.setRuntimeServices(velocity);
+            parsedTemplate.setData(rootNode);
+            parsedTemplate.initDocument();
+            return parsedTemplate;
+        } catch (ParseException e) {
+            log.error("Error parsing template of use '{}': {}", use, e.getMessage());
+            throw new TemplateProcessingError("Error parsing template", e);
         } catch (IOException e) {
-            log.error("IO error while writing configuration to output buffer: {}", e.getCause());
+            log.error("IO error while reading template: {}", e.getMessage());
             throw new TemplateProcessingError("IO error while processing template");
         }
     }
@@ -112,19 +150,45 @@ public class ConfigurationTemplateService {
         return velocityContext;
     }
 
-    private void readCACertificate() {
+    /**
+     * Read the CA certificate from the secure store ahead of the first template being processed.
+     *
+     * @throws CertificateAuthorityNotInitializedException when the CA has not been initialized yet.
+     */
+    public void warmUp() {
+        readCACertificate();
+    }
+
+    private synchronized void readCACertificate() {
         if (pemEncodedCaCertificate != null) {
             return;
         }
 
-        final Optional<Byte[]> caCertificateOptional = secureStoreService.get(CertificateAuthorityService
-                .SECURE_STORE_CA_CERTIFICATE);
-        final Byte[] caCertificateBytes = caCertificateOptional.orElseThrow(() -> {
+        final Optional<String> caCertificateOptional = secureStoreService.read(CertificateAuthorityService
+                .SECURE_STORE_CA_CERTIFICATE, buffer -> StandardCharsets.US_ASCII.decode(buffer).toString());
+
+        pemEncodedCaCertificate = caCertificateOptional.orElseThrow(() -> {
             log.error("No CA Certificate in secure store");
             return new CertificateAuthorityNotInitializedException("Not initialized");
         });
-
-        pemEncodedCaCertificate = new String(ArrayUtils.toPrimitive(caCertificateBytes));
         log.info("Read and cached CA Certificate");
     }
+
+    private static final class CachedTemplate {
+        private final byte[] source;
+        private final Template template;
+
+        CachedTemplate(byte[] source, Template template) {
+            this.source = source;
+            this.template = template;
+        }
+
+        boolean matches(byte[] otherSource) {
+            return Arrays.equals(source, otherSource);
+        }
+
+        Template getTemplate() {
+            return template;
+        }
+    }
 }
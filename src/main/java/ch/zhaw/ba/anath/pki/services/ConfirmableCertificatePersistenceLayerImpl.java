@@ -35,7 +35,6 @@ import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
 import ch.zhaw.ba.anath.pki.entities.UseEntity;
 import ch.zhaw.ba.anath.pki.exceptions.CertificateNotFoundException;
 import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
-import ch.zhaw.ba.anath.pki.repositories.UseRepository;
 import ch.zhaw.ba.anath.pki.utilities.TokenCreator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Profile;
@@ -59,7 +58,7 @@ public class ConfirmableCertificatePersistenceLayerImpl implements ConfirmableCe
     private final RedisTemplate<ConfirmationKey, CertificateEntity> redisTemplate;
     private final CertificateRepository certificateRepository;
     private final CertificateUniquenessService certificateUniquenessService;
-    private final UseRepository useRepository;
+    private final UseCatalogue useCatalogue;
     private final TokenCreator tokenCreator;
 
     public ConfirmableCertificatePersistenceLayerImpl(
@@ -67,13 +66,13 @@ public class ConfirmableCertificatePersistenceLayerImpl implements ConfirmableCe
             RedisTemplate<ConfirmationKey, CertificateEntity> redisTemplate,
             CertificateRepository certificateRepository,
             CertificateUniquenessService certificateUniquenessService,
-            UseRepository useRepository,
+            UseCatalogue useCatalogue,
             TokenCreator tokenCreator) {
         this.confirmationConfiguration = anathProperties.getConfirmation();
         this.redisTemplate = redisTemplate;
         this.certificateRepository = certificateRepository;
         this.certificateUniquenessService = certificateUniquenessService;
-        this.useRepository = useRepository;
+        this.useCatalogue = useCatalogue;
         this.tokenCreator = tokenCreator;
         log.info("Confirmable Certificate Persistence Layer initialized");
     }
@@ -136,11 +135,12 @@ public class ConfirmableCertificatePersistenceLayerImpl implements ConfirmableCe
     private CertificateEntity guaranteeUseExistence(CertificateEntity certificateEntity) {
         final UseEntity initialUseOnCertificateEntity = certificateEntity.getUse();
 
-        final Optional<UseEntity> optionalUse = useRepository.findOne(initialUseOnCertificateEntity.getUse());
+        final Optional<UseEntity> optionalUse = useCatalogue.findUse(initialUseOnCertificateEntity.getUse());
 
         final UseEntity useEntityGuaranteedToExist = optionalUse.orElseGet(this::getPlainUseEntity);
 
-        certificateEntity.setUse(useEntityGuaranteedToExist);
+        certificateEntity.setUseName(useEntityGuaranteedToExist.getUse());
+        certificateEntity.setUse(useCatalogue.getReference(useEntityGuaranteedToExist));
 
         return certificateEntity;
     }
@@ -149,7 +149,7 @@ public class ConfirmableCertificatePersistenceLayerImpl implements ConfirmableCe
         log.warn("Provided use in CertificateEntity retrieved from Redis does not exist anymore. Resorting to default" +
                 " 'plain' use.");
         // Per definition, this use must exist.
-        final Optional<UseEntity> plain = useRepository.findOne("plain");
+        final Optional<UseEntity> plain = useCatalogue.findUse(UseEntity.DEFAULT_USE);
 
         return plain.orElseThrow(() -> {
             log.error("The 'plain' use cannot be found");
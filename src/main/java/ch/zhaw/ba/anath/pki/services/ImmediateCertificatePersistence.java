@@ -29,6 +29,7 @@
 
 package ch.zhaw.ba.anath.pki.services;
 
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
 import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
 import ch.zhaw.ba.anath.pki.exceptions.CertificateAlreadyExistsException;
 import ch.zhaw.ba.anath.pki.exceptions.CertificateNotFoundException;
@@ -39,7 +40,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.validation.ConstraintViolationException;
-import java.math.BigInteger;
 import java.util.Optional;
 
 /**
@@ -51,15 +51,19 @@ import java.util.Optional;
 @Transactional(transactionManager = "pkiTransactionManager")
 public class ImmediateCertificatePersistence implements ConfirmableCertificatePersistenceLayer {
     private final CertificateRepository certificateRepository;
+    private final UseCatalogue useCatalogue;
 
-    public ImmediateCertificatePersistence(CertificateRepository certificateRepository) {
+    public ImmediateCertificatePersistence(CertificateRepository certificateRepository, UseCatalogue useCatalogue) {
         this.certificateRepository = certificateRepository;
+        this.useCatalogue = useCatalogue;
         log.info("Immediate Certificate Persistence Layer initialized");
     }
 
     @Override
     public String store(CertificateEntity certificateEntity) {
         try {
+            certificateEntity.setUseName(certificateEntity.getUse().getUse());
+            certificateEntity.setUse(useCatalogue.getReference(certificateEntity.getUse()));
             certificateRepository.save(certificateEntity);
             log.info("Stored signed certificate '{}'", certificateEntity.getSubject());
             return certificateEntity.getSerial().toString();
@@ -73,11 +77,11 @@ public class ImmediateCertificatePersistence implements ConfirmableCertificatePe
 
     @Override
     public CertificateEntity confirm(String token, String userId) {
-        BigInteger serial;
+        CertificateSerial serial;
         try {
-            serial = new BigInteger(token);
+            serial = CertificateSerial.valueOf(token);
         } catch (NumberFormatException e) {
-            log.error("Cannot parse '{}' as BigInteger: {}", token, e.getMessage());
+            log.error("Cannot parse '{}' as serial number: {}", token, e.getMessage());
             throw new CertificateNotFoundException("Certificate not found");
         }
 
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package ch.zhaw.ba.anath.pki.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Invalidate the {@link UseCatalogue} of all nodes by publishing the name of the changed use on a Redis channel. Each
+ * node, including the sender, subscribes to the channel. This Service is only available when the "confirm" Spring
+ * profile is enabled.
+ *
+ * @author Rafael Ostertag
+ */
+@Slf4j
+@Service
+@Profile("confirm")
+public class RedisUseChangeNotificationServiceImpl implements UseChangeNotificationService, MessageListener {
+    public static final String USE_CHANGE_CHANNEL = "anath:use-changes";
+    private final UseCatalogue useCatalogue;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public RedisUseChangeNotificationServiceImpl(UseCatalogue useCatalogue, StringRedisTemplate stringRedisTemplate) {
+        this.useCatalogue = useCatalogue;
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    @Override
+    public void useChanged(String use) {
+        useCatalogue.invalidate(use);
+        try {
+            stringRedisTemplate.convertAndSend(USE_CHANGE_CHANNEL, use);
+        } catch (DataAccessException e) {
+            log.error("Unable to publish change of use '{}': {}", use, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        final String use = new String(message.getBody(), StandardCharsets.UTF_8);
+        log.info("Received change notification for use '{}'", use);
+        useCatalogue.invalidate(use);
+    }
+}
@@ -30,6 +30,9 @@
 package ch.zhaw.ba.anath.pki.services;
 
 import ch.zhaw.ba.anath.pki.core.*;
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
+import ch.zhaw.ba.anath.pki.core.exceptions.CertificateReaderException;
+import ch.zhaw.ba.anath.pki.core.exceptions.CertificateRevocationListException;
 import ch.zhaw.ba.anath.pki.core.interfaces.CertificateRevocationListValidityProvider;
 import ch.zhaw.ba.anath.pki.core.interfaces.SignatureNameProvider;
 import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
@@ -42,9 +45,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.*;
-import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Optional;
@@ -69,6 +72,8 @@ public class RevocationService {
     private final SignatureNameProvider signatureNameProvider;
     private final CertificateRevocationListValidityProvider certificateRevocationListValidityProvider;
     private final CrlRepository crlRepository;
+    private final CertificatePemCache certificatePemCache;
+    private final CertificateRevocationState certificateRevocationState;
     private final ReentrantLock reentrantLock;
     private CertificateAuthority certificateAuthority = null;
     private CertificateRevocationListCreator certificateRevocationListCreator = null;
@@ -77,12 +82,16 @@ public class RevocationService {
                              CertificateRepository certificateRepository,
                              SignatureNameProvider signatureNameProvider,
                              CertificateRevocationListValidityProvider certificateRevocationListValidityProvider,
-                             CrlRepository crlRepository) {
+                             CrlRepository crlRepository,
+                             CertificatePemCache certificatePemCache,
+                             CertificateRevocationState certificateRevocationState) {
         this.certificateAuthorityService = certificateAuthorityService;
         this.certificateRepository = certificateRepository;
         this.signatureNameProvider = signatureNameProvider;
         this.certificateRevocationListValidityProvider = certificateRevocationListValidityProvider;
         this.crlRepository = crlRepository;
+        this.certificatePemCache = certificatePemCache;
+        this.certificateRevocationState = certificateRevocationState;
 
         reentrantLock = new ReentrantLock();
     }
@@ -93,7 +102,7 @@ public class RevocationService {
      * @param serial serial of the certificate
      * @param reason the reason. Must not be empty or null.
      */
-    public void revokeCertificate(BigInteger serial, String reason) {
+    public void revokeCertificate(CertificateSerial serial, String reason) {
         if (reason == null) {
             throwEmptyReasonException(serial);
             return;
@@ -117,6 +126,8 @@ public class RevocationService {
         certificateEntity.setRevocationTime(new Timestamp(System.currentTimeMillis()));
 
         certificateRepository.save(certificateEntity);
+        certificatePemCache.invalidate(serial);
+        certificateRevocationState.revoked(serial);
         log.info("Revoked certificate with serial {} with reason '{}'", serial.toString(), trimmedReason);
 
         updateCertificateRevocationList();
@@ -164,9 +175,21 @@ public class RevocationService {
         return crlEntity.getNextUpdate();
     }
 
+    @Transactional(transactionManager = "pkiTransactionManager", readOnly = true)
     public String getCrlPemEncoded() {
         final CrlEntity crlEntity = getCrlEntityLocked();
-        return new String(crlEntity.getX509PEMCrl());
+        return new String(PEMEncoder.encodeCrl(crlEntity.getX509DERCrl()), StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Get the DER encoded Certificate Revocation List as stored.
+     *
+     * @return DER encoded Certificate Revocation List.
+     */
+    @Transactional(transactionManager = "pkiTransactionManager", readOnly = true)
+    public byte[] getCrlDerEncoded() {
+        final CrlEntity crlEntity = getCrlEntityLocked();
+        return crlEntity.getX509DERCrl();
     }
 
     /**
@@ -177,24 +200,18 @@ public class RevocationService {
      * @return {@link CrlEntity} instance.
      */
     private CrlEntity certificateRevocationListToCrlEntity(CertificateRevocationList certificateRevocationList) {
-        try (ByteArrayOutputStream pemEncodedCrl = new ByteArrayOutputStream();
-             OutputStreamWriter writer = new OutputStreamWriter(pemEncodedCrl)) {
-
-            final PEMCertificateRevocationListWriter pemCertificateRevocationListWriter = new
-                    PEMCertificateRevocationListWriter(writer);
-            pemCertificateRevocationListWriter.writeRevocationList(certificateRevocationList);
-
-            final CrlEntity crlEntity = new CrlEntity();
-            crlEntity.setNextUpdate(new Timestamp(certificateRevocationList.getNextUpdate().getTime()));
-            crlEntity.setThisUpdate(new Timestamp(certificateRevocationList.getThisUpdate().getTime()));
-            crlEntity.setX509PEMCrl(pemEncodedCrl.toByteArray());
-
-            return crlEntity;
-        } catch (IOException e) {
+        final CrlEntity crlEntity = new CrlEntity();
+        crlEntity.setNextUpdate(new Timestamp(certificateRevocationList.getNextUpdate().getTime()));
+        crlEntity.setThisUpdate(new Timestamp(certificateRevocationList.getThisUpdate().getTime()));
+        try {
+            crlEntity.setX509DERCrl(certificateRevocationList.getCertificate());
+        } catch (CertificateRevocationListException e) {
             log.info("Error converting Certificate Revocation List to database entity: {}", e.getMessage());
             throw new RevocationListCreationException("Error converting Certificate Revocation List to database " +
                     "entity", e);
         }
+
+        return crlEntity;
     }
 
     /**
@@ -219,11 +236,8 @@ public class RevocationService {
             reentrantLock.lock();
             log.info("CRL lock acquired");
             // We always clean out the entire table.
-            crlRepository
-                    .findAllOrderByThisUpdateDesc()
-                    .stream()
-                    .forEach(x -> crlRepository.deleteById(x.getId()));
-            log.info("Purged all previous CRLs from the database");
+            final int purged = crlRepository.deleteAllInBulk();
+            log.info("Purged {} previous CRLs from the database", purged);
 
             crlRepository.save(crlEntity);
             log.info("Persisted X.509 Certificate Revocation List to database");
@@ -235,27 +249,55 @@ public class RevocationService {
     }
 
     private Certificate certificateEntityToCertificate(CertificateEntity certifcateEntity) {
-        try (ByteArrayInputStream pemEncodedCertificate = new ByteArrayInputStream(certifcateEntity
-                .getX509PEMCertificate());
-             InputStreamReader inputStreamReader = new InputStreamReader(pemEncodedCertificate)) {
-            final PEMCertificateReader pemCertificateReader = new PEMCertificateReader(inputStreamReader);
-            return pemCertificateReader.certificate();
-        } catch (IOException e) {
+        try {
+            final DERCertificateReader derCertificateReader = new DERCertificateReader(certifcateEntity
+                    .getX509DERCertificate());
+            return derCertificateReader.certificate();
+        } catch (CertificateReaderException e) {
             log.error("Error reading certificate from database: {}", e.getMessage());
             throw new RevocationListCreationException("Error reading certificate", e);
         }
     }
 
-    private void initializeCertificateRevocationListCreator() {
+    /**
+     * Load the {@link CertificateAuthority} and initialize the {@link CertificateRevocationListCreator} ahead of the
+     * first revocation.
+     *
+     * @throws CertificateAuthorityNotInitializedException when the CA has not been initialized yet.
+     */
+    public void warmUp() {
+        initializeCertificateRevocationListCreator();
+    }
+
+    /**
+     * Like {@link #warmUp()}, and additionally create empty certificate revocation lists, so that the CRL signing
+     * path is compiled by the JIT ahead of the first revocation. The lists are PEM encoded, but not persisted.
+     *
+     * @param iterations number of synthetic certificate revocation lists.
+     *
+     * @throws CertificateAuthorityNotInitializedException when the CA has not been initialized yet.
+     */
+    public void warmUp(int iterations) {
+        initializeCertificateRevocationListCreator();
+
+        for (int i = 0; i < iterations; i++) {
+            final CertificateRevocationList certificateRevocationList = certificateRevocationListCreator.create
+                    (Collections.emptyList());
+            PEMEncoder.encodeCrl(certificateRevocationList.getCertificate());
+        }
+        log.info("Created {} synthetic certificate revocation lists", iterations);
+    }
+
+    private synchronized void initializeCertificateRevocationListCreator() {
         if (certificateRevocationListCreator != null) {
             return;
         }
 
         initializeCertificateAuthority();
 
-        certificateRevocationListCreator = new
-                CertificateRevocationListCreator(signatureNameProvider, certificateAuthority,
-                certificateRevocationListValidityProvider);
+        final CertificateRevocationListCreator creator = new CertificateRevocationListCreator(signatureNameProvider,
+                certificateAuthority, certificateRevocationListValidityProvider);
+        certificateRevocationListCreator = creator;
 
         log.info("Initialized and cached certificate revocation list creator");
     }
@@ -269,12 +311,12 @@ public class RevocationService {
         log.info("Loaded and cached certificate authority");
     }
 
-    private void throwEmptyReasonException(BigInteger serial) {
+    private void throwEmptyReasonException(CertificateSerial serial) {
         log.error("Cannot revoke certificate with serial {}. No reason provided", serial);
         throw new RevocationNoReasonException("No reason provided");
     }
 
-    private CertificateEntity getCertificateEntityOrThrow(BigInteger serial) {
+    private CertificateEntity getCertificateEntityOrThrow(CertificateSerial serial) {
         final Optional<CertificateEntity> certificateEntityOptional = certificateRepository.findOneBySerial(serial);
         return certificateEntityOptional.orElseThrow(() -> {
             log.error("Certificate with serial {} not found", serial.toString());
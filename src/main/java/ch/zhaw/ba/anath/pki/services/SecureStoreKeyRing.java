@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.services;
+
+import ch.zhaw.ba.anath.pki.exceptions.SecureStoreException;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.util.encoders.Hex;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Keys used by the {@link SecureStoreService}. The active key is used to encrypt data, previous keys are only used to
+ * decrypt data not yet re-encrypted using the active key.
+ * <p>
+ * Keys are derived from the secrets by hashing them using SHA256. Each key is identified by a key id, which is the
+ * hex encoded, truncated SHA256 hash of the derived key. Derived keys are not kept, but derived on each use and
+ * wiped afterwards.
+ *
+ * @author Rafael Ostertag
+ */
+@Slf4j
+final class SecureStoreKeyRing {
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int KEY_ID_LENGTH_IN_BYTES = 8;
+
+    private final String activeKeyId;
+    private final Map<String, String> secrets = new LinkedHashMap<>();
+
+    /**
+     * @param activeSecret    the secret to derive the active key from.
+     * @param previousSecrets the secrets to derive the previous keys from. Secrets equal to {@code activeSecret} are
+     *                        ignored.
+     */
+    SecureStoreKeyRing(String activeSecret, List<String> previousSecrets) {
+        if (activeSecret == null) {
+            log.error("No secret key configured for secure store");
+            throw new SecureStoreException("No secret key configured");
+        }
+
+        activeKeyId = addSecret(activeSecret);
+        for (String previousSecret : previousSecrets) {
+            addSecret(previousSecret);
+        }
+
+        log.info("Secure store uses active key id '{}' and {} previous key(s)", activeKeyId, secrets.size() - 1);
+    }
+
+    /**
+     * Get the key id of the key derived from {@code secret}.
+     *
+     * @param secret the secret.
+     *
+     * @return the key id.
+     */
+    static String keyId(String secret) {
+        final byte[] key = deriveKey(secret);
+        try {
+            return Hex.toHexString(digest(key), 0, KEY_ID_LENGTH_IN_BYTES);
+        } finally {
+            Arrays.fill(key, (byte) 0);
+        }
+    }
+
+    private String addSecret(String secret) {
+        final String keyId = keyId(secret);
+        secrets.putIfAbsent(keyId, secret);
+        return keyId;
+    }
+
+    private static byte[] deriveKey(String secret) {
+        return digest(secret.getBytes(Charset.defaultCharset()));
+    }
+
+    private static byte[] digest(byte[] data) {
+        try {
+            final MessageDigest messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            return messageDigest.digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            log.error("Cannot initialize digest '{}': {}", DIGEST_ALGORITHM, e.getMessage());
+            throw new SecureStoreException(String.format("Unable to initialize digest '%s'", DIGEST_ALGORITHM), e);
+        }
+    }
+
+    String getActiveKeyId() {
+        return activeKeyId;
+    }
+
+    /**
+     * Get all key ids, starting with the active key id, followed by the previous key ids in the order configured.
+     *
+     * @return unmodifiable list of key ids.
+     */
+    List<String> getKeyIds() {
+        return Collections.unmodifiableList(new ArrayList<>(secrets.keySet()));
+    }
+
+    /**
+     * Get the key ids of the previous keys.
+     *
+     * @return unmodifiable list of key ids, without the active key id.
+     */
+    List<String> getPreviousKeyIds() {
+        final List<String> keyIds = new ArrayList<>(secrets.keySet());
+        keyIds.remove(activeKeyId);
+        return Collections.unmodifiableList(keyIds);
+    }
+
+    /**
+     * Get the key identified by {@code keyId}.
+     *
+     * @param keyId     the key id.
+     * @param algorithm the algorithm the key is used with.
+     *
+     * @return {@link SecretKeySpec} of the key.
+     *
+     * @throws SecureStoreException if no key with the given key id exists.
+     */
+    SecretKeySpec getSecretKeySpec(String keyId, String algorithm) {
+        final String secret = secrets.get(keyId);
+        if (secret == null) {
+            log.error("No key with key id '{}' configured for secure store", keyId);
+            throw new SecureStoreException(String.format("Unknown key id '%s'", keyId));
+        }
+
+        final byte[] key = deriveKey(secret);
+        try {
+            return new SecretKeySpec(key, algorithm);
+        } finally {
+            // SecretKeySpec keeps a copy of the key
+            Arrays.fill(key, (byte) 0);
+        }
+    }
+}
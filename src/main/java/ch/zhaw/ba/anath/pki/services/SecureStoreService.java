@@ -35,8 +35,9 @@ import ch.zhaw.ba.anath.pki.exceptions.SecureStoreException;
 import ch.zhaw.ba.anath.pki.repositories.SecureRepository;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.ArrayUtils;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -44,15 +45,26 @@ import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.Charset;
+import java.nio.ByteBuffer;
 import java.security.*;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 /**
  * Service providing abstraction to the {@link SecureRepository}. It takes care of encrypting and decrypting data
  * upon store or retrieval. The password provided is hashed using SHA256, to provide the maximum key size for AES.
+ * <p>
+ * Data is always encrypted using the key derived from {@code anath.secret-key}. Data encrypted using a key derived
+ * from one of {@code anath.previous-secret-keys} can still be read, and is moved to the active key by {@link
+ * #reEncrypt(int)}.
+ * <p>
+ * Decrypted data is only handed out through {@link #read(String, Function)}, which wipes the plain text buffer once
+ * the caller is done with it.
  *
  * @author Rafael Ostertag
  */
@@ -62,7 +74,6 @@ import java.util.Optional;
 public class SecureStoreService {
     private static final String CIPHER = "AES/CBC/PKCS5Padding";
     private static final String SECURITY_PROVIDER = "BC";
-    private static final String DIGEST_ALGORITHM = "SHA256";
 
     static {
         Security.insertProviderAt(new BouncyCastleProvider(), 1);
@@ -70,12 +81,34 @@ public class SecureStoreService {
 
     private final SecureRepository secureRepository;
     private final AnathProperties anathProperties;
+    private SecureStoreKeyRing keyRing;
 
     public SecureStoreService(SecureRepository secureRepository, AnathProperties anathProperties) {
         this.secureRepository = secureRepository;
         this.anathProperties = anathProperties;
     }
 
+    /**
+     * Get the id of the key derived from {@code secret}, as stored along the encrypted data.
+     *
+     * @param secret the secret.
+     *
+     * @return the key id.
+     */
+    public static String keyIdOf(String secret) {
+        return SecureStoreKeyRing.keyId(secret);
+    }
+
+    /**
+     * Get the {@link SecureStoreKeyRing}. The key ring is initialized upon first use.
+     */
+    private synchronized SecureStoreKeyRing keyRing() {
+        if (keyRing == null) {
+            keyRing = new SecureStoreKeyRing(anathProperties.getSecretKey(), anathProperties.getPreviousSecretKeys());
+        }
+        return keyRing;
+    }
+
     /**
      * Store data encrypted in the {@link SecureRepository}. It assumes the data provided to be uncrypted.
      *
@@ -90,36 +123,42 @@ public class SecureStoreService {
             return newSecureEntity;
         });
 
-        final EncryptedData encryptedData = encryptData(data);
+        encryptIntoSecureEntity(secureEntity, data, data.length);
+
+        secureRepository.save(secureEntity);
+    }
+
+    private void encryptIntoSecureEntity(SecureEntity secureEntity, byte[] data, int length) {
+        final EncryptedData encryptedData = encryptData(data, length);
         secureEntity.setData(encryptedData.data);
         secureEntity.setIV(encryptedData.getIv());
         secureEntity.setAlgorithm(CIPHER);
-
-        secureRepository.save(secureEntity);
+        secureEntity.setKeyId(keyRing().getActiveKeyId());
     }
 
     /**
-     * Encrypt the data. It creates a new IV.
+     * Encrypt the data using the active key. It creates a new IV.
      *
-     * @param data data to be encrypted.
+     * @param data   data to be encrypted.
+     * @param length number of bytes of {@code data} to be encrypted.
      *
      * @return a {@link EncryptedData} instance. The {@link EncryptedData#data} field contains the encrypted data.
      * The {@link EncryptedData#iv} field contains the IV.
      */
-    private EncryptedData encryptData(byte[] data) {
+    private EncryptedData encryptData(byte[] data, int length) {
         final Cipher cipher = instantiateCipher();
-        final SecretKeySpec secretKeySpec = initializeSecretKeySpec(CIPHER);
+        final SecretKeySpec secretKeySpec = keyRing().getSecretKeySpec(keyRing().getActiveKeyId(), CIPHER);
         final IvParameterSpec ivParameterSpec = initializeRandomIV(cipher.getBlockSize());
 
         initializeCipherForEncryption(cipher, secretKeySpec, ivParameterSpec);
-        final byte[] encryptedData = encryptWithCipher(cipher, data);
+        final byte[] encryptedData = encryptWithCipher(cipher, data, length);
 
         return new EncryptedData(encryptedData, cipher.getIV());
     }
 
-    private byte[] encryptWithCipher(Cipher cipher, byte[] data) {
+    private byte[] encryptWithCipher(Cipher cipher, byte[] data, int length) {
         try {
-            return cipher.doFinal(data);
+            return cipher.doFinal(data, 0, length);
         } catch (IllegalBlockSizeException e) {
             return wrapIllegalBlockSizeException(e);
         } catch (BadPaddingException e) {
@@ -169,23 +208,6 @@ public class SecureStoreService {
         throw new SecureStoreException("Invalid key", e);
     }
 
-    private SecretKeySpec initializeSecretKeySpec(String cipher) {
-        byte[] hashedPassword = hashPassword();
-        return new SecretKeySpec(hashedPassword, cipher);
-    }
-
-    private byte[] hashPassword() {
-        try {
-            final MessageDigest messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
-            messageDigest.update(anathProperties.getSecretKey().getBytes(Charset.defaultCharset()));
-            return messageDigest.digest();
-        } catch (NoSuchAlgorithmException e) {
-            wrapNoSuchAlgorithmExceptionAndThrow(DIGEST_ALGORITHM, e);
-            // Won't be reached
-            return new byte[0];
-        }
-    }
-
     private IvParameterSpec initializeRandomIV(int blockSize) {
         try {
             final SecureRandom strongRNG = SecureRandom.getInstanceStrong();
@@ -244,13 +266,29 @@ public class SecureStoreService {
     }
 
     /**
-     * Retrieve data from {@link SecureRepository}. The data will be decrypted before returned.
+     * Test whether data is stored under the given key. The data is not decrypted.
      *
-     * @param key the key to lookup the data.
+     * @param key the key to lookup.
      *
-     * @return non-empty {@link Optional} if the key has been found, otherwise empty {@link Optional}.
+     * @return {@code true} if the key has been found, {@code false} otherwise.
      */
-    public Optional<Byte[]> get(String key) {
+    public boolean contains(String key) {
+        return secureRepository.findOneByKey(key).isPresent();
+    }
+
+    /**
+     * Retrieve data from {@link SecureRepository} and hand it to {@code reader}. The data is decrypted into a single
+     * buffer, which is passed to {@code reader} as read-only {@link ByteBuffer}. The buffer is wiped after {@code
+     * reader} returns, thus {@code reader} must not keep references to the buffer.
+     *
+     * @param key    the key to lookup the data.
+     * @param reader function receiving the decrypted data.
+     * @param <T>    type returned by {@code reader}.
+     *
+     * @return non-empty {@link Optional} holding the value returned by {@code reader} if the key has been found,
+     * otherwise empty {@link Optional}.
+     */
+    public <T> Optional<T> read(String key, Function<ByteBuffer, T> reader) {
         final Optional<SecureEntity> secureEntityOptional = secureRepository.findOneByKey(key);
         if (!secureEntityOptional.isPresent()) {
             return Optional.empty();
@@ -258,22 +296,97 @@ public class SecureStoreService {
 
         final SecureEntity secureEntity = secureEntityOptional.get();
 
-        final Cipher cipher = instantiateCipher(secureEntity.getAlgorithm(), SECURITY_PROVIDER);
-        final SecretKeySpec secretKeySpec = initializeSecretKeySpec(secureEntity.getAlgorithm());
-        final IvParameterSpec ivParameterSpec = initializeIV(secureEntity.getIV());
-        initializeCipherForDecryption(cipher, secretKeySpec, ivParameterSpec);
+        final byte[] decryptedData = new byte[secureEntity.getData().length];
+        try {
+            final int decryptedDataLength = decryptSecureEntity(secureEntity, decryptedData);
+            final ByteBuffer decryptedDataBuffer = ByteBuffer.wrap(decryptedData, 0, decryptedDataLength)
+                    .asReadOnlyBuffer();
+            return Optional.ofNullable(reader.apply(decryptedDataBuffer));
+        } finally {
+            Arrays.fill(decryptedData, (byte) 0);
+        }
+    }
+
+    /**
+     * Test whether data not encrypted using the active key exists. It may be served by the PKI read replica.
+     *
+     * @return {@code true} if data is to be re-encrypted, {@code false} otherwise.
+     */
+    @Transactional(transactionManager = "pkiTransactionManager", readOnly = true)
+    public boolean needsReEncryption() {
+        final List<String> previousKeyIds = keyRing().getPreviousKeyIds();
+        return !previousKeyIds.isEmpty() && secureRepository.existsByKeyIdIn(previousKeyIds);
+    }
+
+    /**
+     * Re-encrypt data not encrypted using the active key. Data encrypted using a key no longer configured is left
+     * untouched.
+     *
+     * @param batchSize maximum number of entries to re-encrypt.
+     *
+     * @return number of entries re-encrypted.
+     */
+    public int reEncrypt(int batchSize) {
+        final PageRequest pageRequest = new PageRequest(0, batchSize, Sort.Direction.ASC, "id");
+        final List<String> previousKeyIds = keyRing().getPreviousKeyIds();
+        if (previousKeyIds.isEmpty()) {
+            return 0;
+        }
+
+        final List<SecureEntity> secureEntities = secureRepository.findAllByKeyIdIn(previousKeyIds, pageRequest);
+
+        for (SecureEntity secureEntity : secureEntities) {
+            final String previousKeyId = secureEntity.getKeyId();
+            final byte[] decryptedData = new byte[secureEntity.getData().length];
+            try {
+                final int decryptedDataLength = decryptSecureEntity(secureEntity, decryptedData);
+                encryptIntoSecureEntity(secureEntity, decryptedData, decryptedDataLength);
+            } finally {
+                Arrays.fill(decryptedData, (byte) 0);
+            }
+
+            secureRepository.save(secureEntity);
+            log.info("Re-encrypted secure store entry '{}' from key id '{}' to key id '{}'", secureEntity.getKey(),
+                    previousKeyId, secureEntity.getKeyId());
+        }
 
-        return Optional.of(ArrayUtils.toObject(decryptData(cipher, secureEntity.getData())));
+        return secureEntities.size();
     }
 
-    private byte[] decryptData(Cipher cipher, byte[] data) {
+    private int decryptSecureEntity(SecureEntity secureEntity, byte[] output) {
+        if (secureEntity.getKeyId() == null) {
+            // AES/CBC provides no integrity, thus decrypting with a wrong key may go unnoticed. Rows are stamped with
+            // a key id by a database migration, and never decrypted without one.
+            log.error("Secure store entry '{}' has no key id", secureEntity.getKey());
+            throw new SecureStoreException(String.format("No key id for '%s'", secureEntity.getKey()));
+        }
+
         try {
-            return cipher.doFinal(data);
+            return decryptWithKey(secureEntity, secureEntity.getKeyId(), output);
         } catch (BadPaddingException e) {
-            return wrapBadPaddingException(e);
+            wrapBadPaddingException(e);
+        }
+        // Won't be reached
+        return 0;
+    }
+
+    private int decryptWithKey(SecureEntity secureEntity, String keyId, byte[] output) throws BadPaddingException {
+        final Cipher cipher = instantiateCipher(secureEntity.getAlgorithm(), SECURITY_PROVIDER);
+        final SecretKeySpec secretKeySpec = keyRing().getSecretKeySpec(keyId, secureEntity.getAlgorithm());
+        final IvParameterSpec ivParameterSpec = initializeIV(secureEntity.getIV());
+        initializeCipherForDecryption(cipher, secretKeySpec, ivParameterSpec);
+
+        final byte[] data = secureEntity.getData();
+        try {
+            return cipher.doFinal(data, 0, data.length, output, 0);
         } catch (IllegalBlockSizeException e) {
-            return wrapIllegalBlockSizeException(e);
+            wrapIllegalBlockSizeException(e);
+        } catch (ShortBufferException e) {
+            log.error("Output buffer too short while decrypting data from secure store: {}", e.getMessage());
+            throw new SecureStoreException("Output buffer too short", e);
         }
+        // Won't be reached
+        return 0;
     }
 
     @Value
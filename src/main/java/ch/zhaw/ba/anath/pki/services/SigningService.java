@@ -29,7 +29,9 @@
 
 package ch.zhaw.ba.anath.pki.services;
 
+import ch.zhaw.ba.anath.config.properties.AnathProperties;
 import ch.zhaw.ba.anath.pki.core.*;
+import ch.zhaw.ba.anath.pki.core.exceptions.CertificateReaderException;
 import ch.zhaw.ba.anath.pki.core.interfaces.CertificateConstraintProvider;
 import ch.zhaw.ba.anath.pki.core.interfaces.CertificateSerialProvider;
 import ch.zhaw.ba.anath.pki.core.interfaces.CertificateValidityProvider;
@@ -38,15 +40,36 @@ import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
 import ch.zhaw.ba.anath.pki.entities.CertificateStatus;
 import ch.zhaw.ba.anath.pki.entities.UseEntity;
 import ch.zhaw.ba.anath.pki.exceptions.CertificateAlreadyExistsException;
+import ch.zhaw.ba.anath.pki.exceptions.CertificateAuthorityNotInitializedException;
 import ch.zhaw.ba.anath.pki.exceptions.SigningException;
-import ch.zhaw.ba.anath.pki.repositories.UseRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.cert.CertException;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.ContentVerifierProvider;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentVerifierProviderBuilder;
+import org.bouncycastle.pkcs.PKCS10CertificationRequest;
+import org.bouncycastle.pkcs.jcajce.JcaPKCS10CertificationRequestBuilder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.*;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.PrivateKey;
+import java.security.cert.CertificateException;
+import java.security.interfaces.RSAKey;
 import java.sql.Timestamp;
 import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -59,36 +82,43 @@ import java.util.Optional;
 @Slf4j
 @Transactional(transactionManager = "pkiTransactionManager")
 public class SigningService {
+    private static final String PEM_CERTIFICATE_REQUEST = "CERTIFICATE REQUEST";
+    private static final X500Name WARM_UP_NAME = new X500Name("CN=Anath Warm-Up");
+    private static final BigInteger WARM_UP_SERIAL = BigInteger.ONE;
     private final CertificateAuthorityService certificateAuthorityService;
     private final ConfirmableCertificatePersistenceLayer confirmableCertificatePersistenceLayer;
-    private final UseRepository useRepository;
+    private final UseCatalogue useCatalogue;
     private final CertificateConstraintProvider certificateConstraintProvider;
     private final SignatureNameProvider signatureNameProvider;
     private final CertificateValidityProvider certificateValidityProvider;
     private final CertificateSerialProvider certificateSerialProvider;
     private final CertificateUniquenessService certificateUniquenessService;
     private final ConfirmationNotificationService confirmationNotificationService;
+    private final List<String> serverCertificateUses;
     private CertificateAuthority certificateAuthority = null;
     private CertificateSigner certificateSigner = null;
+    private CertificateAuthority warmUpCertificateAuthority = null;
+    private byte[] warmUpPemEncodedCsr = null;
 
     public SigningService(CertificateAuthorityService certificateAuthorityService,
                           ConfirmableCertificatePersistenceLayer confirmableCertificatePersistenceLayer,
-                          UseRepository useRepository,
+                          UseCatalogue useCatalogue,
                           CertificateConstraintProvider certificateConstraintProvider,
                           SignatureNameProvider signatureNameProvider,
                           CertificateValidityProvider certificateValidityProvider,
                           CertificateSerialProvider certificateSerialProvider, CertificateUniquenessService
                                   certificateUniquenessService, ConfirmationNotificationService
-                                  confirmationNotificationService) {
+                                  confirmationNotificationService, AnathProperties anathProperties) {
         this.certificateAuthorityService = certificateAuthorityService;
         this.confirmableCertificatePersistenceLayer = confirmableCertificatePersistenceLayer;
-        this.useRepository = useRepository;
+        this.useCatalogue = useCatalogue;
         this.certificateConstraintProvider = certificateConstraintProvider;
         this.signatureNameProvider = signatureNameProvider;
         this.certificateValidityProvider = certificateValidityProvider;
         this.certificateSerialProvider = certificateSerialProvider;
         this.certificateUniquenessService = certificateUniquenessService;
         this.confirmationNotificationService = confirmationNotificationService;
+        this.serverCertificateUses = anathProperties.getPki().getServerCertificateUses();
     }
 
     /**
@@ -96,19 +126,148 @@ public class SigningService {
      * It can be called multiple times. Once the {@link CertificateSigner} has been initialized, it won't be
      * initialized again.
      */
-    private void initializeCertificateSigner() {
+    private synchronized void initializeCertificateSigner() {
         if (certificateSigner != null) {
             return;
         }
         initializeCertificateAuthority();
 
-        certificateSigner = new CertificateSigner(signatureNameProvider, certificateAuthority);
-        certificateSigner.setCertificateConstraintProvider(certificateConstraintProvider);
-        certificateSigner.setCertificateSerialProvider(certificateSerialProvider);
-        certificateSigner.setValidityProvider(certificateValidityProvider);
+        final CertificateSigner signer = new CertificateSigner(signatureNameProvider, certificateAuthority);
+        signer.setCertificateConstraintProvider(certificateConstraintProvider);
+        signer.setCertificateSerialProvider(certificateSerialProvider);
+        signer.setValidityProvider(certificateValidityProvider);
+        certificateSigner = signer;
         log.info("Initialized and cached certificate signer");
     }
 
+    /**
+     * Load the {@link CertificateAuthority} and initialize the {@link CertificateSigner} ahead of the first signing
+     * request.
+     *
+     * @throws CertificateAuthorityNotInitializedException when the CA has not been initialized yet.
+     */
+    public void warmUp() {
+        initializeCertificateSigner();
+    }
+
+    /**
+     * Like {@link #warmUp()}, and additionally sign a synthetic CSR, so that the signing path is compiled by the JIT
+     * ahead of the first signing request.
+     * <p>
+     * The synthetic CSR is issued by a throwaway Certificate Authority having a key pair of the same algorithm and
+     * size as the CA, and carries the subject and public key of the throwaway Certificate Authority. Both are created
+     * on the first call, and reused by later calls. Neither the CA private key nor the serial number provider is used.
+     * In each iteration, the CSR is read from PEM and verified, signed, and the certificate is PEM encoded, read back
+     * and verified. The certificates are not persisted, and the configured {@link CertificateConstraintProvider} is
+     * not applied, since it may depend on the logged in user.
+     *
+     * @param iterations number of synthetic signing iterations.
+     *
+     * @throws CertificateAuthorityNotInitializedException when the CA has not been initialized yet.
+     */
+    public void warmUp(int iterations) {
+        initializeCertificateSigner();
+        initializeWarmUpCertificateAuthority();
+
+        final CertificateSigner warmUpSigner = new CertificateSigner(signatureNameProvider,
+                warmUpCertificateAuthority);
+        warmUpSigner.setCertificateConstraintProvider((subjectName, issuerName) -> {
+            // intentionally empty
+        });
+        warmUpSigner.setCertificateSerialProvider(() -> WARM_UP_SERIAL);
+        warmUpSigner.setValidityProvider(certificateValidityProvider);
+
+        for (int i = 0; i < iterations; i++) {
+            final CertificateSigningRequest certificateSigningRequest = new PEMCertificateSigningRequestReader(
+                    asciiReader(warmUpPemEncodedCsr)).certificationRequest();
+            final Certificate certificate = warmUpSigner.signCertificate(certificateSigningRequest);
+            final byte[] pemEncodedCertificate = PEMEncoder.encodeCertificate(certificate.getCertificate());
+            verifySignatureOrThrow(new PEMCertificateReader(asciiReader(pemEncodedCertificate)).certificate(),
+                    warmUpCertificateAuthority);
+        }
+        log.info("Signed {} synthetic certificate signing requests", iterations);
+    }
+
+    /**
+     * Initialize the throwaway Certificate Authority and the synthetic CSR used for warming up. Generating the key
+     * pair is expensive, thus it is generated only once.
+     */
+    private void initializeWarmUpCertificateAuthority() {
+        if (warmUpCertificateAuthority != null) {
+            return;
+        }
+
+        final KeyPair warmUpKeyPair = makeWarmUpKeyPair();
+        warmUpPemEncodedCsr = makeSyntheticPemEncodedCsr(warmUpKeyPair);
+        warmUpCertificateAuthority = makeWarmUpCertificateAuthority(warmUpKeyPair);
+    }
+
+    private KeyPair makeWarmUpKeyPair() {
+        final PrivateKey caPrivateKey = certificateAuthority.getPrivateKey();
+        try {
+            final KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(caPrivateKey.getAlgorithm());
+            if (caPrivateKey instanceof RSAKey) {
+                keyPairGenerator.initialize(((RSAKey) caPrivateKey).getModulus().bitLength());
+            }
+            return keyPairGenerator.generateKeyPair();
+        } catch (NoSuchAlgorithmException e) {
+            log.error("Error creating warm-up key pair: {}", e.getMessage());
+            throw new SigningException("Error creating warm-up key pair");
+        }
+    }
+
+    private CertificateAuthority makeWarmUpCertificateAuthority(KeyPair keyPair) {
+        final X509CertificateHolder certificateHolder = new JcaX509v3CertificateBuilder(
+                WARM_UP_NAME,
+                WARM_UP_SERIAL,
+                certificateValidityProvider.from(),
+                certificateValidityProvider.to(),
+                WARM_UP_NAME,
+                keyPair.getPublic()
+        ).build(makeContentSigner(keyPair.getPrivate()));
+        return new CertificateAuthority(keyPair.getPrivate(), new Certificate(certificateHolder));
+    }
+
+    private byte[] makeSyntheticPemEncodedCsr(KeyPair keyPair) {
+        try {
+            final PKCS10CertificationRequest csr = new JcaPKCS10CertificationRequestBuilder(WARM_UP_NAME,
+                    keyPair.getPublic()).build(makeContentSigner(keyPair.getPrivate()));
+            return PEMEncoder.encode(PEM_CERTIFICATE_REQUEST, csr.getEncoded());
+        } catch (IOException e) {
+            log.error("Error creating synthetic certificate signing request: {}", e.getMessage());
+            throw new SigningException("Error creating synthetic certificate signing request");
+        }
+    }
+
+    private ContentSigner makeContentSigner(PrivateKey privateKey) {
+        try {
+            return new JcaContentSignerBuilder(signatureNameProvider.signatureName())
+                    .setProvider(signatureNameProvider.providerName())
+                    .build(privateKey);
+        } catch (OperatorCreationException e) {
+            log.error("Error creating warm-up content signer: {}", e.getMessage());
+            throw new SigningException("Error creating warm-up content signer");
+        }
+    }
+
+    private void verifySignatureOrThrow(Certificate certificate, CertificateAuthority issuer) {
+        try {
+            final ContentVerifierProvider contentVerifierProvider = new JcaContentVerifierProviderBuilder()
+                    .setProvider(signatureNameProvider.providerName())
+                    .build(issuer.getCertificate().getCertificateHolder());
+            if (!certificate.getCertificateHolder().isSignatureValid(contentVerifierProvider)) {
+                throw new SigningException("Invalid signature on synthetic certificate");
+            }
+        } catch (OperatorCreationException | CertificateException | CertException e) {
+            log.error("Error verifying synthetic certificate: {}", e.getMessage());
+            throw new SigningException("Error verifying synthetic certificate");
+        }
+    }
+
+    private static Reader asciiReader(byte[] pemEncoded) {
+        return new InputStreamReader(new ByteArrayInputStream(pemEncoded), StandardCharsets.US_ASCII);
+    }
+
     /**
      * Initialize the CertificateAuthority. It can be called multiple times. Once the {@link CertificateAuthority}
      * has been initialized, it won't be initialized again.
@@ -150,13 +309,17 @@ public class SigningService {
         log.info("Test uniqueness of certificate '{}'", subject);
         certificateUniquenessService.testCertificateUniquenessInCertificateRepositoryOrThrow(subject);
 
+        final UseEntity useEntity = fetchUseEntity(use);
+        final KeyPurposeId keyPurpose = serverCertificateUses.contains(useEntity.getUse()) ?
+                KeyPurposeId.id_kp_serverAuth : KeyPurposeId.id_kp_clientAuth;
+
         log.info("Sign certificate signing request '{}'", subject);
-        final Certificate certificate = certificateSigner.signCertificate(certificateSigningRequest);
+        final Certificate certificate = certificateSigner.signCertificate(certificateSigningRequest, keyPurpose);
 
         log.info("Signed certificate '{}'", subject);
 
         log.info("Store signed certificate '{}'", subject);
-        final String token = storeCertificate(certificate, userId, use);
+        final String token = storeCertificate(certificate, userId, useEntity);
 
         confirmationNotificationService.sendMail(token, userId);
 
@@ -173,21 +336,17 @@ public class SigningService {
      */
     public Certificate confirmTentativelySignedCertificate(String token, String userId) {
         final CertificateEntity confirmedCertificate = confirmableCertificatePersistenceLayer.confirm(token, userId);
-        final InputStream memoryStream = new ByteArrayInputStream(confirmedCertificate.getX509PEMCertificate());
-        try (Reader pemCertificateStreamReader = new InputStreamReader(memoryStream)) {
-            final PEMCertificateReader pemCertificateReader = new PEMCertificateReader(pemCertificateStreamReader);
-            return pemCertificateReader.certificate();
-        } catch (IOException e) {
-            log.error("Error reading certificate from PEM: {}", e.getMessage());
+        try {
+            final DERCertificateReader derCertificateReader = new DERCertificateReader(confirmedCertificate
+                    .getX509DERCertificate());
+            return derCertificateReader.certificate();
+        } catch (CertificateReaderException e) {
+            log.error("Error reading certificate from DER: {}", e.getMessage());
             throw new SigningException("Error reading certificate");
         }
     }
 
-
-
-    private String storeCertificate(Certificate certificate, String userId, String use) {
-        final UseEntity useEntity = fetchUseEntity(use);
-
+    private String storeCertificate(Certificate certificate, String userId, UseEntity useEntity) {
         final CertificateEntity certificateEntity = new CertificateEntity();
         certificateEntity.setStatus(CertificateStatus.VALID);
         certificateEntity.setUserId(userId);
@@ -195,16 +354,16 @@ public class SigningService {
         certificateEntity.setSerial(certificate.getSerial());
         certificateEntity.setNotValidBefore(dateToTimestamp(certificate.getValidFrom()));
         certificateEntity.setNotValidAfter(dateToTimestamp(certificate.getValidTo()));
-        certificateEntity.setX509PEMCertificate(certificateToByteArray(certificate));
+        certificateEntity.setX509DERCertificate(certificate.getCertificate());
         certificateEntity.setUse(useEntity);
 
         return confirmableCertificatePersistenceLayer.store(certificateEntity);
     }
 
     private UseEntity fetchUseEntity(String use) {
-        final Optional<UseEntity> useOptional = useRepository.findOne(use);
+        final Optional<UseEntity> useOptional = useCatalogue.findUse(use);
         return useOptional.orElseGet(() -> {
-            final Optional<UseEntity> defaultUseOptional = useRepository.findOne(UseEntity.DEFAULT_USE);
+            final Optional<UseEntity> defaultUseOptional = useCatalogue.findUse(UseEntity.DEFAULT_USE);
             return defaultUseOptional.orElseThrow(() -> {
                 log.error("Default use '{}' not found", UseEntity.DEFAULT_USE);
                 return new SigningException("Default use not found");
@@ -215,17 +374,4 @@ public class SigningService {
     private Timestamp dateToTimestamp(Date date) {
         return new Timestamp(date.getTime());
     }
-
-    private byte[] certificateToByteArray(Certificate certificate) {
-        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        try (OutputStreamWriter outputStreamWriter = new OutputStreamWriter(byteArrayOutputStream)) {
-            final PEMCertificateWriter pemCertificateWriter = new PEMCertificateWriter(outputStreamWriter);
-            pemCertificateWriter.writeCertificate(certificate);
-
-            return byteArrayOutputStream.toByteArray();
-        } catch (IOException e) {
-            log.error("Cannot write certificate to byte array: {}", e.getMessage());
-            throw new SigningException("Cannot store certificate");
-        }
-    }
 }
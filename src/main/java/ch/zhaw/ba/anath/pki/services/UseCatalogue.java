@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package ch.zhaw.ba.anath.pki.services;
+
+import ch.zhaw.ba.anath.pki.entities.UseEntity;
+import ch.zhaw.ba.anath.pki.repositories.UseRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory catalogue of all certificate uses. Uses rarely change, so the catalogue is read from the database upon
+ * first access and kept until it is invalidated. Invalidation is triggered by {@link UseChangeNotificationService}.
+ * <p>
+ * The {@link UseEntity} instances handed out are detached copies shared between callers. They must not be modified.
+ *
+ * @author Rafael Ostertag
+ */
+@Service
+@Slf4j
+public class UseCatalogue {
+    private final UseRepository useRepository;
+    private final ConfigurationTemplateService configurationTemplateService;
+    private volatile Map<String, UseEntity> uses = null;
+
+    public UseCatalogue(UseRepository useRepository, ConfigurationTemplateService configurationTemplateService) {
+        this.useRepository = useRepository;
+        this.configurationTemplateService = configurationTemplateService;
+    }
+
+    /**
+     * Find a use by name.
+     *
+     * @param use name of the use.
+     *
+     * @return {@link Optional} holding the {@link UseEntity}, or an empty {@link Optional} if the use does not exist.
+     */
+    public Optional<UseEntity> findUse(String use) {
+        Map<String, UseEntity> currentUses = uses;
+        if (currentUses == null) {
+            currentUses = loadUses();
+        }
+        return Optional.ofNullable(currentUses.get(use));
+    }
+
+    /**
+     * Get a reference to the persistent use, suitable for associating it with entities to be persisted. Unlike
+     * associating a {@link UseEntity} returned by {@link #findUse(String)}, it does not make the persistence provider
+     * query the database for the use.
+     *
+     * @param use {@link UseEntity} to get the reference for.
+     *
+     * @return reference to the use.
+     */
+    public UseEntity getReference(UseEntity use) {
+        return useRepository.getOne(use.getUse());
+    }
+
+    /**
+     * Invalidate the catalogue and everything cached for the given use. The catalogue is read again upon next
+     * access.
+     *
+     * @param use name of the use that changed.
+     */
+    public synchronized void invalidate(String use) {
+        log.info("Invalidate use catalogue due to change of use '{}'", use);
+        uses = null;
+        configurationTemplateService.invalidate(use);
+    }
+
+    private synchronized Map<String, UseEntity> loadUses() {
+        if (uses != null) {
+            return uses;
+        }
+
+        final List<UseEntity> useEntities = useRepository.findAll();
+        final Map<String, UseEntity> loadedUses = new HashMap<>(useEntities.size() * 2);
+        for (UseEntity useEntity : useEntities) {
+            loadedUses.put(useEntity.getUse(), copyOf(useEntity));
+        }
+
+        uses = Collections.unmodifiableMap(loadedUses);
+        log.info("Loaded {} uses into use catalogue", loadedUses.size());
+        return uses;
+    }
+
+    /**
+     * Copy the entity, so that the catalogue does not hold on to instances managed by a persistence context.
+     */
+    private UseEntity copyOf(UseEntity useEntity) {
+        final UseEntity copy = new UseEntity();
+        copy.setUse(useEntity.getUse());
+        copy.setConfig(useEntity.getConfig());
+        return copy;
+    }
+}
@@ -38,15 +38,20 @@ import ch.zhaw.ba.anath.pki.exceptions.UseNotFoundException;
 import ch.zhaw.ba.anath.pki.exceptions.UseUpdateException;
 import ch.zhaw.ba.anath.pki.repositories.UseRepository;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang.ArrayUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
+ * Manage certificate uses. Changes are propagated by {@link UseChangeNotificationService} immediately and once more
+ * after the transaction completed, so that no stale use remains cached.
+ *
  * @author Rafael Ostertag
  */
 @Service
@@ -58,9 +63,11 @@ public class UseService {
     private static final String CANNOT_UPDATE_PLAIN_USE_MESSAGE = "Must not update 'plain' use";
     private static final String PLAIN_USE = "plain";
     private final UseRepository useRepository;
+    private final UseChangeNotificationService useChangeNotificationService;
 
-    public UseService(UseRepository useRepository) {
+    public UseService(UseRepository useRepository, UseChangeNotificationService useChangeNotificationService) {
         this.useRepository = useRepository;
+        this.useChangeNotificationService = useChangeNotificationService;
     }
 
     public UseItemDto create(UseDto useDto) {
@@ -72,6 +79,7 @@ public class UseService {
         final UseEntity useEntity = useDtoToUseEntity(useDto);
 
         useRepository.save(useEntity);
+        notifyUseChanged(useEntity.getUse());
         log.info("Create new use '{}'", useDto.getUse());
 
         return useEntityToUseItemDto(useEntity);
@@ -89,11 +97,12 @@ public class UseService {
         if (useDto.getConfiguration() == null) {
             useEntity.setConfig(null);
         } else {
-            useEntity.setConfig(ArrayUtils.toObject(useDto.getConfiguration().getBytes()));
+            useEntity.setConfig(useDto.getConfiguration().getBytes(StandardCharsets.UTF_8));
         }
         return useEntity;
     }
 
+    @Transactional(transactionManager = "pkiTransactionManager", readOnly = true)
     public List<UseItemDto> getAll() {
         final List<UseEntity> all = useRepository.findAll();
         return all
@@ -115,9 +124,11 @@ public class UseService {
         }
 
         useRepository.deleteByUse(key);
+        notifyUseChanged(key);
         log.error("Delete use '{}'", key);
     }
 
+    @Transactional(transactionManager = "pkiTransactionManager", readOnly = true)
     public UseDto getUse(String key) {
         final UseEntity useEntity = getUseEntityOrThrow(key);
 
@@ -139,8 +150,7 @@ public class UseService {
         if (useEntity.getConfig() == null) {
             useDto.setConfiguration(null);
         } else {
-            final byte[] configuration = ArrayUtils.toPrimitive(useEntity.getConfig());
-            useDto.setConfiguration(new String(configuration));
+            useDto.setConfiguration(new String(useEntity.getConfig(), StandardCharsets.UTF_8));
         }
         return useDto;
     }
@@ -155,11 +165,24 @@ public class UseService {
         if (newConfiguration == null) {
             useEntity.setConfig(null);
         } else {
-            useEntity.setConfig(ArrayUtils.toObject(newConfiguration.getBytes()));
+            useEntity.setConfig(newConfiguration.getBytes(StandardCharsets.UTF_8));
         }
         useRepository.save(useEntity);
+        notifyUseChanged(key);
 
         log.info("Updated use '{}'", key);
         return useEntityToUseItemDto(useEntity);
     }
+
+    private void notifyUseChanged(String use) {
+        useChangeNotificationService.useChanged(use);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    useChangeNotificationService.useChanged(use);
+                }
+            });
+        }
+    }
 }
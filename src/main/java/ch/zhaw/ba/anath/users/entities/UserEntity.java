@@ -43,7 +43,8 @@ import javax.persistence.*;
 @EqualsAndHashCode(of = {"id"})
 public class UserEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
     @Column(name = "firstname", nullable = false, unique = false)
     private String firstname;
@@ -55,4 +56,9 @@ public class UserEntity {
     private String password;
     @Column(name = "admin", nullable = false, unique = false)
     private Boolean admin;
+    /**
+     * Incremented whenever a change invalidates the JWT issued to the user.
+     */
+    @Column(name = "version", nullable = false, unique = false)
+    private Long version = 0L;
 }
@@ -30,7 +30,10 @@
 package ch.zhaw.ba.anath.users.repositories;
 
 import ch.zhaw.ba.anath.users.entities.UserEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -51,4 +54,16 @@ public interface UserRepository extends Repository<UserEntity, Long> {
     void save(UserEntity userEntity);
 
     void deleteById(Long id);
+
+    /**
+     * Replace the encoded password of a user using a single statement, if the stored password is still the expected
+     * one. User entities already loaded are not updated.
+     *
+     * @return number of updated users.
+     */
+    @Modifying
+    @Query("update UserEntity ue set ue.password = :password where ue.email = :email and ue.password = " +
+            ":previousPassword")
+    int updatePassword(@Param("email") String email, @Param("previousPassword") String previousPassword,
+                       @Param("password") String password);
 }
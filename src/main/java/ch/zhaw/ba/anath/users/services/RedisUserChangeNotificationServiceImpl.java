@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.users.services;
+
+import ch.zhaw.ba.anath.authentication.spring.UserVersionCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Update the {@link UserVersionCache} of all nodes by publishing the new version of the changed user on a Redis
+ * channel. The message is the user id, the version, and the email address of the user, separated by colons. Each
+ * node, including the sender, subscribes to the channel. This Service is only available when the "confirm" Spring
+ * profile is enabled.
+ *
+ * @author Rafael Ostertag
+ */
+@Slf4j
+@Service
+@Profile("confirm")
+public class RedisUserChangeNotificationServiceImpl implements UserChangeNotificationService, MessageListener {
+    public static final String USER_CHANGE_CHANNEL = "anath:user-changes";
+    private static final char SEPARATOR = ':';
+    private final UserVersionCache userVersionCache;
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public RedisUserChangeNotificationServiceImpl(UserVersionCache userVersionCache,
+                                                  StringRedisTemplate stringRedisTemplate) {
+        this.userVersionCache = userVersionCache;
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    @Override
+    public void userChanged(String email, long userId, long version) {
+        userVersionCache.versionChanged(email, userId, version);
+        try {
+            stringRedisTemplate.convertAndSend(USER_CHANGE_CHANNEL, Long.toString(userId) + SEPARATOR + version +
+                    SEPARATOR + email);
+        } catch (DataAccessException e) {
+            log.error("Unable to publish change of user '{}': {}", email, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        final String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        final int userIdSeparatorIndex = body.indexOf(SEPARATOR);
+        final int versionSeparatorIndex = body.indexOf(SEPARATOR, userIdSeparatorIndex + 1);
+        try {
+            final long userId = Long.parseLong(body.substring(0, userIdSeparatorIndex));
+            final long version = Long.parseLong(body.substring(userIdSeparatorIndex + 1, versionSeparatorIndex));
+            final String email = body.substring(versionSeparatorIndex + 1);
+            log.info("Received change notification for user '{}'", email);
+            userVersionCache.versionChanged(email, userId, version);
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            log.error("Ignore malformed user change notification '{}'", body);
+        }
+    }
+}
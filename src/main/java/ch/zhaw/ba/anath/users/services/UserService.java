@@ -40,6 +40,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 import java.util.Optional;
@@ -55,12 +57,14 @@ public class UserService {
     private final UserRepository userRepository;
     private final UserEntityMapper userEntityMapper;
     private final PasswordEncoder passwordEncoder;
+    private final UserChangeNotificationService userChangeNotificationService;
 
     public UserService(UserRepository userRepository, UserEntityMapper userEntityMapper, PasswordEncoder
-            passwordEncoder) {
+            passwordEncoder, UserChangeNotificationService userChangeNotificationService) {
         this.userRepository = userRepository;
         this.userEntityMapper = userEntityMapper;
         this.passwordEncoder = passwordEncoder;
+        this.userChangeNotificationService = userChangeNotificationService;
     }
 
     public UserLinkDto createUser(CreateUserDto createUserDto) {
@@ -77,6 +81,7 @@ public class UserService {
 
         log.info("Saving new user '{}'", newUserEntity.getEmail());
         userRepository.save(newUserEntity);
+        notifyUserChanged(newUserEntity);
 
         return userEntityMapper.asUserLinkDto(newUserEntity);
     }
@@ -86,6 +91,10 @@ public class UserService {
 
         log.info("Delete user '{}' with id '{}'", userEntity.getEmail(), id);
         userRepository.deleteById(id);
+
+        // Tokens never carry a version greater than the version of the user entity.
+        userEntity.setVersion(userEntity.getVersion() + 1);
+        notifyUserChanged(userEntity);
     }
 
     private UserEntity findUserEntityByIdOrThrow(long id) {
@@ -100,9 +109,19 @@ public class UserService {
         final UserEntity userEntity = findUserEntityByIdOrThrow(id);
         log.info("Update user '{}' with id '{}'", userEntity.getEmail(), id);
 
+        final boolean wasAdmin = userEntity.getAdmin();
         userEntityMapper.updateEntity(updateUserDto, userEntity);
 
+        final boolean rolesChanged = wasAdmin != userEntity.getAdmin();
+        if (rolesChanged) {
+            log.info("Roles of user '{}' with id '{}' changed", userEntity.getEmail(), id);
+            userEntity.setVersion(userEntity.getVersion() + 1);
+        }
+
         userRepository.save(userEntity);
+        if (rolesChanged) {
+            notifyUserChanged(userEntity);
+        }
 
         return userEntityMapper.asUserLinkDto(userEntity);
     }
@@ -150,4 +169,24 @@ public class UserService {
                 .map(userEntityMapper::asUserLinkDto)
                 .collect(Collectors.toList());
     }
+
+    /**
+     * Notify once the transaction committed, so that a rolled back change does not invalidate the tokens of the user.
+     */
+    private void notifyUserChanged(UserEntity userEntity) {
+        final String email = userEntity.getEmail();
+        final long userId = userEntity.getId();
+        final long version = userEntity.getVersion();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            userChangeNotificationService.userChanged(email, userId, version);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                userChangeNotificationService.userChanged(email, userId, version);
+            }
+        });
+    }
 }
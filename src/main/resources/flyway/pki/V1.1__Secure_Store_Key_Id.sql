@@ -0,0 +1,5 @@
+--
+-- Identifies the key the data has been encrypted with. Rows stored before key ids were introduced have no key id.
+--
+ALTER TABLE secure
+  ADD COLUMN key_id VARCHAR(64);
@@ -0,0 +1,24 @@
+--
+-- Make id the primary key of certificates.
+--
+ALTER TABLE certificates
+  ADD PRIMARY KEY (id);
+
+--
+-- All lookups by user id share one index. Users hold few certificates, so the status is filtered on the rows found,
+-- and the listings get the serial number order from the index.
+--
+CREATE INDEX certificates_user_id_serial_number_idx
+  ON certificates (user_id, serial_number);
+
+--
+-- The subject uniqueness check only considers valid certificates, and findAllRevoked only revoked certificates.
+-- Partial indexes restricted to these statuses would be smaller, but the migrations also run on H2, which does not
+-- support partial indexes. Composite indexes including status serve the same lookups on all databases, and expired
+-- certificates are moved to certificates_archive, which keeps the indexes small.
+--
+CREATE INDEX certificates_valid_subject_idx
+  ON certificates (subject, status);
+
+CREATE INDEX certificates_revoked_idx
+  ON certificates (status, revocation_time);
@@ -0,0 +1,21 @@
+--
+-- Certificates expired longer than the retention period are moved from certificates to certificates_archive, keeping
+-- certificates and its indexes small. Archived certificates are only looked up by serial number. The use is not
+-- referenced, so that uses of archived certificates can be deleted.
+--
+CREATE TABLE certificates_archive (
+  id                BIGSERIAL PRIMARY KEY,
+  serial_number     BYTEA         NOT NULL UNIQUE,
+  not_valid_before  TIMESTAMP     NOT NULL,
+  not_valid_after   TIMESTAMP     NOT NULL,
+  subject           VARCHAR(2048) NOT NULL,
+  status            VARCHAR(32)   NOT NULL,
+  revocation_reason VARCHAR(1024),
+  revocation_time   TIMESTAMP,
+  user_id           VARCHAR(128)  NOT NULL,
+  x509_cert_der     BYTEA         NOT NULL,
+  certificate_use   VARCHAR(256)  NOT NULL
+);
+
+CREATE INDEX certificates_not_valid_after_idx
+  ON certificates (not_valid_after);
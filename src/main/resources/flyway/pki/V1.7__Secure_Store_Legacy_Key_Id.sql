@@ -0,0 +1,9 @@
+--
+-- Rows stored before key ids were introduced have been encrypted using the key derived from anath.secret-key at the
+-- time of the upgrade. Stamp them with its key id, so that they are never decrypted by trying keys. The placeholder
+-- is empty if no secret key is configured, in which case the rows are left untouched.
+--
+UPDATE secure
+SET key_id = '${secure_store_key_id}'
+WHERE key_id IS NULL
+      AND '${secure_store_key_id}' <> '';
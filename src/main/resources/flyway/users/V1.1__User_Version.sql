@@ -0,0 +1,6 @@
+--
+-- Embedded in the JWT issued to the user. Incremented when the roles of the user change, so that tokens issued before
+-- are rejected.
+--
+ALTER TABLE users
+  ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
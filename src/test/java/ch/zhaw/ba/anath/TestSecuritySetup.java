@@ -33,6 +33,7 @@ import ch.zhaw.ba.anath.authentication.AnathPermissionEvaluator;
 import ch.zhaw.ba.anath.authentication.pki.CertificatePermissionEvaluator;
 import ch.zhaw.ba.anath.authentication.users.UserPermissionEvaluator;
 import ch.zhaw.ba.anath.config.spring.AnathPermissionEvaluatorWebSecurityConfig;
+import ch.zhaw.ba.anath.pki.services.CertificateRequestContext;
 import org.springframework.context.annotation.Import;
 
 import java.lang.annotation.ElementType;
@@ -50,6 +51,7 @@ import java.lang.annotation.Target;
         AnathPermissionEvaluatorWebSecurityConfig.class,
         AnathPermissionEvaluator.class,
         CertificatePermissionEvaluator.class,
+        CertificateRequestContext.class,
         UserPermissionEvaluator.class})
 public @interface TestSecuritySetup {
 }
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.authentication;
+
+import de.mkammerer.argon2.Argon2;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+
+/**
+ * @author Rafael Ostertag
+ */
+public class Argon2CalibratorTest {
+    private static final long MILLISECONDS_PER_ITERATION = 5L;
+
+    @Test
+    public void calibrate() {
+        final Argon2 argon2Mock = mock(Argon2.class);
+        given(argon2Mock.hash(anyInt(), anyInt(), anyInt(), any(char[].class))).willAnswer(invocation -> {
+            Thread.sleep(MILLISECONDS_PER_ITERATION * invocation.getArgumentAt(0, Integer.class));
+            return "hash";
+        });
+
+        final Argon2Calibrator.Suggestion suggestion = new Argon2Calibrator(argon2Mock).calibrate(50L, 400000, 4, 2);
+
+        assertThat(suggestion.getMemory(), is(100000));
+        assertThat(suggestion.getParallelism(), is(2));
+        assertThat(suggestion.getMemoryBudget(), is(400000));
+        assertThat(suggestion.getIterations(), is(both(greaterThan(1)).and(lessThanOrEqualTo(10))));
+        assertThat(suggestion.toProperties(), containsString("anath.authentication.argon2.memory=100000"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void calibrateWithTooSmallMemoryBudget() {
+        new Argon2Calibrator(mock(Argon2.class)).calibrate(50L, 60, 2, 4);
+    }
+
+    @Test
+    public void getArgument() {
+        final String[] args = {Argon2Calibrator.CALIBRATION_ARGUMENT, "--concurrency=8"};
+
+        assertThat(Argon2Calibrator.getArgument(args, Argon2Calibrator.CONCURRENCY_ARGUMENT, 1L), is(8L));
+        assertThat(Argon2Calibrator.getArgument(args, Argon2Calibrator.PARALLELISM_ARGUMENT, 1L), is(1L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getMalformedArgument() {
+        Argon2Calibrator.getArgument(new String[]{"--concurrency=eight"}, Argon2Calibrator.CONCURRENCY_ARGUMENT, 1L);
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.authentication;
+
+import ch.zhaw.ba.anath.config.properties.AnathProperties;
+import ch.zhaw.ba.anath.exceptions.PasswordHashingCapacityExceededException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Rafael Ostertag
+ */
+public class Argon2HashingExecutorTest {
+    private Argon2HashingExecutor argon2HashingExecutor;
+    private ExecutorService callers;
+
+    @Before
+    public void setUp() {
+        final AnathProperties anathProperties = new AnathProperties();
+        anathProperties.getAuthentication().getArgon2().setMemory(1000);
+        anathProperties.getAuthentication().getArgon2().setMemoryBudget(2500);
+        anathProperties.getAuthentication().getArgon2().setQueueSize(1);
+        argon2HashingExecutor = new Argon2HashingExecutor(anathProperties);
+        callers = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() {
+        callers.shutdownNow();
+        argon2HashingExecutor.destroy();
+    }
+
+    @Test
+    public void execute() {
+        final String result = argon2HashingExecutor.execute(() -> "hash");
+
+        assertThat(result, is("hash"));
+        final Map<String, Number> metrics = metrics();
+        assertThat(metrics.get(Argon2HashingExecutor.METRIC_PREFIX + "hashes"), is(1L));
+        assertThat(metrics.get(Argon2HashingExecutor.METRIC_PREFIX + "rejections"), is(0L));
+        assertThat(metrics.get(Argon2HashingExecutor.METRIC_PREFIX + "hash.time.mean").doubleValue(),
+                is(greaterThanOrEqualTo(0.0)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void executeThrowing() {
+        argon2HashingExecutor.execute(() -> {
+            throw new IllegalStateException("failure");
+        });
+    }
+
+    @Test
+    public void executeWhenQueueIsFull() throws Exception {
+        final CountDownLatch started = new CountDownLatch(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        // The memory budget allows two concurrent hashes, and one more may wait.
+        final Future<?> first = callers.submit(() -> blockingHash(started, release));
+        final Future<?> second = callers.submit(() -> blockingHash(started, release));
+        assertThat(started.await(10, TimeUnit.SECONDS), is(true));
+        final Future<?> queued = callers.submit(() -> argon2HashingExecutor.execute(() -> "queued"));
+        while (metrics().get(Argon2HashingExecutor.METRIC_PREFIX + "queue.size").intValue() == 0) {
+            Thread.sleep(10);
+        }
+
+        try {
+            argon2HashingExecutor.execute(() -> "rejected");
+            throw new AssertionError("Expected PasswordHashingCapacityExceededException");
+        } catch (PasswordHashingCapacityExceededException e) {
+            // expected
+        }
+
+        release.countDown();
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+        assertThat(queued.get(10, TimeUnit.SECONDS), is("queued"));
+        assertThat(metrics().get(Argon2HashingExecutor.METRIC_PREFIX + "rejections"), is(1L));
+        assertThat(metrics().get(Argon2HashingExecutor.METRIC_PREFIX + "hashes"), is(3L));
+    }
+
+    private String blockingHash(CountDownLatch started, CountDownLatch release) {
+        return argon2HashingExecutor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "blocked";
+        });
+    }
+
+    private Map<String, Number> metrics() {
+        return argon2HashingExecutor.metrics().stream()
+                .collect(Collectors.toMap(Metric::getName, Metric::getValue));
+    }
+}
@@ -42,8 +42,9 @@ public class Argon2PasswordEncoderAdapterTest {
 
     @Test
     public void matches() {
+        final AnathProperties anathProperties = new AnathProperties();
         final Argon2PasswordEncoderAdapter argon2PasswordEncoderAdapter = new Argon2PasswordEncoderAdapter(
-                new Argon2PasswordEncoder(new AnathProperties()));
+                new Argon2PasswordEncoder(anathProperties), new Argon2HashingExecutor(anathProperties));
 
         final String password = "TħeSûperSecretPässwørd→";
 
@@ -56,4 +56,42 @@ public class Argon2PasswordEncoderTest {
         verify = argon2PasswordEncoder.verify(hash, "thesupersecretpassword".toCharArray(), charset);
         assertFalse(verify);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void needsRehash() {
+        final AnathProperties anathProperties = new AnathProperties();
+        final Argon2PasswordEncoder argon2PasswordEncoder = new Argon2PasswordEncoder(anathProperties);
+
+        assertFalse(argon2PasswordEncoder.needsRehash("$argon2i$v=19$m=128000,t=40,p=4$c2FsdA$aGFzaA"));
+        assertTrue(argon2PasswordEncoder.needsRehash("$argon2i$v=19$m=128000,t=3,p=4$c2FsdA$aGFzaA"));
+        assertTrue(argon2PasswordEncoder.needsRehash("$argon2id$v=19$m=128000,t=40,p=4$c2FsdA$aGFzaA"));
+        assertTrue(argon2PasswordEncoder.needsRehash("garbage"));
+        assertTrue(argon2PasswordEncoder.needsRehash("$argon2i$v=19$m=128000,t=4x,p=4$c2FsdA$aGFzaA"));
+        assertTrue(argon2PasswordEncoder.needsRehash("$argon2i$v=19$m=128000,t=40$c2FsdA$aGFzaA"));
+        assertTrue(argon2PasswordEncoder.needsRehash("$argon2i$v=19$t=40,m=128000,p=4$c2FsdA$aGFzaA"));
+
+        anathProperties.getAuthentication().getArgon2().setMemory(64000);
+        assertTrue(argon2PasswordEncoder.needsRehash("$argon2i$v=19$m=128000,t=40,p=4$c2FsdA$aGFzaA"));
+    }
+
+    @Test
+    public void needsRehashOfHash() {
+        final AnathProperties anathProperties = new AnathProperties();
+        final AnathProperties.Authentication.Argon2 argon2Properties = anathProperties.getAuthentication().getArgon2();
+        argon2Properties.setMemory(1024);
+        argon2Properties.setIterations(2);
+        argon2Properties.setParallelism(1);
+        final Argon2PasswordEncoder argon2PasswordEncoder = new Argon2PasswordEncoder(anathProperties);
+
+        final String hash = argon2PasswordEncoder.hash("TheSuperSecretPassword".toCharArray(), Charset.forName
+                ("UTF-8"));
+        assertFalse(argon2PasswordEncoder.needsRehash(hash));
+
+        argon2Properties.setIterations(3);
+        assertTrue(argon2PasswordEncoder.needsRehash(hash));
+
+        final String rehashed = argon2PasswordEncoder.hash("TheSuperSecretPassword".toCharArray(), Charset.forName
+                ("UTF-8"));
+        assertFalse(argon2PasswordEncoder.needsRehash(rehashed));
+    }
+}
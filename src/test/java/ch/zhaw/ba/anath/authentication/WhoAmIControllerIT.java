@@ -30,6 +30,7 @@
 package ch.zhaw.ba.anath.authentication;
 
 import ch.zhaw.ba.anath.TestSecuritySetup;
+import ch.zhaw.ba.anath.pki.repositories.ArchivedCertificateRepository;
 import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
 import ch.zhaw.ba.anath.users.entities.UserEntity;
 import ch.zhaw.ba.anath.users.repositories.UserRepository;
@@ -70,6 +71,9 @@ public class WhoAmIControllerIT {
     @MockBean
     private CertificateRepository certificateRepository;
 
+    @MockBean
+    private ArchivedCertificateRepository archivedCertificateRepository;
+
     @Test
     @WithMockUser(username = "admin", roles = {"ADMIN"})
     public void whoAmIAsAdmin() throws Exception {
@@ -29,16 +29,17 @@
 
 package ch.zhaw.ba.anath.authentication.pki;
 
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
 import ch.zhaw.ba.anath.pki.dto.CertificateListItemDto;
-import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
+import ch.zhaw.ba.anath.pki.repositories.ArchivedCertificateRepository;
 import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
+import ch.zhaw.ba.anath.pki.services.CertificateRequestContext;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 
-import java.math.BigInteger;
 import java.util.Collections;
 import java.util.Optional;
 import java.util.Set;
@@ -46,6 +47,7 @@ import java.util.Set;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 
 /**
@@ -57,12 +59,17 @@ public class CertificatePermissionEvaluatorTest {
             SimpleGrantedAuthority(TARGET_TYPE));
     private static final String TEST_USER_NAME = "testuser";
     private CertificateRepository certificateRepositoryMock;
+    private ArchivedCertificateRepository archivedCertificateRepositoryMock;
     private CertificatePermissionEvaluator certificatePermissionEvaluator;
 
     @Before
     public void setUp() {
         this.certificateRepositoryMock = mock(CertificateRepository.class);
-        this.certificatePermissionEvaluator = new CertificatePermissionEvaluator(certificateRepositoryMock);
+        this.archivedCertificateRepositoryMock = mock(ArchivedCertificateRepository.class);
+        given(archivedCertificateRepositoryMock.findUserIdBySerial(any(CertificateSerial.class))).willReturn(Optional
+                .empty());
+        this.certificatePermissionEvaluator = new CertificatePermissionEvaluator(new
+                CertificateRequestContext(certificateRepositoryMock, archivedCertificateRepositoryMock));
     }
 
     @Test
@@ -138,14 +145,16 @@ public class CertificatePermissionEvaluatorTest {
     public void hasPermission4Revoke() {
         final UsernamePasswordAuthenticationToken authentication = setUpTest();
 
-        boolean result = certificatePermissionEvaluator.hasPermission(authentication, BigInteger.ZERO, TARGET_TYPE,
-                "revoke");
+        boolean result = certificatePermissionEvaluator.hasPermission(authentication, CertificateSerial.ZERO,
+                TARGET_TYPE, "revoke");
         assertThat(result, is(true));
 
-        result = certificatePermissionEvaluator.hasPermission(authentication, BigInteger.ONE, TARGET_TYPE, "revoke");
+        result = certificatePermissionEvaluator.hasPermission(authentication, CertificateSerial.valueOf(1),
+                TARGET_TYPE, "revoke");
         assertThat(result, is(false));
 
-        result = certificatePermissionEvaluator.hasPermission(authentication, BigInteger.TEN, TARGET_TYPE, "revoke");
+        result = certificatePermissionEvaluator.hasPermission(authentication, CertificateSerial.valueOf(10),
+                TARGET_TYPE, "revoke");
         assertThat(result, is(false));
     }
 
@@ -153,14 +162,16 @@ public class CertificatePermissionEvaluatorTest {
     public void hasPermission4GetPermissions() {
         final UsernamePasswordAuthenticationToken authentication = setUpTest();
 
-        boolean result = certificatePermissionEvaluator.hasPermission(authentication, BigInteger.ZERO, TARGET_TYPE,
-                "get");
+        boolean result = certificatePermissionEvaluator.hasPermission(authentication, CertificateSerial.ZERO,
+                TARGET_TYPE, "get");
         assertThat(result, is(true));
 
-        result = certificatePermissionEvaluator.hasPermission(authentication, BigInteger.ONE, TARGET_TYPE, "get");
+        result = certificatePermissionEvaluator.hasPermission(authentication, CertificateSerial.valueOf(1),
+                TARGET_TYPE, "get");
         assertThat(result, is(false));
 
-        result = certificatePermissionEvaluator.hasPermission(authentication, BigInteger.TEN, TARGET_TYPE, "get");
+        result = certificatePermissionEvaluator.hasPermission(authentication, CertificateSerial.valueOf(10),
+                TARGET_TYPE, "get");
         assertThat(result, is(false));
     }
 
@@ -168,15 +179,17 @@ public class CertificatePermissionEvaluatorTest {
     public void hasPermission4UnknownPermission() {
         final UsernamePasswordAuthenticationToken authentication = setUpTest();
 
-        boolean result = certificatePermissionEvaluator.hasPermission(authentication, BigInteger.ZERO, TARGET_TYPE,
-                "should not exist");
+        boolean result = certificatePermissionEvaluator.hasPermission(authentication, CertificateSerial.ZERO,
+                TARGET_TYPE, "should not exist");
         assertThat(result, is(false));
 
-        result = certificatePermissionEvaluator.hasPermission(authentication, BigInteger.ONE, TARGET_TYPE, "should " +
+        result = certificatePermissionEvaluator.hasPermission(authentication, CertificateSerial.valueOf(1),
+                TARGET_TYPE, "should " +
                 "not exist");
         assertThat(result, is(false));
 
-        result = certificatePermissionEvaluator.hasPermission(authentication, BigInteger.TEN, TARGET_TYPE, "should " +
+        result = certificatePermissionEvaluator.hasPermission(authentication, CertificateSerial.valueOf(10),
+                TARGET_TYPE, "should " +
                 "not exist");
         assertThat(result, is(false));
     }
@@ -185,15 +198,18 @@ public class CertificatePermissionEvaluatorTest {
     public void hasPermission4UnknownTargetType() {
         final UsernamePasswordAuthenticationToken authentication = setUpTest();
 
-        boolean result = certificatePermissionEvaluator.hasPermission(authentication, BigInteger.ZERO, "should not " +
+        boolean result = certificatePermissionEvaluator.hasPermission(authentication, CertificateSerial.ZERO,
+                "should not " +
                 "exist", "get");
         assertThat(result, is(false));
 
-        result = certificatePermissionEvaluator.hasPermission(authentication, BigInteger.ONE, "should not exist",
+        result = certificatePermissionEvaluator.hasPermission(authentication, CertificateSerial.valueOf(1),
+                "should not exist",
                 "get");
         assertThat(result, is(false));
 
-        result = certificatePermissionEvaluator.hasPermission(authentication, BigInteger.TEN, "should not exist",
+        result = certificatePermissionEvaluator.hasPermission(authentication, CertificateSerial.valueOf(10),
+                "should not exist",
                 "get");
         assertThat(result, is(false));
     }
@@ -216,27 +232,27 @@ public class CertificatePermissionEvaluatorTest {
     public void hasPermission4InvalidPermissionType() {
         final UsernamePasswordAuthenticationToken authentication = setUpTest();
 
-        boolean result = certificatePermissionEvaluator.hasPermission(authentication, BigInteger.ZERO, TARGET_TYPE, 1);
+        boolean result = certificatePermissionEvaluator.hasPermission(authentication, CertificateSerial.ZERO,
+                TARGET_TYPE, 1);
         assertThat(result, is(false));
 
-        result = certificatePermissionEvaluator.hasPermission(authentication, BigInteger.ONE, TARGET_TYPE, 1);
+        result = certificatePermissionEvaluator.hasPermission(authentication, CertificateSerial.valueOf(1),
+                TARGET_TYPE, 1);
         assertThat(result, is(false));
 
-        result = certificatePermissionEvaluator.hasPermission(authentication, BigInteger.TEN, TARGET_TYPE, 1);
+        result = certificatePermissionEvaluator.hasPermission(authentication, CertificateSerial.valueOf(10),
+                TARGET_TYPE, 1);
         assertThat(result, is(false));
     }
 
     private UsernamePasswordAuthenticationToken setUpTest() {
         final UsernamePasswordAuthenticationToken authentication = setUpTestUser();
-        final CertificateEntity testCertificateEntity = new CertificateEntity();
-        testCertificateEntity.setUserId(TEST_USER_NAME);
-        final CertificateEntity otherCertificateEntity = new CertificateEntity();
-        otherCertificateEntity.setUserId(TEST_USER_NAME + "other");
-        given(certificateRepositoryMock.findOneBySerial(BigInteger.ZERO)).willReturn(Optional.of
-                (testCertificateEntity));
-        given(certificateRepositoryMock.findOneBySerial(BigInteger.ONE)).willReturn(Optional.of
-                (otherCertificateEntity));
-        given(certificateRepositoryMock.findOneBySerial(BigInteger.TEN)).willReturn(Optional.empty());
+        given(certificateRepositoryMock.findUserIdBySerial(CertificateSerial.ZERO)).willReturn(Optional.of
+                (TEST_USER_NAME));
+        given(certificateRepositoryMock.findUserIdBySerial(CertificateSerial.valueOf(1))).willReturn(Optional.of
+                (TEST_USER_NAME + "other"));
+        given(certificateRepositoryMock.findUserIdBySerial(CertificateSerial.valueOf(10))).willReturn(Optional
+                .empty());
         return authentication;
     }
 
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.authentication.pki;
+
+import ch.zhaw.ba.anath.config.properties.AnathProperties;
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
+import ch.zhaw.ba.anath.pki.core.TestConstants;
+import ch.zhaw.ba.anath.pki.exceptions.CertificateAuthorityNotInitializedException;
+import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
+import ch.zhaw.ba.anath.pki.services.CertificateAuthorityInitializedEvent;
+import ch.zhaw.ba.anath.pki.services.CertificateAuthorityService;
+import ch.zhaw.ba.anath.pki.services.CertificateRevocationState;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.SignatureException;
+import java.security.cert.CertificateExpiredException;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+/**
+ * @author Rafael Ostertag
+ */
+public class ClientCertificateAuthenticatorTest {
+    private static final CertificateSerial SERIAL = CertificateSerial.valueOf(42);
+    private CertificateAuthorityService certificateAuthorityServiceMock;
+    private CertificateRepository certificateRepositoryMock;
+    private CertificateRevocationState certificateRevocationStateMock;
+    private X509Certificate clientCertificateMock;
+    private ClientCertificateAuthenticator clientCertificateAuthenticator;
+
+    @Before
+    public void setUp() throws Exception {
+        certificateAuthorityServiceMock = mock(CertificateAuthorityService.class);
+        certificateRepositoryMock = mock(CertificateRepository.class);
+        certificateRevocationStateMock = mock(CertificateRevocationState.class);
+        clientCertificateMock = mock(X509Certificate.class);
+
+        given(certificateAuthorityServiceMock.getCertificate()).willReturn(new String(Files.readAllBytes(Paths.get
+                (TestConstants.CA_CERT_FILE_NAME)), StandardCharsets.US_ASCII));
+        given(clientCertificateMock.getSerialNumber()).willReturn(BigInteger.valueOf(42));
+        given(clientCertificateMock.getExtendedKeyUsage()).willReturn(Collections.singletonList(KeyPurposeId
+                .id_kp_clientAuth.getId()));
+        given(certificateRepositoryMock.findUserIdBySerial(SERIAL)).willReturn(Optional.of("user"));
+
+        clientCertificateAuthenticator = new ClientCertificateAuthenticator(certificateAuthorityServiceMock,
+                certificateRepositoryMock, certificateRevocationStateMock, new AnathProperties());
+    }
+
+    @Test
+    public void authenticate() throws Exception {
+        assertThat(clientCertificateAuthenticator.authenticate(clientCertificateMock), is(Optional.of("user")));
+        assertThat(clientCertificateAuthenticator.authenticate(clientCertificateMock), is(Optional.of("user")));
+
+        then(clientCertificateMock).should(times(2)).verify(any(PublicKey.class));
+        then(certificateRepositoryMock).should(times(1)).findUserIdBySerial(SERIAL);
+        then(certificateAuthorityServiceMock).should(times(1)).getCertificate();
+    }
+
+    @Test
+    public void authenticateRevoked() {
+        given(certificateRevocationStateMock.isRevoked(SERIAL)).willReturn(true);
+
+        assertThat(clientCertificateAuthenticator.authenticate(clientCertificateMock), is(Optional.empty()));
+        then(certificateRepositoryMock).should(never()).findUserIdBySerial(any());
+    }
+
+    @Test
+    public void authenticateNotSignedByCa() throws Exception {
+        willThrow(new SignatureException("signature")).given(clientCertificateMock).verify(any(PublicKey.class));
+
+        assertThat(clientCertificateAuthenticator.authenticate(clientCertificateMock), is(Optional.empty()));
+        then(certificateRepositoryMock).should(never()).findUserIdBySerial(any());
+    }
+
+    @Test
+    public void authenticateWithoutClientAuthKeyPurpose() throws Exception {
+        given(clientCertificateMock.getExtendedKeyUsage()).willReturn(Collections.singletonList(KeyPurposeId
+                .id_kp_serverAuth.getId()));
+        assertThat(clientCertificateAuthenticator.authenticate(clientCertificateMock), is(Optional.empty()));
+
+        then(clientCertificateMock).should(never()).verify(any(PublicKey.class));
+    }
+
+    @Test
+    public void authenticateWithoutExtendedKeyUsage() throws Exception {
+        given(clientCertificateMock.getExtendedKeyUsage()).willReturn(null);
+
+        assertThat(clientCertificateAuthenticator.authenticate(clientCertificateMock), is(Optional.of("user")));
+    }
+
+    @Test
+    public void authenticateAfterCaReinitialization() throws Exception {
+        assertThat(clientCertificateAuthenticator.authenticate(clientCertificateMock), is(Optional.of("user")));
+
+        final PublicKey previousCaPublicKey = CertificateFactory.getInstance("X.509").generateCertificate(Files
+                .newInputStream(Paths.get(TestConstants.CA_CERT_FILE_NAME))).getPublicKey();
+        willThrow(new SignatureException("signature")).given(clientCertificateMock).verify(previousCaPublicKey);
+        given(certificateAuthorityServiceMock.getCertificate()).willReturn(makeCaCertificate());
+        given(certificateRepositoryMock.findUserIdBySerial(SERIAL)).willReturn(Optional.of("other user"));
+        assertThat(clientCertificateAuthenticator.authenticate(clientCertificateMock), is(Optional.empty()));
+
+        clientCertificateAuthenticator.processCertificateAuthorityInitializedEvent(new
+                CertificateAuthorityInitializedEvent(this));
+
+        assertThat(clientCertificateAuthenticator.authenticate(clientCertificateMock), is(Optional.of("other " +
+                "user")));
+        then(certificateAuthorityServiceMock).should(times(2)).getCertificate();
+    }
+
+    @Test
+    public void authenticateNotSignedByCaDoesNotReadCa() throws Exception {
+        assertThat(clientCertificateAuthenticator.authenticate(clientCertificateMock), is(Optional.of("user")));
+        willThrow(new SignatureException("signature")).given(clientCertificateMock).verify(any(PublicKey.class));
+
+        assertThat(clientCertificateAuthenticator.authenticate(clientCertificateMock), is(Optional.empty()));
+        assertThat(clientCertificateAuthenticator.authenticate(clientCertificateMock), is(Optional.empty()));
+        then(certificateAuthorityServiceMock).should(times(1)).getCertificate();
+        then(clientCertificateMock).should(times(3)).verify(any(PublicKey.class));
+    }
+
+    @Test
+    public void authenticateExpired() throws Exception {
+        willThrow(new CertificateExpiredException("expired")).given(clientCertificateMock).checkValidity();
+
+        assertThat(clientCertificateAuthenticator.authenticate(clientCertificateMock), is(Optional.empty()));
+        then(certificateRepositoryMock).should(never()).findUserIdBySerial(any());
+    }
+
+    @Test
+    public void authenticateUnknownCertificate() {
+        given(certificateRepositoryMock.findUserIdBySerial(SERIAL)).willReturn(Optional.empty());
+
+        assertThat(clientCertificateAuthenticator.authenticate(clientCertificateMock), is(Optional.empty()));
+        assertThat(clientCertificateAuthenticator.authenticate(clientCertificateMock), is(Optional.empty()));
+        then(certificateRepositoryMock).should(times(2)).findUserIdBySerial(SERIAL);
+    }
+
+    @Test
+    public void authenticateCaNotInitialized() {
+        given(certificateAuthorityServiceMock.getCertificate()).willThrow(new
+                CertificateAuthorityNotInitializedException("Not initialized"));
+
+        assertThat(clientCertificateAuthenticator.authenticate(clientCertificateMock), is(Optional.empty()));
+        assertThat(clientCertificateAuthenticator.authenticate(clientCertificateMock), is(Optional.empty()));
+        then(certificateAuthorityServiceMock).should(times(1)).getCertificate();
+    }
+
+    @Test
+    public void authenticateInvalidSerial() {
+        given(clientCertificateMock.getSerialNumber()).willReturn(BigInteger.valueOf(-1));
+
+        assertThat(clientCertificateAuthenticator.authenticate(clientCertificateMock), is(Optional.empty()));
+    }
+
+    private static String makeCaCertificate() throws Exception {
+        final KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
+        keyPairGenerator.initialize(1024);
+        final KeyPair keyPair = keyPairGenerator.generateKeyPair();
+        final X500Name name = new X500Name("CN=Another CA");
+        final X509Certificate certificate = new JcaX509CertificateConverter().getCertificate(new
+                JcaX509v3CertificateBuilder(name, BigInteger.ONE, new Date(), new Date(System.currentTimeMillis() +
+                60_000L), name, keyPair.getPublic())
+                .build(new JcaContentSignerBuilder("SHA256withRSA").build(keyPair.getPrivate())));
+
+        return "-----BEGIN CERTIFICATE-----\n" +
+                Base64.getMimeEncoder().encodeToString(certificate.getEncoded()) +
+                "\n-----END CERTIFICATE-----\n";
+    }
+}
@@ -76,6 +76,7 @@ public class AnathUserDetailServiceIT {
         assertThat(userDetails.getUsername(), is(equalTo("admin@example.com")));
         assertThat(userDetails.getAuthorities(), hasSize(1));
         assertThat(userDetails.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_ADMIN")), is(true));
+        assertThat(((VersionedUser) userDetails).getVersion(), is(0L));
     }
 
     private void persistAndFlush(UserEntity userEntity) {
@@ -104,4 +105,39 @@ public class AnathUserDetailServiceIT {
     public void loadUserByNonExistingUsername() {
         anathUserDetailService.loadUserByUsername("admin@example.com");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void updatePassword() {
+        final UserEntity userEntity = new UserEntity();
+        userEntity.setPassword("password");
+        userEntity.setEmail("user@example.com");
+        userEntity.setLastname("user");
+        userEntity.setFirstname("user");
+        userEntity.setAdmin(false);
+        persistAndFlush(userEntity);
+
+        anathUserDetailService.updatePassword("user@example.com", "password", "new password");
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(anathUserDetailService.loadUserByUsername("user@example.com").getPassword(), is("new password"));
+    }
+
+    @Test
+    public void updateChangedPassword() {
+        final UserEntity userEntity = new UserEntity();
+        userEntity.setPassword("changed password");
+        userEntity.setEmail("user@example.com");
+        userEntity.setLastname("user");
+        userEntity.setFirstname("user");
+        userEntity.setAdmin(false);
+        persistAndFlush(userEntity);
+
+        anathUserDetailService.updatePassword("user@example.com", "password", "new password");
+        entityManager.flush();
+        entityManager.clear();
+
+        assertThat(anathUserDetailService.loadUserByUsername("user@example.com").getPassword(), is("changed " +
+                "password"));
+    }
+}
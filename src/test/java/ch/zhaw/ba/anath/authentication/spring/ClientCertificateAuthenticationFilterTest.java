@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.authentication.spring;
+
+import ch.zhaw.ba.anath.authentication.pki.ClientCertificateAuthenticator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.security.cert.X509Certificate;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+
+/**
+ * @author Rafael Ostertag
+ */
+public class ClientCertificateAuthenticationFilterTest {
+    private ClientCertificateAuthenticator clientCertificateAuthenticatorMock;
+    private ClientCertificateAuthenticationFilter clientCertificateAuthenticationFilter;
+    private X509Certificate clientCertificateMock;
+    private MockHttpServletRequest request;
+
+    @Before
+    public void setUp() {
+        clientCertificateAuthenticatorMock = mock(ClientCertificateAuthenticator.class);
+        clientCertificateMock = mock(X509Certificate.class);
+        clientCertificateAuthenticationFilter = new ClientCertificateAuthenticationFilter
+                (clientCertificateAuthenticatorMock);
+        request = new MockHttpServletRequest();
+        SecurityContextHolder.clearContext();
+    }
+
+    @After
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void authenticated() throws Exception {
+        given(clientCertificateAuthenticatorMock.authenticate(clientCertificateMock)).willReturn(Optional.of("user"));
+        request.setAttribute(ClientCertificateAuthenticationFilter.X509_CERTIFICATE_ATTRIBUTE, new
+                X509Certificate[]{clientCertificateMock});
+
+        final MockFilterChain filterChain = new MockFilterChain();
+        clientCertificateAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication.getName(), is("user"));
+        assertThat(authentication.getAuthorities(), hasSize(1));
+        assertThat(authentication.getAuthorities().iterator().next().getAuthority(), is("ROLE_USER"));
+        assertThat(filterChain.getRequest(), is(notNullValue()));
+    }
+
+    @Test
+    public void notAuthenticated() throws Exception {
+        given(clientCertificateAuthenticatorMock.authenticate(clientCertificateMock)).willReturn(Optional.empty());
+        request.setAttribute(ClientCertificateAuthenticationFilter.X509_CERTIFICATE_ATTRIBUTE, new
+                X509Certificate[]{clientCertificateMock});
+
+        final MockFilterChain filterChain = new MockFilterChain();
+        clientCertificateAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), filterChain);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication(), is(nullValue()));
+        assertThat(filterChain.getRequest(), is(notNullValue()));
+    }
+
+    @Test
+    public void noClientCertificate() throws Exception {
+        clientCertificateAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication(), is(nullValue()));
+        then(clientCertificateAuthenticatorMock).should(never()).authenticate(any());
+    }
+
+    @Test
+    public void alreadyAuthenticated() throws Exception {
+        final TestingAuthenticationToken existingAuthentication = new TestingAuthenticationToken("other", "");
+        SecurityContextHolder.getContext().setAuthentication(existingAuthentication);
+        request.setAttribute(ClientCertificateAuthenticationFilter.X509_CERTIFICATE_ATTRIBUTE, new
+                X509Certificate[]{clientCertificateMock});
+
+        clientCertificateAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication(), is(sameInstance(existingAuthentication)));
+        then(clientCertificateAuthenticatorMock).should(never()).authenticate(any());
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.authentication.spring;
+
+import ch.zhaw.ba.anath.TestHelper;
+import ch.zhaw.ba.anath.pki.controllers.AnathMediaType;
+import ch.zhaw.ba.anath.pki.core.Certificate;
+import ch.zhaw.ba.anath.pki.core.CertificateAuthority;
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
+import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
+import ch.zhaw.ba.anath.pki.entities.CertificateStatus;
+import ch.zhaw.ba.anath.pki.entities.UseEntity;
+import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
+import ch.zhaw.ba.anath.pki.repositories.UseRepository;
+import ch.zhaw.ba.anath.pki.services.CertificateAuthorityInitializer;
+import ch.zhaw.ba.anath.pki.services.CertificateAuthorityService;
+import ch.zhaw.ba.anath.pki.services.RevocationService;
+import ch.zhaw.ba.anath.pki.services.SigningService;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.cert.X509v3CertificateBuilder;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigInteger;
+import java.security.cert.X509Certificate;
+import java.sql.Timestamp;
+
+import static org.hamcrest.Matchers.is;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.x509;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Authenticate requests passing the Spring Security filter chain by client certificates signed by the Certificate
+ * Authority.
+ *
+ * @author Rafael Ostertag
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("tests")
+@TestPropertySource(properties = "anath.secret-key=abcdefghijklmnopqrst1234")
+@Transactional(transactionManager = "pkiTransactionManager")
+public class ClientCertificateAuthenticationIT extends CertificateAuthorityInitializer {
+    private static final BigInteger LEGACY_SERIAL = BigInteger.valueOf(4242);
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private SigningService signingService;
+
+    @Autowired
+    private RevocationService revocationService;
+
+    @Autowired
+    private CertificateAuthorityService certificateAuthorityService;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private UseRepository useRepository;
+
+    private Certificate certificate;
+    private X509Certificate clientCertificate;
+
+    @Before
+    public void setUp() throws Exception {
+        initializeCa();
+        certificate = TestHelper.signAndAddCertificate(signingService, "plain");
+        clientCertificate = new JcaX509CertificateConverter().getCertificate(certificate.getCertificateHolder());
+        flushAndClear();
+    }
+
+    @Test
+    public void authenticateByClientCertificate() throws Exception {
+        mvc.perform(
+                get("/certificates/{serial}", certificate.getSerial())
+                        .with(x509(clientCertificate))
+                        .contentType(MediaType.ALL)
+                        .accept(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.use", is("plain")));
+    }
+
+    @Test
+    public void authenticateWithoutClientCertificate() throws Exception {
+        mvc.perform(
+                get("/certificates/{serial}", certificate.getSerial())
+                        .contentType(MediaType.ALL)
+                        .accept(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
+        )
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void authenticateByRevokedClientCertificate() throws Exception {
+        revocationService.revokeCertificate(certificate.getSerial(), "test");
+        flushAndClear();
+
+        mvc.perform(
+                get("/certificates/{serial}", certificate.getSerial())
+                        .with(x509(clientCertificate))
+                        .contentType(MediaType.ALL)
+                        .accept(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
+        )
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    public void authenticateByClientCertificateWithoutExtendedKeyUsage() throws Exception {
+        final X509Certificate legacyCertificate = addCertificateWithoutExtendedKeyUsage();
+
+        mvc.perform(
+                get("/certificates/{serial}", LEGACY_SERIAL)
+                        .with(x509(legacyCertificate))
+                        .contentType(MediaType.ALL)
+                        .accept(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.use", is("plain")));
+    }
+
+    /**
+     * Certificates issued by previous versions have no extended key usage.
+     */
+    private X509Certificate addCertificateWithoutExtendedKeyUsage() throws Exception {
+        final CertificateAuthority certificateAuthority = certificateAuthorityService.getCertificateAuthority();
+        final X509CertificateHolder certificateHolder = new X509v3CertificateBuilder(
+                certificateAuthority.getCertificate().getSubject(),
+                LEGACY_SERIAL,
+                certificate.getValidFrom(),
+                certificate.getValidTo(),
+                new X500Name("CN=Legacy Client,O=Test Organization"),
+                certificate.getCertificateHolder().getSubjectPublicKeyInfo()
+        ).build(new JcaContentSignerBuilder("SHA512withRSA").build(certificateAuthority.getPrivateKey()));
+
+        final CertificateEntity certificateEntity = new CertificateEntity();
+        certificateEntity.setStatus(CertificateStatus.VALID);
+        certificateEntity.setUserId(TestHelper.TEST_USER_ID);
+        certificateEntity.setSubject(certificateHolder.getSubject().toString());
+        certificateEntity.setSerial(CertificateSerial.of(LEGACY_SERIAL));
+        certificateEntity.setNotValidBefore(new Timestamp(certificateHolder.getNotBefore().getTime()));
+        certificateEntity.setNotValidAfter(new Timestamp(certificateHolder.getNotAfter().getTime()));
+        certificateEntity.setX509DERCertificate(certificateHolder.getEncoded());
+        certificateEntity.setUse(useRepository.findOne(UseEntity.DEFAULT_USE).orElseThrow(IllegalStateException::new));
+        certificateRepository.save(certificateEntity);
+        flushAndClear();
+
+        return new JcaX509CertificateConverter().getCertificate(certificateHolder);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.authentication.spring;
+
+import ch.zhaw.ba.anath.users.dto.CreateUserDto;
+import ch.zhaw.ba.anath.users.services.UserService;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Authenticate requests using JWT issued by {@link JWTAuthenticationFilter}, through the complete filter chain. Not
+ * transactional, since user changes are published after commit.
+ *
+ * @author Rafael Ostertag
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("tests")
+@TestPropertySource(properties = {
+        "anath.secret-key=abcdefghijklmnopqrst1234",
+        "anath.authentication.jwt.secret=jwt-authentication-test-secret"
+})
+public class JWTAuthenticationIT {
+    private static final String EMAIL = "jwt.admin@example.com";
+    private static final String PASSWORD = "jwt admin password";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserService userService;
+
+    private Long userId;
+
+    @After
+    public void tearDown() {
+        if (userId != null) {
+            userService.deleteUser(userId);
+        }
+    }
+
+    @Test
+    public void tokenOfDeletedAndRecreatedUserIsRejected() throws Exception {
+        userId = createAdmin();
+        final String token = login();
+
+        mvc.perform(get("/users").header(JWTConstants.JWT_HEADER, token))
+                .andExpect(status().isOk());
+
+        userService.deleteUser(userId);
+        userId = createAdmin();
+
+        mvc.perform(get("/users").header(JWTConstants.JWT_HEADER, token))
+                .andExpect(status().isUnauthorized());
+        mvc.perform(get("/users").header(JWTConstants.JWT_HEADER, login()))
+                .andExpect(status().isOk());
+    }
+
+    private long createAdmin() {
+        final CreateUserDto createUserDto = new CreateUserDto();
+        createUserDto.setEmail(EMAIL);
+        createUserDto.setPassword(PASSWORD);
+        createUserDto.setFirstname("JWT");
+        createUserDto.setLastname("Admin");
+        createUserDto.setAdmin(true);
+        return userService.createUser(createUserDto).getUserId();
+    }
+
+    private String login() throws Exception {
+        return mvc.perform(post("/login/jwt")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"" + EMAIL + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(JWTConstants.JWT_HEADER);
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.authentication.spring;
+
+import ch.zhaw.ba.anath.config.properties.AnathProperties;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+import java.util.Collections;
+import java.util.Date;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+
+/**
+ * @author Rafael Ostertag
+ */
+public class JWTAuthorizationFilterTest {
+    private static final String SECRET = "test.secret";
+    private static final String USER = "user@example.com";
+    private static final String ROLE_ADMIN = "ROLE_ADMIN";
+    private static final long USER_ID = 1L;
+    private UserDetailsService userDetailsServiceMock;
+    private UserVersionCache userVersionCache;
+    private JWTAuthorizationFilter jwtAuthorizationFilter;
+
+    @Before
+    public void setUp() {
+        final AnathProperties anathProperties = new AnathProperties();
+        anathProperties.getAuthentication().getJwt().setSecret(SECRET);
+        userDetailsServiceMock = mock(UserDetailsService.class);
+        userVersionCache = new UserVersionCache(anathProperties);
+        jwtAuthorizationFilter = new JWTAuthorizationFilter(mock(AuthenticationManager.class),
+                userDetailsServiceMock, userVersionCache, new JWTVerifier(anathProperties));
+    }
+
+    @After
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void currentToken() throws Exception {
+        final Authentication authentication = filter(makeToken(0, issuedAfterCacheCreation()));
+
+        assertThat(authentication, is(notNullValue()));
+        assertThat(authentication.getName(), is(USER));
+        assertThat(authentication.getAuthorities(), contains(new SimpleGrantedAuthority(ROLE_ADMIN)));
+        then(userDetailsServiceMock).should(never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    public void staleToken() throws Exception {
+        userVersionCache.versionChanged(USER, USER_ID, 1);
+
+        final Authentication authentication = filter(makeToken(0, issuedAfterCacheCreation()));
+
+        assertThat(authentication, is(nullValue()));
+        then(userDetailsServiceMock).should(never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    public void revalidateCurrentToken() throws Exception {
+        given(userDetailsServiceMock.loadUserByUsername(USER)).willReturn(makeUser(3));
+
+        final Authentication authentication = filter(makeToken(3, issuedBeforeCacheCreation()));
+        assertThat(authentication, is(notNullValue()));
+        assertThat(authentication.getName(), is(USER));
+
+        SecurityContextHolder.clearContext();
+        filter(makeToken(3, issuedBeforeCacheCreation()));
+        then(userDetailsServiceMock).should().loadUserByUsername(USER);
+    }
+
+    @Test
+    public void revalidateStaleToken() throws Exception {
+        given(userDetailsServiceMock.loadUserByUsername(USER)).willReturn(makeUser(4));
+
+        final Authentication authentication = filter(makeToken(3, issuedBeforeCacheCreation()));
+
+        assertThat(authentication, is(nullValue()));
+    }
+
+    @Test
+    public void revalidateDeletedUser() throws Exception {
+        given(userDetailsServiceMock.loadUserByUsername(anyString())).willThrow(new UsernameNotFoundException
+                ("not found"));
+
+        final Authentication authentication = filter(makeToken(3, issuedBeforeCacheCreation()));
+
+        assertThat(authentication, is(nullValue()));
+    }
+
+    @Test
+    public void tokenOfRecreatedUser() throws Exception {
+        userVersionCache.versionChanged(USER, USER_ID, 1);
+        userVersionCache.versionChanged(USER, USER_ID + 1, 0);
+
+        final Authentication authentication = filter(makeToken(0, issuedAfterCacheCreation()));
+
+        assertThat(authentication, is(nullValue()));
+    }
+
+    @Test
+    public void revalidateTokenOfRecreatedUser() throws Exception {
+        given(userDetailsServiceMock.loadUserByUsername(USER)).willReturn(makeUser(USER_ID + 1, 0));
+
+        final Authentication authentication = filter(makeToken(0, issuedBeforeCacheCreation()));
+
+        assertThat(authentication, is(nullValue()));
+    }
+
+    @Test
+    public void tokenWithoutRolesAndVersion() throws Exception {
+        given(userDetailsServiceMock.loadUserByUsername(USER)).willReturn(makeUser(0));
+        final String token = Jwts.builder()
+                .setSubject(USER)
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000L))
+                .signWith(SignatureAlgorithm.HS512, SECRET.getBytes())
+                .compact();
+
+        final Authentication authentication = filter(token);
+
+        assertThat(authentication, is(notNullValue()));
+        then(userDetailsServiceMock).should().loadUserByUsername(USER);
+    }
+
+    private Authentication filter(String token) throws Exception {
+        final MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(JWTConstants.JWT_HEADER, JWTConstants.TOKEN_PREFIX + token);
+        jwtAuthorizationFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private String makeToken(long version, Date issuedAt) {
+        return makeToken(USER_ID, version, issuedAt);
+    }
+
+    private String makeToken(long userId, long version, Date issuedAt) {
+        final JwtBuilder jwtBuilder = Jwts.builder()
+                .setSubject(USER)
+                .claim(JWTConstants.ROLES_CLAIM, Collections.singletonList(ROLE_ADMIN))
+                .claim(JWTConstants.USER_ID_CLAIM, userId)
+                .claim(JWTConstants.VERSION_CLAIM, version)
+                .setIssuedAt(issuedAt)
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000L));
+        return jwtBuilder.signWith(SignatureAlgorithm.HS512, SECRET.getBytes()).compact();
+    }
+
+    /**
+     * The issued at claim is truncated to seconds. Skip ahead so that the JWT is not considered to be issued before
+     * the creation of {@link UserVersionCache}.
+     */
+    private static Date issuedAfterCacheCreation() {
+        return new Date(System.currentTimeMillis() + 2000L);
+    }
+
+    private static Date issuedBeforeCacheCreation() {
+        return new Date(System.currentTimeMillis() - 60_000L);
+    }
+
+    private VersionedUser makeUser(long version) {
+        return makeUser(USER_ID, version);
+    }
+
+    private VersionedUser makeUser(long userId, long version) {
+        return new VersionedUser(USER, "password", Collections.singletonList(new SimpleGrantedAuthority
+                (ROLE_ADMIN)), userId, version);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.authentication.spring;
+
+import ch.zhaw.ba.anath.AnathException;
+import ch.zhaw.ba.anath.config.properties.AnathProperties;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Rafael Ostertag
+ */
+public class JWTVerifierTest {
+    private static final String SECRET = "test.secret";
+    private static final String USER = "user@example.com";
+    private JWTVerifier jwtVerifier;
+
+    @Before
+    public void setUp() {
+        final AnathProperties anathProperties = new AnathProperties();
+        anathProperties.getAuthentication().getJwt().setSecret(SECRET);
+        jwtVerifier = new JWTVerifier(anathProperties);
+    }
+
+    @Test
+    public void verify() {
+        final String token = makeToken(SECRET, new Date(System.currentTimeMillis() + 60_000L));
+
+        final Claims claims = jwtVerifier.verify(token);
+        assertThat(claims.getSubject(), is(USER));
+
+        final Claims cachedClaims = jwtVerifier.verify(token);
+        assertThat(cachedClaims, is(sameInstance(claims)));
+
+        final Map<String, Number> metrics = metrics();
+        assertThat(metrics.get(JWTVerifier.METRIC_PREFIX + "hits"), is(1L));
+        assertThat(metrics.get(JWTVerifier.METRIC_PREFIX + "misses"), is(1L));
+        assertThat(metrics.get(JWTVerifier.METRIC_PREFIX + "size"), is(1L));
+    }
+
+    @Test(expected = SignatureException.class)
+    public void verifyWithWrongSignature() {
+        jwtVerifier.verify(makeToken("another.secret", new Date(System.currentTimeMillis() + 60_000L)));
+    }
+
+    @Test
+    public void verifyWithWrongSignatureIsNotCached() {
+        final String token = makeToken("another.secret", new Date(System.currentTimeMillis() + 60_000L));
+        for (int i = 0; i < 2; i++) {
+            try {
+                jwtVerifier.verify(token);
+            } catch (SignatureException e) {
+                // expected
+            }
+        }
+
+        assertThat(metrics().get(JWTVerifier.METRIC_PREFIX + "size"), is(0L));
+    }
+
+    @Test
+    public void verifyNonAsciiToken() {
+        final String token = makeToken(SECRET, new Date(System.currentTimeMillis() + 60_000L));
+        jwtVerifier.verify(token);
+
+        try {
+            jwtVerifier.verify(token.substring(0, token.length() - 1) + "\u00e9");
+        } catch (MalformedJwtException e) {
+            assertThat(metrics().get(JWTVerifier.METRIC_PREFIX + "hits"), is(0L));
+            return;
+        }
+        throw new AssertionError("Expected MalformedJwtException");
+    }
+
+    @Test(expected = ExpiredJwtException.class)
+    public void verifyExpired() {
+        jwtVerifier.verify(makeToken(SECRET, new Date(System.currentTimeMillis() - 60_000L)));
+    }
+
+    @Test
+    public void verifyCachedExpired() throws InterruptedException {
+        // The expiration claim is truncated to seconds.
+        final Date expiration = new Date(System.currentTimeMillis() + 2000L);
+        final String token = makeToken(SECRET, expiration);
+        jwtVerifier.verify(token);
+
+        Thread.sleep(expiration.getTime() - System.currentTimeMillis() + 100L);
+
+        try {
+            jwtVerifier.verify(token);
+        } catch (ExpiredJwtException e) {
+            assertThat(metrics().get(JWTVerifier.METRIC_PREFIX + "size"), is(0L));
+            return;
+        }
+        throw new AssertionError("Expected ExpiredJwtException");
+    }
+
+    @Test(expected = AnathException.class)
+    public void verifyWithoutSecret() {
+        new JWTVerifier(new AnathProperties()).verify(makeToken(SECRET, new Date(System.currentTimeMillis() +
+                60_000L)));
+    }
+
+    private Map<String, Number> metrics() {
+        return jwtVerifier.metrics().stream()
+                .collect(Collectors.toMap(Metric::getName, Metric::getValue));
+    }
+
+    private static String makeToken(String secret, Date expiration) {
+        return Jwts.builder()
+                .setSubject(USER)
+                .setExpiration(expiration)
+                .signWith(SignatureAlgorithm.HS512, secret.getBytes())
+                .compact();
+    }
+}
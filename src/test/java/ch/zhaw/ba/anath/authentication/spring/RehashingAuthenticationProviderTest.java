@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.authentication.spring;
+
+import ch.zhaw.ba.anath.authentication.Argon2PasswordEncoderAdapter;
+import ch.zhaw.ba.anath.exceptions.PasswordHashingCapacityExceededException;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Collections;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+
+/**
+ * @author Rafael Ostertag
+ */
+public class RehashingAuthenticationProviderTest {
+    private static final String USER = "user@example.com";
+    private static final String PASSWORD = "password";
+    private static final String OLD_HASH = "old hash";
+    private static final String NEW_HASH = "new hash";
+    private AnathUserDetailService anathUserDetailServiceMock;
+    private Argon2PasswordEncoderAdapter argon2PasswordEncoderAdapterMock;
+    private RehashingAuthenticationProvider rehashingAuthenticationProvider;
+
+    @Before
+    public void setUp() {
+        anathUserDetailServiceMock = mock(AnathUserDetailService.class);
+        argon2PasswordEncoderAdapterMock = mock(Argon2PasswordEncoderAdapter.class);
+        rehashingAuthenticationProvider = new RehashingAuthenticationProvider(anathUserDetailServiceMock,
+                argon2PasswordEncoderAdapterMock);
+
+        given(anathUserDetailServiceMock.loadUserByUsername(USER)).willReturn(new VersionedUser(USER, OLD_HASH,
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")), 1L, 0L));
+    }
+
+    @Test
+    public void authenticateWithOutdatedHash() {
+        given(argon2PasswordEncoderAdapterMock.matches(PASSWORD, OLD_HASH)).willReturn(true);
+        given(argon2PasswordEncoderAdapterMock.needsRehash(OLD_HASH)).willReturn(true);
+        given(argon2PasswordEncoderAdapterMock.encode(PASSWORD)).willReturn(NEW_HASH);
+
+        rehashingAuthenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(USER, PASSWORD));
+
+        then(anathUserDetailServiceMock).should().updatePassword(USER, OLD_HASH, NEW_HASH);
+    }
+
+    @Test
+    public void authenticateWithCurrentHash() {
+        given(argon2PasswordEncoderAdapterMock.matches(PASSWORD, OLD_HASH)).willReturn(true);
+        given(argon2PasswordEncoderAdapterMock.needsRehash(OLD_HASH)).willReturn(false);
+
+        rehashingAuthenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(USER, PASSWORD));
+
+        then(anathUserDetailServiceMock).should(never()).updatePassword(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void authenticateWithOutdatedHashAndFullHashingQueue() {
+        given(argon2PasswordEncoderAdapterMock.matches(PASSWORD, OLD_HASH)).willReturn(true);
+        given(argon2PasswordEncoderAdapterMock.needsRehash(OLD_HASH)).willReturn(true);
+        given(argon2PasswordEncoderAdapterMock.encode(PASSWORD)).willThrow(new
+                PasswordHashingCapacityExceededException("full"));
+
+        rehashingAuthenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(USER, PASSWORD));
+
+        then(anathUserDetailServiceMock).should(never()).updatePassword(anyString(), anyString(), anyString());
+    }
+
+    @Test(expected = BadCredentialsException.class)
+    public void authenticateWithWrongPassword() {
+        given(argon2PasswordEncoderAdapterMock.matches(PASSWORD, OLD_HASH)).willReturn(false);
+
+        try {
+            rehashingAuthenticationProvider.authenticate(new UsernamePasswordAuthenticationToken(USER, PASSWORD));
+        } finally {
+            then(anathUserDetailServiceMock).should(never()).updatePassword(anyString(), anyString(), anyString());
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.authentication.spring;
+
+import ch.zhaw.ba.anath.config.properties.AnathProperties;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Rafael Ostertag
+ */
+public class UserVersionCacheTest {
+    private static final String USER_1 = "user1@example.com";
+    private static final String USER_2 = "user2@example.com";
+    private static final String USER_3 = "user3@example.com";
+    private static final long USER_ID = 1L;
+    private long creationTime;
+    private UserVersionCache userVersionCache;
+
+    @Before
+    public void setUp() {
+        final AnathProperties anathProperties = new AnathProperties();
+        anathProperties.getAuthentication().getJwt().setUserVersionCacheSize(2);
+        creationTime = System.currentTimeMillis();
+        userVersionCache = new UserVersionCache(anathProperties);
+    }
+
+    @Test
+    public void checkUnknownUserIssuedAfterCreation() {
+        final UserVersionCache.Result result = userVersionCache.check(USER_1, USER_ID, 0, new Date(creationTime +
+                1000));
+        assertThat(result, is(UserVersionCache.Result.CURRENT));
+    }
+
+    @Test
+    public void checkUnknownUserIssuedBeforeCreation() {
+        final UserVersionCache.Result result = userVersionCache.check(USER_1, USER_ID, 0, new Date(creationTime - 1));
+        assertThat(result, is(UserVersionCache.Result.REVALIDATE));
+    }
+
+    @Test
+    public void checkUnknownUserWithoutIssuedAt() {
+        final UserVersionCache.Result result = userVersionCache.check(USER_1, USER_ID, 0, null);
+        assertThat(result, is(UserVersionCache.Result.REVALIDATE));
+    }
+
+    @Test
+    public void checkChangedUser() {
+        userVersionCache.versionChanged(USER_1, USER_ID, 1);
+
+        assertThat(userVersionCache.check(USER_1, USER_ID, 0, new Date()), is(UserVersionCache.Result.STALE));
+        assertThat(userVersionCache.check(USER_1, USER_ID, 1, new Date()), is(UserVersionCache.Result.CURRENT));
+        assertThat(userVersionCache.check(USER_1, USER_ID, 1, new Date(creationTime - 1)), is(UserVersionCache.Result
+                .CURRENT));
+    }
+
+    @Test
+    public void versionConfirmed() {
+        userVersionCache.versionConfirmed(USER_1, USER_ID, 2);
+
+        assertThat(userVersionCache.check(USER_1, USER_ID, 2, new Date(creationTime - 1)), is(UserVersionCache.Result
+                .CURRENT));
+        assertThat(userVersionCache.check(USER_1, USER_ID, 1, new Date(creationTime - 1)), is(UserVersionCache.Result
+                .STALE));
+    }
+
+    @Test
+    public void versionConfirmedDoesNotOverrideChange() {
+        userVersionCache.versionChanged(USER_1, USER_ID, 2);
+        userVersionCache.versionConfirmed(USER_1, USER_ID, 1);
+
+        assertThat(userVersionCache.check(USER_1, USER_ID, 2, new Date()), is(UserVersionCache.Result.CURRENT));
+    }
+
+    @Test
+    public void evictionOfChangedUserRequiresRevalidation() {
+        final Date issuedBeforeChange = new Date(System.currentTimeMillis() - 1000);
+        userVersionCache.versionChanged(USER_1, USER_ID, 1);
+        userVersionCache.versionChanged(USER_2, USER_ID, 1);
+        userVersionCache.versionChanged(USER_3, USER_ID, 1);
+
+        assertThat(userVersionCache.check(USER_1, USER_ID, 0, issuedBeforeChange), is(UserVersionCache.Result
+                .REVALIDATE));
+        assertThat(userVersionCache.check(USER_2, USER_ID, 0, issuedBeforeChange), is(UserVersionCache.Result.STALE));
+        assertThat(userVersionCache.check(USER_3, USER_ID, 1, issuedBeforeChange), is(UserVersionCache.Result.CURRENT));
+    }
+
+    @Test
+    public void evictionOfConfirmedUserDoesNotRequireRevalidation() {
+        userVersionCache.versionConfirmed(USER_1, USER_ID, 1);
+        userVersionCache.versionConfirmed(USER_2, USER_ID, 1);
+        userVersionCache.versionConfirmed(USER_3, USER_ID, 1);
+
+        assertThat(userVersionCache.check(USER_1, USER_ID, 1, new Date(creationTime + 1000)), is(UserVersionCache.Result
+                .CURRENT));
+    }
+
+    @Test
+    public void checkRecreatedUser() {
+        userVersionCache.versionChanged(USER_1, USER_ID, 1);
+        userVersionCache.versionChanged(USER_1, USER_ID + 1, 0);
+
+        assertThat(userVersionCache.check(USER_1, USER_ID, 0, new Date()), is(UserVersionCache.Result.STALE));
+        assertThat(userVersionCache.check(USER_1, USER_ID + 1, 0, new Date()), is(UserVersionCache.Result.CURRENT));
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.config.spring;
+
+import ch.zhaw.ba.anath.config.properties.AnathProperties;
+import ch.zhaw.ba.anath.pki.CertificateAuthorityWarmUp;
+import ch.zhaw.ba.anath.pki.services.ConfigurationTemplateService;
+import ch.zhaw.ba.anath.pki.services.RevocationService;
+import ch.zhaw.ba.anath.pki.services.SigningService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verify which actuator endpoints are exposed below {@code /management}.
+ *
+ * @author Rafael Ostertag
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("tests")
+@TestPropertySource(properties = {
+        "anath.secret-key=abcdefghijklmnopqrst1234",
+        "endpoints.health.time-to-live=0",
+        "management.health.redis.enabled=false"
+})
+public class ManagementEndpointsIT {
+    private static final String WARM_UP_CONTEXT_ID = "warm-up";
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private CertificateAuthorityWarmUp certificateAuthorityWarmUp;
+
+    @Test
+    public void healthUntilWarmUpCompleted() throws Exception {
+        mvc.perform(get("/management/health"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.status").value("OUT_OF_SERVICE"))
+                .andExpect(jsonPath("$.certificateAuthorityWarmUp").doesNotExist());
+
+        certificateAuthorityWarmUp.processApplicationReadyEvent(new ApplicationReadyEvent(new SpringApplication(),
+                new String[0], warmUpApplicationContext()));
+
+        mvc.perform(get("/management/health"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("UP"))
+                .andExpect(jsonPath("$.certificateAuthorityWarmUp").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    public void healthDetailsAsAdmin() throws Exception {
+        mvc.perform(get("/management/health"))
+                .andExpect(jsonPath("$.certificateAuthorityWarmUp.status").exists());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    public void healthDetailsAsUser() throws Exception {
+        mvc.perform(get("/management/health"))
+                .andExpect(jsonPath("$.certificateAuthorityWarmUp").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    public void metricsAsAdmin() throws Exception {
+        mvc.perform(get("/management/metrics"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    public void metricsAsUser() throws Exception {
+        mvc.perform(get("/management/metrics"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    public void otherEndpointsDisabled() throws Exception {
+        mvc.perform(get("/management/env"))
+                .andExpect(status().isNotFound());
+        mvc.perform(get("/management/beans"))
+                .andExpect(status().isNotFound());
+        mvc.perform(get("/management/trace"))
+                .andExpect(status().isNotFound());
+    }
+
+    private static ConfigurableApplicationContext warmUpApplicationContext() {
+        final ConfigurableApplicationContext applicationContext = mock(ConfigurableApplicationContext.class);
+        given(applicationContext.getId()).willReturn(WARM_UP_CONTEXT_ID);
+        return applicationContext;
+    }
+
+    /**
+     * The warm-up is not active with the "tests" profile. It is warmed up explicitly by the test, thus ignores the
+     * events of the test application context.
+     */
+    @TestConfiguration
+    static class WarmUpConfiguration {
+        @Bean
+        CertificateAuthorityWarmUp certificateAuthorityWarmUp(SigningService signingService,
+                                                              RevocationService revocationService,
+                                                              ConfigurationTemplateService
+                                                                      configurationTemplateService,
+                                                              StartupTimeline startupTimeline) {
+            final AnathProperties anathProperties = new AnathProperties();
+            anathProperties.getStartup().setWarmUp(true);
+            anathProperties.getStartup().setWarmUpIterations(1);
+            return new CertificateAuthorityWarmUp(signingService, revocationService, configurationTemplateService,
+                    startupTimeline, warmUpApplicationContext(), anathProperties);
+        }
+    }
+}
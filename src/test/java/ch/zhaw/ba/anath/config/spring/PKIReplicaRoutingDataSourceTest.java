@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.config.spring;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+/**
+ * @author Rafael Ostertag
+ */
+public class PKIReplicaRoutingDataSourceTest {
+    private static final long MAX_LAG = 1000L;
+    private final AtomicLong clock = new AtomicLong(10000L);
+    private Connection primaryConnection;
+    private Connection replicaConnection;
+    private PKIReplicaRoutingDataSource pkiReplicaRoutingDataSource;
+
+    @Before
+    public void setUp() throws Exception {
+        final DataSource primary = mock(DataSource.class);
+        final DataSource replica = mock(DataSource.class);
+        primaryConnection = mock(Connection.class);
+        replicaConnection = mock(Connection.class);
+        given(primary.getConnection()).willReturn(primaryConnection);
+        given(replica.getConnection()).willReturn(replicaConnection);
+
+        pkiReplicaRoutingDataSource = new PKIReplicaRoutingDataSource(primary, replica, MAX_LAG, clock::get);
+        pkiReplicaRoutingDataSource.afterPropertiesSet();
+    }
+
+    @After
+    public void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.clear();
+    }
+
+    @Test
+    public void noTransaction() throws Exception {
+        assertThat(pkiReplicaRoutingDataSource.getConnection(), sameInstance(primaryConnection));
+    }
+
+    @Test
+    public void readWriteTransaction() throws Exception {
+        beginTransaction(false);
+        assertThat(pkiReplicaRoutingDataSource.getConnection(), sameInstance(primaryConnection));
+    }
+
+    @Test
+    public void readOnlyTransaction() throws Exception {
+        beginTransaction(true);
+        assertThat(pkiReplicaRoutingDataSource.getConnection(), sameInstance(replicaConnection));
+    }
+
+    @Test
+    public void readOnlyTransactionAfterCommittedWrite() throws Exception {
+        beginTransaction(false);
+        pkiReplicaRoutingDataSource.getConnection();
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+        beginTransaction(true);
+        assertThat(pkiReplicaRoutingDataSource.getConnection(), sameInstance(primaryConnection));
+
+        clock.addAndGet(MAX_LAG);
+        assertThat(pkiReplicaRoutingDataSource.getConnection(), sameInstance(replicaConnection));
+    }
+
+    @Test
+    public void readOnlyTransactionAfterRolledBackWrite() throws Exception {
+        beginTransaction(false);
+        pkiReplicaRoutingDataSource.getConnection();
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        beginTransaction(true);
+        assertThat(pkiReplicaRoutingDataSource.getConnection(), sameInstance(replicaConnection));
+    }
+
+    @Test
+    public void multipleConnectionsInTransaction() throws Exception {
+        beginTransaction(false);
+        pkiReplicaRoutingDataSource.getConnection();
+        pkiReplicaRoutingDataSource.getConnection();
+        assertThat(TransactionSynchronizationManager.getSynchronizations().size(), is(1));
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+    }
+
+    @Test
+    public void readOnlyTransactionAfterNonTransactionalConnection() throws Exception {
+        pkiReplicaRoutingDataSource.getConnection();
+
+        beginTransaction(true);
+        assertThat(pkiReplicaRoutingDataSource.getConnection(), sameInstance(primaryConnection));
+    }
+
+    private void beginTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+
+    private void completeTransaction(int status) {
+        final List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager
+                .getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        TransactionSynchronizationManager.clear();
+        synchronizations.forEach(x -> x.afterCompletion(status));
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.config.spring;
+
+import ch.zhaw.ba.anath.TestHelper;
+import ch.zhaw.ba.anath.pki.controllers.AnathMediaType;
+import ch.zhaw.ba.anath.pki.core.*;
+import ch.zhaw.ba.anath.pki.dto.CertificateListItemDto;
+import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
+import ch.zhaw.ba.anath.pki.entities.CertificateStatus;
+import ch.zhaw.ba.anath.pki.entities.UseEntity;
+import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
+import ch.zhaw.ba.anath.pki.repositories.UseRepository;
+import ch.zhaw.ba.anath.pki.services.CertificateAuthorityInitializer;
+import ch.zhaw.ba.anath.pki.services.CertificateExportService;
+import ch.zhaw.ba.anath.pki.services.CertificateService;
+import ch.zhaw.ba.anath.pki.services.SigningService;
+import ch.zhaw.ba.anath.pki.services.UseService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.orm.jpa.EntityManagerFactoryInfo;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.sql.Timestamp;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The replica is the primary database, since H2 does not replicate.
+ *
+ * @author Rafael Ostertag
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("tests")
+@TestPropertySource(properties = {
+        "anath.secret-key=abcdefghijklmnopqrst1234",
+        "anath.pki.replica-datasource.url=jdbc:h2:mem:testdbpki;MODE=POSTGRESQL",
+        "anath.pki.replica-max-lag=0"
+})
+@Transactional(transactionManager = "pkiTransactionManager")
+public class PKIReplicaRoutingIT extends CertificateAuthorityInitializer {
+    @Autowired
+    private EntityManagerFactory pkiEntityManagerFactory;
+
+    @Autowired
+    private SigningService signingService;
+
+    @Autowired
+    private CertificateService certificateService;
+
+    @Autowired
+    private UseService useService;
+
+    @Autowired
+    private CertificateExportService certificateExportService;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private UseRepository useRepository;
+
+    @Autowired
+    @Qualifier("pkiTransactionManager")
+    private PlatformTransactionManager pkiTransactionManager;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @SpyBean(name = "pkiDataSource")
+    private DataSource pkiDataSource;
+
+    @SpyBean(name = "pkiReplicaDataSource")
+    private DataSource pkiReplicaDataSource;
+
+    @Test
+    public void routingDataSource() {
+        final LazyConnectionDataSourceProxy dataSource = (LazyConnectionDataSourceProxy) (
+                (EntityManagerFactoryInfo) pkiEntityManagerFactory).getDataSource();
+        assertThat(dataSource.getTargetDataSource(), is(instanceOf(PKIReplicaRoutingDataSource.class)));
+    }
+
+    @Test
+    public void readAfterWrite() throws Exception {
+        initializeCa();
+        final Certificate certificate = TestHelper.signAndAddCertificate(signingService, "plain");
+        flushAndClear();
+        // The write has been tracked, reads are routed to the primary once the transaction commits.
+        assertThat(TransactionSynchronizationManager.getSynchronizations().stream().anyMatch(x -> x.getClass()
+                .getEnclosingClass() == PKIReplicaRoutingDataSource.class), is(true));
+
+        final Slice<CertificateListItemDto> certificates = certificateService.getAllByUserId(TestHelper
+                .TEST_USER_ID, null, 10);
+        assertThat(certificates.getContent(), hasSize(1));
+        assertThat(certificates.getContent().get(0).getSerial(), is(certificate.getSerial()));
+        assertThat(useService.getAll(), is(not(empty())));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void exportReadsFromReplica() throws Exception {
+        certificateExportService.exportAsNdjson(null, null, null, null, false, new ByteArrayOutputStream());
+
+        then(pkiReplicaDataSource).should(atLeastOnce()).getConnection();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @WithMockUser(username = TestHelper.TEST_USER_ID, roles = {"USER"})
+    public void userGetAfterPermissionCheckReadsFromReplica() throws Exception {
+        final TransactionTemplate transactionTemplate = new TransactionTemplate(pkiTransactionManager);
+        final CertificateEntity certificateEntity = transactionTemplate.execute(status -> addCertificate());
+        try {
+            reset(pkiDataSource, pkiReplicaDataSource);
+
+            mvc.perform(
+                    get("/certificates/{serial}", certificateEntity.getSerial())
+                            .contentType(MediaType.ALL)
+                            .accept(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
+            )
+                    .andExpect(status().isOk());
+
+            then(pkiReplicaDataSource).should(atLeastOnce()).getConnection();
+            then(pkiDataSource).should(never()).getConnection();
+        } finally {
+            transactionTemplate.execute(status -> {
+                certificateRepository.deleteInBatch(Collections.singletonList(certificateEntity));
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Add a certificate without initializing the CA, which would have to be removed afterwards.
+     */
+    private CertificateEntity addCertificate() {
+        final Certificate certificate;
+        try (
+                InputStreamReader caKey = new InputStreamReader(new FileInputStream(TestConstants.CA_KEY_FILE_NAME));
+                InputStreamReader caCert = new InputStreamReader(new FileInputStream(TestConstants.CA_CERT_FILE_NAME));
+                InputStreamReader csr = new InputStreamReader(new FileInputStream(TestConstants.CLIENT_CSR_FILE_NAME))
+        ) {
+            final CertificateSigner certificateSigner = new CertificateSigner(new Sha512WithRsa(),
+                    new PEMCertificateAuthorityReader(caKey, caCert).certificateAuthority());
+            certificate = certificateSigner.signCertificate(new PEMCertificateSigningRequestReader(csr)
+                    .certificationRequest());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        final CertificateEntity certificateEntity = new CertificateEntity();
+        certificateEntity.setStatus(CertificateStatus.VALID);
+        certificateEntity.setUserId(TestHelper.TEST_USER_ID);
+        certificateEntity.setSubject(certificate.getSubject().toString());
+        certificateEntity.setSerial(certificate.getSerial());
+        certificateEntity.setNotValidBefore(new Timestamp(certificate.getValidFrom().getTime()));
+        certificateEntity.setNotValidAfter(new Timestamp(certificate.getValidTo().getTime()));
+        certificateEntity.setX509DERCertificate(certificate.getCertificate());
+        certificateEntity.setUse(useRepository.findOne(UseEntity.DEFAULT_USE).orElseThrow(IllegalStateException::new));
+        certificateRepository.save(certificateEntity);
+        return certificateEntity;
+    }
+}
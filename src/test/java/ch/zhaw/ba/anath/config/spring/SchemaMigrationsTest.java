@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.config.spring;
+
+import ch.zhaw.ba.anath.config.properties.AnathProperties;
+import org.flywaydb.core.Flyway;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.util.concurrent.Callable;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * @author Rafael Ostertag
+ */
+public class SchemaMigrationsTest {
+    private static final String SCHEMA = "Test";
+    private AnathProperties anathProperties;
+    private StartupTimeline startupTimeline;
+    private Flyway flyway;
+
+    @Before
+    public void setUp() {
+        anathProperties = new AnathProperties();
+        startupTimeline = new StartupTimeline(0L);
+        flyway = mock(Flyway.class);
+    }
+
+    @Test
+    public void migrateSequentially() {
+        final SchemaMigrations schemaMigrations = new SchemaMigrations(anathProperties, startupTimeline);
+
+        schemaMigrations.migrate(SCHEMA, flyway);
+
+        verify(flyway).migrate();
+        assertThat(schemaMigrations.bootstrapExecutor(SCHEMA), is(nullValue()));
+        assertThat(startupTimeline.getPhaseRecords(), hasSize(1));
+        assertThat(startupTimeline.getPhaseRecords().get(0).getName(), is("Flyway migration " + SCHEMA));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void migrateInParallel() throws Exception {
+        anathProperties.getStartup().setParallel(true);
+        final SchemaMigrations schemaMigrations = new SchemaMigrations(anathProperties, startupTimeline);
+
+        schemaMigrations.migrate(SCHEMA, flyway);
+        verify(flyway, never()).migrate();
+
+        final Callable<String> bootstrap = mock(Callable.class);
+        when(bootstrap.call()).thenReturn("bootstrapped");
+
+        final AsyncTaskExecutor bootstrapExecutor = schemaMigrations.bootstrapExecutor(SCHEMA);
+        assertThat(bootstrapExecutor.submit(bootstrap).get(), is("bootstrapped"));
+
+        final InOrder inOrder = inOrder(flyway, bootstrap);
+        inOrder.verify(flyway).migrate();
+        inOrder.verify(bootstrap).call();
+
+        assertThat(startupTimeline.getPhaseRecords(), hasSize(2));
+        assertThat(startupTimeline.getPhaseRecords(), hasItems(
+                hasProperty("name", is("Flyway migration " + SCHEMA)),
+                hasProperty("name", is("Entity manager factory " + SCHEMA))
+        ));
+    }
+}
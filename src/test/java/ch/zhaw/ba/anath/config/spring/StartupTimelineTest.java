@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.config.spring;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Rafael Ostertag
+ */
+public class StartupTimelineTest {
+    private static final long JVM_START_TIME = 0L;
+
+    @Test
+    public void phaseIsRecordedWhenClosed() {
+        final StartupTimeline startupTimeline = new StartupTimeline(JVM_START_TIME);
+
+        final StartupTimeline.Phase phase = startupTimeline.start("phase");
+        assertThat(startupTimeline.getPhaseRecords(), is(empty()));
+
+        phase.close();
+        final List<StartupTimeline.PhaseRecord> phaseRecords = startupTimeline.getPhaseRecords();
+        assertThat(phaseRecords, hasSize(1));
+        assertThat(phaseRecords.get(0).getName(), is("phase"));
+        assertThat(phaseRecords.get(0).getStart(), is(greaterThan(0L)));
+        assertThat(phaseRecords.get(0).getDuration(), is(greaterThanOrEqualTo(0L)));
+    }
+
+    @Test
+    public void phasesAreOrderedByStart() {
+        final StartupTimeline startupTimeline = new StartupTimeline(JVM_START_TIME);
+
+        final StartupTimeline.Phase first = startupTimeline.start("first");
+        sleep();
+        startupTimeline.start("second").close();
+        first.close();
+
+        final List<StartupTimeline.PhaseRecord> phaseRecords = startupTimeline.getPhaseRecords();
+        assertThat(phaseRecords, hasSize(2));
+        assertThat(phaseRecords.get(0).getName(), is("first"));
+        assertThat(phaseRecords.get(1).getName(), is("second"));
+    }
+
+    @Test
+    public void timeToReady() {
+        final StartupTimeline startupTimeline = new StartupTimeline(JVM_START_TIME);
+        assertThat(startupTimeline.getTimeToReady().isPresent(), is(false));
+
+        startupTimeline.onApplicationReady(null);
+        assertThat(startupTimeline.getTimeToReady().isPresent(), is(true));
+        assertThat(startupTimeline.getTimeToReady().get(), is(greaterThan(0L)));
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki;
+
+import ch.zhaw.ba.anath.config.properties.AnathProperties;
+import ch.zhaw.ba.anath.config.spring.StartupTimeline;
+import ch.zhaw.ba.anath.pki.exceptions.CertificateAuthorityNotInitializedException;
+import ch.zhaw.ba.anath.pki.services.ConfigurationTemplateService;
+import ch.zhaw.ba.anath.pki.services.RevocationService;
+import ch.zhaw.ba.anath.pki.services.SigningService;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+
+/**
+ * @author Rafael Ostertag
+ */
+public class CertificateAuthorityWarmUpTest {
+    private static final String TEST_APPLICATION_ID = "theid";
+    private static final int ITERATIONS = 5;
+    private SigningService signingServiceMock;
+    private RevocationService revocationServiceMock;
+    private ConfigurationTemplateService configurationTemplateServiceMock;
+    private ApplicationContext applicationContextMock;
+    private AnathProperties anathProperties;
+
+    @Before
+    public void setUp() {
+        signingServiceMock = mock(SigningService.class);
+        revocationServiceMock = mock(RevocationService.class);
+        configurationTemplateServiceMock = mock(ConfigurationTemplateService.class);
+        applicationContextMock = mock(ApplicationContext.class);
+        given(applicationContextMock.getId()).willReturn(TEST_APPLICATION_ID);
+
+        anathProperties = new AnathProperties();
+        anathProperties.getStartup().setWarmUpIterations(ITERATIONS);
+    }
+
+    @Test
+    public void warmUp() {
+        final CertificateAuthorityWarmUp certificateAuthorityWarmUp = makeCertificateAuthorityWarmUp();
+        assertThat(certificateAuthorityWarmUp.health().getStatus(), is(Status.OUT_OF_SERVICE));
+
+        certificateAuthorityWarmUp.processApplicationReadyEvent(makeApplicationReadyEvent(TEST_APPLICATION_ID));
+
+        then(signingServiceMock).should().warmUp(ITERATIONS);
+        then(revocationServiceMock).should().warmUp(ITERATIONS);
+        then(configurationTemplateServiceMock).should().warmUp();
+
+        final Health health = certificateAuthorityWarmUp.health();
+        assertThat(health.getStatus(), is(Status.UP));
+        assertThat(health.getDetails().get("state"), is(CertificateAuthorityWarmUp.State.COMPLETED));
+    }
+
+    @Test
+    public void warmUpWithUninitializedCa() {
+        willThrow(new CertificateAuthorityNotInitializedException("Not initialized")).given(signingServiceMock)
+                .warmUp(anyInt());
+        final CertificateAuthorityWarmUp certificateAuthorityWarmUp = makeCertificateAuthorityWarmUp();
+
+        certificateAuthorityWarmUp.processApplicationReadyEvent(makeApplicationReadyEvent(TEST_APPLICATION_ID));
+
+        then(revocationServiceMock).should(never()).warmUp(anyInt());
+
+        final Health health = certificateAuthorityWarmUp.health();
+        assertThat(health.getStatus(), is(Status.UP));
+        assertThat(health.getDetails().get("state"), is(CertificateAuthorityWarmUp.State.SKIPPED));
+    }
+
+    @Test
+    public void warmUpFailing() {
+        willThrow(new RuntimeException("failure")).given(revocationServiceMock).warmUp(anyInt());
+        final CertificateAuthorityWarmUp certificateAuthorityWarmUp = makeCertificateAuthorityWarmUp();
+
+        certificateAuthorityWarmUp.processApplicationReadyEvent(makeApplicationReadyEvent(TEST_APPLICATION_ID));
+
+        final Health health = certificateAuthorityWarmUp.health();
+        assertThat(health.getStatus(), is(Status.UP));
+        assertThat(health.getDetails().get("state"), is(CertificateAuthorityWarmUp.State.FAILED));
+    }
+
+    @Test
+    public void warmUpDisabled() {
+        anathProperties.getStartup().setWarmUp(false);
+        final CertificateAuthorityWarmUp certificateAuthorityWarmUp = makeCertificateAuthorityWarmUp();
+        assertThat(certificateAuthorityWarmUp.health().getStatus(), is(Status.UP));
+
+        certificateAuthorityWarmUp.processApplicationReadyEvent(makeApplicationReadyEvent(TEST_APPLICATION_ID));
+
+        then(signingServiceMock).should(never()).warmUp(anyInt());
+        assertThat(certificateAuthorityWarmUp.health().getDetails().get("state"),
+                is(CertificateAuthorityWarmUp.State.DISABLED));
+    }
+
+    @Test
+    public void nonMatchingApplicationId() {
+        final CertificateAuthorityWarmUp certificateAuthorityWarmUp = makeCertificateAuthorityWarmUp();
+
+        certificateAuthorityWarmUp.processApplicationReadyEvent(makeApplicationReadyEvent("another_id"));
+
+        then(signingServiceMock).should(never()).warmUp(anyInt());
+        assertThat(certificateAuthorityWarmUp.health().getStatus(), is(Status.OUT_OF_SERVICE));
+    }
+
+    private CertificateAuthorityWarmUp makeCertificateAuthorityWarmUp() {
+        return new CertificateAuthorityWarmUp(signingServiceMock, revocationServiceMock,
+                configurationTemplateServiceMock, new StartupTimeline(), applicationContextMock, anathProperties);
+    }
+
+    private ApplicationReadyEvent makeApplicationReadyEvent(String applicationId) {
+        final ConfigurableApplicationContext configurableApplicationContextMock = mock(ConfigurableApplicationContext
+                .class);
+        given(configurableApplicationContextMock.getId()).willReturn(applicationId);
+
+        return new ApplicationReadyEvent(mock(SpringApplication.class),
+                new String[]{},
+                configurableApplicationContextMock);
+    }
+}
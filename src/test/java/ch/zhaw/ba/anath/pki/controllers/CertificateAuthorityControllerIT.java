@@ -31,6 +31,7 @@ package ch.zhaw.ba.anath.pki.controllers;
 
 import ch.zhaw.ba.anath.TestSecuritySetup;
 import ch.zhaw.ba.anath.pki.exceptions.CertificateAuthorityNotInitializedException;
+import ch.zhaw.ba.anath.pki.repositories.ArchivedCertificateRepository;
 import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
 import ch.zhaw.ba.anath.pki.services.CertificateAuthorityService;
 import ch.zhaw.ba.anath.pki.services.RevocationService;
@@ -45,11 +46,13 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 
+import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.BDDMockito.given;
 import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.authenticated;
 import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.unauthenticated;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -78,6 +81,9 @@ public class CertificateAuthorityControllerIT {
     @MockBean
     private CertificateRepository certificateRepository;
 
+    @MockBean
+    private ArchivedCertificateRepository archivedCertificateRepository;
+
     @Test
     public void getCaCertificate() throws Exception {
         given(certificateAuthorityService.getCertificate()).willReturn("certificate");
@@ -112,6 +118,18 @@ public class CertificateAuthorityControllerIT {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void getDerCrl() throws Exception {
+        given(revocationService.getCrlDerEncoded()).willReturn(new byte[]{0x30, 0x00});
+        mvc.perform(
+                get("/crl.der")
+        )
+                .andExpect(header().string("Content-Type", startsWith(PkixMediaType.APPLICATION_PKIX_CRL_VALUE)))
+                .andExpect(header().string("Content-Disposition", is("attachment; filename=\"crl.crl\"")))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(new byte[]{0x30, 0x00}));
+    }
+
     @Test
     @WithMockUser(username = "user", roles = {"USER"})
     public void getCaCertificateWhenAuthenticated() throws Exception {
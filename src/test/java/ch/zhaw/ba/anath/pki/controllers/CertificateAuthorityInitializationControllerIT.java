@@ -35,6 +35,7 @@ import ch.zhaw.ba.anath.pki.dto.CreateSelfSignedCertificateAuthorityDto;
 import ch.zhaw.ba.anath.pki.dto.ImportCertificateAuthorityDto;
 import ch.zhaw.ba.anath.pki.exceptions.CertificateAuthorityAlreadyInitializedException;
 import ch.zhaw.ba.anath.pki.exceptions.CertificateAuthorityInitializationException;
+import ch.zhaw.ba.anath.pki.repositories.ArchivedCertificateRepository;
 import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
 import ch.zhaw.ba.anath.pki.services.CertificateAuthorityInitializationService;
 import ch.zhaw.ba.anath.users.repositories.UserRepository;
@@ -84,6 +85,9 @@ public class CertificateAuthorityInitializationControllerIT {
     @MockBean
     private CertificateRepository certificateRepository;
 
+    @MockBean
+    private ArchivedCertificateRepository archivedCertificateRepository;
+
     @Test
     @WithMockUser(username = "admin", roles = {"ADMIN"})
     public void importCaAsAdmin() throws Exception {
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.controllers;
+
+import ch.zhaw.ba.anath.TestSecuritySetup;
+import ch.zhaw.ba.anath.pki.entities.CertificateStatus;
+import ch.zhaw.ba.anath.pki.repositories.ArchivedCertificateRepository;
+import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
+import ch.zhaw.ba.anath.pki.services.CertificateExportService;
+import ch.zhaw.ba.anath.users.repositories.UserRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.OutputStream;
+import java.util.Date;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.authenticated;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.unauthenticated;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * @author Rafael Ostertag
+ */
+@RunWith(SpringRunner.class)
+@WebMvcTest(CertificateExportController.class)
+@ActiveProfiles("tests")
+@TestSecuritySetup
+public class CertificateExportControllerIT {
+    private static final String EXPORT_LINE = "{\"serial\":1}\n";
+
+    @Autowired
+    private MockMvc mvc;
+
+    @MockBean
+    private CertificateExportService certificateExportService;
+
+    // Required to satisfy injection dependency
+    @MockBean
+    private UserRepository userRepository;
+
+    // Required to satisfy injection dependency
+    @MockBean
+    private CertificateRepository certificateRepository;
+
+    @MockBean
+    private ArchivedCertificateRepository archivedCertificateRepository;
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    public void exportAsAdmin() throws Exception {
+        given(certificateExportService.exportAsNdjson(any(), any(), any(), any(), anyBoolean(),
+                any(OutputStream.class)))
+                .willAnswer(invocation -> {
+                    final OutputStream outputStream = invocation.getArgumentAt(5, OutputStream.class);
+                    outputStream.write(EXPORT_LINE.getBytes());
+                    return 1L;
+                });
+
+        mvc.perform(
+                get("/export/certificates")
+                        .contentType(MediaType.ALL)
+                        .accept(AnathMediaType.APPLICATION_X_NDJSON)
+        )
+                .andExpect(authenticated())
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", startsWith(AnathMediaType.APPLICATION_X_NDJSON_VALUE)))
+                .andExpect(header().string("Content-Disposition", is("attachment; filename=\"certificates" +
+                        ".ndjson\"")))
+                .andExpect(content().string(EXPORT_LINE));
+
+        then(certificateExportService).should().exportAsNdjson(isNull(CertificateStatus.class), isNull(String
+                .class), isNull(Date.class), isNull(Date.class), eq(false), any(OutputStream.class));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    public void exportWithFilters() throws Exception {
+        mvc.perform(
+                get("/export/certificates")
+                        .param("status", "REVOKED")
+                        .param("userId", "user")
+                        .param("validFrom", "2018-01-01T00:00:00.000+0000")
+                        .param("validTo", "2019-01-01T00:00:00.000+0000")
+                        .param("includeArchived", "true")
+                        .contentType(MediaType.ALL)
+                        .accept(AnathMediaType.APPLICATION_X_NDJSON)
+        )
+                .andExpect(authenticated())
+                .andExpect(status().isOk());
+
+        then(certificateExportService).should().exportAsNdjson(eq(CertificateStatus.REVOKED), eq("user"), eq(new
+                Date(1514764800000L)), eq(new Date(1546300800000L)), eq(true), any(OutputStream.class));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    public void exportWithInvalidStatus() throws Exception {
+        mvc.perform(
+                get("/export/certificates")
+                        .param("status", "UNKNOWN")
+                        .contentType(MediaType.ALL)
+                        .accept(AnathMediaType.APPLICATION_X_NDJSON)
+        )
+                .andExpect(authenticated())
+                .andExpect(status().isBadRequest());
+
+        then(certificateExportService).should(never()).exportAsNdjson(any(), any(), any(), any(), anyBoolean(),
+                any());
+    }
+
+    @Test
+    @WithMockUser(username = "user", roles = {"USER"})
+    public void exportAsUser() throws Exception {
+        mvc.perform(
+                get("/export/certificates")
+                        .contentType(MediaType.ALL)
+                        .accept(AnathMediaType.APPLICATION_X_NDJSON)
+        )
+                .andExpect(authenticated())
+                .andExpect(status().isForbidden());
+
+        then(certificateExportService).should(never()).exportAsNdjson(any(), any(), any(), any(), anyBoolean(),
+                any());
+    }
+
+    @Test
+    public void exportAsUnauthenticated() throws Exception {
+        mvc.perform(
+                get("/export/certificates")
+                        .contentType(MediaType.ALL)
+                        .accept(AnathMediaType.APPLICATION_X_NDJSON)
+        )
+                .andExpect(unauthenticated())
+                .andExpect(status().isUnauthorized());
+    }
+}
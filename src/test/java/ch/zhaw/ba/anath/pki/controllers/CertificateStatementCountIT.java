@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.controllers;
+
+import ch.zhaw.ba.anath.TestHelper;
+import ch.zhaw.ba.anath.pki.core.Certificate;
+import ch.zhaw.ba.anath.pki.dto.RevocationReasonDto;
+import ch.zhaw.ba.anath.pki.services.CertificateAuthorityInitializer;
+import ch.zhaw.ba.anath.pki.services.RevocationService;
+import ch.zhaw.ba.anath.pki.services.SigningService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Count the SQL statements issued by certificate endpoints. The test data is committed, so every request runs in
+ * transactions of its own, as it would in production.
+ *
+ * @author Rafael Ostertag
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("tests")
+@TestPropertySource(properties = {
+        "anath.secret-key=abcdefghijklmnopqrst1234",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class CertificateStatementCountIT extends CertificateAuthorityInitializer {
+    private final static ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private SigningService signingService;
+
+    @Autowired
+    private RevocationService revocationService;
+
+    @Autowired
+    private EntityManagerFactory pkiEntityManagerFactory;
+
+    @PersistenceContext(unitName = "pki")
+    private EntityManager entityManager;
+
+    @Autowired
+    @Qualifier("pkiTransactionManager")
+    private PlatformTransactionManager pkiTransactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private Statistics statistics;
+    private Certificate certificate;
+
+    @Before
+    public void setUp() {
+        transactionTemplate = new TransactionTemplate(pkiTransactionManager);
+        certificate = transactionTemplate.execute(status -> {
+            try {
+                initializeCa();
+                final Certificate signedCertificate = TestHelper.signAndAddCertificate(signingService, "plain");
+                // Load the CA used for signing the CRL, and create the CRL.
+                revocationService.updateCertificateRevocationList();
+                return signedCertificate;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        statistics = pkiEntityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @After
+    public void tearDown() {
+        transactionTemplate.execute(status -> {
+            entityManager.createQuery("delete from CrlEntity").executeUpdate();
+            entityManager.createQuery("delete from CertificateEntity").executeUpdate();
+            entityManager.createQuery("delete from SecureEntity").executeUpdate();
+            return null;
+        });
+    }
+
+    @Test
+    @WithMockUser(username = TestHelper.TEST_USER_ID, roles = {"USER"})
+    public void getCertificate() throws Exception {
+        mvc.perform(
+                get("/certificates/{serial}", certificate.getSerial())
+                        .contentType(MediaType.ALL)
+                        .accept(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
+        )
+                .andExpect(status().isOk());
+
+        // The permission check selects the owner only, the handler loads the certificate.
+        assertThat(statistics.getPrepareStatementCount(), is(2L));
+    }
+
+    @Test
+    @WithMockUser(username = "other user", roles = {"USER"})
+    public void getAllCertificatesOfUser() throws Exception {
+        mvc.perform(
+                get("/certificates")
+                        .contentType(MediaType.ALL)
+                        .accept(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(0)));
+
+        // The slice of the user's certificates is selected without joining the uses.
+        assertThat(statistics.getPrepareStatementCount(), is(1L));
+    }
+
+    @Test
+    @WithMockUser(username = TestHelper.TEST_USER_ID, roles = {"USER"})
+    public void getAllCertificates() throws Exception {
+        mvc.perform(
+                get("/certificates")
+                        .contentType(MediaType.ALL)
+                        .accept(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
+        )
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(1)))
+                .andExpect(jsonPath("$.content[0].use", is("plain")));
+
+        assertThat(statistics.getPrepareStatementCount(), is(1L));
+    }
+
+    @Test
+    @WithMockUser(username = TestHelper.TEST_USER_ID, roles = {"USER"})
+    public void revokeCertificate() throws Exception {
+        final RevocationReasonDto revocationReasonDto = new RevocationReasonDto();
+        revocationReasonDto.setReason("test");
+
+        mvc.perform(
+                put("/certificates/{serial}/revoke", certificate.getSerial())
+                        .contentType(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
+                        .content(OBJECT_MAPPER.writeValueAsBytes(revocationReasonDto))
+        )
+                .andExpect(status().isOk());
+
+        // The permission check selects the owner only, the handler loads the certificate and updates it. Replacing
+        // the CRL selects the revoked certificates, deletes the previous CRL in bulk, and inserts the new CRL. The id
+        // of the new CRL is taken from the block allocated in setUp().
+        assertThat(statistics.getPrepareStatementCount(), is(6L));
+    }
+}
@@ -30,34 +30,47 @@
 package ch.zhaw.ba.anath.pki.controllers;
 
 import ch.zhaw.ba.anath.TestSecuritySetup;
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
 import ch.zhaw.ba.anath.pki.dto.CertificateListItemDto;
 import ch.zhaw.ba.anath.pki.dto.CertificateResponseDto;
+import ch.zhaw.ba.anath.pki.dto.PemCertificateDto;
 import ch.zhaw.ba.anath.pki.dto.bits.CertificateValidityBit;
 import ch.zhaw.ba.anath.pki.dto.bits.PemBit;
-import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
 import ch.zhaw.ba.anath.pki.exceptions.CertificateNotFoundException;
+import ch.zhaw.ba.anath.pki.exceptions.ConfigurationNotFoundException;
+import ch.zhaw.ba.anath.pki.repositories.ArchivedCertificateRepository;
 import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
+import ch.zhaw.ba.anath.pki.services.CertificatePemCache;
 import ch.zhaw.ba.anath.pki.services.CertificateService;
+import ch.zhaw.ba.anath.pki.services.CertificateService.ConfigurationWriterProvider;
 import ch.zhaw.ba.anath.users.repositories.UserRepository;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 
-import java.math.BigInteger;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Optional;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.BDDMockito.given;
-import static org.mockito.Mockito.doReturn;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
 import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.authenticated;
 import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.unauthenticated;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -73,12 +86,15 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 public class CertificatesControllerIT {
 
     private static final String DEFAULT_USER_ID = "user";
+    private static final String TEST_ETAG = "\"abcdef\"";
     @Autowired
     private MockMvc mvc;
 
     @MockBean
     private CertificateService certificateService;
 
+    @MockBean
+    private CertificatePemCache certificatePemCache;
 
     // Required to satisfy injection dependency
     @MockBean
@@ -88,14 +104,17 @@ public class CertificatesControllerIT {
     @MockBean
     private CertificateRepository certificateRepository;
 
+    @MockBean
+    private ArchivedCertificateRepository archivedCertificateRepository;
+
     @Test
     @WithMockUser(username = "admin", roles = {"ADMIN"})
     public void getCertificateAsAdmin() throws Exception {
         final CertificateResponseDto certificateResponseDto = makeCertificateResponseDto();
-        given(certificateService.getCertificate(BigInteger.ONE)).willReturn(certificateResponseDto);
+        given(certificateService.getCertificate(CertificateSerial.valueOf(1))).willReturn(certificateResponseDto);
 
         mvc.perform(
-                get("/certificates/{serial}", BigInteger.ONE)
+                get("/certificates/{serial}", CertificateSerial.valueOf(1))
                         .contentType(MediaType.ALL)
                         .accept(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
         )
@@ -104,7 +123,7 @@ public class CertificatesControllerIT {
                 .andExpect(header().string("Content-Type", startsWith(AnathMediaType
                         .APPLICATION_VND_ANATH_V1_JSON_VALUE)))
                 .andExpect(jsonPath("$.use", is("plain")))
-                .andExpect(jsonPath("$.config", is(nullValue())))
+                .andExpect(jsonPath("$.config").doesNotExist())
                 .andExpect(jsonPath("$.cert.pem", is("PEM goes here")))
                 .andExpect(jsonPath("$.validity.revoked", is(false)))
                 .andExpect(jsonPath("$.validity.revocationReason", is(nullValue())))
@@ -115,21 +134,125 @@ public class CertificatesControllerIT {
                 .andExpect(jsonPath("$.links[0].rel", is("revoke")))
                 .andExpect(jsonPath("$.links[0].href", is("http://localhost/certificates/1/revoke")))
                 .andExpect(jsonPath("$.links[1].rel", is("pem")))
-                .andExpect(jsonPath("$.links[1].href", is("http://localhost/certificates/1")));
+                .andExpect(jsonPath("$.links[1].href", is("http://localhost/certificates/1")))
+                .andExpect(jsonPath("$.links[2].rel", is("der")))
+                .andExpect(jsonPath("$.links[2].href", is("http://localhost/certificates/1/der")))
+                .andExpect(jsonPath("$.links[3]").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    public void getCertificateWithConfiguration() throws Exception {
+        final CertificateResponseDto certificateResponseDto = makeCertificateResponseDto();
+        certificateResponseDto.setConfigurationAvailable(true);
+        given(certificateService.getCertificate(CertificateSerial.valueOf(1))).willReturn(certificateResponseDto);
+
+        mvc.perform(
+                get("/certificates/{serial}", CertificateSerial.valueOf(1))
+                        .contentType(MediaType.ALL)
+                        .accept(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
+        )
+                .andExpect(authenticated())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.configurationAvailable").doesNotExist())
+                .andExpect(jsonPath("$.links[3].rel", is("configuration")))
+                .andExpect(jsonPath("$.links[3].href", is("http://localhost/certificates/1/configuration")));
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    public void getConfigurationAsAdmin() throws Exception {
+        willAnswer(invocation -> {
+            invocation.getArgumentAt(1, ConfigurationWriterProvider.class).getWriter("open vpn").write("the " +
+                    "configuration");
+            return null;
+        }).given(certificateService).writeConfiguration(eq(CertificateSerial.valueOf(1)), any
+                (ConfigurationWriterProvider.class));
+
+        mvc.perform(
+                get("/certificates/{serial}/configuration", CertificateSerial.valueOf(1))
+                        .accept(MediaType.ALL)
+        )
+                .andExpect(authenticated())
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", startsWith(MediaType.TEXT_PLAIN_VALUE)))
+                .andExpect(header().string("Content-Disposition", is("attachment; filename=\"1-open_vpn.conf\"")))
+                .andExpect(content().string("the configuration"));
+    }
+
+    @Test
+    @WithMockUser(username = DEFAULT_USER_ID, roles = {"USER"})
+    public void getConfigurationAsUser() throws Exception {
+        given(certificateRepository.findUserIdBySerial(CertificateSerial.valueOf(1))).willReturn(Optional.of
+                (DEFAULT_USER_ID));
+        willAnswer(invocation -> invocation.getArgumentAt(1, ConfigurationWriterProvider.class).getWriter
+                ("openvpn")).given(certificateService).writeConfiguration(eq(CertificateSerial.valueOf(1)), any
+                (ConfigurationWriterProvider.class));
+
+        mvc.perform(
+                get("/certificates/{serial}/configuration", CertificateSerial.valueOf(1))
+                        .accept(MediaType.ALL)
+        )
+                .andExpect(authenticated())
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", is("attachment; filename=\"1-openvpn.conf\"")));
+
+        then(certificateService).should().writeConfiguration(eq(CertificateSerial.valueOf(1)), any
+                (ConfigurationWriterProvider.class));
+    }
+
+    @Test
+    @WithMockUser(username = DEFAULT_USER_ID, roles = {"USER"})
+    public void getConfigurationAsUnauthorizedUser() throws Exception {
+        given(certificateRepository.findUserIdBySerial(CertificateSerial.valueOf(1))).willReturn(Optional.of
+                ("another user"));
+
+        mvc.perform(
+                get("/certificates/{serial}/configuration", CertificateSerial.valueOf(1))
+                        .accept(MediaType.ALL)
+        )
+                .andExpect(authenticated())
+                .andExpect(status().isForbidden());
+
+        then(certificateService).should(never()).writeConfiguration(any(CertificateSerial.class), any
+                (ConfigurationWriterProvider.class));
+    }
+
+    @Test
+    public void getConfigurationAsUnauthenticated() throws Exception {
+        mvc.perform(
+                get("/certificates/{serial}/configuration", CertificateSerial.valueOf(1))
+                        .accept(MediaType.ALL)
+        )
+                .andExpect(unauthenticated())
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    public void getNonExistingConfiguration() throws Exception {
+        willThrow(new ConfigurationNotFoundException("")).given(certificateService).writeConfiguration(eq
+                (CertificateSerial.valueOf(1)), any(ConfigurationWriterProvider.class));
+
+        mvc.perform(
+                get("/certificates/{serial}/configuration", CertificateSerial.valueOf(1))
+                        .accept(MediaType.ALL)
+        )
+                .andExpect(authenticated())
+                .andExpect(status().isNotFound());
     }
 
     @Test
     @WithMockUser(username = DEFAULT_USER_ID, roles = {"USER"})
     public void getCertificateAsUser() throws Exception {
-        final CertificateEntity certificateEntity = new CertificateEntity();
-        certificateEntity.setUserId(DEFAULT_USER_ID);
-        given(certificateRepository.findOneBySerial(BigInteger.ONE)).willReturn(Optional.of(certificateEntity));
+        given(certificateRepository.findUserIdBySerial(CertificateSerial.valueOf(1))).willReturn(Optional.of
+                (DEFAULT_USER_ID));
 
         final CertificateResponseDto certificateResponseDto = makeCertificateResponseDto();
-        given(certificateService.getCertificate(BigInteger.ONE)).willReturn(certificateResponseDto);
+        given(certificateService.getCertificate(CertificateSerial.valueOf(1))).willReturn(certificateResponseDto);
 
         mvc.perform(
-                get("/certificates/{serial}", BigInteger.ONE)
+                get("/certificates/{serial}", CertificateSerial.valueOf(1))
                         .contentType(MediaType.ALL_VALUE)
                         .accept(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
         )
@@ -138,7 +261,7 @@ public class CertificatesControllerIT {
                 .andExpect(header().string("Content-Type", startsWith(AnathMediaType
                         .APPLICATION_VND_ANATH_V1_JSON_VALUE)))
                 .andExpect(jsonPath("$.use", is("plain")))
-                .andExpect(jsonPath("$.config", is(nullValue())))
+                .andExpect(jsonPath("$.config").doesNotExist())
                 .andExpect(jsonPath("$.cert.pem", is("PEM goes here")))
                 .andExpect(jsonPath("$.validity.revoked", is(false)))
                 .andExpect(jsonPath("$.validity.revocationReason", is(nullValue())))
@@ -155,15 +278,14 @@ public class CertificatesControllerIT {
     @Test
     @WithMockUser(username = DEFAULT_USER_ID, roles = {"USER"})
     public void getCertificateAsUnauthorizedUser() throws Exception {
-        final CertificateEntity certificateEntity = new CertificateEntity();
-        certificateEntity.setUserId("another user");
-        given(certificateRepository.findOneBySerial(BigInteger.ONE)).willReturn(Optional.of(certificateEntity));
+        given(certificateRepository.findUserIdBySerial(CertificateSerial.valueOf(1))).willReturn(Optional.of
+                ("another user"));
 
         final CertificateResponseDto certificateResponseDto = makeCertificateResponseDto();
-        given(certificateService.getCertificate(BigInteger.ONE)).willReturn(certificateResponseDto);
+        given(certificateService.getCertificate(CertificateSerial.valueOf(1))).willReturn(certificateResponseDto);
 
         mvc.perform(
-                get("/certificates/{serial}", BigInteger.ONE)
+                get("/certificates/{serial}", CertificateSerial.valueOf(1))
                         .contentType(MediaType.ALL)
                         .accept(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
         )
@@ -174,10 +296,10 @@ public class CertificatesControllerIT {
     @Test
     public void getCertificateAsUnauthenticated() throws Exception {
         final CertificateResponseDto certificateResponseDto = makeCertificateResponseDto();
-        given(certificateService.getCertificate(BigInteger.ONE)).willReturn(certificateResponseDto);
+        given(certificateService.getCertificate(CertificateSerial.valueOf(1))).willReturn(certificateResponseDto);
 
         mvc.perform(
-                get("/certificates/{serial}", BigInteger.ONE)
+                get("/certificates/{serial}", CertificateSerial.valueOf(1))
                         .contentType(MediaType.ALL_VALUE)
                         .accept(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
         )
@@ -189,10 +311,11 @@ public class CertificatesControllerIT {
     @WithMockUser(username = "admin", roles = {"ADMIN"})
     public void getNonExistingCertificate() throws Exception {
         final CertificateResponseDto certificateResponseDto = makeCertificateResponseDto();
-        given(certificateService.getCertificate(BigInteger.ONE)).willThrow(new CertificateNotFoundException(""));
+        given(certificateService.getCertificate(CertificateSerial.valueOf(1))).willThrow(
+                new CertificateNotFoundException(""));
 
         mvc.perform(
-                get("/certificates/{serial}", BigInteger.ONE)
+                get("/certificates/{serial}", CertificateSerial.valueOf(1))
                         .contentType(MediaType.ALL_VALUE)
                         .accept(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
         )
@@ -219,10 +342,10 @@ public class CertificatesControllerIT {
     @Test
     public void getPlainPemCertificateAcceptingAllMediaTypes() throws Exception {
         final CertificateResponseDto certificateResponseDto = makeCertificateResponseDto();
-        given(certificateService.getPlainPEMEncodedCertificate(BigInteger.ONE)).willReturn("certificate");
+        given(certificatePemCache.getPemCertificate(CertificateSerial.valueOf(1))).willReturn(makePemCertificateDto());
 
         mvc.perform(
-                get("/certificates/{serial}", BigInteger.ONE)
+                get("/certificates/{serial}", CertificateSerial.valueOf(1))
                         .accept(MediaType.ALL)
         )
                 .andExpect(header().string("Content-Type", startsWith(PkixMediaType.APPLICATION_PKIX_CERT_VALUE)))
@@ -233,10 +356,10 @@ public class CertificatesControllerIT {
     @Test
     public void getPlainPemCertificateAcceptingPkixCert() throws Exception {
         final CertificateResponseDto certificateResponseDto = makeCertificateResponseDto();
-        given(certificateService.getPlainPEMEncodedCertificate(BigInteger.ONE)).willReturn("certificate");
+        given(certificatePemCache.getPemCertificate(CertificateSerial.valueOf(1))).willReturn(makePemCertificateDto());
 
         mvc.perform(
-                get("/certificates/{serial}", BigInteger.ONE)
+                get("/certificates/{serial}", CertificateSerial.valueOf(1))
                         .accept(PkixMediaType.APPLICATION_PKIX_CERT)
         )
                 .andExpect(header().string("Content-Type", startsWith(PkixMediaType.APPLICATION_PKIX_CERT_VALUE)))
@@ -244,13 +367,96 @@ public class CertificatesControllerIT {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void getPlainPemCertificateWithETag() throws Exception {
+        given(certificatePemCache.getPemCertificate(CertificateSerial.valueOf(1))).willReturn(makePemCertificateDto());
+
+        mvc.perform(
+                get("/certificates/{serial}", CertificateSerial.valueOf(1))
+                        .accept(PkixMediaType.APPLICATION_PKIX_CERT)
+        )
+                .andExpect(unauthenticated())
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", is(TEST_ETAG)))
+                .andExpect(content().string("certificate"));
+    }
+
+    @Test
+    public void getPlainPemCertificateNotModified() throws Exception {
+        given(certificatePemCache.getPemCertificate(CertificateSerial.valueOf(1))).willReturn(makePemCertificateDto());
+
+        mvc.perform(
+                get("/certificates/{serial}", CertificateSerial.valueOf(1))
+                        .accept(PkixMediaType.APPLICATION_PKIX_CERT)
+                        .header("If-None-Match", TEST_ETAG)
+        )
+                .andExpect(unauthenticated())
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void getPlainPemCertificateModified() throws Exception {
+        given(certificatePemCache.getPemCertificate(CertificateSerial.valueOf(1))).willReturn(makePemCertificateDto());
+
+        mvc.perform(
+                get("/certificates/{serial}", CertificateSerial.valueOf(1))
+                        .accept(PkixMediaType.APPLICATION_PKIX_CERT)
+                        .header("If-None-Match", "\"other\"")
+        )
+                .andExpect(unauthenticated())
+                .andExpect(status().isOk())
+                .andExpect(content().string("certificate"));
+    }
+
+    @Test
+    public void getDerCertificate() throws Exception {
+        given(certificateService.getDEREncodedCertificate(CertificateSerial.valueOf(1))).willReturn(new byte[]{0x30,
+                0x00});
+
+        mvc.perform(
+                get("/certificates/{serial}/der", CertificateSerial.valueOf(1))
+                        .accept(MediaType.ALL)
+        )
+                .andExpect(unauthenticated())
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", startsWith(PkixMediaType.APPLICATION_PKIX_CERT_VALUE)))
+                .andExpect(header().string("Content-Disposition", is("attachment; filename=\"1.der\"")))
+                .andExpect(content().bytes(new byte[]{0x30, 0x00}));
+    }
+
+    @Test
+    public void getDerCertificateNegativeSerial() throws Exception {
+        mvc.perform(
+                get("/certificates/{serial}/der", "-1")
+                        .accept(MediaType.ALL)
+        )
+                .andExpect(unauthenticated())
+                .andExpect(status().isBadRequest());
+
+        then(certificateService).should(never()).getDEREncodedCertificate(any(CertificateSerial.class));
+    }
+
+    @Test
+    public void getNonExistingDerCertificate() throws Exception {
+        given(certificateService.getDEREncodedCertificate(CertificateSerial.valueOf(1))).willThrow(new
+                CertificateNotFoundException(""));
+
+        mvc.perform(
+                get("/certificates/{serial}/der", CertificateSerial.valueOf(1))
+                        .accept(MediaType.ALL)
+        )
+                .andExpect(unauthenticated())
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     public void getNonExistingPlainPemCertificate() throws Exception {
-        given(certificateService.getPlainPEMEncodedCertificate(BigInteger.ONE)).willThrow(new
+        given(certificatePemCache.getPemCertificate(CertificateSerial.valueOf(1))).willThrow(new
                 CertificateNotFoundException(""));
 
         mvc.perform(
-                get("/certificates/{serial}", BigInteger.ONE)
+                get("/certificates/{serial}", CertificateSerial.valueOf(1))
                         .contentType(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
         )
                 .andExpect(unauthenticated())
@@ -261,10 +467,10 @@ public class CertificatesControllerIT {
     @WithMockUser(username = DEFAULT_USER_ID, roles = {"USER"})
     public void getPlainPemCertificateAsUser() throws Exception {
         final CertificateResponseDto certificateResponseDto = makeCertificateResponseDto();
-        given(certificateService.getPlainPEMEncodedCertificate(BigInteger.ONE)).willReturn("certificate");
+        given(certificatePemCache.getPemCertificate(CertificateSerial.valueOf(1))).willReturn(makePemCertificateDto());
 
         mvc.perform(
-                get("/certificates/{serial}", BigInteger.ONE)
+                get("/certificates/{serial}", CertificateSerial.valueOf(1))
                         .contentType(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
                         .accept(MediaType.ALL)
         )
@@ -275,11 +481,11 @@ public class CertificatesControllerIT {
     @Test
     @WithMockUser(username = DEFAULT_USER_ID, roles = {"USER"})
     public void getNonExistingPlainPemCertificateAsUser() throws Exception {
-        given(certificateService.getPlainPEMEncodedCertificate(BigInteger.ONE)).willThrow(new
+        given(certificatePemCache.getPemCertificate(CertificateSerial.valueOf(1))).willThrow(new
                 CertificateNotFoundException(""));
 
         mvc.perform(
-                get("/certificates/{serial}/pem", BigInteger.ONE)
+                get("/certificates/{serial}/pem", CertificateSerial.valueOf(1))
                         .contentType(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
                         .accept(MediaType.ALL)
         )
@@ -291,11 +497,17 @@ public class CertificatesControllerIT {
     @WithMockUser(username = "admin", roles = {"ADMIN"})
     public void getAllAsAdmin() throws Exception {
         testGetAllUsers();
+
+        then(certificateService).should().getAll(null, 100);
+        then(certificateService).should(never()).getAllByUserId(anyString(), any(), anyInt());
     }
 
     private void testGetAllUsers() throws Exception {
         final CertificateListItemDto certificateListItemDto = makeCertificateListItemDto();
-        doReturn(Collections.singletonList(certificateListItemDto)).when(certificateService).getAll();
+        final SliceImpl<CertificateListItemDto> slice = new SliceImpl<>(Collections.singletonList
+                (certificateListItemDto));
+        given(certificateService.getAll(null, 100)).willReturn(slice);
+        given(certificateService.getAllByUserId(DEFAULT_USER_ID, null, 100)).willReturn(slice);
 
         mvc.perform(
                 get("/certificates")
@@ -317,6 +529,7 @@ public class CertificatesControllerIT {
                 .andExpect(jsonPath("$.content[0].links[1].href", is("http://localhost/certificates/1")))
                 .andExpect(jsonPath("$.content[0].links[2].rel", is("revoke")))
                 .andExpect(jsonPath("$.content[0].links[2].href", is("http://localhost/certificates/1/revoke")))
+                .andExpect(jsonPath("$.links", hasSize(1)))
                 .andExpect(jsonPath("$.links[0].rel", is("sign")))
                 .andExpect(jsonPath("$.links[0].href", is("http://localhost/certificates")));
     }
@@ -325,13 +538,16 @@ public class CertificatesControllerIT {
     @WithMockUser(username = DEFAULT_USER_ID, roles = {"USER"})
     public void getAllAsUser() throws Exception {
         testGetAllUsers();
+
+        then(certificateService).should().getAllByUserId(DEFAULT_USER_ID, null, 100);
+        then(certificateService).should(never()).getAll(any(), anyInt());
     }
 
     @Test
     @WithMockUser(username = DEFAULT_USER_ID + "another", roles = {"USER"})
     public void getAllAsUserNoUserIdMatching() throws Exception {
-        final CertificateListItemDto certificateListItemDto = makeCertificateListItemDto();
-        doReturn(Collections.singletonList(certificateListItemDto)).when(certificateService).getAll();
+        given(certificateService.getAllByUserId(DEFAULT_USER_ID + "another", null, 100)).willReturn(new
+                SliceImpl<>(Collections.emptyList()));
 
         mvc.perform(
                 get("/certificates")
@@ -347,12 +563,32 @@ public class CertificatesControllerIT {
                 .andExpect(jsonPath("$.links[0].href", is("http://localhost/certificates")));
     }
 
-
     @Test
-    public void getAllAsUnauthenticated() throws Exception {
+    @WithMockUser(username = "admin", roles = {"ADMIN"})
+    public void getAllWithNextSlice() throws Exception {
         final CertificateListItemDto certificateListItemDto = makeCertificateListItemDto();
-        doReturn(Collections.singletonList(certificateListItemDto)).when(certificateService).getAll();
+        given(certificateService.getAll(CertificateSerial.valueOf(10), 1)).willReturn(new SliceImpl<>(Collections
+                .singletonList
+                (certificateListItemDto), new PageRequest(0, 1), true));
 
+        mvc.perform(
+                get("/certificates")
+                        .param("after", "10")
+                        .param("size", "1")
+                        .contentType(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
+                        .accept(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
+        )
+                .andExpect(authenticated())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].serial", is(1)))
+                .andExpect(jsonPath("$.links[0].rel", is("sign")))
+                .andExpect(jsonPath("$.links[0].href", is("http://localhost/certificates")))
+                .andExpect(jsonPath("$.links[1].rel", is("next")))
+                .andExpect(jsonPath("$.links[1].href", is("http://localhost/certificates?after=1&size=1")));
+    }
+
+    @Test
+    public void getAllAsUnauthenticated() throws Exception {
         mvc.perform(
                 get("/certificates")
                         .contentType(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
@@ -367,8 +603,12 @@ public class CertificatesControllerIT {
         certificateListItemDto.setValid(true);
         certificateListItemDto.setUse("plain");
         certificateListItemDto.setSubject("subject");
-        certificateListItemDto.setSerial(BigInteger.ONE);
+        certificateListItemDto.setSerial(CertificateSerial.valueOf(1));
         certificateListItemDto.setUserId(DEFAULT_USER_ID);
         return certificateListItemDto;
     }
-}
\ No newline at end of file
+
+    private PemCertificateDto makePemCertificateDto() {
+        return new PemCertificateDto("certificate".getBytes(), TEST_ETAG);
+    }
+}
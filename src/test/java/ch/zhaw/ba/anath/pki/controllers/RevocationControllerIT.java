@@ -30,8 +30,9 @@
 package ch.zhaw.ba.anath.pki.controllers;
 
 import ch.zhaw.ba.anath.TestSecuritySetup;
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
 import ch.zhaw.ba.anath.pki.dto.RevocationReasonDto;
-import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
+import ch.zhaw.ba.anath.pki.repositories.ArchivedCertificateRepository;
 import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
 import ch.zhaw.ba.anath.pki.services.RevocationService;
 import ch.zhaw.ba.anath.users.repositories.UserRepository;
@@ -47,8 +48,6 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 
-import java.math.BigInteger;
-
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
 import static org.mockito.Matchers.anyString;
@@ -82,6 +81,9 @@ public class RevocationControllerIT {
     @MockBean
     private CertificateRepository certificateRepository;
 
+    @MockBean
+    private ArchivedCertificateRepository archivedCertificateRepository;
+
     @Test
     @WithMockUser(username = "admin", roles = {"ADMIN"})
     public void revokeAsAdmin() throws Exception {
@@ -89,53 +91,49 @@ public class RevocationControllerIT {
         revocationReasonDto.setReason("test");
 
         mvc.perform(
-                put("/certificates/{serial}/revoke", BigInteger.ONE)
+                put("/certificates/{serial}/revoke", CertificateSerial.valueOf(1))
                         .contentType(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
                         .content(OBJECT_MAPPER.writeValueAsBytes(revocationReasonDto))
         )
                 .andExpect(authenticated())
                 .andExpect(status().isOk());
 
-        then(revocationService).should().revokeCertificate(BigInteger.ONE, "test");
+        then(revocationService).should().revokeCertificate(CertificateSerial.valueOf(1), "test");
     }
 
     @Test
     @WithMockUser(username = "user", roles = {"USER"})
     public void revokeAsUser() throws Exception {
 
-        final CertificateEntity certificateEntity = new CertificateEntity();
-        certificateEntity.setUserId("user");
-        given(certificateRepository.findOneBySerial(BigInteger.ONE)).willReturn(java.util.Optional.of
-                (certificateEntity));
+        given(certificateRepository.findUserIdBySerial(CertificateSerial.valueOf(1))).willReturn(java.util.Optional.of
+                ("user"));
 
         final RevocationReasonDto revocationReasonDto = new RevocationReasonDto();
         revocationReasonDto.setReason("test");
 
         mvc.perform(
-                put("/certificates/{serial}/revoke", BigInteger.ONE)
+                put("/certificates/{serial}/revoke", CertificateSerial.valueOf(1))
                         .contentType(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
                         .content(OBJECT_MAPPER.writeValueAsBytes(revocationReasonDto))
         )
                 .andExpect(authenticated())
                 .andExpect(status().isOk());
 
-        then(revocationService).should().revokeCertificate(BigInteger.ONE, "test");
+        then(revocationService).should().revokeCertificate(CertificateSerial.valueOf(1), "test");
     }
 
     @Test
     @WithMockUser(username = "user", roles = {"USER"})
     public void revokeAsUserNotAuthorized() throws Exception {
 
-        final CertificateEntity certificateEntity = new CertificateEntity();
-        certificateEntity.setUserId("another user");
-        given(certificateRepository.findOneBySerial(BigInteger.ONE)).willReturn(java.util.Optional.of
-                (certificateEntity));
+        given(certificateRepository.findUserIdBySerial(CertificateSerial.valueOf(1))).willReturn(java.util.Optional.of
+                ("another user"));
 
         final RevocationReasonDto revocationReasonDto = new RevocationReasonDto();
         revocationReasonDto.setReason("test");
 
         mvc.perform(
-                put("/certificates/{serial}/revoke", BigInteger.ONE)
+                put("/certificates/{serial}/revoke", CertificateSerial.valueOf(1))
                         .contentType(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
                         .content(OBJECT_MAPPER.writeValueAsBytes(revocationReasonDto))
         )
@@ -151,7 +149,7 @@ public class RevocationControllerIT {
         revocationReasonDto.setReason("test");
 
         mvc.perform(
-                put("/certificates/{serial}/revoke", BigInteger.ONE)
+                put("/certificates/{serial}/revoke", CertificateSerial.valueOf(1))
                         .contentType(AnathMediaType.APPLICATION_VND_ANATH_V1_JSON)
                         .content(OBJECT_MAPPER.writeValueAsBytes(revocationReasonDto))
         )
@@ -32,6 +32,7 @@ package ch.zhaw.ba.anath.pki.controllers;
 import ch.zhaw.ba.anath.TestSecuritySetup;
 import ch.zhaw.ba.anath.config.properties.AnathProperties;
 import ch.zhaw.ba.anath.pki.core.Certificate;
+import ch.zhaw.ba.anath.pki.repositories.ArchivedCertificateRepository;
 import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
 import ch.zhaw.ba.anath.pki.services.SigningService;
 import ch.zhaw.ba.anath.users.repositories.UserRepository;
@@ -89,6 +90,9 @@ public class SigningControllerWithConfirmationIT {
     @MockBean
     private CertificateRepository certificateRepository;
 
+    @MockBean
+    private ArchivedCertificateRepository archivedCertificateRepository;
+
     private Certificate certificate;
 
     @Before
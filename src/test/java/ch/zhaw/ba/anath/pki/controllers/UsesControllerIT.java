@@ -34,6 +34,7 @@ import ch.zhaw.ba.anath.TestSecuritySetup;
 import ch.zhaw.ba.anath.pki.dto.UpdateUseDto;
 import ch.zhaw.ba.anath.pki.dto.UseDto;
 import ch.zhaw.ba.anath.pki.dto.UseItemDto;
+import ch.zhaw.ba.anath.pki.repositories.ArchivedCertificateRepository;
 import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
 import ch.zhaw.ba.anath.pki.services.UseService;
 import ch.zhaw.ba.anath.users.repositories.UserRepository;
@@ -83,6 +84,9 @@ public class UsesControllerIT {
     @MockBean
     private CertificateRepository certificateRepository;
 
+    @MockBean
+    private ArchivedCertificateRepository archivedCertificateRepository;
+
     @Test
     @WithMockUser(username = "admin", roles = {"ADMIN"})
     public void getAllAsAdmin() throws Exception {
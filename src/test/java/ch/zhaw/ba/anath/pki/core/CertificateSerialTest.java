@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package ch.zhaw.ba.anath.pki.core;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * @author Rafael Ostertag
+ */
+public class CertificateSerialTest {
+    private static final BigInteger MAXIMUM = BigInteger.ONE.shiftLeft(160).subtract(BigInteger.ONE);
+    private static final BigInteger LARGE = new BigInteger("17592162074607144164").shiftLeft(64).add(BigInteger
+            .valueOf(42));
+
+    @Test
+    public void ofAndToBigInteger() {
+        assertThat(CertificateSerial.of(BigInteger.ZERO).toBigInteger(), is(BigInteger.ZERO));
+        assertThat(CertificateSerial.of(BigInteger.TEN).toBigInteger(), is(BigInteger.TEN));
+        assertThat(CertificateSerial.of(LARGE).toBigInteger(), is(LARGE));
+        assertThat(CertificateSerial.of(MAXIMUM).toBigInteger(), is(MAXIMUM));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ofNegative() {
+        CertificateSerial.of(BigInteger.valueOf(-1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void ofTooLarge() {
+        CertificateSerial.of(MAXIMUM.add(BigInteger.ONE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void valueOfNegativeLong() {
+        CertificateSerial.valueOf(-1L);
+    }
+
+    @Test
+    public void toStringIsDecimal() {
+        assertThat(CertificateSerial.ZERO.toString(), is("0"));
+        assertThat(CertificateSerial.valueOf(120).toString(), is("120"));
+        assertThat(CertificateSerial.valueOf(1_000_000_000L).toString(), is("1000000000"));
+        assertThat(CertificateSerial.of(LARGE).toString(), is(LARGE.toString()));
+        assertThat(CertificateSerial.of(MAXIMUM).toString(), is(MAXIMUM.toString()));
+    }
+
+    @Test
+    public void valueOfString() {
+        assertThat(CertificateSerial.valueOf("0"), is(CertificateSerial.ZERO));
+        assertThat(CertificateSerial.valueOf("120"), is(CertificateSerial.valueOf(120)));
+        assertThat(CertificateSerial.valueOf(LARGE.toString()), is(CertificateSerial.of(LARGE)));
+        assertThat(CertificateSerial.valueOf(MAXIMUM.toString()), is(CertificateSerial.of(MAXIMUM)));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void valueOfStringTooLarge() {
+        CertificateSerial.valueOf(MAXIMUM.add(BigInteger.ONE).toString());
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void valueOfStringNegative() {
+        CertificateSerial.valueOf("-1");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void valueOfStringNotANumber() {
+        CertificateSerial.valueOf("1a");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void valueOfStringEmpty() {
+        CertificateSerial.valueOf("");
+    }
+
+    @Test
+    public void bytes() {
+        final byte[] expected = new byte[CertificateSerial.LENGTH];
+        expected[CertificateSerial.LENGTH - 2] = 0x01;
+        expected[CertificateSerial.LENGTH - 1] = 0x02;
+        assertArrayEquals(expected, CertificateSerial.valueOf(0x0102).toBytes());
+
+        final CertificateSerial large = CertificateSerial.of(LARGE);
+        assertThat(CertificateSerial.fromBytes(large.toBytes()), is(large));
+        assertThat(CertificateSerial.fromBytes(CertificateSerial.of(MAXIMUM).toBytes()).toBigInteger(), is(MAXIMUM));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromBytesWrongLength() {
+        CertificateSerial.fromBytes(new byte[16]);
+    }
+
+    @Test
+    public void compareTo() {
+        final CertificateSerial one = CertificateSerial.valueOf(1);
+        final CertificateSerial highBitSet = CertificateSerial.of(BigInteger.ONE.shiftLeft(63));
+        final CertificateSerial large = CertificateSerial.of(LARGE);
+        final CertificateSerial maximum = CertificateSerial.of(MAXIMUM);
+
+        assertThat(one.compareTo(highBitSet), is(lessThan(0)));
+        assertThat(highBitSet.compareTo(large), is(lessThan(0)));
+        assertThat(large.compareTo(maximum), is(lessThan(0)));
+        assertThat(maximum.compareTo(one), is(greaterThan(0)));
+        assertThat(large.compareTo(CertificateSerial.of(LARGE)), is(0));
+    }
+
+    @Test
+    public void equalsAndHashCode() {
+        assertThat(CertificateSerial.of(LARGE), is(equalTo(CertificateSerial.valueOf(LARGE.toString()))));
+        assertThat(CertificateSerial.of(LARGE).hashCode(), is(CertificateSerial.valueOf(LARGE.toString()).hashCode()));
+        assertThat(CertificateSerial.valueOf(1), is(not(equalTo(CertificateSerial.valueOf(2)))));
+    }
+}
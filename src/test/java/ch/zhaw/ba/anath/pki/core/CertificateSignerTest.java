@@ -30,11 +30,14 @@
 package ch.zhaw.ba.anath.pki.core;
 
 import ch.zhaw.ba.anath.pki.core.exceptions.CertificateConstraintException;
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
 import org.junit.Test;
 
 import java.io.*;
 import java.util.Date;
 
+import static junit.framework.TestCase.assertFalse;
 import static junit.framework.TestCase.assertTrue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
@@ -74,6 +77,35 @@ public class CertificateSignerTest {
             assertThat(certificate.getValidFrom(), is(notNullValue()));
             assertThat(certificate.getValidTo().getTime(), is(greaterThan((new Date()).getTime())));
             assertThat(certificate.getSubject(), is(notNullValue()));
+
+            final ExtendedKeyUsage extendedKeyUsage = ExtendedKeyUsage.fromExtensions(certificate
+                    .getCertificateHolder().getExtensions());
+            assertTrue(extendedKeyUsage.hasKeyPurposeId(KeyPurposeId.id_kp_clientAuth));
+            assertFalse(extendedKeyUsage.hasKeyPurposeId(KeyPurposeId.id_kp_serverAuth));
+        }
+    }
+
+    @Test
+    public void signServerCertificate() throws IOException {
+        try (
+                InputStreamReader caKey = new InputStreamReader(new FileInputStream(TestConstants.CA_KEY_FILE_NAME));
+                InputStreamReader caCert = new InputStreamReader(new FileInputStream(TestConstants.CA_CERT_FILE_NAME));
+                InputStreamReader csr = new InputStreamReader(new FileInputStream(TestConstants.CLIENT_CSR_FILE_NAME))
+        ) {
+            final PEMCertificateAuthorityReader pemCertificateAuthorityReader = new PEMCertificateAuthorityReader
+                    (caKey, caCert);
+            final CertificateSigner certificateSigner = new CertificateSigner(new Sha512WithRsa(),
+                    pemCertificateAuthorityReader.certificateAuthority());
+
+            final CertificateSigningRequest certificateSigningRequest = new PEMCertificateSigningRequestReader(csr)
+                    .certificationRequest();
+            final Certificate certificate = certificateSigner.signCertificate(certificateSigningRequest,
+                    KeyPurposeId.id_kp_serverAuth);
+
+            final ExtendedKeyUsage extendedKeyUsage = ExtendedKeyUsage.fromExtensions(certificate
+                    .getCertificateHolder().getExtensions());
+            assertTrue(extendedKeyUsage.hasKeyPurposeId(KeyPurposeId.id_kp_serverAuth));
+            assertFalse(extendedKeyUsage.hasKeyPurposeId(KeyPurposeId.id_kp_clientAuth));
         }
     }
 
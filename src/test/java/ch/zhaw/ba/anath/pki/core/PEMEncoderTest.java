@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.core;
+
+import org.bouncycastle.util.io.pem.PemObject;
+import org.bouncycastle.util.io.pem.PemWriter;
+import org.junit.Test;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Rafael Ostertag
+ */
+public class PEMEncoderTest {
+
+    @Test
+    public void encodeCertificate() throws Exception {
+        final Certificate certificate;
+        try (InputStreamReader caCert = new InputStreamReader(new FileInputStream(TestConstants.CA_CERT_FILE_NAME))) {
+            certificate = new PEMCertificateReader(caCert).certificate();
+        }
+
+        final byte[] pem = PEMEncoder.encodeCertificate(certificate.getCertificate());
+
+        final byte[] expected = Files.readAllBytes(Paths.get(TestConstants.CA_CERT_FILE_NAME));
+        assertThat(new String(pem, StandardCharsets.US_ASCII), is(new String(expected, StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    public void encodeCrl() throws IOException {
+        final byte[] der = randomBytes(100);
+        assertThat(new String(PEMEncoder.encodeCrl(der), StandardCharsets.US_ASCII), is(pemWriterOutput
+                (PEMEncoder.X509_CRL, der)));
+    }
+
+    @Test
+    public void encodeMatchesPemWriterForAllLengths() throws IOException {
+        // Covers all paddings, as well as objects ending exactly on and just beyond line boundaries.
+        for (int length = 0; length <= 200; length++) {
+            final byte[] der = randomBytes(length);
+            final String actual = new String(PEMEncoder.encode(PEMEncoder.CERTIFICATE, der), StandardCharsets
+                    .US_ASCII);
+            assertThat("Length " + length, actual, is(pemWriterOutput(PEMEncoder.CERTIFICATE, der)));
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        final byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String pemWriterOutput(String type, byte[] der) throws IOException {
+        final StringWriter stringWriter = new StringWriter();
+        try (PemWriter pemWriter = new PemWriter(stringWriter)) {
+            pemWriter.writeObject(new PemObject(type, der));
+        }
+        return stringWriter.toString();
+    }
+}
@@ -34,8 +34,6 @@ import org.bouncycastle.asn1.x500.X500NameBuilder;
 import org.bouncycastle.asn1.x500.style.BCStyle;
 import org.bouncycastle.asn1.x500.style.RFC4519Style;
 
-import java.math.BigInteger;
-
 /**
  * @author Rafael Ostertag
  */
@@ -112,7 +110,7 @@ public final class TestConstants {
             .addRDN(BCStyle.E, "rafi@guengel.ch")
             .build();
 
-    public static final BigInteger CA_CERT_SERIAL = new BigInteger("17592162074607144164");
+    public static final CertificateSerial CA_CERT_SERIAL = CertificateSerial.valueOf("17592162074607144164");
 
     private TestConstants() {
         // intentionally empty
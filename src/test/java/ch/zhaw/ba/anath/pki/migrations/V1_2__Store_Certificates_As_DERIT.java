@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.migrations;
+
+import ch.zhaw.ba.anath.config.spring.PKIDatasourceConfiguration;
+import ch.zhaw.ba.anath.pki.core.PEMCertificateReader;
+import ch.zhaw.ba.anath.pki.core.PEMEncoder;
+import ch.zhaw.ba.anath.pki.core.TestConstants;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Runs the PKI migrations against an empty database, inserts PEM encoded data using the schema before
+ * {@link V1_2__Store_Certificates_As_DER}, and verifies the conversion.
+ *
+ * @author Rafael Ostertag
+ */
+public class V1_2__Store_Certificates_As_DERIT {
+    private static final byte[] CRL_DER = new byte[]{0x30, 0x03, 0x02, 0x01, 0x01};
+    private JdbcDataSource dataSource;
+    private Flyway flyway;
+
+    @Before
+    public void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:migrationtest;MODE=POSTGRESQL;DB_CLOSE_DELAY=-1");
+
+        flyway = new Flyway();
+        flyway.setDataSource(dataSource);
+        flyway.setLocations("/flyway/pki", "classpath:ch/zhaw/ba/anath/pki/migrations");
+        flyway.setPlaceholders(Collections.singletonMap(PKIDatasourceConfiguration.SECURE_STORE_KEY_ID_PLACEHOLDER,
+                ""));
+        flyway.clean();
+    }
+
+    @Test
+    public void migrate() throws Exception {
+        flyway.setTarget(MigrationVersion.fromVersion("1.1"));
+        flyway.migrate();
+
+        final byte[] certificatePem = Files.readAllBytes(Paths.get(TestConstants.CA_CERT_FILE_NAME));
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO certificates (serial_number, " +
+                    "not_valid_before, not_valid_after, subject, status, user_id, x509_cert_pem, certificate_use) " +
+                    "VALUES (1, current_timestamp, current_timestamp, 'subject', 'VALID', 'user', ?, 'plain')")) {
+                insert.setBytes(1, certificatePem);
+                insert.executeUpdate();
+            }
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO crl (this_update, next_update, " +
+                    "x509_crl_pem) VALUES (current_timestamp, current_timestamp, ?)")) {
+                insert.setBytes(1, PEMEncoder.encodeCrl(CRL_DER));
+                insert.executeUpdate();
+            }
+        }
+
+        flyway.setTarget(MigrationVersion.LATEST);
+        flyway.migrate();
+
+        final byte[] expectedCertificateDer;
+        try (InputStreamReader caCert = new InputStreamReader(new FileInputStream(TestConstants.CA_CERT_FILE_NAME))) {
+            expectedCertificateDer = new PEMCertificateReader(caCert).certificate().getCertificate();
+        }
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            try (ResultSet resultSet = statement.executeQuery("SELECT x509_cert_der FROM certificates")) {
+                assertThat(resultSet.next(), is(true));
+                assertArrayEquals(expectedCertificateDer, resultSet.getBytes(1));
+            }
+            try (ResultSet resultSet = statement.executeQuery("SELECT x509_crl_der FROM crl")) {
+                assertThat(resultSet.next(), is(true));
+                assertArrayEquals(CRL_DER, resultSet.getBytes(1));
+            }
+            try (ResultSet resultSet = connection.getMetaData().getColumns(null, null, "CERTIFICATES",
+                    "X509_CERT_PEM")) {
+                assertThat(resultSet.next(), is(false));
+            }
+        }
+    }
+}
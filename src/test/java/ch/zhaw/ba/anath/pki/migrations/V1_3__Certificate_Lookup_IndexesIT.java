@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package ch.zhaw.ba.anath.pki.migrations;
+
+import ch.zhaw.ba.anath.config.spring.PKIDatasourceConfiguration;
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Runs the PKI migrations against an empty database in PostgreSQL mode, seeds it with a large number of
+ * certificates, and verifies that the plans of the {@link ch.zhaw.ba.anath.pki.repositories.CertificateRepository}
+ * lookups use the indexes created by {@code V1.3__Certificate_Lookup_Indexes.sql}. Only lookups H2 plans the same way
+ * as PostgreSQL are verified.
+ *
+ * @author Rafael Ostertag
+ */
+public class V1_3__Certificate_Lookup_IndexesIT {
+    private static final int CERTIFICATES = 20_000;
+    private static final int USERS = 200;
+    private static final int BATCH_SIZE = 500;
+    private static final long ONE_YEAR = 365L * 24 * 60 * 60 * 1000;
+    private static final String TABLE_SCAN = "tableScan";
+    private JdbcDataSource dataSource;
+
+    @Before
+    public void setUp() throws Exception {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:indextest;MODE=POSTGRESQL;DB_CLOSE_DELAY=-1");
+
+        final Flyway flyway = new Flyway();
+        flyway.setDataSource(dataSource);
+        flyway.setLocations("/flyway/pki", "classpath:ch/zhaw/ba/anath/pki/migrations");
+        flyway.setPlaceholders(Collections.singletonMap(PKIDatasourceConfiguration.SECURE_STORE_KEY_ID_PLACEHOLDER,
+                ""));
+        flyway.clean();
+        flyway.migrate();
+
+        seed();
+    }
+
+    private void seed() throws Exception {
+        final long now = System.currentTimeMillis();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO certificates (serial_number, " +
+                     "not_valid_before, not_valid_after, subject, status, revocation_time, user_id, " +
+                     "x509_cert_der, certificate_use) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 'plain')")) {
+            for (int i = 1; i <= CERTIFICATES; i++) {
+                final boolean revoked = i % 10 == 0;
+                insert.setBytes(1, CertificateSerial.valueOf(i).toBytes());
+                insert.setTimestamp(2, new Timestamp(now - ONE_YEAR));
+                insert.setTimestamp(3, new Timestamp(now + (i % 2 == 0 ? ONE_YEAR : -1)));
+                insert.setString(4, "CN=subject" + i);
+                insert.setString(5, revoked ? "REVOKED" : "VALID");
+                insert.setTimestamp(6, revoked ? new Timestamp(now - i) : null);
+                insert.setString(7, "user" + (i % USERS));
+                insert.setBytes(8, new byte[]{0x30, 0x00});
+                insert.addBatch();
+
+                if (i % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE");
+        }
+    }
+
+    private String explain(String query) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("EXPLAIN " + query)) {
+            assertThat(resultSet.next(), is(true));
+            return resultSet.getString(1);
+        }
+    }
+
+    private void assertUsesIndex(String query, String index) throws Exception {
+        final String plan = explain(query);
+        assertThat(plan, containsString(index));
+        assertThat(plan, not(containsString(TABLE_SCAN)));
+    }
+
+    @Test
+    public void findOne() throws Exception {
+        assertUsesIndex("SELECT * FROM certificates WHERE id = 42", "PRIMARY_KEY");
+    }
+
+    @Test
+    public void findAllByUserId() throws Exception {
+        assertUsesIndex("SELECT * FROM certificates WHERE user_id = 'user42'",
+                "CERTIFICATES_USER_ID_SERIAL_NUMBER_IDX");
+    }
+
+    @Test
+    public void findAllByUserIdAndStatus() throws Exception {
+        assertUsesIndex("SELECT * FROM certificates WHERE user_id = 'user42' AND status = 'VALID'",
+                "CERTIFICATES_USER_ID_SERIAL_NUMBER_IDX");
+    }
+
+    @Test
+    public void existsValidBySubject() throws Exception {
+        assertUsesIndex("SELECT count(*) FROM certificates WHERE subject = 'CN=subject42' AND status = 'VALID' " +
+                        "AND not_valid_after >= current_timestamp AND not_valid_before < current_timestamp",
+                "CERTIFICATES_VALID_SUBJECT_IDX");
+    }
+
+    @Test
+    public void findAllRevoked() throws Exception {
+        assertUsesIndex("SELECT * FROM certificates WHERE status = 'REVOKED' AND not_valid_after > " +
+                "current_timestamp ORDER BY revocation_time ASC", "CERTIFICATES_REVOKED_IDX");
+    }
+}
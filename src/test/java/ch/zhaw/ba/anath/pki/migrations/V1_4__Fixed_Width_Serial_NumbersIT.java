@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package ch.zhaw.ba.anath.pki.migrations;
+
+import ch.zhaw.ba.anath.config.spring.PKIDatasourceConfiguration;
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Runs the PKI migrations against an empty database, inserts certificates using the schema before
+ * {@link V1_4__Fixed_Width_Serial_Numbers}, and verifies the conversion of the serial numbers.
+ *
+ * @author Rafael Ostertag
+ */
+public class V1_4__Fixed_Width_Serial_NumbersIT {
+    private static final BigInteger LARGE_SERIAL = BigInteger.ONE.shiftLeft(127).add(BigInteger.ONE);
+    private JdbcDataSource dataSource;
+    private Flyway flyway;
+
+    @Before
+    public void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:serialmigrationtest;MODE=POSTGRESQL;DB_CLOSE_DELAY=-1");
+
+        flyway = new Flyway();
+        flyway.setDataSource(dataSource);
+        flyway.setLocations("/flyway/pki", "classpath:ch/zhaw/ba/anath/pki/migrations");
+        flyway.setPlaceholders(Collections.singletonMap(PKIDatasourceConfiguration.SECURE_STORE_KEY_ID_PLACEHOLDER,
+                ""));
+        flyway.clean();
+    }
+
+    @Test
+    public void migrate() throws Exception {
+        flyway.setTarget(MigrationVersion.fromVersion("1.3"));
+        flyway.migrate();
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO certificates (serial_number, " +
+                     "not_valid_before, not_valid_after, subject, status, user_id, x509_cert_der, certificate_use) " +
+                     "VALUES (?, current_timestamp, current_timestamp, ?, 'VALID', 'user', X'3000', 'plain')")) {
+            insert.setBigDecimal(1, new BigDecimal(LARGE_SERIAL));
+            insert.setString(2, "large");
+            insert.executeUpdate();
+
+            insert.setBigDecimal(1, BigDecimal.valueOf(2));
+            insert.setString(2, "small");
+            insert.executeUpdate();
+        }
+
+        flyway.setTarget(MigrationVersion.LATEST);
+        flyway.migrate();
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT serial_number, subject FROM certificates ORDER " +
+                     "BY serial_number")) {
+            assertThat(resultSet.next(), is(true));
+            assertThat(CertificateSerial.fromBytes(resultSet.getBytes(1)), is(CertificateSerial.valueOf(2)));
+            assertThat(resultSet.getString(2), is("small"));
+
+            assertThat(resultSet.next(), is(true));
+            assertThat(CertificateSerial.fromBytes(resultSet.getBytes(1)), is(CertificateSerial.of(LARGE_SERIAL)));
+            assertThat(resultSet.getString(2), is("large"));
+
+            assertThat(resultSet.next(), is(false));
+        }
+    }
+
+    @Test
+    public void toFixedWidth() {
+        assertThat(CertificateSerial.fromBytes(V1_4__Fixed_Width_Serial_Numbers.toFixedWidth(LARGE_SERIAL)), is
+                (CertificateSerial.of(LARGE_SERIAL)));
+        assertThat(CertificateSerial.fromBytes(V1_4__Fixed_Width_Serial_Numbers.toFixedWidth(BigInteger.ONE)), is
+                (CertificateSerial.valueOf(1)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void toFixedWidthNegative() {
+        V1_4__Fixed_Width_Serial_Numbers.toFixedWidth(BigInteger.valueOf(-1));
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.migrations;
+
+import ch.zhaw.ba.anath.config.spring.PKIDatasourceConfiguration;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Runs the PKI migrations against an empty database, inserts rows using identity ids before
+ * {@link V1_6__Pooled_Sequence_Ids}, and verifies the start of the sequences.
+ *
+ * @author Rafael Ostertag
+ */
+public class V1_6__Pooled_Sequence_IdsIT {
+    private JdbcDataSource dataSource;
+    private Flyway flyway;
+
+    @Before
+    public void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:sequencemigrationtest;MODE=POSTGRESQL;DB_CLOSE_DELAY=-1");
+
+        flyway = new Flyway();
+        flyway.setDataSource(dataSource);
+        flyway.setLocations("/flyway/pki", "classpath:ch/zhaw/ba/anath/pki/migrations");
+        flyway.setPlaceholders(Collections.singletonMap(PKIDatasourceConfiguration.SECURE_STORE_KEY_ID_PLACEHOLDER,
+                ""));
+        flyway.clean();
+    }
+
+    @Test
+    public void migrate() throws Exception {
+        flyway.setTarget(MigrationVersion.fromVersion("1.5"));
+        flyway.migrate();
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO crl (this_update, next_update, x509_crl_der) VALUES (current_timestamp, " +
+                    "current_timestamp, X'3000')");
+            statement.execute("INSERT INTO crl (this_update, next_update, x509_crl_der) VALUES (current_timestamp, " +
+                    "current_timestamp, X'3000')");
+        }
+
+        flyway.setTarget(MigrationVersion.LATEST);
+        flyway.migrate();
+
+        // The pooled optimizer allocates the ids (value - allocation size, value] from a sequence value.
+        assertThat(nextValue("crl_seq"), is(2L + V1_6__Pooled_Sequence_Ids.ALLOCATION_SIZE));
+        assertThat(nextValue("crl_seq"), is(2L + 2 * V1_6__Pooled_Sequence_Ids.ALLOCATION_SIZE));
+        assertThat(nextValue("certificates_seq"), is((long) V1_6__Pooled_Sequence_Ids.ALLOCATION_SIZE));
+        assertThat(nextValue("certificates_archive_seq"), is((long) V1_6__Pooled_Sequence_Ids.ALLOCATION_SIZE));
+    }
+
+    private long nextValue(String sequence) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(String.format("SELECT NEXTVAL('%s')", sequence))) {
+            assertThat(resultSet.next(), is(true));
+            return resultSet.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.migrations;
+
+import ch.zhaw.ba.anath.config.spring.PKIDatasourceConfiguration;
+import ch.zhaw.ba.anath.pki.services.SecureStoreService;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Runs the PKI migrations against an empty database, inserts secure store rows without key id before
+ * {@code V1.7__Secure_Store_Legacy_Key_Id}, and verifies the key id they are stamped with.
+ *
+ * @author Rafael Ostertag
+ */
+public class V1_7__Secure_Store_Legacy_Key_IdIT {
+    private JdbcDataSource dataSource;
+    private Flyway flyway;
+
+    @Before
+    public void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:legacykeyidmigrationtest;MODE=POSTGRESQL;DB_CLOSE_DELAY=-1");
+
+        flyway = new Flyway();
+        flyway.setDataSource(dataSource);
+        flyway.setLocations("/flyway/pki", "classpath:ch/zhaw/ba/anath/pki/migrations");
+        flyway.clean();
+    }
+
+    @Test
+    public void migrate() throws Exception {
+        final String keyId = SecureStoreService.keyIdOf("legacy secret");
+        migrateWithLegacyRow(keyId);
+
+        assertThat(legacyRowKeyId(), is(keyId));
+    }
+
+    @Test
+    public void migrateWithoutSecretKey() throws Exception {
+        migrateWithLegacyRow("");
+
+        assertThat(legacyRowKeyId(), is(nullValue()));
+    }
+
+    private void migrateWithLegacyRow(String keyId) throws Exception {
+        flyway.setPlaceholders(Collections.singletonMap(PKIDatasourceConfiguration.SECURE_STORE_KEY_ID_PLACEHOLDER,
+                keyId));
+        flyway.setTarget(MigrationVersion.fromVersion("1.6"));
+        flyway.migrate();
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO secure (key, encrypted_data, iv, algo) VALUES ('legacy', X'00', X'00', " +
+                    "'AES/CBC/PKCS5Padding')");
+        }
+
+        flyway.setTarget(MigrationVersion.LATEST);
+        flyway.migrate();
+    }
+
+    private String legacyRowKeyId() throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT key_id FROM secure WHERE key = 'legacy'")) {
+            assertThat(resultSet.next(), is(true));
+            return resultSet.getString(1);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.repositories;
+
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
+import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
+import ch.zhaw.ba.anath.pki.entities.CertificateStatus;
+import ch.zhaw.ba.anath.pki.entities.UseEntity;
+import ch.zhaw.ba.anath.pki.services.CertificateArchiveService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import java.sql.Timestamp;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Count the JDBC statements prepared for operations on {@value #ROWS} certificates. Ids are allocated from a pooled
+ * sequence and statements are sent in JDBC batches, hence the count is proportional to the number of batches, not
+ * the number of rows.
+ *
+ * @author Rafael Ostertag
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("tests")
+@TestPropertySource(properties = {
+        "anath.secret-key=abcdefghijklmnopqrst1234",
+        "anath.certificate-archive.retention=30",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Transactional(transactionManager = "pkiTransactionManager")
+public class CertificateRepositoryBatchingIT {
+    private static final int ROWS = 1000;
+    private static final long FORTY_DAYS = 40L * 24 * 60 * 60 * 1000;
+    // 20 batches of 50 statements, and one sequence call per 50 ids.
+    private static final long MAXIMUM_STATEMENTS = 2 * ROWS / 50;
+
+    @PersistenceContext(unitName = "pki")
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory pkiEntityManagerFactory;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private CertificateArchiveService certificateArchiveService;
+
+    private Statistics statistics;
+
+    @Before
+    public void setUp() {
+        statistics = pkiEntityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private void insertCertificates(long notValidAfter) {
+        final UseEntity useEntity = entityManager.getReference(UseEntity.class, UseEntity.DEFAULT_USE);
+        for (int i = 1; i <= ROWS; i++) {
+            final CertificateEntity certificateEntity = new CertificateEntity();
+            certificateEntity.setSerial(CertificateSerial.valueOf(i));
+            certificateEntity.setNotValidBefore(new Timestamp(notValidAfter - FORTY_DAYS));
+            certificateEntity.setNotValidAfter(new Timestamp(notValidAfter));
+            certificateEntity.setSubject("CN=subject" + i);
+            certificateEntity.setStatus(CertificateStatus.VALID);
+            certificateEntity.setUserId("user");
+            certificateEntity.setX509DERCertificate(new byte[]{0x30, 0x00});
+            certificateEntity.setUse(useEntity);
+            certificateRepository.save(certificateEntity);
+        }
+        flushAndClear();
+    }
+
+    private void flushAndClear() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void insert() {
+        statistics.clear();
+        insertCertificates(System.currentTimeMillis() + FORTY_DAYS);
+
+        assertThat(statistics.getEntityInsertCount(), is((long) ROWS));
+        assertThat(statistics.getPrepareStatementCount(), is(lessThanOrEqualTo(MAXIMUM_STATEMENTS)));
+    }
+
+    @Test
+    public void revoke() {
+        insertCertificates(System.currentTimeMillis() + FORTY_DAYS);
+
+        statistics.clear();
+        final List<CertificateEntity> certificateEntities = certificateRepository.findAll();
+        final Timestamp revocationTime = new Timestamp(System.currentTimeMillis());
+        for (CertificateEntity certificateEntity : certificateEntities) {
+            certificateEntity.setStatus(CertificateStatus.REVOKED);
+            certificateEntity.setRevocationReason("test");
+            certificateEntity.setRevocationTime(revocationTime);
+        }
+        flushAndClear();
+
+        assertThat(statistics.getEntityUpdateCount(), is((long) ROWS));
+        // One additional statement for loading the certificates.
+        assertThat(statistics.getPrepareStatementCount(), is(lessThanOrEqualTo(ROWS / 50 + 1L)));
+    }
+
+    @Test
+    public void archive() {
+        insertCertificates(System.currentTimeMillis() - FORTY_DAYS);
+
+        statistics.clear();
+        assertThat(certificateArchiveService.archiveExpired(ROWS), is(ROWS));
+        flushAndClear();
+
+        assertThat(statistics.getEntityInsertCount(), is((long) ROWS));
+        // One additional statement each for loading and deleting the certificates.
+        assertThat(statistics.getPrepareStatementCount(), is(lessThanOrEqualTo(MAXIMUM_STATEMENTS + 2)));
+    }
+}
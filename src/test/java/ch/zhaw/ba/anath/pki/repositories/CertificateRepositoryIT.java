@@ -30,21 +30,25 @@
 package ch.zhaw.ba.anath.pki.repositories;
 
 import ch.zhaw.ba.anath.TestHelper;
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
 import ch.zhaw.ba.anath.pki.core.UuidCertificateSerialProvider;
 import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
 import ch.zhaw.ba.anath.pki.entities.CertificateStatus;
 import ch.zhaw.ba.anath.pki.entities.UseEntity;
+import ch.zhaw.ba.anath.pki.repositories.projections.CertificateListItemProjection;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
-import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.PersistenceException;
 import java.math.BigInteger;
 import java.sql.Timestamp;
 import java.util.List;
@@ -53,6 +57,7 @@ import java.util.Optional;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.collection.IsCollectionWithSize.hasSize;
 import static org.hamcrest.core.Is.is;
 
@@ -152,6 +157,93 @@ public class CertificateRepositoryIT {
         assertThat(valid.get(0), is(equalTo(certificateEntity2)));
     }
 
+    @Test
+    public void findListItemsBySerialGreaterThan() {
+        final CertificateEntity certificateEntity1 = makeCertificateEntity(CertificateSerial.valueOf(3));
+        final CertificateEntity certificateEntity2 = makeCertificateEntity(CertificateSerial.valueOf(1));
+        final CertificateEntity certificateEntity3 = makeCertificateEntity(CertificateSerial.valueOf(2));
+        certificateEntity3.setUserId("another user id");
+
+        testEntityManager.persist(certificateEntity1);
+        testEntityManager.persist(certificateEntity2);
+        testEntityManager.persistAndFlush(certificateEntity3);
+        testEntityManager.clear();
+
+        final Slice<CertificateListItemProjection> firstSlice = certificateRepository
+                .findListItemsBySerialGreaterThan(CertificateSerial.ZERO, new PageRequest(0, 2));
+        assertThat(firstSlice.hasNext(), is(true));
+        assertThat(firstSlice.getContent(), hasSize(2));
+        assertThat(firstSlice.getContent().get(0).getSerial(), is(CertificateSerial.valueOf(1)));
+        assertThat(firstSlice.getContent().get(1).getSerial(), is(CertificateSerial.valueOf(2)));
+
+        final CertificateListItemProjection projection = firstSlice.getContent().get(1);
+        assertThat(projection.getSubject(), is(TEST_SUBJECT));
+        assertThat(projection.getUse(), is(UseEntity.DEFAULT_USE));
+        assertThat(projection.getStatus(), is(CertificateStatus.VALID));
+        assertThat(projection.getUserId(), is("another user id"));
+        assertThat(projection.getNotValidBefore(), is(notNullValue()));
+        assertThat(projection.getNotValidAfter(), is(notNullValue()));
+
+        final Slice<CertificateListItemProjection> secondSlice = certificateRepository
+                .findListItemsBySerialGreaterThan(CertificateSerial.valueOf(2), new PageRequest(0, 2));
+        assertThat(secondSlice.hasNext(), is(false));
+        assertThat(secondSlice.getContent(), hasSize(1));
+        assertThat(secondSlice.getContent().get(0).getSerial(), is(CertificateSerial.valueOf(3)));
+    }
+
+    @Test
+    public void findListItemsBySerialGreaterThanOrdersLargeSerialsLast() {
+        final CertificateSerial large = CertificateSerial.of(BigInteger.ONE.shiftLeft(127));
+        final CertificateEntity certificateEntity1 = makeCertificateEntity(large);
+        final CertificateEntity certificateEntity2 = makeCertificateEntity(CertificateSerial.valueOf(1));
+
+        testEntityManager.persist(certificateEntity1);
+        testEntityManager.persistAndFlush(certificateEntity2);
+        testEntityManager.clear();
+
+        final Slice<CertificateListItemProjection> slice = certificateRepository
+                .findListItemsBySerialGreaterThan(CertificateSerial.ZERO, new PageRequest(0, 2));
+        assertThat(slice.getContent(), hasSize(2));
+        assertThat(slice.getContent().get(0).getSerial(), is(CertificateSerial.valueOf(1)));
+        assertThat(slice.getContent().get(1).getSerial(), is(large));
+
+        final Optional<CertificateEntity> found = certificateRepository.findOneBySerial(CertificateSerial.of(BigInteger
+                .ONE.shiftLeft(127)));
+        assertThat(found.isPresent(), is(true));
+    }
+
+    @Test
+    public void findListItemsByUserIdAndSerialGreaterThan() {
+        final CertificateEntity certificateEntity1 = makeCertificateEntity(CertificateSerial.valueOf(3));
+        final CertificateEntity certificateEntity2 = makeCertificateEntity(CertificateSerial.valueOf(1));
+        final CertificateEntity certificateEntity3 = makeCertificateEntity(CertificateSerial.valueOf(2));
+        certificateEntity3.setUserId("another user id");
+
+        testEntityManager.persist(certificateEntity1);
+        testEntityManager.persist(certificateEntity2);
+        testEntityManager.persistAndFlush(certificateEntity3);
+        testEntityManager.clear();
+
+        final Slice<CertificateListItemProjection> firstSlice = certificateRepository
+                .findListItemsByUserIdAndSerialGreaterThan(TEST_USER_ID, CertificateSerial.ZERO, new PageRequest(0,
+                        1));
+        assertThat(firstSlice.hasNext(), is(true));
+        assertThat(firstSlice.getContent(), hasSize(1));
+        assertThat(firstSlice.getContent().get(0).getSerial(), is(CertificateSerial.valueOf(1)));
+
+        final Slice<CertificateListItemProjection> secondSlice = certificateRepository
+                .findListItemsByUserIdAndSerialGreaterThan(TEST_USER_ID, CertificateSerial.valueOf(1), new
+                        PageRequest(0, 1));
+        assertThat(secondSlice.hasNext(), is(false));
+        assertThat(secondSlice.getContent(), hasSize(1));
+        assertThat(secondSlice.getContent().get(0).getSerial(), is(CertificateSerial.valueOf(3)));
+
+        final Slice<CertificateListItemProjection> noSlice = certificateRepository
+                .findListItemsByUserIdAndSerialGreaterThan("does not exist", CertificateSerial.ZERO, new
+                        PageRequest(0, 1));
+        assertThat(noSlice.getContent(), is(empty()));
+    }
+
     @Test
     public void save() {
         final CertificateEntity certificateEntity = makeCertificateEntity();
@@ -161,7 +253,33 @@ public class CertificateRepositoryIT {
         testEntityManager.clear();
     }
 
-    @Test(expected = DataIntegrityViolationException.class)
+    @Test
+    public void findUserIdBySerial() {
+        final CertificateEntity certificateEntity = makeCertificateEntity();
+        testEntityManager.persistAndFlush(certificateEntity);
+
+        assertThat(certificateRepository.findUserIdBySerial(certificateEntity.getSerial()), is(Optional.of
+                (TEST_USER_ID)));
+        assertThat(certificateRepository.findUserIdBySerial(CertificateSerial.valueOf(1)), is(Optional.empty()));
+    }
+
+    @Test
+    public void findAllRevokedSerials() {
+        final CertificateEntity certificateEntity1 = makeCertificateEntity();
+        certificateEntity1.setStatus(CertificateStatus.REVOKED);
+        final CertificateEntity certificateEntity2 = makeCertificateEntity();
+        certificateEntity2.setSubject("another subject");
+
+        testEntityManager.persistAndFlush(certificateEntity1);
+        testEntityManager.persistAndFlush(certificateEntity2);
+
+        final List<CertificateSerial> revokedSerials = certificateRepository.findAllRevokedSerials();
+        assertThat(revokedSerials, hasSize(1));
+        assertThat(revokedSerials.get(0), is(certificateEntity1.getSerial()));
+    }
+
+    // Inserts are batched, hence the unique constraint is violated when the session is flushed, not upon save.
+    @Test(expected = PersistenceException.class)
     public void saveDuplicateSerial() {
         final CertificateEntity certificateEntity = makeCertificateEntity();
 
@@ -180,12 +298,16 @@ public class CertificateRepositoryIT {
     }
 
     private CertificateEntity makeCertificateEntity() {
+        return makeCertificateEntity(CertificateSerial.of(uuidCertificateSerialProvider.serial()));
+    }
+
+    private CertificateEntity makeCertificateEntity(CertificateSerial serial) {
         final CertificateEntity certificateEntity = new CertificateEntity();
-        certificateEntity.setSerial(uuidCertificateSerialProvider.serial());
+        certificateEntity.setSerial(serial);
         certificateEntity.setNotValidBefore(nowTimestamp());
         certificateEntity.setNotValidAfter(nowTimestamp());
         certificateEntity.setSubject(TEST_SUBJECT);
-        certificateEntity.setX509PEMCertificate(new byte[]{'a'});
+        certificateEntity.setX509DERCertificate(new byte[]{'a'});
         certificateEntity.setStatus(CertificateStatus.VALID);
         certificateEntity.setUserId(TEST_USER_ID);
 
@@ -210,7 +332,7 @@ public class CertificateRepositoryIT {
                 .getSerial());
         assertThat(found.isPresent(), is(true));
 
-        final Optional<CertificateEntity> notFound = certificateRepository.findOneBySerial(BigInteger.ZERO);
+        final Optional<CertificateEntity> notFound = certificateRepository.findOneBySerial(CertificateSerial.ZERO);
         assertThat(notFound.isPresent(), is(false));
     }
 
@@ -228,6 +350,40 @@ public class CertificateRepositoryIT {
         assertThat(allBySubject, hasSize(0));
     }
 
+    @Test
+    public void existsValidBySubject() {
+        final CertificateEntity certificateEntity = makeCertificateEntity();
+        certificateEntity.setNotValidBefore(TestHelper.timeInPast());
+        certificateEntity.setNotValidAfter(TestHelper.timeInFuture());
+        testEntityManager.persistAndFlush(certificateEntity);
+        testEntityManager.clear();
+
+        assertThat(certificateRepository.existsValidBySubject(TEST_SUBJECT), is(true));
+        assertThat(certificateRepository.existsValidBySubject("should not exist"), is(false));
+    }
+
+    @Test
+    public void existsValidBySubjectIgnoresRevokedAndExpired() {
+        final CertificateEntity revoked = makeCertificateEntity();
+        revoked.setNotValidBefore(TestHelper.timeInPast());
+        revoked.setNotValidAfter(TestHelper.timeInFuture());
+        revoked.setStatus(CertificateStatus.REVOKED);
+        testEntityManager.persistAndFlush(revoked);
+
+        final CertificateEntity expired = makeCertificateEntity();
+        expired.setNotValidBefore(TestHelper.timeEvenMoreInPast());
+        expired.setNotValidAfter(TestHelper.timeInPast());
+        testEntityManager.persistAndFlush(expired);
+
+        final CertificateEntity notYetValid = makeCertificateEntity();
+        notYetValid.setNotValidBefore(TestHelper.timeInFuture());
+        notYetValid.setNotValidAfter(TestHelper.timeEvenFurtherInFuture());
+        testEntityManager.persistAndFlush(notYetValid);
+        testEntityManager.clear();
+
+        assertThat(certificateRepository.existsValidBySubject(TEST_SUBJECT), is(false));
+    }
+
     @Test
     public void findAllRevoked() {
         List<CertificateEntity> allRevokedEmpty = certificateRepository.findAllRevoked();
@@ -242,7 +398,7 @@ public class CertificateRepositoryIT {
         final CertificateEntity revokedCertificateEntity1 = makeCertificateEntity();
         revokedCertificateEntity1.setNotValidAfter(TestHelper.timeInFuture());
         revokedCertificateEntity1.setSubject(TEST_SUBJECT + "another1");
-        revokedCertificateEntity1.setSerial(BigInteger.ONE.add(BigInteger.ONE));
+        revokedCertificateEntity1.setSerial(CertificateSerial.valueOf(2));
         revokedCertificateEntity1.setStatus(CertificateStatus.REVOKED);
         revokedCertificateEntity1.setRevocationTime(new Timestamp(TEST_REVOKE_TIMESTAMP));
         testEntityManager.persistAndFlush(revokedCertificateEntity1);
@@ -253,7 +409,7 @@ public class CertificateRepositoryIT {
         final CertificateEntity revokedCertificateEntity2 = makeCertificateEntity();
         revokedCertificateEntity2.setNotValidAfter(TestHelper.timeInFuture());
         revokedCertificateEntity2.setSubject(TEST_SUBJECT + "another2");
-        revokedCertificateEntity2.setSerial(BigInteger.ONE.add(BigInteger.ONE).add(BigInteger.ONE));
+        revokedCertificateEntity2.setSerial(CertificateSerial.valueOf(3));
         revokedCertificateEntity2.setStatus(CertificateStatus.REVOKED);
         revokedCertificateEntity2.setRevocationTime(new Timestamp(TEST_REVOKE_TIMESTAMP + TEST_REVOKE_TIMESTAMP));
         testEntityManager.persistAndFlush(revokedCertificateEntity2);
@@ -265,7 +421,7 @@ public class CertificateRepositoryIT {
 
         final CertificateEntity revokedCertificateEntity3 = makeCertificateEntity();
         revokedCertificateEntity3.setSubject(TEST_SUBJECT + "another3");
-        revokedCertificateEntity3.setSerial(BigInteger.ONE.add(BigInteger.ONE).add(BigInteger.ONE).add(BigInteger.ONE));
+        revokedCertificateEntity3.setSerial(CertificateSerial.valueOf(4));
         revokedCertificateEntity3.setStatus(CertificateStatus.REVOKED);
         // intentionally don't set the revocation time. The certificate has revoked status, thus the application must
         // handle such broken revocations.
@@ -284,7 +440,7 @@ public class CertificateRepositoryIT {
         final CertificateEntity revokedCertificateEntity1 = makeCertificateEntity();
         revokedCertificateEntity1.setNotValidAfter(TestHelper.timeInPast());
         revokedCertificateEntity1.setSubject(TEST_SUBJECT + "another1");
-        revokedCertificateEntity1.setSerial(BigInteger.ONE);
+        revokedCertificateEntity1.setSerial(CertificateSerial.valueOf(1));
         revokedCertificateEntity1.setStatus(CertificateStatus.REVOKED);
         revokedCertificateEntity1.setRevocationTime(new Timestamp(TEST_REVOKE_TIMESTAMP));
         testEntityManager.persistAndFlush(revokedCertificateEntity1);
@@ -79,7 +79,7 @@ public class CrlRepositoryIT {
         final CrlEntity crlEntity = new CrlEntity();
         crlEntity.setThisUpdate(new Timestamp(1));
         crlEntity.setNextUpdate(new Timestamp(2));
-        crlEntity.setX509PEMCrl(new byte[]{'a'});
+        crlEntity.setX509DERCrl(new byte[]{'a'});
         return crlEntity;
     }
 
@@ -88,19 +88,19 @@ public class CrlRepositoryIT {
         final CrlEntity crlEntity1 = new CrlEntity();
         crlEntity1.setThisUpdate(new Timestamp(1));
         crlEntity1.setNextUpdate(new Timestamp(2));
-        crlEntity1.setX509PEMCrl(new byte[]{'a'});
+        crlEntity1.setX509DERCrl(new byte[]{'a'});
         testEntityManager.persistAndFlush(crlEntity1);
 
         final CrlEntity crlEntity2 = new CrlEntity();
         crlEntity2.setThisUpdate(new Timestamp(10));
         crlEntity2.setNextUpdate(new Timestamp(20));
-        crlEntity2.setX509PEMCrl(new byte[]{'b'});
+        crlEntity2.setX509DERCrl(new byte[]{'b'});
         testEntityManager.persistAndFlush(crlEntity2);
 
         final List<CrlEntity> allOrderByThisUpdateDesc = crlRepository.findAllOrderByThisUpdateDesc();
         assertThat(allOrderByThisUpdateDesc, hasSize(2));
 
-        assertThat(allOrderByThisUpdateDesc.get(0).getX509PEMCrl(), is(equalTo(new byte[]{'b'})));
+        assertThat(allOrderByThisUpdateDesc.get(0).getX509DERCrl(), is(equalTo(new byte[]{'b'})));
     }
 
     @Test
@@ -125,4 +125,16 @@ public class CrlRepositoryIT {
         final Optional<CrlEntity> none = crlRepository.findOne(crlEntity.getId());
         assertThat(none.isPresent(), is(false));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void deleteAllInBulk() {
+        testEntityManager.persist(makeDefaultEntity());
+        testEntityManager.persist(makeDefaultEntity());
+        testEntityManager.flush();
+
+        assertThat(crlRepository.deleteAllInBulk(), is(2));
+        testEntityManager.clear();
+
+        assertThat(crlRepository.findAllOrderByThisUpdateDesc(), is(empty()));
+    }
+}
@@ -30,7 +30,6 @@
 package ch.zhaw.ba.anath.pki.repositories;
 
 import ch.zhaw.ba.anath.pki.entities.UseEntity;
-import org.apache.commons.lang.ArrayUtils;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -137,7 +136,7 @@ public class UseRepositoryIT {
     public void delete() {
         final UseEntity useEntity = new UseEntity();
 
-        useEntity.setConfig(ArrayUtils.toObject("abc".getBytes()));
+        useEntity.setConfig("abc".getBytes());
         useEntity.setUse("openvpn");
 
         testEntityManager.persistAndFlush(useEntity);
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.services;
+
+import ch.zhaw.ba.anath.TestHelper;
+import ch.zhaw.ba.anath.pki.core.Certificate;
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
+import ch.zhaw.ba.anath.pki.dto.CertificateResponseDto;
+import ch.zhaw.ba.anath.pki.entities.ArchivedCertificateEntity;
+import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
+import ch.zhaw.ba.anath.pki.entities.UseEntity;
+import ch.zhaw.ba.anath.pki.exceptions.CertificateNotFoundException;
+import ch.zhaw.ba.anath.pki.repositories.ArchivedCertificateRepository;
+import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Rafael Ostertag
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("tests")
+@TestPropertySource(properties = {
+        "anath.secret-key=abcdefghijklmnopqrst1234",
+        "anath.certificate-archive.retention=30"
+})
+@Transactional(transactionManager = "pkiTransactionManager")
+public class CertificateArchiveServiceIT extends CertificateAuthorityInitializer {
+    @Autowired
+    private CertificateArchiveService certificateArchiveService;
+
+    @Autowired
+    private CertificateService certificateService;
+
+    @Autowired
+    private SigningService signingService;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private ArchivedCertificateRepository archivedCertificateRepository;
+
+    @Before
+    public void setUp() throws IOException {
+        initializeCa();
+    }
+
+    private CertificateSerial signAndAddCertificateExpiredDaysAgo(int days) throws IOException {
+        final Certificate certificate = TestHelper.signAndAddCertificate(signingService, UseEntity.DEFAULT_USE);
+        final CertificateEntity certificateEntity = certificateRepository.findOneBySerial(certificate.getSerial())
+                .get();
+        certificateEntity.setNotValidAfter(Timestamp.from(Instant.now().minus(days, ChronoUnit.DAYS)));
+        flushAndClear();
+        return certificate.getSerial();
+    }
+
+    @Test
+    public void archiveExpired() throws IOException {
+        final CertificateSerial archived = signAndAddCertificateExpiredDaysAgo(31);
+        final CertificateSerial retained = signAndAddCertificateExpiredDaysAgo(29);
+
+        assertThat(certificateArchiveService.hasExpired(), is(true));
+        assertThat(certificateArchiveService.archiveExpired(10), is(1));
+        flushAndClear();
+
+        assertThat(certificateRepository.findOneBySerial(archived).isPresent(), is(false));
+        assertThat(certificateRepository.findOneBySerial(retained).isPresent(), is(true));
+
+        final ArchivedCertificateEntity archivedCertificateEntity = archivedCertificateRepository.findOneBySerial
+                (archived).get();
+        assertThat(archivedCertificateEntity.getUseName(), is(UseEntity.DEFAULT_USE));
+        assertThat(archivedCertificateRepository.findOneBySerial(retained).isPresent(), is(false));
+        assertThat(archivedCertificateRepository.findUserIdBySerial(archived), is(Optional.of(archivedCertificateEntity
+                .getUserId())));
+
+        assertThat(certificateArchiveService.hasExpired(), is(false));
+        assertThat(certificateArchiveService.archiveExpired(10), is(0));
+    }
+
+    @Test
+    public void archiveExpiredInBatches() throws IOException {
+        signAndAddCertificateExpiredDaysAgo(33);
+        signAndAddCertificateExpiredDaysAgo(32);
+        signAndAddCertificateExpiredDaysAgo(31);
+
+        assertThat(certificateArchiveService.archiveExpired(2), is(2));
+        flushAndClear();
+        assertThat(certificateArchiveService.archiveExpired(2), is(1));
+        flushAndClear();
+        assertThat(certificateArchiveService.archiveExpired(2), is(0));
+    }
+
+    @Test
+    public void archivedCertificateRetrievableBySerial() throws IOException {
+        final CertificateSerial archived = signAndAddCertificateExpiredDaysAgo(31);
+        final String pemBeforeArchival = certificateService.getPlainPEMEncodedCertificate(archived);
+        certificateArchiveService.archiveExpired(10);
+        flushAndClear();
+
+        final CertificateResponseDto certificateResponseDto = certificateService.getCertificate(archived);
+        assertThat(certificateResponseDto.getCert().getPem(), is(pemBeforeArchival));
+        assertThat(certificateResponseDto.getUse(), is(UseEntity.DEFAULT_USE));
+        assertThat(certificateResponseDto.getValidity().isExpired(), is(true));
+        assertThat(certificateService.getPlainPEMEncodedCertificate(archived), is(pemBeforeArchival));
+    }
+
+    @Test
+    public void archivedCertificateNotListed() throws IOException {
+        final CertificateSerial archived = signAndAddCertificateExpiredDaysAgo(31);
+        certificateArchiveService.archiveExpired(10);
+        flushAndClear();
+
+        assertThat(certificateService.getAll(null, 100).getContent(), is(empty()));
+        assertThat(certificateRepository.findAll(), not(hasItem(hasProperty("serial", is(archived)))));
+    }
+
+    @Test(expected = CertificateNotFoundException.class)
+    public void getCertificateNeitherExistingNorArchived() {
+        certificateService.getCertificate(CertificateSerial.valueOf(10));
+    }
+}
@@ -55,7 +55,6 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.Base64;
-import java.util.Optional;
 
 import static ch.zhaw.ba.anath.pki.services.CertificateAuthorityService.SECURE_STORE_CA_CERTIFICATE;
 import static ch.zhaw.ba.anath.pki.services.CertificateAuthorityService.SECURE_STORE_CA_PRIVATE_KEY;
@@ -151,10 +150,8 @@ public class CertificateAuthorityInitializationServiceIT {
 
         certificateAuthorityInitializationService.importPkcs12CertificateAuthority(importCertificateAuthorityDto);
 
-        final Optional<Byte[]> optionalCaCert = secureStoreService.get(SECURE_STORE_CA_CERTIFICATE);
-        assertThat(optionalCaCert.isPresent(), is(true));
-        final Optional<Byte[]> optionalCaKey = secureStoreService.get(SECURE_STORE_CA_PRIVATE_KEY);
-        assertThat(optionalCaKey.isPresent(), is(true));
+        assertThat(secureStoreService.contains(SECURE_STORE_CA_CERTIFICATE), is(true));
+        assertThat(secureStoreService.contains(SECURE_STORE_CA_PRIVATE_KEY), is(true));
         final String crlPemEncoded = revocationService.getCrlPemEncoded();
         assertThat(crlPemEncoded, is(notNullValue()));
 
@@ -172,10 +169,8 @@ public class CertificateAuthorityInitializationServiceIT {
         }
 
         certificateAuthorityInitializationService.importPkcs12CertificateAuthority(importCertificateAuthorityDto);
-        final Optional<Byte[]> optionalCaCert = secureStoreService.get(SECURE_STORE_CA_CERTIFICATE);
-        assertThat(optionalCaCert.isPresent(), is(true));
-        final Optional<Byte[]> optionalCaKey = secureStoreService.get(SECURE_STORE_CA_PRIVATE_KEY);
-        assertThat(optionalCaKey.isPresent(), is(true));
+        assertThat(secureStoreService.contains(SECURE_STORE_CA_CERTIFICATE), is(true));
+        assertThat(secureStoreService.contains(SECURE_STORE_CA_PRIVATE_KEY), is(true));
         final String crlPemEncoded = revocationService.getCrlPemEncoded();
         assertThat(crlPemEncoded, is(notNullValue()));
 
@@ -194,10 +189,8 @@ public class CertificateAuthorityInitializationServiceIT {
         }
 
         certificateAuthorityInitializationService.importPkcs12CertificateAuthority(importCertificateAuthorityDto);
-        final Optional<Byte[]> optionalCaCert = secureStoreService.get(SECURE_STORE_CA_CERTIFICATE);
-        assertThat(optionalCaCert.isPresent(), is(true));
-        final Optional<Byte[]> optionalCaKey = secureStoreService.get(SECURE_STORE_CA_PRIVATE_KEY);
-        assertThat(optionalCaKey.isPresent(), is(true));
+        assertThat(secureStoreService.contains(SECURE_STORE_CA_CERTIFICATE), is(true));
+        assertThat(secureStoreService.contains(SECURE_STORE_CA_PRIVATE_KEY), is(true));
         final String crlPemEncoded = revocationService.getCrlPemEncoded();
         assertThat(crlPemEncoded, is(notNullValue()));
 
@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.services;
+
+import ch.zhaw.ba.anath.TestHelper;
+import ch.zhaw.ba.anath.pki.core.Certificate;
+import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
+import ch.zhaw.ba.anath.pki.entities.CertificateStatus;
+import ch.zhaw.ba.anath.pki.entities.UseEntity;
+import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Rafael Ostertag
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("tests")
+@TestPropertySource(properties = {
+        "anath.secret-key=abcdefghijklmnopqrst1234"
+})
+@Transactional(transactionManager = "pkiTransactionManager")
+public class CertificateExportServiceIT extends CertificateAuthorityInitializer {
+    private static final long ONE_DAY_IN_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    @Autowired
+    private CertificateExportService certificateExportService;
+
+    @Autowired
+    private SigningService signingService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CertificateArchiveService certificateArchiveService;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Before
+    public void setUp() throws IOException {
+        initializeCa();
+    }
+
+    @Test
+    public void exportEmpty() throws IOException {
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        final long count = certificateExportService.exportAsNdjson(null, null, null, null, false,
+                byteArrayOutputStream);
+
+        assertThat(count, is(0L));
+        assertThat(byteArrayOutputStream.size(), is(0));
+    }
+
+    @Test
+    public void exportAll() throws IOException {
+        final Certificate certificate = TestHelper.signAndAddCertificate(signingService, UseEntity.DEFAULT_USE);
+
+        final ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        final long count = certificateExportService.exportAsNdjson(null, null, null, null, false,
+                byteArrayOutputStream);
+        assertThat(count, is(1L));
+
+        final String export = byteArrayOutputStream.toString("US-ASCII");
+        assertThat(export, endsWith("\n"));
+        final String[] lines = export.split("\n");
+        assertThat(lines, arrayWithSize(1));
+
+        final JsonNode line = objectMapper.readTree(lines[0]);
+        assertThat(line.get("serial").bigIntegerValue(), is(certificate.getSerial().toBigInteger()));
+        assertThat(line.get("subject").asText(), is(certificate.getSubject().toString()));
+        assertThat(line.get("use").asText(), is(UseEntity.DEFAULT_USE));
+        assertThat(line.get("status").asText(), is("VALID"));
+        assertThat(line.get("userId").asText(), is(TestHelper.TEST_USER_ID));
+        assertThat(line.get("notBefore").asLong(), is(certificate.getValidFrom().getTime()));
+        assertThat(line.get("notAfter").asLong(), is(certificate.getValidTo().getTime()));
+        assertThat(line.get("revocationReason").isNull(), is(true));
+        assertThat(line.get("pem").asText(), startsWith("-----BEGIN CERTIFICATE-----"));
+    }
+
+    @Test
+    public void exportByStatus() throws IOException {
+        TestHelper.signAndAddCertificate(signingService, UseEntity.DEFAULT_USE);
+
+        assertThat(export(CertificateStatus.VALID, null, null, null), is(1L));
+        assertThat(export(CertificateStatus.REVOKED, null, null, null), is(0L));
+    }
+
+    @Test
+    public void exportByUserId() throws IOException {
+        TestHelper.signAndAddCertificate(signingService, UseEntity.DEFAULT_USE);
+
+        assertThat(export(null, TestHelper.TEST_USER_ID, null, null), is(1L));
+        assertThat(export(null, "another user", null, null), is(0L));
+    }
+
+    @Test
+    public void exportByValidityWindow() throws IOException {
+        final Certificate certificate = TestHelper.signAndAddCertificate(signingService, UseEntity.DEFAULT_USE);
+        final long validFrom = certificate.getValidFrom().getTime();
+        final long validTo = certificate.getValidTo().getTime();
+
+        assertThat(export(null, null, new Date(validFrom - ONE_DAY_IN_MILLIS), new Date(validFrom +
+                ONE_DAY_IN_MILLIS)), is(1L));
+        assertThat(export(null, null, new Date(validTo), null), is(1L));
+        assertThat(export(null, null, null, new Date(validFrom)), is(1L));
+
+        assertThat(export(null, null, new Date(validTo + ONE_DAY_IN_MILLIS), null), is(0L));
+        assertThat(export(null, null, null, new Date(validFrom - ONE_DAY_IN_MILLIS)), is(0L));
+    }
+
+    @Test
+    public void exportByAllFilters() throws IOException {
+        final Certificate certificate = TestHelper.signAndAddCertificate(signingService, UseEntity.DEFAULT_USE);
+        final Date validFrom = certificate.getValidFrom();
+        final Date validTo = certificate.getValidTo();
+
+        assertThat(export(CertificateStatus.VALID, TestHelper.TEST_USER_ID, validFrom, validTo), is(1L));
+        assertThat(export(CertificateStatus.REVOKED, TestHelper.TEST_USER_ID, validFrom, validTo), is(0L));
+        assertThat(export(CertificateStatus.VALID, "another user", validFrom, validTo), is(0L));
+    }
+
+    @Test
+    public void exportIncludingArchived() throws IOException {
+        final Certificate archivedCertificate = TestHelper.signAndAddCertificate(signingService, UseEntity
+                .DEFAULT_USE);
+        final CertificateEntity certificateEntity = certificateRepository.findOneBySerial(archivedCertificate
+                .getSerial()).get();
+        certificateEntity.setNotValidAfter(Timestamp.from(Instant.now().minus(400, ChronoUnit.DAYS)));
+        flushAndClear();
+        assertThat(certificateArchiveService.archiveExpired(10), is(1));
+        flushAndClear();
+        TestHelper.signAndAddCertificate(signingService, UseEntity.DEFAULT_USE);
+
+        assertThat(export(null, null, null, null), is(1L));
+        assertThat(export(null, null, null, null, true), is(2L));
+        assertThat(export(CertificateStatus.VALID, TestHelper.TEST_USER_ID, null, null, true), is(2L));
+        assertThat(export(null, null, new Date(), null, true), is(1L));
+    }
+
+    private long export(CertificateStatus status, String userId, Date validFrom, Date validTo) throws IOException {
+        return export(status, userId, validFrom, validTo, false);
+    }
+
+    private long export(CertificateStatus status, String userId, Date validFrom, Date validTo, boolean
+            includeArchived) throws IOException {
+        return certificateExportService.exportAsNdjson(status, userId, validFrom, validTo, includeArchived, new
+                ByteArrayOutputStream());
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.services;
+
+import ch.zhaw.ba.anath.config.properties.AnathProperties;
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
+import ch.zhaw.ba.anath.pki.core.PEMEncoder;
+import ch.zhaw.ba.anath.pki.dto.PemCertificateDto;
+import ch.zhaw.ba.anath.pki.exceptions.CertificateNotFoundException;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.metrics.Metric;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+
+/**
+ * @author Rafael Ostertag
+ */
+public class CertificatePemCacheTest {
+    private static final byte[] DER = new byte[]{0x30, 0x03, 0x02, 0x01, 0x01};
+    private static final byte[] OTHER_DER = new byte[]{0x30, 0x03, 0x02, 0x01, 0x02};
+    private CertificateService certificateServiceMock;
+    private CertificatePemCache certificatePemCache;
+
+    @Before
+    public void setUp() {
+        certificateServiceMock = mock(CertificateService.class);
+        certificatePemCache = new CertificatePemCache(certificateServiceMock, new AnathProperties());
+    }
+
+    @Test
+    public void getPemCertificate() {
+        given(certificateServiceMock.getDEREncodedCertificate(CertificateSerial.valueOf(1))).willReturn(DER);
+
+        final PemCertificateDto pemCertificate = certificatePemCache.getPemCertificate(CertificateSerial.valueOf(1));
+        assertThat(pemCertificate.getPem(), is(PEMEncoder.encodeCertificate(DER)));
+        assertThat(pemCertificate.getETag(), startsWith("\""));
+        assertThat(pemCertificate.getETag(), endsWith("\""));
+
+        final PemCertificateDto cachedPemCertificate = certificatePemCache.getPemCertificate(CertificateSerial
+                .valueOf(1));
+        assertThat(cachedPemCertificate, is(sameInstance(pemCertificate)));
+
+        then(certificateServiceMock).should(times(1)).getDEREncodedCertificate(CertificateSerial.valueOf(1));
+    }
+
+    @Test
+    public void eTagDependsOnContent() {
+        given(certificateServiceMock.getDEREncodedCertificate(CertificateSerial.valueOf(1))).willReturn(DER);
+        given(certificateServiceMock.getDEREncodedCertificate(CertificateSerial.valueOf(10))).willReturn(OTHER_DER);
+
+        final String eTagOne = certificatePemCache.getPemCertificate(CertificateSerial.valueOf(1)).getETag();
+        final String eTagTen = certificatePemCache.getPemCertificate(CertificateSerial.valueOf(10)).getETag();
+        assertThat(eTagOne, is(not(eTagTen)));
+    }
+
+    @Test
+    public void invalidate() {
+        given(certificateServiceMock.getDEREncodedCertificate(CertificateSerial.valueOf(1))).willReturn(DER);
+
+        certificatePemCache.getPemCertificate(CertificateSerial.valueOf(1));
+        certificatePemCache.invalidate(CertificateSerial.valueOf(1));
+        certificatePemCache.getPemCertificate(CertificateSerial.valueOf(1));
+
+        then(certificateServiceMock).should(times(2)).getDEREncodedCertificate(CertificateSerial.valueOf(1));
+    }
+
+    @Test
+    public void notFoundIsNotCached() {
+        given(certificateServiceMock.getDEREncodedCertificate(CertificateSerial.valueOf(1))).willThrow(new
+                CertificateNotFoundException("not found"));
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                certificatePemCache.getPemCertificate(CertificateSerial.valueOf(1));
+                fail("CertificateNotFoundException expected");
+            } catch (CertificateNotFoundException e) {
+                // expected
+            }
+        }
+
+        then(certificateServiceMock).should(times(2)).getDEREncodedCertificate(CertificateSerial.valueOf(1));
+    }
+
+    @Test
+    public void metrics() {
+        given(certificateServiceMock.getDEREncodedCertificate(CertificateSerial.valueOf(1))).willReturn(DER);
+
+        certificatePemCache.getPemCertificate(CertificateSerial.valueOf(1));
+        certificatePemCache.getPemCertificate(CertificateSerial.valueOf(1));
+        certificatePemCache.getPemCertificate(CertificateSerial.valueOf(1));
+
+        final Map<String, Number> metrics = certificatePemCache.metrics()
+                .stream()
+                .collect(Collectors.toMap(Metric::getName, Metric::getValue));
+        assertThat(metrics.get(CertificatePemCache.METRIC_PREFIX + "size"), is(1L));
+        assertThat(metrics.get(CertificatePemCache.METRIC_PREFIX + "hits"), is(2L));
+        assertThat(metrics.get(CertificatePemCache.METRIC_PREFIX + "misses"), is(1L));
+        assertThat(metrics.get(CertificatePemCache.METRIC_PREFIX + "evictions"), is(0L));
+        assertThat(metrics.get(CertificatePemCache.METRIC_PREFIX + "hit.ratio").doubleValue(), is(closeTo(2.0 /
+                3.0, 0.001)));
+        assertThat(metrics.get(CertificatePemCache.METRIC_PREFIX + "miss.ratio").doubleValue(), is(closeTo(1.0 /
+                3.0, 0.001)));
+    }
+}
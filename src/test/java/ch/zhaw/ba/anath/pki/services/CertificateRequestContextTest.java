@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.services;
+
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
+import ch.zhaw.ba.anath.pki.entities.ArchivedCertificateEntity;
+import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
+import ch.zhaw.ba.anath.pki.repositories.ArchivedCertificateRepository;
+import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+/**
+ * @author Rafael Ostertag
+ */
+public class CertificateRequestContextTest {
+    private static final CertificateSerial SERIAL = CertificateSerial.valueOf(1);
+    private static final CertificateSerial ARCHIVED_SERIAL = CertificateSerial.valueOf(2);
+    private static final CertificateSerial UNKNOWN_SERIAL = CertificateSerial.valueOf(3);
+    private static final String USER_ID = "user";
+    private static final String ARCHIVED_USER_ID = "archived user";
+    private CertificateRepository certificateRepositoryMock;
+    private ArchivedCertificateRepository archivedCertificateRepositoryMock;
+    private CertificateRequestContext certificateRequestContext;
+    private CertificateEntity certificateEntity;
+
+    @Before
+    public void setUp() {
+        certificateRepositoryMock = mock(CertificateRepository.class);
+        archivedCertificateRepositoryMock = mock(ArchivedCertificateRepository.class);
+        certificateRequestContext = new CertificateRequestContext(certificateRepositoryMock,
+                archivedCertificateRepositoryMock);
+        certificateEntity = new CertificateEntity();
+        given(certificateRepositoryMock.findOneBySerial(SERIAL)).willReturn(Optional.of(certificateEntity));
+        given(certificateRepositoryMock.findOneBySerial(ARCHIVED_SERIAL)).willReturn(Optional.empty());
+        given(certificateRepositoryMock.findOneBySerial(UNKNOWN_SERIAL)).willReturn(Optional.empty());
+        given(certificateRepositoryMock.findUserIdBySerial(SERIAL)).willReturn(Optional.of(USER_ID));
+        given(certificateRepositoryMock.findUserIdBySerial(ARCHIVED_SERIAL)).willReturn(Optional.empty());
+        given(certificateRepositoryMock.findUserIdBySerial(UNKNOWN_SERIAL)).willReturn(Optional.empty());
+
+        final ArchivedCertificateEntity archivedCertificateEntity = new ArchivedCertificateEntity();
+        archivedCertificateEntity.setSerial(ARCHIVED_SERIAL);
+        given(archivedCertificateRepositoryMock.findOneBySerial(ARCHIVED_SERIAL)).willReturn(Optional.of
+                (archivedCertificateEntity));
+        given(archivedCertificateRepositoryMock.findOneBySerial(UNKNOWN_SERIAL)).willReturn(Optional.empty());
+        given(archivedCertificateRepositoryMock.findUserIdBySerial(ARCHIVED_SERIAL)).willReturn(Optional.of
+                (ARCHIVED_USER_ID));
+        given(archivedCertificateRepositoryMock.findUserIdBySerial(UNKNOWN_SERIAL)).willReturn(Optional.empty());
+    }
+
+    @After
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void findUserIdBySerialWithinRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        assertThat(certificateRequestContext.findUserIdBySerial(SERIAL).get(), is(USER_ID));
+        assertThat(certificateRequestContext.findUserIdBySerial(SERIAL).get(), is(USER_ID));
+
+        then(certificateRepositoryMock).should(times(1)).findUserIdBySerial(SERIAL);
+        then(certificateRepositoryMock).should(never()).findOneBySerial(SERIAL);
+    }
+
+    @Test
+    public void findUserIdBySerialAcrossRequests() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        certificateRequestContext.findUserIdBySerial(SERIAL);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        certificateRequestContext.findUserIdBySerial(SERIAL);
+
+        then(certificateRepositoryMock).should(times(2)).findUserIdBySerial(SERIAL);
+    }
+
+    @Test
+    public void findUserIdBySerialOutsideRequest() {
+        certificateRequestContext.findUserIdBySerial(SERIAL);
+        certificateRequestContext.findUserIdBySerial(SERIAL);
+
+        then(certificateRepositoryMock).should(times(2)).findUserIdBySerial(SERIAL);
+    }
+
+    @Test
+    public void findUserIdBySerialPrefersCertificates() {
+        assertThat(certificateRequestContext.findUserIdBySerial(SERIAL).get(), is(USER_ID));
+
+        then(archivedCertificateRepositoryMock).should(never()).findUserIdBySerial(SERIAL);
+    }
+
+    @Test
+    public void findUserIdBySerialArchivedWithinRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        assertThat(certificateRequestContext.findUserIdBySerial(ARCHIVED_SERIAL).get(), is(ARCHIVED_USER_ID));
+        assertThat(certificateRequestContext.findUserIdBySerial(ARCHIVED_SERIAL).get(), is(ARCHIVED_USER_ID));
+
+        then(archivedCertificateRepositoryMock).should(times(1)).findUserIdBySerial(ARCHIVED_SERIAL);
+    }
+
+    @Test
+    public void findUserIdBySerialUnknown() {
+        assertThat(certificateRequestContext.findUserIdBySerial(UNKNOWN_SERIAL).isPresent(), is(false));
+    }
+
+    @Test
+    public void findOneBySerialIncludingArchivedWithinRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        certificateRequestContext.findUserIdBySerial(SERIAL);
+
+        assertThat(certificateRequestContext.findOneBySerialIncludingArchived(SERIAL).get(), is(sameInstance
+                (certificateEntity)));
+        certificateRequestContext.findOneBySerialIncludingArchived(SERIAL);
+
+        // Entities are not kept, and are loaded in the transaction of the caller.
+        then(certificateRepositoryMock).should(times(2)).findOneBySerial(SERIAL);
+        then(archivedCertificateRepositoryMock).should(never()).findOneBySerial(SERIAL);
+    }
+
+    @Test
+    public void findOneBySerialIncludingArchivedArchived() {
+        final CertificateEntity archived = certificateRequestContext.findOneBySerialIncludingArchived
+                (ARCHIVED_SERIAL).get();
+        assertThat(archived.getSerial(), is(ARCHIVED_SERIAL));
+        assertThat(archived.getId(), is(nullValue()));
+    }
+
+    @Test
+    public void findOneBySerialIncludingArchivedUnknown() {
+        assertThat(certificateRequestContext.findOneBySerialIncludingArchived(UNKNOWN_SERIAL).isPresent(), is
+                (false));
+    }
+}
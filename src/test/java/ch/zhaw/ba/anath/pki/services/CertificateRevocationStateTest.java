@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.services;
+
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
+import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+
+/**
+ * @author Rafael Ostertag
+ */
+public class CertificateRevocationStateTest {
+    private CertificateRepository certificateRepositoryMock;
+    private CertificateRevocationState certificateRevocationState;
+
+    @Before
+    public void setUp() {
+        certificateRepositoryMock = mock(CertificateRepository.class);
+        certificateRevocationState = new CertificateRevocationState(certificateRepositoryMock);
+    }
+
+    @Test
+    public void isRevokedLoadsOnce() {
+        given(certificateRepositoryMock.findAllRevokedSerials()).willReturn(Arrays.asList(CertificateSerial
+                .valueOf(1), CertificateSerial.valueOf(3)));
+
+        assertThat(certificateRevocationState.isRevoked(CertificateSerial.valueOf(1)), is(true));
+        assertThat(certificateRevocationState.isRevoked(CertificateSerial.valueOf(2)), is(false));
+        assertThat(certificateRevocationState.isRevoked(CertificateSerial.valueOf(3)), is(true));
+
+        then(certificateRepositoryMock).should(times(1)).findAllRevokedSerials();
+    }
+
+    @Test
+    public void revoked() {
+        given(certificateRepositoryMock.findAllRevokedSerials()).willReturn(Collections.emptyList());
+
+        assertThat(certificateRevocationState.isRevoked(CertificateSerial.valueOf(1)), is(false));
+        certificateRevocationState.revoked(CertificateSerial.valueOf(1));
+        assertThat(certificateRevocationState.isRevoked(CertificateSerial.valueOf(1)), is(true));
+
+        then(certificateRepositoryMock).should(times(1)).findAllRevokedSerials();
+    }
+
+    @Test
+    public void revokedBeforeLoad() {
+        certificateRevocationState.revoked(CertificateSerial.valueOf(1));
+
+        then(certificateRepositoryMock).should(never()).findAllRevokedSerials();
+    }
+
+    @Test
+    public void reload() {
+        given(certificateRepositoryMock.findAllRevokedSerials()).willReturn(Collections.emptyList(), Collections
+                .singletonList(CertificateSerial.valueOf(1)));
+
+        assertThat(certificateRevocationState.isRevoked(CertificateSerial.valueOf(1)), is(false));
+        certificateRevocationState.reload();
+        assertThat(certificateRevocationState.isRevoked(CertificateSerial.valueOf(1)), is(true));
+    }
+
+    @Test
+    public void reloadRetainsConcurrentRevocation() {
+        given(certificateRepositoryMock.findAllRevokedSerials()).willReturn(Collections.emptyList());
+        assertThat(certificateRevocationState.isRevoked(CertificateSerial.valueOf(1)), is(false));
+
+        // The revocation is recorded while the reload reads the database, but is not committed yet.
+        given(certificateRepositoryMock.findAllRevokedSerials()).willAnswer(invocation -> {
+            certificateRevocationState.revoked(CertificateSerial.valueOf(1));
+            return Collections.emptyList();
+        });
+        certificateRevocationState.reload();
+        assertThat(certificateRevocationState.isRevoked(CertificateSerial.valueOf(1)), is(true));
+
+        given(certificateRepositoryMock.findAllRevokedSerials()).willReturn(Collections.emptyList());
+        certificateRevocationState.reload();
+        assertThat(certificateRevocationState.isRevoked(CertificateSerial.valueOf(1)), is(true));
+    }
+
+    @Test
+    public void revokedBeforeLoadIsRetained() {
+        given(certificateRepositoryMock.findAllRevokedSerials()).willReturn(Collections.emptyList());
+        certificateRevocationState.revoked(CertificateSerial.valueOf(1));
+
+        assertThat(certificateRevocationState.isRevoked(CertificateSerial.valueOf(1)), is(true));
+    }
+}
@@ -31,6 +31,7 @@ package ch.zhaw.ba.anath.pki.services;
 
 import ch.zhaw.ba.anath.TestHelper;
 import ch.zhaw.ba.anath.pki.core.Certificate;
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
 import ch.zhaw.ba.anath.pki.core.PEMCertificateWriter;
 import ch.zhaw.ba.anath.pki.dto.CertificateListItemDto;
 import ch.zhaw.ba.anath.pki.dto.CertificateResponseDto;
@@ -38,11 +39,13 @@ import ch.zhaw.ba.anath.pki.dto.UseDto;
 import ch.zhaw.ba.anath.pki.dto.bits.CertificateValidityBit;
 import ch.zhaw.ba.anath.pki.entities.UseEntity;
 import ch.zhaw.ba.anath.pki.exceptions.CertificateNotFoundException;
+import ch.zhaw.ba.anath.pki.exceptions.ConfigurationNotFoundException;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
@@ -53,9 +56,7 @@ import javax.persistence.PersistenceContext;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
-import java.math.BigInteger;
-import java.util.Base64;
-import java.util.List;
+import java.io.StringWriter;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
@@ -113,7 +114,7 @@ public class CertificateServiceIT extends CertificateAuthorityInitializer {
 
     @Test(expected = CertificateNotFoundException.class)
     public void getCertificateNonExisting() {
-        certificateService.getCertificate(BigInteger.TEN);
+        certificateService.getCertificate(CertificateSerial.valueOf(10));
     }
 
     private String certificateToPemString(Certificate certificate) {
@@ -135,26 +136,47 @@ public class CertificateServiceIT extends CertificateAuthorityInitializer {
 
     @Test(expected = CertificateNotFoundException.class)
     public void getNonExistingPlainPEMEncodedCertificate() {
-        certificateService.getPlainPEMEncodedCertificate(BigInteger.TEN);
+        certificateService.getPlainPEMEncodedCertificate(CertificateSerial.valueOf(10));
     }
 
     @Test
     public void getAll() throws IOException {
         final Certificate certificate = signAndAddCertificate();
-        final List<CertificateListItemDto> all = certificateService.getAll();
-        assertThat(all, hasSize(1));
+        final Slice<CertificateListItemDto> all = certificateService.getAll(null, 10);
+        assertThat(all.getContent(), hasSize(1));
+        assertThat(all.hasNext(), is(false));
 
-        final CertificateListItemDto certificateListItemDto = all.get(0);
+        final CertificateListItemDto certificateListItemDto = all.getContent().get(0);
         assertThat(certificateListItemDto.getSerial(), is(certificate.getSerial()));
         assertThat(certificateListItemDto.getSubject(), is(certificate.getSubject().toString()));
         assertThat(certificateListItemDto.getUse(), is("plain"));
+        assertThat(certificateListItemDto.isValid(), is(true));
         assertThat(certificateListItemDto.getUserId(), is(TestHelper.TEST_USER_ID));
     }
 
+    @Test
+    public void getAllAfterLastSerial() throws IOException {
+        final Certificate certificate = signAndAddCertificate();
+        final Slice<CertificateListItemDto> all = certificateService.getAll(certificate.getSerial(), 10);
+        assertThat(all.getContent(), is(empty()));
+    }
+
     @Test
     public void getAllEmpty() {
-        final List<CertificateListItemDto> all = certificateService.getAll();
-        assertThat(all, is(empty()));
+        final Slice<CertificateListItemDto> all = certificateService.getAll(null, 10);
+        assertThat(all.getContent(), is(empty()));
+    }
+
+    @Test
+    public void getAllByUserId() throws IOException {
+        final Certificate certificate = signAndAddCertificate();
+        final Slice<CertificateListItemDto> all = certificateService.getAllByUserId(TestHelper.TEST_USER_ID, null,
+                10);
+        assertThat(all.getContent(), hasSize(1));
+        assertThat(all.getContent().get(0).getSerial(), is(certificate.getSerial()));
+
+        final Slice<CertificateListItemDto> none = certificateService.getAllByUserId("another user", null, 10);
+        assertThat(none.getContent(), is(empty()));
     }
 
     @Test
@@ -170,9 +192,13 @@ public class CertificateServiceIT extends CertificateAuthorityInitializer {
         final CertificateResponseDto certificateResponseDto = certificateService.getCertificate(certificate.getSerial
                 ());
 
-        assertThat(certificateResponseDto.getConfig(), is(notNullValue()));
-        final byte[] decodedConfiguration = Base64.getDecoder().decode(certificateResponseDto.getConfig());
-        final String configuration = new String(decodedConfiguration);
+        assertThat(certificateResponseDto.isConfigurationAvailable(), is(true));
+        final StringWriter configurationWriter = new StringWriter();
+        certificateService.writeConfiguration(certificate.getSerial(), use -> {
+            assertThat(use, is(TEST_USE));
+            return configurationWriter;
+        });
+        final String configuration = configurationWriter.toString();
 
         assertThat(configuration, containsString("-----BEGIN CERTIFICATE-----"));
         assertThat(configuration, containsString("-----END CERTIFICATE-----"));
@@ -189,4 +215,12 @@ public class CertificateServiceIT extends CertificateAuthorityInitializer {
         assertThat(validity.isExpired(), is(false));
         assertThat(validity.isRevoked(), is(false));
     }
-}
\ No newline at end of file
+
+    @Test(expected = ConfigurationNotFoundException.class)
+    public void writeConfigurationWithoutConfiguration() throws IOException {
+        final Certificate certificate = signAndAddCertificate();
+        certificateService.writeConfiguration(certificate.getSerial(), use -> {
+            throw new AssertionError("No writer must be requested without configuration");
+        });
+    }
+}
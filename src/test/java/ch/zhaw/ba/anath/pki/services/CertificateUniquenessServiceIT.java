@@ -30,6 +30,7 @@
 package ch.zhaw.ba.anath.pki.services;
 
 import ch.zhaw.ba.anath.TestHelper;
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
 import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
 import ch.zhaw.ba.anath.pki.entities.CertificateStatus;
 import ch.zhaw.ba.anath.pki.entities.UseEntity;
@@ -44,7 +45,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
-import java.math.BigInteger;
 
 /**
  * @author Rafael Ostertag
@@ -116,10 +116,10 @@ public class CertificateUniquenessServiceIT {
         certificateEntity.setNotValidBefore(TestHelper.timeEvenMoreInPast());
         certificateEntity.setNotValidAfter(TestHelper.timeEvenFurtherInFuture());
         certificateEntity.setSubject("subject");
-        certificateEntity.setX509PEMCertificate("cert".getBytes());
+        certificateEntity.setX509DERCertificate("cert".getBytes());
         certificateEntity.setStatus(CertificateStatus.VALID);
         certificateEntity.setUserId("userid");
-        certificateEntity.setSerial(BigInteger.TEN);
+        certificateEntity.setSerial(CertificateSerial.valueOf(10));
 
         final UseEntity useEntity = new UseEntity();
         useEntity.setUse("plain");
@@ -30,24 +30,30 @@
 package ch.zhaw.ba.anath.pki.services;
 
 import ch.zhaw.ba.anath.pki.exceptions.CertificateAuthorityNotInitializedException;
-import org.apache.commons.lang3.ArrayUtils;
+import ch.zhaw.ba.anath.pki.exceptions.TemplateProcessingError;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.StringWriter;
 import java.util.Optional;
 
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 
 /**
  * @author Rafael Ostertag
  */
 public class ConfigurationTemplateServiceTest {
-    private static final String TEST_TEMPLATE = "The CA Cert: ${caCertificate}. The user cert: ${userCertificate}.";
+    private static final byte[] TEST_TEMPLATE = "The CA Cert: ${caCertificate}. The user cert: ${userCertificate}."
+            .getBytes();
+    private static final byte[] OTHER_TEST_TEMPLATE = "CA: ${caCertificate}, User: ${userCertificate}".getBytes();
+    private static final String TEST_USE = "test.use";
 
     private SecureStoreService secureStoreServiceMock;
     private ConfigurationTemplateService configurationTemplateService;
@@ -60,38 +66,106 @@ public class ConfigurationTemplateServiceTest {
 
     @Test(expected = CertificateAuthorityNotInitializedException.class)
     public void processWithNoCa() {
-        given(secureStoreServiceMock.get(CertificateAuthorityService.SECURE_STORE_CA_CERTIFICATE)).willReturn
-                (Optional.empty());
+        given(secureStoreServiceMock.read(eq(CertificateAuthorityService.SECURE_STORE_CA_CERTIFICATE), any()))
+                .willReturn(Optional.empty());
 
-        configurationTemplateService.process("bla", TEST_TEMPLATE);
+        process(TEST_USE, TEST_TEMPLATE, "bla");
     }
 
     @Test
     public void process() {
-        final Byte[] testCa = ArrayUtils.toObject("CA CERT".getBytes());
-        given(secureStoreServiceMock.get(CertificateAuthorityService.SECURE_STORE_CA_CERTIFICATE)).willReturn
-                (Optional.of(testCa));
+        given(secureStoreServiceMock.read(eq(CertificateAuthorityService.SECURE_STORE_CA_CERTIFICATE), any()))
+                .willReturn(Optional.of("CA CERT"));
 
-        final String expandedTemplate = configurationTemplateService.process("USER CERT", TEST_TEMPLATE);
+        final String expandedTemplate = process(TEST_USE, TEST_TEMPLATE, "USER CERT");
 
-        final String expected = "The CA Cert: CA CERT. The user cert USER CERT";
-        assertThat(expandedTemplate, is(expandedTemplate));
+        final String expected = "The CA Cert: CA CERT. The user cert: USER CERT.";
+        assertThat(expandedTemplate, is(expected));
     }
 
     @Test
     public void processMany() {
-        final Byte[] testCa = ArrayUtils.toObject("CA CERT".getBytes());
-        given(secureStoreServiceMock.get(CertificateAuthorityService.SECURE_STORE_CA_CERTIFICATE)).willReturn
-                (Optional.of(testCa));
+        given(secureStoreServiceMock.read(eq(CertificateAuthorityService.SECURE_STORE_CA_CERTIFICATE), any()))
+                .willReturn(Optional.of("CA CERT"));
 
-        String expandedTemplate = configurationTemplateService.process("USER CERT", TEST_TEMPLATE);
-        String expected = "The CA Cert: CA CERT. The user cert USER CERT";
-        assertThat(expandedTemplate, is(expandedTemplate));
+        String expandedTemplate = process(TEST_USE, TEST_TEMPLATE, "USER CERT");
+        String expected = "The CA Cert: CA CERT. The user cert: USER CERT.";
+        assertThat(expandedTemplate, is(expected));
 
-        expandedTemplate = configurationTemplateService.process("USER CERT 2", TEST_TEMPLATE);
-        expected = "The CA Cert: CA CERT. The user cert USER CERT 2";
-        assertThat(expandedTemplate, is(expandedTemplate));
+        expandedTemplate = process(TEST_USE, TEST_TEMPLATE, "USER CERT 2");
+        expected = "The CA Cert: CA CERT. The user cert: USER CERT 2.";
+        assertThat(expandedTemplate, is(expected));
 
-        then(secureStoreServiceMock).should().get(anyString());
+        then(secureStoreServiceMock).should().read(anyString(), any());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void processChangedTemplateOfSameUse() {
+        given(secureStoreServiceMock.read(eq(CertificateAuthorityService.SECURE_STORE_CA_CERTIFICATE), any()))
+                .willReturn(Optional.of("CA CERT"));
+
+        String expandedTemplate = process(TEST_USE, TEST_TEMPLATE, "USER CERT");
+        assertThat(expandedTemplate, is("The CA Cert: CA CERT. The user cert: USER CERT."));
+
+        expandedTemplate = process(TEST_USE, OTHER_TEST_TEMPLATE, "USER CERT");
+        assertThat(expandedTemplate, is("CA: CA CERT, User: USER CERT"));
+    }
+
+    @Test
+    public void processDifferentUses() {
+        given(secureStoreServiceMock.read(eq(CertificateAuthorityService.SECURE_STORE_CA_CERTIFICATE), any()))
+                .willReturn(Optional.of("CA CERT"));
+
+        String expandedTemplate = process(TEST_USE, TEST_TEMPLATE, "USER CERT");
+        assertThat(expandedTemplate, is("The CA Cert: CA CERT. The user cert: USER CERT."));
+
+        expandedTemplate = process("other.use", OTHER_TEST_TEMPLATE, "USER CERT");
+        assertThat(expandedTemplate, is("CA: CA CERT, User: USER CERT"));
+
+        expandedTemplate = process(TEST_USE, TEST_TEMPLATE, "USER CERT 2");
+        assertThat(expandedTemplate, is("The CA Cert: CA CERT. The user cert: USER CERT 2."));
+    }
+
+    @Test
+    public void processAfterInvalidate() {
+        given(secureStoreServiceMock.read(eq(CertificateAuthorityService.SECURE_STORE_CA_CERTIFICATE), any()))
+                .willReturn(Optional.of("CA CERT"));
+
+        process(TEST_USE, TEST_TEMPLATE, "USER CERT");
+        configurationTemplateService.invalidate(TEST_USE);
+
+        final String expandedTemplate = process(TEST_USE, TEST_TEMPLATE, "USER CERT");
+        assertThat(expandedTemplate, is("The CA Cert: CA CERT. The user cert: USER CERT."));
+    }
+
+    @Test
+    public void invalidateUnknownUse() {
+        configurationTemplateService.invalidate("does.not.exist");
+    }
+
+    @Test(expected = TemplateProcessingError.class)
+    public void processInvalidTemplate() {
+        given(secureStoreServiceMock.read(eq(CertificateAuthorityService.SECURE_STORE_CA_CERTIFICATE), any()))
+                .willReturn(Optional.of("CA CERT"));
+
+        process(TEST_USE, "#if(".getBytes(), "USER CERT");
+    }
+
+    @Test
+    public void processIntoWriter() {
+        given(secureStoreServiceMock.read(eq(CertificateAuthorityService.SECURE_STORE_CA_CERTIFICATE), any()))
+                .willReturn(Optional.of("CA CERT"));
+
+        final StringWriter writer = new StringWriter();
+        writer.write("> ");
+        configurationTemplateService.process(TEST_USE, TEST_TEMPLATE, "USER CERT", writer);
+
+        assertThat(writer.toString(), is("> The CA Cert: CA CERT. The user cert: USER CERT."));
+    }
+
+    private String process(String use, byte[] template, String userCertificate) {
+        final StringWriter writer = new StringWriter();
+        configurationTemplateService.process(use, template, userCertificate, writer);
+        return writer.toString();
+    }
+}
@@ -30,6 +30,7 @@
 package ch.zhaw.ba.anath.pki.services;
 
 import ch.zhaw.ba.anath.TestHelper;
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
 import ch.zhaw.ba.anath.pki.core.exceptions.PKIException;
 import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
 import ch.zhaw.ba.anath.pki.entities.CertificateStatus;
@@ -37,6 +38,7 @@ import ch.zhaw.ba.anath.pki.entities.UseEntity;
 import ch.zhaw.ba.anath.pki.exceptions.CertificateAlreadyExistsException;
 import ch.zhaw.ba.anath.pki.exceptions.CertificateNotFoundException;
 import ch.zhaw.ba.anath.pki.repositories.UseRepository;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -44,6 +46,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
@@ -52,7 +55,6 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
-import java.math.BigInteger;
 import java.sql.Timestamp;
 import java.util.concurrent.TimeUnit;
 
@@ -96,7 +98,7 @@ public class ConfirmableCertificatePersistenceLayerImplIT {
             "ZDg7YsEg4AwLsuuIEz1W3ff+OQu6O4/Qe1PTc+/TDJgKd8wq5Nc1oOIMI6J8Ij21\n" +
             "3Pdg9DnfsOnW5/jb/3/ix9zA\n" +
             "-----END CERTIFICATE-----\n";
-    private static final BigInteger TEST_CERTIFICATE_SERIAL = BigInteger.TEN;
+    private static final CertificateSerial TEST_CERTIFICATE_SERIAL = CertificateSerial.valueOf(10);
     private static final String TEST_CERTIFICATE_SUBJECT = "test subject";
     private static final String TEST_USER_ID = "test user id";
     private static final Timestamp TEST_NOT_VALID_BEFORE = new Timestamp(1000000000L);
@@ -112,8 +114,14 @@ public class ConfirmableCertificatePersistenceLayerImplIT {
     @Autowired
     private UseRepository useRepository;
 
+    @Autowired
+    private UseCatalogue useCatalogue;
+
     @MockBean
     private RedisTemplate<ConfirmationKey, CertificateEntity> redisTemplate;
+
+    @MockBean
+    private RedisMessageListenerContainer useChangeListenerContainer;
     private ValueOperations opsForValueMock;
 
     @Before
@@ -122,6 +130,12 @@ public class ConfirmableCertificatePersistenceLayerImplIT {
         given(redisTemplate.opsForValue()).willReturn(opsForValueMock);
     }
 
+    @After
+    public void tearDown() {
+        // The use catalogue might have cached uses of the rolled back transaction
+        useCatalogue.invalidate(UseEntity.DEFAULT_USE);
+    }
+
     @Test
     public void storeAndConfirm() {
         final CertificateEntity certificateEntity = makeTestCertificateEntity();
@@ -183,6 +197,7 @@ public class ConfirmableCertificatePersistenceLayerImplIT {
         // Drop the default use 'plain', the code must panic and throw an exception when no default use is found.
         useRepository.deleteByUse("plain");
         entityManager.flush();
+        useCatalogue.invalidate("plain");
 
         // Play the process
         final CertificateEntity certificateEntity = makeTestCertificateEntity();
@@ -209,7 +224,7 @@ public class ConfirmableCertificatePersistenceLayerImplIT {
         certificateEntity.setUserId(TEST_USER_ID);
         certificateEntity.setNotValidBefore(TEST_NOT_VALID_BEFORE);
         certificateEntity.setNotValidAfter(TEST_NOT_VALID_AFTER);
-        certificateEntity.setX509PEMCertificate(TEST_CERTIFICATE.getBytes());
+        certificateEntity.setX509DERCertificate(TEST_CERTIFICATE.getBytes());
 
         final UseEntity useEntity = new UseEntity();
         useEntity.setUse(TEST_USE);
@@ -29,16 +29,18 @@
 
 package ch.zhaw.ba.anath.pki.services;
 
+import ch.zhaw.ba.anath.pki.core.CertificateSerial;
 import ch.zhaw.ba.anath.pki.entities.CertificateEntity;
+import ch.zhaw.ba.anath.pki.entities.UseEntity;
 import ch.zhaw.ba.anath.pki.exceptions.CertificateNotFoundException;
 import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.math.BigInteger;
 import java.util.Optional;
 
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.then;
@@ -51,33 +53,45 @@ import static org.mockito.Mockito.mock;
 public class ImmediateCertificatePersistenceTest {
     private static final String TEST_USER_ID = "test id";
     private CertificateRepository certificateRepositoryMock;
+    private UseCatalogue useCatalogueMock;
     private ConfirmableCertificatePersistenceLayer immediateCertificatePersistence;
 
     @Before
     public void setUp() {
         this.certificateRepositoryMock = mock(CertificateRepository.class);
-        this.immediateCertificatePersistence = new ImmediateCertificatePersistence(certificateRepositoryMock);
+        this.useCatalogueMock = mock(UseCatalogue.class);
+        this.immediateCertificatePersistence = new ImmediateCertificatePersistence(certificateRepositoryMock,
+                useCatalogueMock);
     }
 
     @Test
     public void store() {
+        final UseEntity useEntity = new UseEntity();
+        useEntity.setUse(UseEntity.DEFAULT_USE);
+        final UseEntity useEntityReference = new UseEntity();
+        useEntityReference.setUse(UseEntity.DEFAULT_USE);
+        given(useCatalogueMock.getReference(useEntity)).willReturn(useEntityReference);
+
         final CertificateEntity certificateEntity = new CertificateEntity();
-        certificateEntity.setSerial(BigInteger.TEN);
+        certificateEntity.setSerial(CertificateSerial.valueOf(10));
+        certificateEntity.setUse(useEntity);
         final String storeToken = immediateCertificatePersistence.store(certificateEntity);
         then(certificateRepositoryMock).should().save(certificateEntity);
 
-        assertThat(storeToken, is(BigInteger.TEN.toString()));
+        assertThat(storeToken, is(CertificateSerial.valueOf(10).toString()));
+        assertThat(certificateEntity.getUse(), is(sameInstance(useEntityReference)));
     }
 
     @Test
     public void confirmExistingCertificate() {
         final CertificateEntity certificateEntity = new CertificateEntity();
-        certificateEntity.setSerial(BigInteger.TEN);
-        given(certificateRepositoryMock.findOneBySerial(BigInteger.TEN)).willReturn(
+        certificateEntity.setSerial(CertificateSerial.valueOf(10));
+        given(certificateRepositoryMock.findOneBySerial(CertificateSerial.valueOf(10))).willReturn(
                 Optional.of(certificateEntity)
         );
 
-        final CertificateEntity confirmedEntity = immediateCertificatePersistence.confirm(BigInteger.TEN.toString(),
+        final CertificateEntity confirmedEntity = immediateCertificatePersistence.confirm(CertificateSerial.valueOf(
+                10).toString(),
                 TEST_USER_ID);
 
         assertThat(confirmedEntity, is(certificateEntity));
@@ -87,7 +101,7 @@ public class ImmediateCertificatePersistenceTest {
     public void confirmNonExistingCertificate() {
         given(certificateRepositoryMock.findOneBySerial(any())).willReturn(Optional.empty());
 
-        immediateCertificatePersistence.confirm(BigInteger.TEN.toString(), TEST_USER_ID);
+        immediateCertificatePersistence.confirm(CertificateSerial.valueOf(10).toString(), TEST_USER_ID);
     }
 
     @Test(expected = CertificateNotFoundException.class)
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package ch.zhaw.ba.anath.pki.services;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+
+/**
+ * @author Rafael Ostertag
+ */
+public class RedisUseChangeNotificationServiceImplTest {
+    private static final String TEST_USE = "test.use";
+    private UseCatalogue useCatalogueMock;
+    private StringRedisTemplate stringRedisTemplateMock;
+    private RedisUseChangeNotificationServiceImpl redisUseChangeNotificationService;
+
+    @Before
+    public void setUp() {
+        useCatalogueMock = mock(UseCatalogue.class);
+        stringRedisTemplateMock = mock(StringRedisTemplate.class);
+        redisUseChangeNotificationService = new RedisUseChangeNotificationServiceImpl(useCatalogueMock,
+                stringRedisTemplateMock);
+    }
+
+    @Test
+    public void useChanged() {
+        redisUseChangeNotificationService.useChanged(TEST_USE);
+
+        then(useCatalogueMock).should().invalidate(TEST_USE);
+        then(stringRedisTemplateMock).should().convertAndSend(RedisUseChangeNotificationServiceImpl
+                .USE_CHANGE_CHANNEL, TEST_USE);
+    }
+
+    @Test
+    public void useChangedWithRedisUnavailable() {
+        willThrow(new RedisConnectionFailureException("unavailable")).given(stringRedisTemplateMock)
+                .convertAndSend(RedisUseChangeNotificationServiceImpl.USE_CHANGE_CHANNEL, TEST_USE);
+
+        redisUseChangeNotificationService.useChanged(TEST_USE);
+
+        then(useCatalogueMock).should().invalidate(TEST_USE);
+    }
+
+    @Test
+    public void onMessage() {
+        redisUseChangeNotificationService.onMessage(new DefaultMessage(RedisUseChangeNotificationServiceImpl
+                .USE_CHANGE_CHANNEL.getBytes(), TEST_USE.getBytes()), null);
+
+        then(useCatalogueMock).should().invalidate(TEST_USE);
+    }
+}
@@ -74,6 +74,9 @@ public class RevocationServiceIT extends CertificateAuthorityInitializer {
     @Autowired
     private SecureStoreService secureStoreService;
 
+    @Autowired
+    private CertificatePemCache certificatePemCache;
+
     @Before
     public void setUp() throws IOException {
         initializeCa();
@@ -97,6 +100,28 @@ public class RevocationServiceIT extends CertificateAuthorityInitializer {
         testCrlNonEmpty();
     }
 
+    @Test
+    public void revokeCertificateInvalidatesCache() throws IOException {
+        final Certificate certificate = TestHelper.signAndAddCertificate(signingService, "plain");
+        certificatePemCache.getPemCertificate(certificate.getSerial());
+        final long missesBeforeRevocation = getCacheMisses();
+
+        revocationService.revokeCertificate(certificate.getSerial(), "test");
+
+        certificatePemCache.getPemCertificate(certificate.getSerial());
+        assertThat(getCacheMisses(), is(missesBeforeRevocation + 1));
+    }
+
+    private long getCacheMisses() {
+        return certificatePemCache.metrics()
+                .stream()
+                .filter(metric -> metric.getName().equals(CertificatePemCache.METRIC_PREFIX + "misses"))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("misses metric not found"))
+                .getValue()
+                .longValue();
+    }
+
     @Test
     public void revokeCertificatesByUser() throws IOException {
         testWhetherCrlIsEmpty();
@@ -130,6 +155,15 @@ public class RevocationServiceIT extends CertificateAuthorityInitializer {
         }
     }
 
+    @Test
+    public void warmUpDoesNotPersistCrl() {
+        testWhetherCrlIsEmpty();
+
+        revocationService.warmUp(3);
+
+        testWhetherCrlIsEmpty();
+    }
+
     @Test
     public void updateCertificateRevocationListEmpty() {
         testWhetherCrlIsEmpty();
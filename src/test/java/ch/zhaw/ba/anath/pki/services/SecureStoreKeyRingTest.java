@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.services;
+
+import ch.zhaw.ba.anath.pki.exceptions.SecureStoreException;
+import org.junit.Test;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Rafael Ostertag
+ */
+public class SecureStoreKeyRingTest {
+    private static final String ALGORITHM = "AES/CBC/PKCS5Padding";
+
+    @Test
+    public void activeKeyOnly() {
+        final SecureStoreKeyRing keyRing = new SecureStoreKeyRing("secret", Collections.emptyList());
+
+        assertThat(keyRing.getActiveKeyId().length(), is(16));
+        assertThat(keyRing.getKeyIds(), contains(keyRing.getActiveKeyId()));
+        assertThat(keyRing.getPreviousKeyIds(), is(empty()));
+    }
+
+    @Test
+    public void keyIdIsStable() {
+        final SecureStoreKeyRing keyRing1 = new SecureStoreKeyRing("secret", Collections.emptyList());
+        final SecureStoreKeyRing keyRing2 = new SecureStoreKeyRing("secret", Collections.emptyList());
+        final SecureStoreKeyRing keyRing3 = new SecureStoreKeyRing("another secret", Collections.emptyList());
+
+        assertThat(keyRing1.getActiveKeyId(), is(keyRing2.getActiveKeyId()));
+        assertThat(keyRing1.getActiveKeyId(), is(not(keyRing3.getActiveKeyId())));
+    }
+
+    @Test
+    public void previousKeys() {
+        final SecureStoreKeyRing previousKeyRing = new SecureStoreKeyRing("old secret", Collections.emptyList());
+        final SecureStoreKeyRing keyRing = new SecureStoreKeyRing("secret", Arrays.asList("old secret", "secret"));
+
+        assertThat(keyRing.getKeyIds(), contains(keyRing.getActiveKeyId(), previousKeyRing.getActiveKeyId()));
+        assertThat(keyRing.getPreviousKeyIds(), contains(previousKeyRing.getActiveKeyId()));
+    }
+
+    @Test
+    public void getSecretKeySpec() {
+        final SecureStoreKeyRing previousKeyRing = new SecureStoreKeyRing("old secret", Collections.emptyList());
+        final SecureStoreKeyRing keyRing = new SecureStoreKeyRing("secret", Collections.singletonList("old secret"));
+
+        final SecretKeySpec activeKey = keyRing.getSecretKeySpec(keyRing.getActiveKeyId(), ALGORITHM);
+        final SecretKeySpec previousKey = keyRing.getSecretKeySpec(previousKeyRing.getActiveKeyId(), ALGORITHM);
+
+        assertThat(activeKey.getEncoded().length, is(32));
+        assertThat(activeKey.getAlgorithm(), is(ALGORITHM));
+        assertThat(previousKey.getEncoded(), is(previousKeyRing.getSecretKeySpec(previousKeyRing.getActiveKeyId(),
+                ALGORITHM).getEncoded()));
+        assertThat(activeKey.getEncoded(), is(not(previousKey.getEncoded())));
+    }
+
+    @Test(expected = SecureStoreException.class)
+    public void getSecretKeySpecUnknownKeyId() {
+        final SecureStoreKeyRing keyRing = new SecureStoreKeyRing("secret", Collections.emptyList());
+        keyRing.getSecretKeySpec("0011223344556677", ALGORITHM);
+    }
+
+    @Test(expected = SecureStoreException.class)
+    public void noActiveSecret() {
+        new SecureStoreKeyRing(null, Collections.emptyList());
+    }
+}
@@ -29,7 +29,10 @@
 
 package ch.zhaw.ba.anath.pki.services;
 
-import org.apache.commons.lang3.ArrayUtils;
+import ch.zhaw.ba.anath.config.properties.AnathProperties;
+import ch.zhaw.ba.anath.pki.entities.SecureEntity;
+import ch.zhaw.ba.anath.pki.exceptions.SecureStoreException;
+import ch.zhaw.ba.anath.pki.repositories.SecureRepository;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -41,10 +44,14 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Optional;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
 
 /**
  * @author Rafael Ostertag
@@ -64,16 +71,18 @@ public class SecureStoreServiceIT {
     @Autowired
     private SecureStoreService secureStoreService;
 
+    @Autowired
+    private SecureRepository secureRepository;
+
     @Test
     public void putNewKey() {
         final byte[] testData = new byte[]{'a', 'b', 'c'};
         secureStoreService.put(TEST_KEY, testData);
 
-        final Optional<Byte[]> optionalData = secureStoreService.get(TEST_KEY);
+        final Optional<byte[]> optionalData = secureStoreService.read(TEST_KEY, SecureStoreServiceIT::copyBuffer);
         assertThat(optionalData.isPresent(), is(true));
 
-        final Byte[] bytes = optionalData.get();
-        final byte[] actual = ArrayUtils.toPrimitive(bytes);
+        final byte[] actual = optionalData.get();
 
         assertThat(actual, is(testData));
     }
@@ -87,11 +96,10 @@ public class SecureStoreServiceIT {
         final byte[] testData = new byte[]{'d', 'e', 'f'};
         secureStoreService.put(TEST_KEY, testData);
 
-        final Optional<Byte[]> optionalData = secureStoreService.get(TEST_KEY);
+        final Optional<byte[]> optionalData = secureStoreService.read(TEST_KEY, SecureStoreServiceIT::copyBuffer);
         assertThat(optionalData.isPresent(), is(true));
 
-        final Byte[] bytes = optionalData.get();
-        final byte[] actual = ArrayUtils.toPrimitive(bytes);
+        final byte[] actual = optionalData.get();
 
         assertThat(actual, is(testData));
     }
@@ -101,12 +109,153 @@ public class SecureStoreServiceIT {
         final byte[] testData = "Data exceeding block size".getBytes();
         secureStoreService.put(TEST_KEY, testData);
 
-        final Optional<Byte[]> optionalData = secureStoreService.get(TEST_KEY);
+        final Optional<byte[]> optionalData = secureStoreService.read(TEST_KEY, SecureStoreServiceIT::copyBuffer);
         assertThat(optionalData.isPresent(), is(true));
 
-        final Byte[] bytes = optionalData.get();
-        final byte[] actual = ArrayUtils.toPrimitive(bytes);
+        final byte[] actual = optionalData.get();
 
         assertThat(actual, is(testData));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void readNonExistingKey() {
+        final Optional<byte[]> optionalData = secureStoreService.read(TEST_KEY, SecureStoreServiceIT::copyBuffer);
+        assertThat(optionalData.isPresent(), is(false));
+    }
+
+    @Test
+    public void readProvidesReadOnlyBuffer() {
+        secureStoreService.put(TEST_KEY, new byte[]{'a', 'b', 'c'});
+
+        final Optional<Boolean> optionalReadOnly = secureStoreService.read(TEST_KEY, ByteBuffer::isReadOnly);
+        assertThat(optionalReadOnly.get(), is(true));
+    }
+
+    @Test
+    public void readWipesBufferAfterUse() {
+        final byte[] testData = "Data exceeding block size".getBytes();
+        secureStoreService.put(TEST_KEY, testData);
+
+        final Optional<ByteBuffer> optionalLeakedBuffer = secureStoreService.read(TEST_KEY, ByteBuffer::duplicate);
+        assertThat(optionalLeakedBuffer.isPresent(), is(true));
+
+        final byte[] leakedData = copyBuffer(optionalLeakedBuffer.get());
+        assertThat(leakedData.length, is(testData.length));
+        assertThat(leakedData, is(new byte[testData.length]));
+    }
+
+    @Test
+    public void contains() {
+        assertThat(secureStoreService.contains(TEST_KEY), is(false));
+
+        secureStoreService.put(TEST_KEY, new byte[]{'a', 'b', 'c'});
+        assertThat(secureStoreService.contains(TEST_KEY), is(true));
+    }
+
+    @Test
+    public void readWithPreviousKey() {
+        final byte[] testData = "Data exceeding block size".getBytes();
+        final SecureStoreService oldSecureStoreService = makeSecureStoreService("old secret");
+        oldSecureStoreService.put(TEST_KEY, testData);
+
+        final SecureStoreService newSecureStoreService = makeSecureStoreService("new secret", "old secret");
+        final Optional<byte[]> optionalData = newSecureStoreService.read(TEST_KEY, SecureStoreServiceIT::copyBuffer);
+
+        assertThat(optionalData.get(), is(testData));
+    }
+
+    @Test(expected = SecureStoreException.class)
+    public void readWithUnknownKey() {
+        makeSecureStoreService("old secret").put(TEST_KEY, new byte[]{'a', 'b', 'c'});
+
+        makeSecureStoreService("new secret").read(TEST_KEY, SecureStoreServiceIT::copyBuffer);
+    }
+
+    @Test(expected = SecureStoreException.class)
+    public void readWithoutKeyId() {
+        makeSecureStoreService("old secret").put(TEST_KEY, new byte[]{'a', 'b', 'c'});
+        removeKeyId(TEST_KEY);
+
+        makeSecureStoreService("new secret", "old secret").read(TEST_KEY, SecureStoreServiceIT::copyBuffer);
+    }
+
+    @Test
+    public void putUsesActiveKey() {
+        final SecureStoreService newSecureStoreService = makeSecureStoreService("new secret", "old secret");
+        newSecureStoreService.put(TEST_KEY, new byte[]{'a', 'b', 'c'});
+
+        final SecureStoreService oldSecureStoreService = makeSecureStoreService("old secret");
+        oldSecureStoreService.put(TEST_KEY + "2", new byte[]{'a', 'b', 'c'});
+
+        final String newKeyId = secureRepository.findOneByKey(TEST_KEY).get().getKeyId();
+        final String oldKeyId = secureRepository.findOneByKey(TEST_KEY + "2").get().getKeyId();
+        assertThat(newKeyId, is(not(oldKeyId)));
+    }
+
+    @Test
+    public void reEncrypt() {
+        final byte[] testData1 = new byte[]{'a', 'b', 'c'};
+        final byte[] testData2 = "Data exceeding block size".getBytes();
+        final byte[] testData3 = new byte[]{'d', 'e', 'f'};
+
+        final SecureStoreService oldSecureStoreService = makeSecureStoreService("old secret");
+        oldSecureStoreService.put(TEST_KEY + "1", testData1);
+        oldSecureStoreService.put(TEST_KEY + "2", testData2);
+        oldSecureStoreService.put(TEST_KEY + "3", testData3);
+
+        final SecureStoreService newSecureStoreService = makeSecureStoreService("new secret", "old secret");
+        assertThat(newSecureStoreService.needsReEncryption(), is(true));
+        assertThat(newSecureStoreService.reEncrypt(2), is(2));
+        assertThat(newSecureStoreService.reEncrypt(2), is(1));
+        assertThat(newSecureStoreService.reEncrypt(2), is(0));
+        assertThat(newSecureStoreService.needsReEncryption(), is(false));
+        entityManager.flush();
+        entityManager.clear();
+
+        final SecureStoreService newOnlySecureStoreService = makeSecureStoreService("new secret");
+        assertThat(newOnlySecureStoreService.read(TEST_KEY + "1", SecureStoreServiceIT::copyBuffer).get(), is
+                (testData1));
+        assertThat(newOnlySecureStoreService.read(TEST_KEY + "2", SecureStoreServiceIT::copyBuffer).get(), is
+                (testData2));
+        assertThat(newOnlySecureStoreService.read(TEST_KEY + "3", SecureStoreServiceIT::copyBuffer).get(), is
+                (testData3));
+    }
+
+    @Test
+    public void reEncryptSkipsUnknownKey() {
+        makeSecureStoreService("unknown secret").put(TEST_KEY, new byte[]{'a', 'b', 'c'});
+
+        assertThat(makeSecureStoreService("new secret", "old secret").needsReEncryption(), is(false));
+        assertThat(makeSecureStoreService("new secret", "old secret").reEncrypt(10), is(0));
+    }
+
+    @Test
+    public void reEncryptSkipsRowsWithoutKeyId() {
+        makeSecureStoreService("old secret").put(TEST_KEY, new byte[]{'a', 'b', 'c'});
+        removeKeyId(TEST_KEY);
+
+        assertThat(makeSecureStoreService("new secret", "old secret").reEncrypt(10), is(0));
+        assertThat(secureRepository.findOneByKey(TEST_KEY).get().getKeyId(), is(nullValue()));
+    }
+
+    private SecureStoreService makeSecureStoreService(String secretKey, String... previousSecretKeys) {
+        final AnathProperties anathProperties = new AnathProperties();
+        anathProperties.setSecretKey(secretKey);
+        anathProperties.setPreviousSecretKeys(Arrays.asList(previousSecretKeys));
+        return new SecureStoreService(secureRepository, anathProperties);
+    }
+
+    private void removeKeyId(String key) {
+        final SecureEntity secureEntity = secureRepository.findOneByKey(key).get();
+        secureEntity.setKeyId(null);
+        secureRepository.save(secureEntity);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private static byte[] copyBuffer(ByteBuffer buffer) {
+        final byte[] copy = new byte[buffer.remaining()];
+        buffer.get(copy);
+        return copy;
+    }
+}
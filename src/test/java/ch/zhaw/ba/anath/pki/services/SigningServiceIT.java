@@ -40,6 +40,9 @@ import ch.zhaw.ba.anath.pki.entities.UseEntity;
 import ch.zhaw.ba.anath.pki.exceptions.CertificateAlreadyExistsException;
 import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
 import ch.zhaw.ba.anath.pki.repositories.UseRepository;
+import org.bouncycastle.asn1.x509.ExtendedKeyUsage;
+import org.bouncycastle.asn1.x509.KeyPurposeId;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -68,11 +71,13 @@ import static org.mockito.BDDMockito.then;
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
 @ActiveProfiles("tests")
 @TestPropertySource(properties = {
-        "anath.secret-key=abcdefghijklmnopqrst1234"
+        "anath.secret-key=abcdefghijklmnopqrst1234",
+        "anath.pki.server-certificate-uses=" + SigningServiceIT.SERVER_CERTIFICATE_USE_NAME
 })
 @Transactional(transactionManager = "pkiTransactionManager")
 public class SigningServiceIT extends CertificateAuthorityInitializer {
     public static final String TEST_CERTIFIACTE_USE_NAME = "test use";
+    static final String SERVER_CERTIFICATE_USE_NAME = "server use";
     private static final String TEST_USER_ID = "test id";
 
     @Autowired
@@ -84,6 +89,9 @@ public class SigningServiceIT extends CertificateAuthorityInitializer {
     @Autowired
     private UseRepository useRepository;
 
+    @Autowired
+    private UseCatalogue useCatalogue;
+
     @Autowired
     private CertificateRepository certificateRepository;
 
@@ -92,6 +100,13 @@ public class SigningServiceIT extends CertificateAuthorityInitializer {
         initializeCa();
     }
 
+    @After
+    public void tearDown() {
+        // The use catalogue might have cached uses of the rolled back transaction
+        useCatalogue.invalidate(TEST_CERTIFIACTE_USE_NAME);
+        useCatalogue.invalidate(SERVER_CERTIFICATE_USE_NAME);
+    }
+
     @Test
     public void sign() throws Exception {
         final Certificate certificate;
@@ -117,6 +132,11 @@ public class SigningServiceIT extends CertificateAuthorityInitializer {
         assertThat(useEntity, is(not(nullValue())));
         assertThat(useEntity.getUse(), is(UseEntity.DEFAULT_USE));
 
+        final ExtendedKeyUsage extendedKeyUsage = ExtendedKeyUsage.fromExtensions(certificate.getCertificateHolder()
+                .getExtensions());
+        assertThat(extendedKeyUsage.hasKeyPurposeId(KeyPurposeId.id_kp_clientAuth), is(true));
+        assertThat(extendedKeyUsage.hasKeyPurposeId(KeyPurposeId.id_kp_serverAuth), is(false));
+
         then(confirmationNotificationService).should().sendMail(certificate.getSerial().toString(), TEST_USER_ID);
     }
 
@@ -134,6 +154,18 @@ public class SigningServiceIT extends CertificateAuthorityInitializer {
         return certificate;
     }
 
+    @Test
+    public void warmUpDoesNotPersistCertificates() {
+        final int certificatesBeforeWarmUp = certificateRepository.findAll().size();
+
+        signingService.warmUp(3);
+        // The throwaway CA of the first warm-up is reused.
+        signingService.warmUp(1);
+
+        flushAndClear();
+        assertThat(certificateRepository.findAll(), hasSize(certificatesBeforeWarmUp));
+    }
+
     @Test
     public void signCertificateWithSameRevoked() throws Exception {
         final Certificate certificateToBeRevoked;
@@ -171,6 +203,11 @@ public class SigningServiceIT extends CertificateAuthorityInitializer {
         assertThat(useEntity, is(not(nullValue())));
         assertThat(useEntity.getUse(), is(UseEntity.DEFAULT_USE));
 
+        final ExtendedKeyUsage extendedKeyUsage = ExtendedKeyUsage.fromExtensions(certificate.getCertificateHolder()
+                .getExtensions());
+        assertThat(extendedKeyUsage.hasKeyPurposeId(KeyPurposeId.id_kp_clientAuth), is(true));
+        assertThat(extendedKeyUsage.hasKeyPurposeId(KeyPurposeId.id_kp_serverAuth), is(false));
+
         then(confirmationNotificationService).should().sendMail(certificate.getSerial().toString(), TEST_USER_ID);
     }
 
@@ -199,6 +236,11 @@ public class SigningServiceIT extends CertificateAuthorityInitializer {
         assertThat(useEntity, is(not(nullValue())));
         assertThat(useEntity.getUse(), is(UseEntity.DEFAULT_USE));
 
+        final ExtendedKeyUsage extendedKeyUsage = ExtendedKeyUsage.fromExtensions(certificate.getCertificateHolder()
+                .getExtensions());
+        assertThat(extendedKeyUsage.hasKeyPurposeId(KeyPurposeId.id_kp_clientAuth), is(true));
+        assertThat(extendedKeyUsage.hasKeyPurposeId(KeyPurposeId.id_kp_serverAuth), is(false));
+
         then(confirmationNotificationService).should().sendMail(certificate.getSerial().toString(), TEST_USER_ID);
     }
 
@@ -209,6 +251,7 @@ public class SigningServiceIT extends CertificateAuthorityInitializer {
         testUseEntity.setConfig(null);
 
         useRepository.save(testUseEntity);
+        useCatalogue.invalidate(TEST_CERTIFIACTE_USE_NAME);
 
         flushAndClear();
 
@@ -229,6 +272,25 @@ public class SigningServiceIT extends CertificateAuthorityInitializer {
         then(confirmationNotificationService).should().sendMail(certificate.getSerial().toString(), TEST_USER_ID);
     }
 
+    @Test
+    public void signWithServerCertificateUse() throws Exception {
+        final UseEntity serverUseEntity = new UseEntity();
+        serverUseEntity.setUse(SERVER_CERTIFICATE_USE_NAME);
+        serverUseEntity.setConfig(null);
+
+        useRepository.save(serverUseEntity);
+        useCatalogue.invalidate(SERVER_CERTIFICATE_USE_NAME);
+
+        flushAndClear();
+
+        final Certificate certificate = TestHelper.signAndAddCertificate(signingService, SERVER_CERTIFICATE_USE_NAME);
+
+        final ExtendedKeyUsage extendedKeyUsage = ExtendedKeyUsage.fromExtensions(certificate.getCertificateHolder()
+                .getExtensions());
+        assertThat(extendedKeyUsage.hasKeyPurposeId(KeyPurposeId.id_kp_serverAuth), is(true));
+        assertThat(extendedKeyUsage.hasKeyPurposeId(KeyPurposeId.id_kp_clientAuth), is(false));
+    }
+
     @Test(expected = CertificateAlreadyExistsException.class)
     public void signSameCSRTwice() throws Exception {
         try (InputStreamReader csr = new InputStreamReader(new FileInputStream(TestConstants.CLIENT_CSR_FILE_NAME))) {
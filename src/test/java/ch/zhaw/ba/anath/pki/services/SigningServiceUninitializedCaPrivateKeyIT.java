@@ -82,4 +82,10 @@ public class SigningServiceUninitializedCaPrivateKeyIT extends CertificateAuthor
                     UseEntity.DEFAULT_USE);
         }
     }
-}
\ No newline at end of file
+
+    @Test(expected = CertificateAuthorityNotInitializedException.class)
+    public void warmUpWithUninitializedCAPrivateKey() throws Exception {
+        initializeCaCertificate();
+        signingService.warmUp(1);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package ch.zhaw.ba.anath.pki.services;
+
+import ch.zhaw.ba.anath.pki.entities.UseEntity;
+import ch.zhaw.ba.anath.pki.repositories.UseRepository;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+
+/**
+ * @author Rafael Ostertag
+ */
+public class UseCatalogueTest {
+    private static final String TEST_USE = "test.use";
+    private UseRepository useRepositoryMock;
+    private ConfigurationTemplateService configurationTemplateServiceMock;
+    private UseCatalogue useCatalogue;
+
+    @Before
+    public void setUp() {
+        useRepositoryMock = mock(UseRepository.class);
+        configurationTemplateServiceMock = mock(ConfigurationTemplateService.class);
+        useCatalogue = new UseCatalogue(useRepositoryMock, configurationTemplateServiceMock);
+
+        given(useRepositoryMock.findAll()).willReturn(Arrays.asList(
+                makeUseEntity(UseEntity.DEFAULT_USE, null),
+                makeUseEntity(TEST_USE, "config".getBytes())
+        ));
+    }
+
+    private UseEntity makeUseEntity(String use, byte[] config) {
+        final UseEntity useEntity = new UseEntity();
+        useEntity.setUse(use);
+        useEntity.setConfig(config);
+        return useEntity;
+    }
+
+    @Test
+    public void findUse() {
+        final Optional<UseEntity> use = useCatalogue.findUse(TEST_USE);
+        assertThat(use.isPresent(), is(true));
+        assertThat(use.get().getUse(), is(TEST_USE));
+        assertThat(use.get().getConfig(), is("config".getBytes()));
+
+        final Optional<UseEntity> plain = useCatalogue.findUse(UseEntity.DEFAULT_USE);
+        assertThat(plain.isPresent(), is(true));
+        assertThat(plain.get().getConfig(), is(nullValue()));
+
+        then(useRepositoryMock).should(times(1)).findAll();
+    }
+
+    @Test
+    public void findNonExistingUse() {
+        assertThat(useCatalogue.findUse("does not exist").isPresent(), is(false));
+        assertThat(useCatalogue.findUse("does not exist").isPresent(), is(false));
+
+        then(useRepositoryMock).should(times(1)).findAll();
+    }
+
+    @Test
+    public void findUseReturnsCopy() {
+        final UseEntity useEntity = makeUseEntity(TEST_USE, null);
+        given(useRepositoryMock.findAll()).willReturn(Collections.singletonList(useEntity));
+
+        final Optional<UseEntity> use = useCatalogue.findUse(TEST_USE);
+        assertThat(use.isPresent(), is(true));
+        assertThat(use.get(), is(not(sameInstance(useEntity))));
+    }
+
+    @Test
+    public void invalidate() {
+        useCatalogue.findUse(TEST_USE);
+
+        given(useRepositoryMock.findAll()).willReturn(Collections.singletonList(makeUseEntity(UseEntity
+                .DEFAULT_USE, null)));
+        useCatalogue.invalidate(TEST_USE);
+
+        assertThat(useCatalogue.findUse(TEST_USE).isPresent(), is(false));
+        assertThat(useCatalogue.findUse(UseEntity.DEFAULT_USE).isPresent(), is(true));
+
+        then(useRepositoryMock).should(times(2)).findAll();
+        then(configurationTemplateServiceMock).should().invalidate(TEST_USE);
+    }
+
+    @Test
+    public void getReference() {
+        final UseEntity reference = makeUseEntity(TEST_USE, null);
+        given(useRepositoryMock.getOne(TEST_USE)).willReturn(reference);
+
+        final UseEntity actual = useCatalogue.getReference(makeUseEntity(TEST_USE, null));
+        assertThat(actual, is(sameInstance(reference)));
+    }
+}
@@ -31,6 +31,7 @@ package ch.zhaw.ba.anath.pki.services;
 
 import ch.zhaw.ba.anath.pki.dto.UseDto;
 import ch.zhaw.ba.anath.pki.dto.UseItemDto;
+import ch.zhaw.ba.anath.pki.entities.UseEntity;
 import ch.zhaw.ba.anath.pki.exceptions.UseCreationException;
 import ch.zhaw.ba.anath.pki.exceptions.UseDeleteException;
 import ch.zhaw.ba.anath.pki.exceptions.UseNotFoundException;
@@ -39,14 +40,18 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.reset;
 
 /**
  * @author Rafael Ostertag
@@ -61,6 +66,12 @@ public class UseServiceIT {
     @Autowired
     private UseService useService;
 
+    @SpyBean
+    private ConfigurationTemplateService configurationTemplateService;
+
+    @Autowired
+    private UseCatalogue useCatalogue;
+
     @Test
     public void create() {
         final UseDto useDto = new UseDto();
@@ -73,6 +84,20 @@ public class UseServiceIT {
         assertThat(actual, is(equalTo(useDto)));
     }
 
+    @Test
+    public void createInvalidatesUseCatalogue() {
+        assertThat(useCatalogue.findUse(TEST_USE).isPresent(), is(false));
+
+        final UseDto useDto = new UseDto();
+        useDto.setUse(TEST_USE);
+        useDto.setConfiguration("the configuration");
+        useService.create(useDto);
+
+        final Optional<UseEntity> use = useCatalogue.findUse(TEST_USE);
+        assertThat(use.isPresent(), is(true));
+        assertThat(use.get().getConfig(), is("the configuration".getBytes()));
+    }
+
     @Test(expected = UseCreationException.class)
     public void createExistingUse() {
         final UseDto useDto = new UseDto();
@@ -116,7 +141,9 @@ public class UseServiceIT {
         useDto.setUse(TEST_USE);
 
         useService.create(useDto);
+        reset(configurationTemplateService);
         useService.delete(TEST_USE);
+        then(configurationTemplateService).should().invalidate(TEST_USE);
 
         try {
             useService.getUse(TEST_USE);
@@ -131,9 +158,11 @@ public class UseServiceIT {
         useDto.setUse(TEST_USE);
 
         useService.create(useDto);
+        reset(configurationTemplateService);
 
         final UseItemDto updatedItem = useService.updateUse(TEST_USE, "the configuration");
         assertThat(updatedItem.getUse(), is(TEST_USE));
+        then(configurationTemplateService).should().invalidate(TEST_USE);
 
         final UseDto use = useService.getUse(TEST_USE);
         assertThat(use.getUse(), is(TEST_USE));
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.pki.utilities;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * @author Rafael Ostertag
+ */
+public class ByteBufferInputStreamTest {
+    private static final byte[] TEST_DATA = new byte[]{'a', 'b', (byte) 0xff, 'c'};
+
+    @Test
+    public void readSingleBytes() {
+        final ByteBufferInputStream inputStream = new ByteBufferInputStream(ByteBuffer.wrap(TEST_DATA));
+
+        assertThat(inputStream.available(), is(4));
+        assertThat(inputStream.read(), is((int) 'a'));
+        assertThat(inputStream.read(), is((int) 'b'));
+        assertThat(inputStream.read(), is(0xff));
+        assertThat(inputStream.read(), is((int) 'c'));
+        assertThat(inputStream.read(), is(-1));
+        assertThat(inputStream.available(), is(0));
+    }
+
+    @Test
+    public void readIntoArray() {
+        final ByteBufferInputStream inputStream = new ByteBufferInputStream(ByteBuffer.wrap(TEST_DATA)
+                .asReadOnlyBuffer());
+
+        final byte[] buffer = new byte[10];
+        assertThat(inputStream.read(buffer, 1, 3), is(3));
+        assertThat(buffer[1], is((byte) 'a'));
+        assertThat(buffer[3], is((byte) 0xff));
+
+        assertThat(inputStream.read(buffer, 0, 10), is(1));
+        assertThat(buffer[0], is((byte) 'c'));
+
+        assertThat(inputStream.read(buffer, 0, 10), is(-1));
+        assertThat(inputStream.read(buffer, 0, 0), is(0));
+    }
+
+    @Test
+    public void skip() {
+        final ByteBufferInputStream inputStream = new ByteBufferInputStream(ByteBuffer.wrap(TEST_DATA));
+
+        assertThat(inputStream.skip(2), is(2L));
+        assertThat(inputStream.read(), is(0xff));
+        assertThat(inputStream.skip(10), is(1L));
+        assertThat(inputStream.skip(-1), is(0L));
+    }
+}
@@ -32,6 +32,7 @@ package ch.zhaw.ba.anath.users.controllers;
 import ch.zhaw.ba.anath.AnathExtensionMediaType;
 import ch.zhaw.ba.anath.TestHelper;
 import ch.zhaw.ba.anath.TestSecuritySetup;
+import ch.zhaw.ba.anath.pki.repositories.ArchivedCertificateRepository;
 import ch.zhaw.ba.anath.pki.repositories.CertificateRepository;
 import ch.zhaw.ba.anath.pki.services.RevocationService;
 import ch.zhaw.ba.anath.users.dto.*;
@@ -94,6 +95,9 @@ public class UserControllerIT {
     @MockBean
     private CertificateRepository certificateRepository;
 
+    @MockBean
+    private ArchivedCertificateRepository archivedCertificateRepository;
+
     @Test
     @WithMockUser(username = "admin", roles = {"ADMIN"})
     public void getAllAsAdmin() throws Exception {
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.users.migrations;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Runs the user migrations against an empty database, inserts users using identity ids before
+ * {@link V1_2__Pooled_Sequence_Ids}, and verifies the start of the sequence.
+ *
+ * @author Rafael Ostertag
+ */
+public class V1_2__Pooled_Sequence_IdsIT {
+    private JdbcDataSource dataSource;
+    private Flyway flyway;
+
+    @Before
+    public void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:usersequencemigrationtest;MODE=POSTGRESQL;DB_CLOSE_DELAY=-1");
+
+        flyway = new Flyway();
+        flyway.setDataSource(dataSource);
+        flyway.setLocations("/flyway/users", "classpath:ch/zhaw/ba/anath/users/migrations");
+        flyway.clean();
+    }
+
+    @Test
+    public void migrate() throws Exception {
+        flyway.setTarget(MigrationVersion.fromVersion("1.1"));
+        flyway.migrate();
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO users (firstname, lastname, email, password) VALUES ('first', 'last', " +
+                    "'user1', 'password')");
+            statement.execute("INSERT INTO users (firstname, lastname, email, password) VALUES ('first', 'last', " +
+                    "'user2', 'password')");
+            statement.execute("INSERT INTO users (firstname, lastname, email, password) VALUES ('first', 'last', " +
+                    "'user3', 'password')");
+        }
+
+        flyway.setTarget(MigrationVersion.LATEST);
+        flyway.migrate();
+
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT NEXTVAL('users_seq')")) {
+            assertThat(resultSet.next(), is(true));
+            assertThat(resultSet.getLong(1), is(3L + V1_2__Pooled_Sequence_Ids.ALLOCATION_SIZE));
+        }
+    }
+}
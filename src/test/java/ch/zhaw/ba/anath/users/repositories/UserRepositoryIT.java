@@ -35,12 +35,12 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
-import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.PersistenceException;
 import java.util.List;
 import java.util.Optional;
 
@@ -159,7 +159,8 @@ public class UserRepositoryIT {
         assertThat(userEntity, is(nullValue()));
     }
 
-    @Test(expected = DataIntegrityViolationException.class)
+    // Inserts are batched, hence the unique constraint is violated when the session is flushed, not upon save.
+    @Test(expected = PersistenceException.class)
     public void saveDuplicateEmail() {
         final UserEntity testEntity1 = makeTestEntity();
         testEntityManager.persistAndFlush(testEntity1);
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2018, Rafael Ostertag, Martin Wittwer
+ * All rights reserved.
+ *
+ * Redistribution and  use in  source and binary  forms, with  or without
+ * modification, are permitted provided that the following conditions are
+ * met:
+ *
+ * 1.  Redistributions of  source code  must retain  the above  copyright
+ *    notice, this list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in  binary form must reproduce  the above copyright
+ *    notice, this list of conditions and the following disclaimer in the
+ *    documentation   and/or   other    materials   provided   with   the
+ *    distribution.
+ *
+ * THIS SOFTWARE  IS PROVIDED BY  THE COPYRIGHT HOLDERS  AND CONTRIBUTORS
+ * "AS  IS" AND  ANY EXPRESS  OR IMPLIED  WARRANTIES, INCLUDING,  BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES  OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE  ARE DISCLAIMED. IN NO EVENT  SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL,
+ * SPECIAL,  EXEMPLARY,  OR  CONSEQUENTIAL DAMAGES  (INCLUDING,  BUT  NOT
+ * LIMITED TO, PROCUREMENT OF SUBSTITUTE  GOODS OR SERVICES; LOSS OF USE,
+ * DATA, OR PROFITS; OR BUSINESS  INTERRUPTION) HOWEVER CAUSED AND ON ANY
+ * THEORY OF  LIABILITY, WHETHER IN  CONTRACT, STRICT LIABILITY,  OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN  ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package ch.zhaw.ba.anath.users.services;
+
+import ch.zhaw.ba.anath.authentication.spring.UserVersionCache;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import static org.mockito.BDDMockito.then;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+
+/**
+ * @author Rafael Ostertag
+ */
+public class RedisUserChangeNotificationServiceImplTest {
+    private static final String TEST_EMAIL = "user:1@example.com";
+    private static final String TEST_MESSAGE = "7:42:" + TEST_EMAIL;
+    private UserVersionCache userVersionCacheMock;
+    private StringRedisTemplate stringRedisTemplateMock;
+    private RedisUserChangeNotificationServiceImpl redisUserChangeNotificationService;
+
+    @Before
+    public void setUp() {
+        userVersionCacheMock = mock(UserVersionCache.class);
+        stringRedisTemplateMock = mock(StringRedisTemplate.class);
+        redisUserChangeNotificationService = new RedisUserChangeNotificationServiceImpl(userVersionCacheMock,
+                stringRedisTemplateMock);
+    }
+
+    @Test
+    public void userChanged() {
+        redisUserChangeNotificationService.userChanged(TEST_EMAIL, 7L, 42L);
+
+        then(userVersionCacheMock).should().versionChanged(TEST_EMAIL, 7L, 42L);
+        then(stringRedisTemplateMock).should().convertAndSend(RedisUserChangeNotificationServiceImpl
+                .USER_CHANGE_CHANNEL, TEST_MESSAGE);
+    }
+
+    @Test
+    public void userChangedWithRedisUnavailable() {
+        willThrow(new RedisConnectionFailureException("unavailable")).given(stringRedisTemplateMock)
+                .convertAndSend(RedisUserChangeNotificationServiceImpl.USER_CHANGE_CHANNEL, TEST_MESSAGE);
+
+        redisUserChangeNotificationService.userChanged(TEST_EMAIL, 7L, 42L);
+
+        then(userVersionCacheMock).should().versionChanged(TEST_EMAIL, 7L, 42L);
+    }
+
+    @Test
+    public void onMessage() {
+        redisUserChangeNotificationService.onMessage(new DefaultMessage(RedisUserChangeNotificationServiceImpl
+                .USER_CHANGE_CHANNEL.getBytes(), TEST_MESSAGE.getBytes()), null);
+
+        then(userVersionCacheMock).should().versionChanged(TEST_EMAIL, 7L, 42L);
+    }
+
+    @Test
+    public void onMalformedMessage() {
+        redisUserChangeNotificationService.onMessage(new DefaultMessage(RedisUserChangeNotificationServiceImpl
+                .USER_CHANGE_CHANNEL.getBytes(), TEST_EMAIL.getBytes()), null);
+
+        then(userVersionCacheMock).should(never()).versionChanged(anyString(), anyLong(), anyLong());
+    }
+}
@@ -161,6 +161,27 @@ public class UserServiceIT {
         assertThat(actual.getFirstname(), is("another " + FIRSTNAME));
         assertThat(actual.getEmail(), is(EMAIL));
         assertThat(actual.getAdmin(), is(false));
+        assertThat(actual.getVersion(), is(1L));
+    }
+
+    @Test
+    public void updateUserKeepingRoles() {
+        final UserEntity userEntity = makeUserEntity();
+
+        userRepository.save(userEntity);
+        flushAndClear();
+
+        final UpdateUserDto updateUserDto = new UpdateUserDto();
+        updateUserDto.setAdmin(true);
+        updateUserDto.setLastname("another " + LASTNAME);
+        updateUserDto.setFirstname("another " + FIRSTNAME);
+
+        userService.updateUser(userEntity.getId(), updateUserDto);
+        flushAndClear();
+
+        final UserEntity actual = userRepository.findOne(userEntity.getId()).get();
+        assertThat(actual.getLastname(), is("another " + LASTNAME));
+        assertThat(actual.getVersion(), is(0L));
     }
 
     private UserEntity makeUserEntity() {